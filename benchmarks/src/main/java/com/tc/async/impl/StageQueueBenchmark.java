@@ -0,0 +1,113 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.async.impl;
+
+import com.tc.async.api.MultiThreadedEventContext;
+import com.tc.logging.DefaultLoggerProvider;
+import com.tc.util.concurrent.QueueFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of handing a context from a producer to a stage worker through {@link StageQueueImpl}.  All events use the same
+ * scheduling key so they land on the first queue whatever the queue count.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class StageQueueBenchmark {
+
+  @Param({ "1", "4" })
+  public int                    queueCount;
+
+  private StageQueueImpl<Event> queue;
+  private final Event           event = new Event(0);
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    // unbounded so that the producer never blocks once the consumer stops polling at the end of an iteration
+    this.queue = new StageQueueImpl<Event>(queueCount, new QueueFactory<ContextWrapper<Event>>(),
+                                           new DefaultLoggerProvider(), "benchmark", Integer.MAX_VALUE);
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    this.queue.clear();
+  }
+
+  /**
+   * Enqueue and dequeue on the same thread: the uncontended overhead of wrapping and routing a context.
+   */
+  @Benchmark
+  public Object addAndPoll() throws InterruptedException {
+    this.queue.addMultiThreaded(this.event);
+    return this.queue.getSource(0).poll(0);
+  }
+
+  @Benchmark
+  @Group("handoff")
+  @GroupThreads(1)
+  public void produce() {
+    this.queue.addMultiThreaded(this.event);
+  }
+
+  @Benchmark
+  @Group("handoff")
+  @GroupThreads(1)
+  public Object consume() throws InterruptedException {
+    return this.queue.getSource(0).poll(1);
+  }
+
+  private static final class Event implements MultiThreadedEventContext {
+    private final Integer key;
+
+    private Event(int key) {
+      this.key = key;
+    }
+
+    @Override
+    public Object getSchedulingKey() {
+      return this.key;
+    }
+
+    @Override
+    public boolean flush() {
+      return false;
+    }
+  }
+}
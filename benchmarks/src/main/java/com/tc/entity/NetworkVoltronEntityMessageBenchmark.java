@@ -0,0 +1,104 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.entity;
+
+import com.tc.bytes.TCByteBuffer;
+import com.tc.io.TCByteBufferOutputStream;
+import com.tc.net.ClientID;
+import com.tc.net.protocol.tcm.MessageMonitor;
+import com.tc.net.protocol.tcm.NullMessageMonitor;
+import com.tc.net.protocol.tcm.TCMessageHeader;
+import com.tc.net.protocol.tcm.TCMessageType;
+import com.tc.net.protocol.tcm.UnknownNameException;
+import com.tc.object.ClientInstanceID;
+import com.tc.object.EntityDescriptor;
+import com.tc.object.EntityID;
+import com.tc.object.session.SessionID;
+import com.tc.object.tx.TransactionID;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dehydrate and hydrate of an invoke through the {@link com.tc.net.protocol.tcm.TCMessageImpl} machinery, the way the
+ * client encodes it and the server decodes it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class NetworkVoltronEntityMessageBenchmark {
+
+  @Param({ "16", "1024", "16384" })
+  public int                     extendedDataSize;
+
+  private final MessageMonitor   monitor    = new NullMessageMonitor();
+  private final ClientID         clientID   = new ClientID(1);
+  private final EntityDescriptor descriptor = new EntityDescriptor(new EntityID("com.tc.Entity", "benchmark"),
+                                                                   ClientInstanceID.NULL_ID, 1);
+  private byte[]                 extendedData;
+  private long                   nextTransaction;
+
+  @Setup
+  public void setUp() {
+    this.extendedData = new byte[extendedDataSize];
+  }
+
+  @Benchmark
+  public TCByteBuffer[] dehydrate() {
+    return encode().getPayload();
+  }
+
+  @Benchmark
+  public NetworkVoltronEntityMessageImpl dehydrateHydrate() throws IOException, UnknownNameException {
+    NetworkVoltronEntityMessageImpl sent = encode();
+    NetworkVoltronEntityMessageImpl received = new NetworkVoltronEntityMessageImpl(SessionID.NULL_ID, this.monitor,
+                                                                                   null,
+                                                                                   (TCMessageHeader) sent.getHeader(),
+                                                                                   sent.getPayload());
+    received.hydrate();
+    return received;
+  }
+
+  private NetworkVoltronEntityMessageImpl encode() {
+    NetworkVoltronEntityMessageImpl message = new NetworkVoltronEntityMessageImpl(new SessionID(0), this.monitor,
+                                                                                  new TCByteBufferOutputStream(4, 4096, false),
+                                                                                  null,
+                                                                                  TCMessageType.VOLTRON_ENTITY_MESSAGE);
+    long txn = ++this.nextTransaction;
+    message.setContents(this.clientID, new TransactionID(txn), this.descriptor, VoltronEntityMessage.Type.INVOKE_ACTION,
+                        false, this.extendedData, new TransactionID(txn));
+    message.dehydrate();
+    return message;
+  }
+}
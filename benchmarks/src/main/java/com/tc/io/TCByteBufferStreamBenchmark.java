@@ -0,0 +1,96 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.io;
+
+import com.tc.bytes.TCByteBuffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode of a record shaped like a typical message body through {@link TCByteBufferOutputStream} and
+ * {@link TCByteBufferInputStream}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class TCByteBufferStreamBenchmark {
+
+  @Param({ "64", "1024", "65536" })
+  public int             payloadSize;
+
+  @Param({ "false", "true" })
+  public boolean         direct;
+
+  private byte[]         payload;
+  private TCByteBuffer[] encoded;
+
+  @Setup
+  public void setUp() {
+    this.payload = new byte[payloadSize];
+    Arrays.fill(this.payload, (byte) 42);
+    this.encoded = encode();
+  }
+
+  @Benchmark
+  public TCByteBuffer[] encode() {
+    TCByteBufferOutputStream out = new TCByteBufferOutputStream(4, 4096, direct);
+    out.writeLong(1L);
+    out.writeInt(2);
+    out.writeBoolean(true);
+    out.writeString("com.tc.io.TCByteBufferStreamBenchmark");
+    out.writeInt(this.payload.length);
+    out.write(this.payload);
+    out.close();
+    return out.toArray();
+  }
+
+  @Benchmark
+  public void decode(Blackhole bh) throws IOException {
+    TCByteBuffer[] data = new TCByteBuffer[this.encoded.length];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = this.encoded[i].duplicate().rewind();
+    }
+    TCByteBufferInputStream in = new TCByteBufferInputStream(data);
+    bh.consume(in.readLong());
+    bh.consume(in.readInt());
+    bh.consume(in.readBoolean());
+    bh.consume(in.readString());
+    byte[] body = new byte[in.readInt()];
+    in.readFully(body);
+    bh.consume(body);
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.object.locks;
+
+import com.tc.logging.TCLogging;
+import com.tc.net.ClientID;
+import com.tc.object.ClientIDProvider;
+import com.tc.object.session.NullSessionManager;
+import com.tc.object.session.SessionID;
+import com.tc.util.concurrent.TimerWheel;
+import com.tc.util.runtime.NullThreadIDMapImpl;
+import com.tc.util.runtime.ThreadIDManagerImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Acquire/release throughput of greedily held write locks on the client.  Every benchmark thread runs lock/unlock
+ * pairs on its own awarded lock, so after the first pair they are served by the client lock fast path.  Scale the
+ * thread count with the JMH "-t" option.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ClientLockBenchmark {
+
+  private final AtomicInteger   lockIds = new AtomicInteger();
+  private NoServerLockManager   remote;
+  private ClientLockManagerImpl manager;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.remote = new NoServerLockManager();
+    this.manager = new ClientLockManagerImpl(TCLogging.getLogger(ClientLockBenchmark.class), new NullSessionManager(),
+                                             new ClientIDProvider() {
+                                               @Override
+                                               public ClientID getClientID() {
+                                                 return remote.getClientID();
+                                               }
+                                             }, this.remote, new ThreadIDManagerImpl(new NullThreadIDMapImpl()),
+                                             new NullClientLockManagerConfig(), TimerWheel.shared());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.manager.shutdown(false);
+    // a greedy lock never has to go back to the server, anything else means the numbers are not for the fast path
+    if (this.remote.requests.get() != 0) {
+      throw new AssertionError(this.remote.requests.get() + " lock requests reached the server");
+    }
+  }
+
+  @Benchmark
+  public void lockUnlock(HeldLock held) {
+    this.manager.lock(held.lock, LockLevel.WRITE);
+    this.manager.unlock(held.lock, LockLevel.WRITE);
+  }
+
+  @State(Scope.Thread)
+  public static class HeldLock {
+    private LockID lock;
+
+    @Setup(Level.Trial)
+    public void award(ClientLockBenchmark benchmark) {
+      this.lock = new LongLockID(benchmark.lockIds.getAndIncrement());
+      benchmark.manager.award(new SessionID(0), this.lock, ThreadID.VM_ID, ServerLockLevel.WRITE);
+    }
+  }
+
+  private static final class NoServerLockManager implements RemoteLockManager {
+    private final ClientID      clientID = new ClientID(1);
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Override
+    public ClientID getClientID() {
+      return this.clientID;
+    }
+
+    @Override
+    public void lock(LockID lock, ThreadID thread, ServerLockLevel level) {
+      this.requests.incrementAndGet();
+    }
+
+    @Override
+    public void tryLock(LockID lock, ThreadID thread, ServerLockLevel level, long timeout) {
+      this.requests.incrementAndGet();
+    }
+
+    @Override
+    public void unlock(LockID lock, ThreadID thread, ServerLockLevel level) {
+      this.requests.incrementAndGet();
+    }
+
+    @Override
+    public void wait(LockID lock, ThreadID thread, long waitTime) {
+      this.requests.incrementAndGet();
+    }
+
+    @Override
+    public void interrupt(LockID lock, ThreadID thread) {
+      //
+    }
+
+    @Override
+    public void recallCommit(LockID lock, Collection<ClientServerExchangeLockContext> lockState, boolean batch) {
+      //
+    }
+
+    @Override
+    public void flush(LockID lock) {
+      //
+    }
+
+    @Override
+    public boolean asyncFlush(LockID lock, LockFlushCallback callback) {
+      return true;
+    }
+
+    @Override
+    public void query(LockID lock, ThreadID thread) {
+      //
+    }
+
+    @Override
+    public void shutdown() {
+      //
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return false;
+    }
+
+    @Override
+    public void cleanup() {
+      //
+    }
+  }
+}
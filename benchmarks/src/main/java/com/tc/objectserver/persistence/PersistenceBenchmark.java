@@ -0,0 +1,123 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.persistence;
+
+import com.tc.net.ClientID;
+import com.tc.object.tx.TransactionID;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terracotta.persistence.IPersistentStorage;
+import org.terracotta.persistence.KeyValueStorage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes through the server persistence layer: raw {@link FlatFilePersistentStorage} map puts and the per-invoke
+ * bookkeeping done by {@link TransactionOrderPersistor#updateWithNewMessage}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+
+  /**
+   * "flat" is the file backed store used by restartable servers, "null" the in-memory one used otherwise.
+   */
+  @Param({ "flat", "null" })
+  public String                         storage;
+
+  /**
+   * How many transactions each client keeps outstanding, which bounds the size of the persisted lists.
+   */
+  @Param({ "16", "256" })
+  public int                            window;
+
+  @Param({ "1", "16" })
+  public int                            clients;
+
+  private File                          directory;
+  private IPersistentStorage            persistentStorage;
+  private KeyValueStorage<Long, String> map;
+  private TransactionOrderPersistor     orderPersistor;
+  private ClientID[]                    clientIDs;
+  private long                          next;
+
+  @Setup(Level.Iteration)
+  public void setUp() throws IOException {
+    if ("flat".equals(storage)) {
+      this.directory = Files.createTempDirectory("persistence-benchmark").toFile();
+      this.persistentStorage = new FlatFilePersistentStorage(new File(this.directory, "store.dat"));
+    } else {
+      this.persistentStorage = new NullPlatformPersistentStorage();
+    }
+    this.persistentStorage.create();
+    this.map = this.persistentStorage.getKeyValueStorage("benchmark", Long.class, String.class);
+    this.orderPersistor = new TransactionOrderPersistor(this.persistentStorage);
+    this.clientIDs = new ClientID[clients];
+    for (int i = 0; i < clients; i++) {
+      this.clientIDs[i] = new ClientID(i);
+    }
+    this.next = 0;
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    this.persistentStorage.close();
+    if (this.directory != null) {
+      for (File file : this.directory.listFiles()) {
+        file.delete();
+      }
+      this.directory.delete();
+      this.directory = null;
+    }
+  }
+
+  @Benchmark
+  public void keyValuePut() {
+    long key = this.next++;
+    this.map.put(key % window, "value-" + key);
+  }
+
+  @Benchmark
+  public void updateWithNewMessage() {
+    long txn = this.next++;
+    ClientID client = this.clientIDs[(int) (txn % clients)];
+    long perClient = txn / clients + 1;
+    this.orderPersistor.updateWithNewMessage(client, new TransactionID(perClient),
+                                             new TransactionID(Math.max(1, perClient - window)));
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.perf;
+
+import org.terracotta.entity.MessageCodec;
+import org.terracotta.entity.MessageCodecException;
+import org.terracotta.entity.SyncMessageCodec;
+
+import java.nio.ByteBuffer;
+
+public class CounterCodec implements MessageCodec<CounterMessage, CounterResponse>, SyncMessageCodec<CounterMessage> {
+
+  @Override
+  public byte[] encodeMessage(CounterMessage message) throws MessageCodecException {
+    byte[] payload = message.getPayload();
+    return ByteBuffer.allocate(4 + payload.length).putInt(message.getKey()).put(payload).array();
+  }
+
+  @Override
+  public CounterMessage decodeMessage(byte[] bytes) throws MessageCodecException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    int key = buffer.getInt();
+    byte[] payload = new byte[buffer.remaining()];
+    buffer.get(payload);
+    return new CounterMessage(key, payload);
+  }
+
+  @Override
+  public byte[] encodeResponse(CounterResponse response) throws MessageCodecException {
+    return ByteBuffer.allocate(8).putLong(response.getValue()).array();
+  }
+
+  @Override
+  public CounterResponse decodeResponse(byte[] bytes) throws MessageCodecException {
+    return new CounterResponse(ByteBuffer.wrap(bytes).getLong());
+  }
+
+  @Override
+  public byte[] encode(int concurrencyKey, CounterMessage message) throws MessageCodecException {
+    return encodeMessage(message);
+  }
+
+  @Override
+  public CounterMessage decode(int concurrencyKey, byte[] payload) throws MessageCodecException {
+    return decodeMessage(payload);
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.perf;
+
+import org.terracotta.connection.entity.Entity;
+import org.terracotta.entity.InvokeFuture;
+import org.terracotta.entity.MessageCodecException;
+
+/**
+ * Client side of the trivial counter entity used by {@link StripeThroughputHarness}.
+ */
+public interface CounterEntity extends Entity {
+  long VERSION = 1;
+
+  /**
+   * Returns once the server has sent the requested acknowledgement.  The future completes with the new counter value.
+   */
+  InvokeFuture<CounterResponse> increment(int key, byte[] payload, boolean replicate, Ack ack) throws MessageCodecException;
+
+  enum Ack {
+    SENT, RECEIVED, COMPLETED
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.perf;
+
+import org.terracotta.entity.EntityClientEndpoint;
+import org.terracotta.entity.InvocationBuilder;
+import org.terracotta.entity.InvokeFuture;
+import org.terracotta.entity.MessageCodecException;
+
+class CounterEntityClient implements CounterEntity {
+  private final EntityClientEndpoint<CounterMessage, CounterResponse> endpoint;
+
+  CounterEntityClient(EntityClientEndpoint<CounterMessage, CounterResponse> endpoint) {
+    this.endpoint = endpoint;
+  }
+
+  @Override
+  public InvokeFuture<CounterResponse> increment(int key, byte[] payload, boolean replicate, Ack ack)
+      throws MessageCodecException {
+    InvocationBuilder<CounterMessage, CounterResponse> builder = this.endpoint.beginInvoke()
+        .message(new CounterMessage(key, payload)).replicate(replicate);
+    switch (ack) {
+      case SENT:
+        builder.ackSent();
+        break;
+      case RECEIVED:
+        builder.ackReceived();
+        break;
+      case COMPLETED:
+        builder.ackCompleted();
+        break;
+      default:
+        throw new AssertionError(ack);
+    }
+    return builder.invoke();
+  }
+
+  @Override
+  public void close() {
+    this.endpoint.close();
+  }
+}
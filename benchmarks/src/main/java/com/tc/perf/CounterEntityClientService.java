@@ -0,0 +1,52 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.perf;
+
+import org.terracotta.entity.EntityClientEndpoint;
+import org.terracotta.entity.EntityClientService;
+import org.terracotta.entity.MessageCodec;
+
+public class CounterEntityClientService implements EntityClientService<CounterEntity, Void, CounterMessage, CounterResponse> {
+  private final CounterCodec codec = new CounterCodec();
+
+  @Override
+  public boolean handlesEntityType(Class<CounterEntity> cls) {
+    return CounterEntity.class.equals(cls);
+  }
+
+  @Override
+  public byte[] serializeConfiguration(Void configuration) {
+    return new byte[0];
+  }
+
+  @Override
+  public Void deserializeConfiguration(byte[] configuration) {
+    return null;
+  }
+
+  @Override
+  public CounterEntity create(EntityClientEndpoint<CounterMessage, CounterResponse> endpoint) {
+    return new CounterEntityClient(endpoint);
+  }
+
+  @Override
+  public MessageCodec<CounterMessage, CounterResponse> getMessageCodec() {
+    return codec;
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.perf;
+
+import org.terracotta.entity.EntityMessage;
+
+/**
+ * Adds one to the counter for a key.  The payload is only there to make the message as large as the load mix asks for.
+ */
+public class CounterMessage implements EntityMessage {
+  private final int    key;
+  private final byte[] payload;
+
+  public CounterMessage(int key, byte[] payload) {
+    this.key = key;
+    this.payload = payload;
+  }
+
+  public int getKey() {
+    return key;
+  }
+
+  public byte[] getPayload() {
+    return payload;
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.perf;
+
+import org.terracotta.entity.ActiveServerEntity;
+import org.terracotta.entity.ClientDescriptor;
+import org.terracotta.entity.ConcurrencyStrategy;
+import org.terracotta.entity.MessageCodec;
+import org.terracotta.entity.PassiveServerEntity;
+import org.terracotta.entity.PassiveSynchronizationChannel;
+import org.terracotta.entity.ServerEntityService;
+import org.terracotta.entity.ServiceRegistry;
+import org.terracotta.entity.SyncMessageCodec;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server side of the counter entity: one counter per key, each key its own concurrency key so the load can be spread
+ * over as many server threads as the mix asks for.
+ * <p>
+ * The harness waits for the passive before creating the entity, so every change reaches the passive by replication and
+ * there is nothing to synchronize.
+ */
+public class CounterServerEntityService implements ServerEntityService<CounterMessage, CounterResponse> {
+  private final CounterCodec codec = new CounterCodec();
+
+  @Override
+  public long getVersion() {
+    return CounterEntity.VERSION;
+  }
+
+  @Override
+  public boolean handlesEntityType(String typeName) {
+    return CounterEntity.class.getName().equals(typeName);
+  }
+
+  @Override
+  public ActiveServerEntity<CounterMessage, CounterResponse> createActiveEntity(ServiceRegistry registry, byte[] configuration) {
+    return new ActiveCounter();
+  }
+
+  @Override
+  public PassiveServerEntity<CounterMessage, CounterResponse> createPassiveEntity(ServiceRegistry registry, byte[] configuration) {
+    return new PassiveCounter();
+  }
+
+  @Override
+  public ConcurrencyStrategy<CounterMessage> getConcurrencyStrategy(byte[] configuration) {
+    return new ConcurrencyStrategy<CounterMessage>() {
+      @Override
+      public int concurrencyKey(CounterMessage message) {
+        // stay clear of the management key
+        return message.getKey() + 1;
+      }
+
+      @Override
+      public Set<Integer> getKeysForSynchronization() {
+        return Collections.emptySet();
+      }
+    };
+  }
+
+  @Override
+  public MessageCodec<CounterMessage, CounterResponse> getMessageCodec() {
+    return codec;
+  }
+
+  @Override
+  public SyncMessageCodec<CounterMessage> getSyncMessageCodec() {
+    return codec;
+  }
+
+  private static class Counters {
+    private final ConcurrentMap<Integer, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    long increment(CounterMessage message) {
+      return counters.computeIfAbsent(message.getKey(), k -> new AtomicLong()).incrementAndGet();
+    }
+
+    public void createNew() {
+      // nothing to create
+    }
+
+    public void loadExisting() {
+      // counters are not persisted
+    }
+
+    public void destroy() {
+      counters.clear();
+    }
+  }
+
+  private static class ActiveCounter extends Counters implements ActiveServerEntity<CounterMessage, CounterResponse> {
+    @Override
+    public void connected(ClientDescriptor clientDescriptor) {
+      // no per-client state
+    }
+
+    @Override
+    public void disconnected(ClientDescriptor clientDescriptor) {
+      // no per-client state
+    }
+
+    @Override
+    public CounterResponse invoke(ClientDescriptor clientDescriptor, CounterMessage message) {
+      return new CounterResponse(increment(message));
+    }
+
+    @Override
+    public void handleReconnect(ClientDescriptor clientDescriptor, byte[] extendedReconnectData) {
+      // no per-client state
+    }
+
+    @Override
+    public void synchronizeKeyToPassive(PassiveSynchronizationChannel<CounterMessage> syncChannel, int concurrencyKey) {
+      // see class comment
+    }
+  }
+
+  private static class PassiveCounter extends Counters implements PassiveServerEntity<CounterMessage, CounterResponse> {
+    @Override
+    public void invoke(CounterMessage message) {
+      increment(message);
+    }
+
+    @Override
+    public void startSyncEntity() {
+      // see class comment
+    }
+
+    @Override
+    public void endSyncEntity() {
+      // see class comment
+    }
+
+    @Override
+    public void startSyncConcurrencyKey(int concurrencyKey) {
+      // see class comment
+    }
+
+    @Override
+    public void endSyncConcurrencyKey(int concurrencyKey) {
+      // see class comment
+    }
+  }
+}
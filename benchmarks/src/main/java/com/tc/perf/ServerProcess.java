@@ -0,0 +1,123 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.perf;
+
+import com.tc.server.TCServerMain;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One stripe member running {@link TCServerMain} in a child JVM with the classpath of the harness.
+ * <p>
+ * Servers keep process wide state (TCServerMain.getServer(), logging, properties) so they cannot share a JVM with each
+ * other; clients and the load generator run in the harness JVM.
+ */
+class ServerProcess {
+  private final String       name;
+  private final File         directory;
+  private final File         config;
+  private final String       classpath;
+  private final List<String> jvmArgs;
+  private Process            process;
+  private volatile String    state = "";
+
+  ServerProcess(String name, File directory, File config, String classpath, List<String> jvmArgs) {
+    this.name = name;
+    this.directory = directory;
+    this.config = config;
+    this.classpath = classpath;
+    this.jvmArgs = jvmArgs;
+  }
+
+  void start() throws IOException {
+    if (!this.directory.isDirectory() && !this.directory.mkdirs()) { throw new IOException("Cannot create " + directory); }
+    List<String> command = new ArrayList<String>();
+    command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getAbsolutePath());
+    command.addAll(this.jvmArgs);
+    command.add("-Dtc.install-root=" + this.directory.getAbsolutePath());
+    command.add("-cp");
+    command.add(this.classpath);
+    command.add(TCServerMain.class.getName());
+    command.add("-f");
+    command.add(this.config.getAbsolutePath());
+    command.add("-n");
+    command.add(this.name);
+    this.process = new ProcessBuilder(command).directory(this.directory).redirectErrorStream(true).start();
+
+    final BufferedReader reader = new BufferedReader(new InputStreamReader(this.process.getInputStream(),
+                                                                           StandardCharsets.UTF_8));
+    final PrintWriter log = new PrintWriter(new File(this.directory, "console.log"), "UTF-8");
+    Thread pump = new Thread("output of " + this.name) {
+      @Override
+      public void run() {
+        try {
+          for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            log.println(line);
+            log.flush();
+            if (line.contains("Moved to State[")) {
+              state = line.substring(line.indexOf("Moved to State[") + "Moved to State[".length()).replace("]", "").trim();
+            }
+          }
+        } catch (IOException e) {
+          // process went away
+        } finally {
+          log.close();
+        }
+      }
+    };
+    pump.setDaemon(true);
+    pump.start();
+  }
+
+  void waitForState(String expected, long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (!this.state.equals(expected)) {
+      if (!this.process.isAlive()) {
+        throw new IllegalStateException(this.name + " exited, see " + new File(this.directory, "console.log"));
+      }
+      if (System.nanoTime() > deadline) {
+        throw new TimeoutException(this.name + " did not reach " + expected + " but is in '" + this.state + "'");
+      }
+      Thread.sleep(100);
+    }
+  }
+
+  void stop() throws InterruptedException {
+    if (this.process != null) {
+      this.process.destroy();
+      if (!this.process.waitFor(30, TimeUnit.SECONDS)) {
+        this.process.destroyForcibly();
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return this.name + "[" + this.state + "]";
+  }
+}
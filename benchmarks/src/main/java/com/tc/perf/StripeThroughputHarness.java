@@ -0,0 +1,247 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.perf;
+
+import com.tc.perf.CounterEntity.Ack;
+import com.tc.stats.LatencyHistogram;
+
+import org.terracotta.connection.Connection;
+import org.terracotta.connection.ConnectionFactory;
+import org.terracotta.connection.entity.EntityRef;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repeatable end-to-end load test of one stripe on loopback: an active, optionally a passive, and a number of clients
+ * driving a trivial counter entity, reporting throughput and latency percentiles for each phase of an invoke mix.
+ * <p>
+ * Run with the module classpath, not the shaded benchmarks jar (the server loads the entity from the directory or jar
+ * which holds it, and that must not contain the platform classes as well):
+ * <pre>
+ *   mvn -pl benchmarks -am package
+ *   java -cp "benchmarks/target/classes:$(cat benchmarks/target/classpath.txt)" \
+ *        -Dstripe.mix="ack=COMPLETED,replicate=true;ack=RECEIVED,replicate=false,payload=4096" \
+ *        com.tc.perf.StripeThroughputHarness
+ * </pre>
+ * Stripe properties: {@code stripe.passive} (true), {@code stripe.clients} (4), {@code stripe.threads} per client (4),
+ * {@code stripe.warmup} and {@code stripe.duration} in seconds per phase (10, 30), {@code stripe.port} first of four
+ * consecutive ports (9510), {@code stripe.dir} (target/stripe-harness) and {@code stripe.serverJvmArgs} (-Xmx1g).
+ * <p>
+ * {@code stripe.mix} is a ';' separated list of phases, each a ',' separated list of {@code ack} (SENT, RECEIVED,
+ * COMPLETED), {@code replicate} (true/false), {@code payload} in bytes and {@code keys}, the number of concurrency keys
+ * the load is spread over.  Anything a phase does not set comes from {@code stripe.ack}, {@code stripe.replicate},
+ * {@code stripe.payload} and {@code stripe.keys} (COMPLETED, true, 128, 16).
+ * <p>
+ * Latency is measured until the requested ack arrives; COMPLETED also waits for the response.
+ */
+public class StripeThroughputHarness {
+  private static final String ENTITY_NAME = "stripe-harness-counter";
+
+  public static void main(String[] args) throws Exception {
+    boolean withPassive = Boolean.parseBoolean(System.getProperty("stripe.passive", "true"));
+    int clients = Integer.getInteger("stripe.clients", 4);
+    int threads = Integer.getInteger("stripe.threads", 4);
+    int port = Integer.getInteger("stripe.port", 9510);
+    File dir = new File(System.getProperty("stripe.dir", "target/stripe-harness")).getAbsoluteFile();
+    String classpath = System.getProperty("stripe.classpath", System.getProperty("java.class.path"));
+    List<String> serverJvmArgs = Arrays.asList(System.getProperty("stripe.serverJvmArgs", "-Xmx1g").trim().split("\\s+"));
+    List<Phase> phases = Phase.parse(System.getProperty("stripe.mix", ""));
+
+    File config = writeConfig(dir, port, withPassive);
+    List<ServerProcess> servers = new ArrayList<ServerProcess>();
+    List<Connection> connections = new ArrayList<Connection>();
+    List<CounterEntity> entities = new ArrayList<CounterEntity>();
+    try {
+      ServerProcess active = new ServerProcess("active", new File(dir, "active"), config, classpath, serverJvmArgs);
+      servers.add(active);
+      active.start();
+      active.waitForState("ACTIVE-COORDINATOR", 2, TimeUnit.MINUTES);
+      if (withPassive) {
+        ServerProcess passive = new ServerProcess("passive", new File(dir, "passive"), config, classpath, serverJvmArgs);
+        servers.add(passive);
+        passive.start();
+        passive.waitForState("PASSIVE-STANDBY", 2, TimeUnit.MINUTES);
+      }
+      System.out.println("Stripe up: " + servers);
+
+      URI uri = URI.create("terracotta://localhost:" + port + (withPassive ? ",localhost:" + (port + 2) : ""));
+      for (int i = 0; i < clients; i++) {
+        Connection connection = ConnectionFactory.connect(uri, new Properties());
+        connections.add(connection);
+        EntityRef<CounterEntity, Void> ref = connection.getEntityRef(CounterEntity.class, CounterEntity.VERSION, ENTITY_NAME);
+        if (i == 0) {
+          ref.create(null);
+        }
+        entities.add(ref.fetchEntity());
+      }
+
+      for (Phase phase : phases) {
+        LatencyHistogram latencies = new LatencyHistogram();
+        long elapsed = runPhase(phase, entities, threads, latencies);
+        report(phase, clients * threads, elapsed, latencies.snapshot());
+      }
+    } finally {
+      for (CounterEntity entity : entities) {
+        entity.close();
+      }
+      for (Connection connection : connections) {
+        connection.close();
+      }
+      Collections.reverse(servers);
+      for (ServerProcess server : servers) {
+        server.stop();
+      }
+    }
+  }
+
+  private static long runPhase(final Phase phase, List<CounterEntity> entities, int threadsPerClient,
+                               LatencyHistogram result) throws InterruptedException {
+    final long start = System.nanoTime();
+    final long measureFrom = start + TimeUnit.SECONDS.toNanos(Long.getLong("stripe.warmup", 10));
+    final long measureTo = measureFrom + TimeUnit.SECONDS.toNanos(Long.getLong("stripe.duration", 30));
+    final byte[] payload = new byte[phase.payload];
+    List<Thread> workers = new ArrayList<Thread>();
+    final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+    for (final CounterEntity entity : entities) {
+      for (int t = 0; t < threadsPerClient; t++) {
+        final LatencyHistogram.Recorder recorder = result.newRecorder();
+        Thread worker = new Thread("load " + workers.size()) {
+          @Override
+          public void run() {
+            try {
+              for (long now = System.nanoTime(); now < measureTo; ) {
+                int key = ThreadLocalRandom.current().nextInt(phase.keys);
+                long begin = System.nanoTime();
+                if (phase.ack == Ack.COMPLETED) {
+                  entity.increment(key, payload, phase.replicate, phase.ack).get();
+                } else {
+                  entity.increment(key, payload, phase.replicate, phase.ack);
+                }
+                now = System.nanoTime();
+                if (begin >= measureFrom) {
+                  recorder.record(now - begin);
+                }
+              }
+            } catch (Throwable t) {
+              failures.add(t);
+            }
+          }
+        };
+        workers.add(worker);
+        worker.start();
+      }
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    if (!failures.isEmpty()) { throw new IllegalStateException("load failed for " + phase, failures.get(0)); }
+    return measureTo - measureFrom;
+  }
+
+  private static void report(Phase phase, int threads, long elapsedNanos, LatencyHistogram.Snapshot latencies) {
+    double seconds = elapsedNanos / 1e9;
+    System.out.println(String.format("%s threads=%d: %.0f ops/s, latency us mean=%.1f p50=%.1f p90=%.1f p99=%.1f "
+                                     + "p99.9=%.1f max=%.1f", phase, threads, latencies.getCount() / seconds,
+                                     latencies.getMean() / 1e3, latencies.getValueAtPercentile(50) / 1e3,
+                                     latencies.getValueAtPercentile(90) / 1e3,
+                                     latencies.getValueAtPercentile(99) / 1e3,
+                                     latencies.getValueAtPercentile(99.9) / 1e3, latencies.getMax() / 1e3));
+  }
+
+  private static File writeConfig(File dir, int port, boolean withPassive) throws IOException {
+    if (!dir.isDirectory() && !dir.mkdirs()) { throw new IOException("Cannot create " + dir); }
+    File config = new File(dir, "tc-config.xml");
+    PrintWriter out = new PrintWriter(config, "UTF-8");
+    try {
+      out.println("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>");
+      out.println("<tc:tc-config xmlns:tc=\"http://www.terracotta.org/config\">");
+      out.println("  <servers>");
+      writeServer(out, "active", new File(dir, "active"), port);
+      if (withPassive) {
+        writeServer(out, "passive", new File(dir, "passive"), port + 2);
+      }
+      out.println("  </servers>");
+      out.println("</tc:tc-config>");
+    } finally {
+      out.close();
+    }
+    return config;
+  }
+
+  private static void writeServer(PrintWriter out, String name, File dir, int port) {
+    out.println("    <server host=\"localhost\" name=\"" + name + "\">");
+    out.println("      <logs>" + new File(dir, "logs").getAbsolutePath() + "</logs>");
+    out.println("      <tsa-port>" + port + "</tsa-port>");
+    out.println("      <tsa-group-port>" + (port + 1) + "</tsa-group-port>");
+    out.println("    </server>");
+  }
+
+  private static class Phase {
+    private final Ack     ack;
+    private final boolean replicate;
+    private final int     payload;
+    private final int     keys;
+
+    private Phase(Ack ack, boolean replicate, int payload, int keys) {
+      this.ack = ack;
+      this.replicate = replicate;
+      this.payload = payload;
+      this.keys = keys;
+    }
+
+    static List<Phase> parse(String mix) {
+      List<Phase> phases = new ArrayList<Phase>();
+      for (String spec : mix.split(";")) {
+        Properties values = new Properties();
+        for (String pair : spec.split(",")) {
+          String[] kv = pair.split("=", 2);
+          if (kv.length == 2) {
+            values.setProperty(kv[0].trim(), kv[1].trim());
+          } else if (!pair.trim().isEmpty()) {
+            throw new IllegalArgumentException("Bad phase setting '" + pair + "' in " + mix);
+          }
+        }
+        phases.add(new Phase(Ack.valueOf(setting(values, "ack", "COMPLETED").toUpperCase()),
+                             Boolean.parseBoolean(setting(values, "replicate", "true")),
+                             Integer.parseInt(setting(values, "payload", "128")),
+                             Integer.parseInt(setting(values, "keys", "16"))));
+      }
+      return phases;
+    }
+
+    private static String setting(Properties phase, String name, String defaultValue) {
+      return phase.getProperty(name, System.getProperty("stripe." + name, defaultValue));
+    }
+
+    @Override
+    public String toString() {
+      return "ack=" + ack + ",replicate=" + replicate + ",payload=" + payload + ",keys=" + keys;
+    }
+  }
+}
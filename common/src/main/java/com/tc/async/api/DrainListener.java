@@ -0,0 +1,33 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.async.api;
+
+/**
+ * Optionally implemented by an {@link EventHandler} which holds on to work across events (for instance to batch
+ * outgoing messages).  A stage worker thread calls this after handling an event whenever its queue is left empty so
+ * anything the handler has gathered on that thread can be pushed out.
+ */
+public interface DrainListener {
+
+  /**
+   * Called on the worker thread which just emptied its queue.
+   */
+  public void queueDrained();
+
+}
@@ -37,4 +37,12 @@ public interface Stage<EC> extends PrettyPrintable {
     
   public String getName();
 
+  public StageLatencyStats getLatencyStats();
+
+  /**
+   * @return nanoseconds the longest running context on any of this stage's threads has been executing, 0 if every
+   *         thread is waiting for work
+   */
+  public long getLongestRunningTime();
+
 }
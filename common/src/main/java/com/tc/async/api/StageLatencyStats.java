@@ -0,0 +1,37 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.async.api;
+
+import com.tc.stats.LatencyHistogram;
+import com.tc.stats.Stats;
+
+/**
+ * Latencies observed by the worker threads of one stage: how long contexts waited in the stage queue and how long the
+ * handler took to process them.
+ */
+public interface StageLatencyStats extends Stats {
+
+  public String getName();
+
+  public LatencyHistogram.Snapshot getQueueWaitLatency();
+
+  public LatencyHistogram.Snapshot getExecutionLatency();
+
+  public void reset();
+}
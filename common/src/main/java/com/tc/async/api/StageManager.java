@@ -43,5 +43,9 @@ public interface StageManager extends PrettyPrintable {
 
   public Stats[] getStats();
 
+  public StageLatencyStats[] getLatencyStats();
+
+  public Stage<?>[] getStages();
+
   public void cleanup();
 }
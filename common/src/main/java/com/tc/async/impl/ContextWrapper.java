@@ -27,4 +27,9 @@ import com.tc.async.api.EventHandlerException;
    */
 public interface ContextWrapper<EC> {
   public void runWithHandler(EventHandler<EC> handler) throws EventHandlerException;
+
+  /**
+   * @return {@link System#nanoTime()} when the context was first added to the stage, used to measure queue wait time
+   */
+  public long getEnqueueTime();
 }
@@ -21,6 +21,7 @@ package com.tc.async.impl;
 import com.tc.async.api.ConfigurationContext;
 import com.tc.async.api.Sink;
 import com.tc.async.api.Stage;
+import com.tc.async.api.StageLatencyStats;
 import com.tc.text.PrettyPrinter;
 
 /**
@@ -72,6 +73,16 @@ public class MockStage implements Stage {
     return name;
   }
 
+  @Override
+  public StageLatencyStats getLatencyStats() {
+    return new StageLatencyStatsImpl(name);
+  }
+
+  @Override
+  public long getLongestRunningTime() {
+    return 0;
+  }
+
   @Override
   public PrettyPrinter prettyPrint(PrettyPrinter out) {
     return null;
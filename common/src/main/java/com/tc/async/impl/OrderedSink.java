@@ -61,15 +61,17 @@ public class OrderedSink<T extends OrderedEventContext> implements Sink<T> {
   public synchronized void addSingleThreaded(T oc) {
     long seq = oc.getSequenceID();
     if (seq == 0) {
-      if (pending.isEmpty()) {
-        logger.debug("Sequence reset. Message with ID " + (current)
-            + " was last before reset");
-        current = 0;
-        sink.addSingleThreaded(oc);
-      } else {
-        throw new AssertionError(pending.size() + " messages in pending queue. Message with ID " + (current + 1)
-            + " is missing still but reset was requested");
+      if (!pending.isEmpty()) {
+        // the sender restarted its stream, anything still waiting on a gap in the old one will not be completed and
+        // is its responsibility to send again
+        logger.warn("Sequence reset with " + pending.size() + " messages in pending queue. Message with ID "
+            + (current + 1) + " is missing still, discarding pending messages");
+        pending.clear();
       }
+      logger.debug("Sequence reset. Message with ID " + (current)
+          + " was last before reset");
+      current = 0;
+      sink.addSingleThreaded(oc);
     } else if (seq <= current) {
       throw new AssertionError("Received Event with a sequence less than the current sequence. Current = " + current
           + " Seq Id = " + seq + " Event = " + oc);
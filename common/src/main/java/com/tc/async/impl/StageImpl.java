@@ -19,26 +19,34 @@
 package com.tc.async.impl;
 
 import com.tc.async.api.ConfigurationContext;
+import com.tc.async.api.DrainListener;
 import com.tc.async.api.EventHandler;
 import com.tc.async.api.EventHandlerException;
 import com.tc.async.api.Sink;
 import com.tc.async.api.Source;
 import com.tc.async.api.Stage;
+import com.tc.async.api.StageLatencyStats;
 import com.tc.exception.TCNotRunningException;
 import com.tc.exception.TCRuntimeException;
 import com.tc.logging.TCLogger;
 import com.tc.logging.TCLoggerProvider;
+import com.tc.properties.TCPropertiesConsts;
 import com.tc.properties.TCPropertiesImpl;
+import com.tc.stats.LatencyHistogram;
 import com.tc.text.PrettyPrinter;
 import com.tc.util.concurrent.QueueFactory;
 import com.tc.util.concurrent.ThreadUtil;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * The SEDA Stage
  */
 public class StageImpl<EC> implements Stage<EC> {
   private static final long    pollTime = 3000; // This is the poor man's solution for
                                                 // stage
+  private static final boolean RECORD_LATENCY = TCPropertiesImpl.getProperties()
+                                                  .getBoolean(TCPropertiesConsts.TC_STAGE_LATENCY_ENABLED, true);
   private final String         name;
   private final EventHandler<EC> handler;
   private final StageQueueImpl<EC> stageQueue;
@@ -47,6 +55,7 @@ public class StageImpl<EC> implements Stage<EC> {
   private final TCLogger       logger;
   private final int            sleepMs;
   private final boolean        pausable;
+  private final StageLatencyStatsImpl latencyStats;
 
   private volatile boolean     paused;
   private volatile boolean     shutdown = true;
@@ -76,6 +85,7 @@ public class StageImpl<EC> implements Stage<EC> {
     this.threads = new WorkerThread[queueCount];
     this.stageQueue = new StageQueueImpl<EC>(queueCount, queueFactory, loggerProvider, name, queueSize);
     this.group = group;
+    this.latencyStats = new StageLatencyStatsImpl(name);
     this.sleepMs = TCPropertiesImpl.getProperties().getInt("seda." + name + ".sleepMs", 0);
     if (this.sleepMs > 0) {
       logger.warn("Sleep of " + this.sleepMs + "ms enabled for stage " + name);
@@ -130,6 +140,9 @@ public class StageImpl<EC> implements Stage<EC> {
         threadName = threadName + ")";
       }
       threads[i] = new WorkerThread<EC>(threadName, this.stageQueue.getSource(i), handler, group, logger, sleepMs, pausable, name);
+      if (RECORD_LATENCY) {
+        threads[i].recordLatencies(latencyStats.newQueueWaitRecorder(), latencyStats.newExecutionRecorder());
+      }
       threads[i].start();
     }
   }
@@ -150,6 +163,24 @@ public class StageImpl<EC> implements Stage<EC> {
     return name;
   }
 
+  @Override
+  public StageLatencyStats getLatencyStats() {
+    return latencyStats;
+  }
+
+  @Override
+  public long getLongestRunningTime() {
+    long now = System.nanoTime();
+    long longest = 0;
+    for (WorkerThread<EC> thread : threads) {
+      long since = (thread != null) ? thread.busySince.get() : 0;
+      if (since != 0) {
+        longest = Math.max(longest, now - since);
+      }
+    }
+    return longest;
+  }
+
   @Override
   public String toString() {
     return "StageImpl(" + name + ")";
@@ -162,6 +193,11 @@ public class StageImpl<EC> implements Stage<EC> {
     private final int          sleepMs;
     private final boolean      pausable;
     private final String       stageName;
+    private final DrainListener drainListener;
+    private LatencyHistogram.Recorder queueWaitRecorder;
+    private LatencyHistogram.Recorder executionRecorder;
+    // nanoTime the current context started executing, 0 while waiting for one.  only written by this thread
+    private final AtomicLong busySince = new AtomicLong();
 
     public WorkerThread(String name, Source<ContextWrapper<EC>> source, EventHandler<EC> handler, ThreadGroup group, TCLogger logger, int sleepMs, boolean pausable, String stageName) {
       super(group, name);
@@ -172,6 +208,13 @@ public class StageImpl<EC> implements Stage<EC> {
       this.sleepMs = sleepMs;
       this.pausable = pausable;
       this.stageName = stageName;
+      this.drainListener = (handler instanceof DrainListener) ? (DrainListener) handler : null;
+    }
+
+    // called before the thread is started
+    void recordLatencies(LatencyHistogram.Recorder queueWait, LatencyHistogram.Recorder execution) {
+      this.queueWaitRecorder = queueWait;
+      this.executionRecorder = execution;
     }
 
     private void handleStageDebugPauses() {
@@ -194,7 +237,18 @@ public class StageImpl<EC> implements Stage<EC> {
           ctxt = source.poll(pollTime);
           if (ctxt != null) {
             handleStageDebugPauses();
-            ctxt.runWithHandler(handler);
+            long start = System.nanoTime();
+            busySince.lazySet(start);
+            if (queueWaitRecorder != null) {
+              queueWaitRecorder.record(start - ctxt.getEnqueueTime());
+              ctxt.runWithHandler(handler);
+              executionRecorder.record(System.nanoTime() - start);
+            } else {
+              ctxt.runWithHandler(handler);
+            }
+            if (drainListener != null && source.isEmpty()) {
+              drainListener.queueDrained();
+            }
           }
         } catch (InterruptedException ie) {
           if (shutdown) { continue; }
@@ -215,6 +269,7 @@ public class StageImpl<EC> implements Stage<EC> {
           // to the context will exist until another context comes in. This can potentially keep many objects in memory
           // longer than necessary
           ctxt = null;
+          busySince.lazySet(0);
         }
       }
     }
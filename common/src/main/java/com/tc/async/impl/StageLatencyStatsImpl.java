@@ -0,0 +1,75 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.async.impl;
+
+import com.tc.async.api.StageLatencyStats;
+import com.tc.logging.TCLogger;
+import com.tc.stats.LatencyHistogram;
+
+/**
+ * Queue wait and execution histograms of a stage, with one pair of recorders per worker thread.
+ */
+class StageLatencyStatsImpl implements StageLatencyStats {
+  private final String           name;
+  private final LatencyHistogram queueWait = new LatencyHistogram();
+  private final LatencyHistogram execution = new LatencyHistogram();
+
+  StageLatencyStatsImpl(String name) {
+    this.name = name;
+  }
+
+  LatencyHistogram.Recorder newQueueWaitRecorder() {
+    return queueWait.newRecorder();
+  }
+
+  LatencyHistogram.Recorder newExecutionRecorder() {
+    return execution.newRecorder();
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public LatencyHistogram.Snapshot getQueueWaitLatency() {
+    return queueWait.snapshot();
+  }
+
+  @Override
+  public LatencyHistogram.Snapshot getExecutionLatency() {
+    return execution.snapshot();
+  }
+
+  @Override
+  public void reset() {
+    queueWait.reset();
+    execution.reset();
+  }
+
+  @Override
+  public String getDetails() {
+    return name + " wait: " + getQueueWaitLatency() + " exec: " + getExecutionLatency();
+  }
+
+  @Override
+  public void logDetails(TCLogger statsLogger) {
+    statsLogger.info(getDetails());
+  }
+}
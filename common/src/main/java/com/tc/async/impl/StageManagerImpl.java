@@ -22,6 +22,7 @@ import com.tc.async.api.ConfigurationContext;
 import com.tc.async.api.EventHandler;
 import com.tc.async.api.PostInit;
 import com.tc.async.api.Stage;
+import com.tc.async.api.StageLatencyStats;
 import com.tc.async.api.StageManager;
 import com.tc.logging.DefaultLoggerProvider;
 import com.tc.logging.TCLogger;
@@ -88,6 +89,11 @@ public class StageManagerImpl implements StageManager {
           for (Stats stat : stats) {
             stat.logDetails(logger);
           }
+          logger.info("Stage Latencies");
+          logger.info("=================================");
+          for (StageLatencyStats stat : StageManagerImpl.this.getLatencyStats()) {
+            stat.logDetails(logger);
+          }
         } catch (Throwable th) {
           logger.error(th);
         }
@@ -181,6 +187,28 @@ public class StageManagerImpl implements StageManager {
     return stats;
   }
 
+  @Override
+  public synchronized StageLatencyStats[] getLatencyStats() {
+    final String[] names = stageNames;
+    final StageLatencyStats[] stats = new StageLatencyStats[names.length];
+
+    for (int i = 0; i < names.length; i++) {
+      stats[i] = stages.get(names[i]).getLatencyStats();
+    }
+    return stats;
+  }
+
+  @Override
+  public synchronized Stage<?>[] getStages() {
+    final String[] names = stageNames;
+    final Stage<?>[] list = new Stage<?>[names.length];
+
+    for (int i = 0; i < names.length; i++) {
+      list[i] = stages.get(names[i]);
+    }
+    return list;
+  }
+
   @Override
   public PrettyPrinter prettyPrint(PrettyPrinter out) {
     out.print(this.getClass().getName()).flush();
@@ -483,6 +483,7 @@ public class StageQueueImpl<EC> implements Sink<EC> {
   
   private static class DirectExecuteContext<EC> implements ContextWrapper<EC> {
     private final SpecializedEventContext context;
+    private final long enqueueTime = System.nanoTime();
     public DirectExecuteContext(SpecializedEventContext context) {
       this.context = context;
     }
@@ -490,10 +491,16 @@ public class StageQueueImpl<EC> implements Sink<EC> {
     public void runWithHandler(EventHandler<EC> handler) throws EventHandlerException {
       this.context.execute();
     }
+
+    @Override
+    public long getEnqueueTime() {
+      return this.enqueueTime;
+    }
   }
   
   private static class HandledContext<EC> implements ContextWrapper<EC> {
     private final EC context;
+    private final long enqueueTime = System.nanoTime();
     public HandledContext(EC context) {
       this.context = context;
     }
@@ -502,6 +509,11 @@ public class StageQueueImpl<EC> implements Sink<EC> {
       handler.handleEvent(this.context);
     }
 
+    @Override
+    public long getEnqueueTime() {
+      return this.enqueueTime;
+    }
+
     @Override
     public boolean equals(Object obj) {
       if (context.getClass().isInstance(obj)) {
@@ -514,6 +526,7 @@ public class StageQueueImpl<EC> implements Sink<EC> {
   private class FlushingHandledContext<T extends EC> implements ContextWrapper<EC> {
     private final EC context;
     private final int offset;
+    private final long enqueueTime = System.nanoTime();
     private int executionCount = 0;
     public FlushingHandledContext(EC context, int offset) {
       this.context = context;
@@ -546,6 +559,11 @@ public class StageQueueImpl<EC> implements Sink<EC> {
       }
     }
 
+    @Override
+    public long getEnqueueTime() {
+      return this.enqueueTime;
+    }
+
     @Override
     public boolean equals(Object obj) {
       if (context.getClass().isInstance(obj)) {
@@ -169,6 +169,17 @@ class CoreNIOServices implements TCListenerEventListener, TCConnectionEventListe
     return readerComm.getTotalBytesWritten() + writerComm.getTotalBytesWritten();
   }
 
+  /**
+   * @return nanoseconds the reader and writer threads have together spent blocked in select()
+   */
+  public long getSelectIdleNanos() {
+    return readerComm.getSelectIdleNanos() + writerComm.getSelectIdleNanos();
+  }
+
+  public int getSelectThreadCount() {
+    return 2;
+  }
+
   public int getWeight() {
     synchronized (managedConnectionsMap) {
       return this.clientWeights;
@@ -288,6 +299,8 @@ class CoreNIOServices implements TCListenerEventListener, TCConnectionEventListe
     private final String                        name;
     private final AtomicLong                    bytesRead    = new AtomicLong(0);
     private final AtomicLong                    bytesWritten = new AtomicLong(0);
+    // only written by this thread, read by anyone sampling utilization
+    private volatile long                       selectIdleNanos;
     private final COMM_THREAD_MODE              mode;
 
     public CommThread(COMM_THREAD_MODE mode) {
@@ -562,6 +575,7 @@ class CoreNIOServices implements TCListenerEventListener, TCConnectionEventListe
 
       while (true) {
         final int numKeys;
+        long selectStart = System.nanoTime();
         try {
           numKeys = localSelector.select();
         } catch (IOException ioe) {
@@ -581,6 +595,8 @@ class CoreNIOServices implements TCListenerEventListener, TCConnectionEventListe
           continue;
         }
 
+        selectIdleNanos += System.nanoTime() - selectStart;
+
         if (isStopRequested()) {
           if (logger.isDebugEnabled()) {
             logger.debug("Select loop terminating");
@@ -736,6 +752,10 @@ class CoreNIOServices implements TCListenerEventListener, TCConnectionEventListe
       return this.bytesWritten.get();
     }
 
+    public long getSelectIdleNanos() {
+      return this.selectIdleNanos;
+    }
+
     private void handleRequest(final InterestRequest req) {
       // ignore the request if we are stopped/stopping
       if (isStopRequested()) { return; }
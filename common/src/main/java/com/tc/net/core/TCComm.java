@@ -34,4 +34,12 @@ public interface TCComm {
 
   public boolean isStopped();
 
+  /**
+   * @return nanoseconds all of the selector threads have together spent blocked in select(), which against
+   *         {@link #getSelectThreadCount()} and wall time gives how busy the network layer is
+   */
+  public long getSelectIdleNanos();
+
+  public int getSelectThreadCount();
+
 }
@@ -57,6 +57,24 @@ class TCCommImpl implements TCComm {
     return null;
   }
 
+  @Override
+  public long getSelectIdleNanos() {
+    long idle = commThread.getSelectIdleNanos();
+    if (workerCommMgr != null) {
+      idle += workerCommMgr.getSelectIdleNanos();
+    }
+    return idle;
+  }
+
+  @Override
+  public int getSelectThreadCount() {
+    int count = commThread.getSelectThreadCount();
+    if (workerCommMgr != null) {
+      count += workerCommMgr.getSelectThreadCount();
+    }
+    return count;
+  }
+
   @Override
   public boolean isStarted() {
     return started;
@@ -115,6 +115,22 @@ public class TCWorkerCommManager {
     }
   }
 
+  long getSelectIdleNanos() {
+    long idle = 0;
+    for (CoreNIOServices workerComm : workerCommThreads) {
+      idle += workerComm.getSelectIdleNanos();
+    }
+    return idle;
+  }
+
+  int getSelectThreadCount() {
+    int count = 0;
+    for (CoreNIOServices workerComm : workerCommThreads) {
+      count += workerComm.getSelectThreadCount();
+    }
+    return count;
+  }
+
   protected CoreNIOServices getWorkerComm(int workerCommId) {
     return this.workerCommThreads[workerCommId];
   }
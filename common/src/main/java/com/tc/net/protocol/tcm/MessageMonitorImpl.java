@@ -23,21 +23,27 @@ import com.tc.properties.TCProperties;
 import com.tc.properties.TCPropertiesConsts;
 import com.tc.text.StringFormatter;
 
-import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.Map;
+import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
-import java.util.TreeMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+/**
+ * Counts messages and bytes per message type and direction.  This is called for every message sent and received, so
+ * the counters are found by indexing an array with the message type and are striped over several cache lines to keep
+ * concurrent senders and receivers from contending.  Totals and rates are only computed when the counters are read.
+ */
 public class MessageMonitorImpl implements MessageMonitor {
 
-  private final Map<TCMessageType, MessageCounter> counters     = new TreeMap<TCMessageType, MessageCounter>(
-                                                                                                             new TCMessageTypeComparator());
+  private volatile MessageCounter[]                counters     = new MessageCounter[0];
   private final StringFormatter                    formatter    = new StringFormatter();
   private final Timer                              timer;
   private int                                      maxTypeWidth = 0;
+  private long                                     lastReport   = System.nanoTime();
 
   public static MessageMonitor createMonitor(TCProperties tcProps, TCLogger logger) {
     final MessageMonitor mm;
@@ -69,50 +75,83 @@ public class MessageMonitorImpl implements MessageMonitor {
 
   @Override
   public void newIncomingMessage(TCMessage message) {
-    getOrCreateMessageCounter(message.getMessageType()).newIncomingMessage(message);
+    getOrCreateMessageCounter(message.getMessageType()).add(MessageCounter.INCOMING, message.getTotalLength());
   }
 
   @Override
   public void newOutgoingMessage(TCMessage message) {
-    getOrCreateMessageCounter(message.getMessageType()).newOutgoingMessage(message);
+    getOrCreateMessageCounter(message.getMessageType()).add(MessageCounter.OUTGOING, message.getTotalLength());
   }
 
   private MessageCounter getOrCreateMessageCounter(TCMessageType type) {
-    synchronized (counters) {
-      MessageCounter rv = counters.get(type);
-      if (rv == null) {
-        maxTypeWidth = Math.max(maxTypeWidth, type.getTypeName().length());
-        rv = new MessageCounter(formatter, type.getTypeName());
-        counters.put(type, rv);
-      }
-      return rv;
-    }
+    MessageCounter[] current = counters;
+    int index = type.getType();
+    if (index < current.length && current[index] != null) { return current[index]; }
+    return createMessageCounter(type);
+  }
+
+  private synchronized MessageCounter createMessageCounter(TCMessageType type) {
+    int index = type.getType();
+    MessageCounter[] current = counters;
+    if (index < current.length && current[index] != null) { return current[index]; }
+    MessageCounter[] grown = new MessageCounter[Math.max(current.length, index + 1)];
+    System.arraycopy(current, 0, grown, 0, current.length);
+    MessageCounter rv = new MessageCounter(formatter, type.getTypeName());
+    grown[index] = rv;
+    maxTypeWidth = Math.max(maxTypeWidth, type.getTypeName().length());
+    counters = grown;
+    return rv;
   }
 
-  public Map<TCMessageType, MessageCounter> getCounters() {
-    return counters;
+  /**
+   * @return the counters of every message type seen so far, sorted by type name
+   */
+  public List<MessageCounter> getCounters() {
+    List<MessageCounter> rv = new ArrayList<MessageCounter>();
+    for (MessageCounter counter : counters) {
+      if (counter != null) {
+        rv.add(counter);
+      }
+    }
+    Collections.sort(rv, new Comparator<MessageCounter>() {
+      @Override
+      public int compare(MessageCounter c1, MessageCounter c2) {
+        return c1.getName().compareTo(c2.getName());
+      }
+    });
+    return rv;
   }
 
+  /**
+   * Totals per message type, with rates since the previous call.
+   */
   @Override
-  public String toString() {
+  public synchronized String toString() {
     String nl = System.getProperty("line.separator");
     StringBuffer rv = new StringBuffer(nl);
 
-    synchronized (counters) {
-      for (MessageCounter counter : counters.values()) {
-        rv.append(counter.toString(maxTypeWidth)).append(nl);
-      }
+    long now = System.nanoTime();
+    double seconds = Math.max(1, now - lastReport) / (double) TimeUnit.SECONDS.toNanos(1);
+    lastReport = now;
+    for (MessageCounter counter : getCounters()) {
+      rv.append(counter.report(maxTypeWidth, seconds)).append(nl);
     }
 
     return rv.toString();
   }
 
   public static class MessageCounter {
-    private final AtomicLong      incomingCount = new AtomicLong(0);
-    private final AtomicLong      incomingData  = new AtomicLong(0);
-
-    private final AtomicLong      outgoingCount = new AtomicLong(0);
-    private final AtomicLong      outgoingData  = new AtomicLong(0);
+    private static final int      INCOMING = 0;
+    private static final int      OUTGOING = 2;
+    private static final int      COUNT    = 0;
+    private static final int      DATA     = 1;
+    // incoming count, incoming data, outgoing count and outgoing data share a 64 byte line per stripe
+    private static final int      LINE     = 8;
+    private static final int      STRIPES  = stripes();
+
+    private final AtomicLongArray cells    = new AtomicLongArray(STRIPES * LINE);
+    // totals at the last report, only touched by the synchronized toString() of the monitor
+    private final long[]          reported = new long[4];
     private final StringFormatter formatter;
     private final String          name;
 
@@ -121,51 +160,68 @@ public class MessageMonitorImpl implements MessageMonitor {
       this.name = name;
     }
 
-    private synchronized void newIncomingMessage(TCMessage message) {
-      incomingCount.incrementAndGet();
-      incomingData.addAndGet(message.getTotalLength());
+    private static int stripes() {
+      int stripes = 1;
+      while (stripes < Runtime.getRuntime().availableProcessors() && stripes < 16) {
+        stripes <<= 1;
+      }
+      return stripes;
     }
 
-    private synchronized void newOutgoingMessage(TCMessage message) {
-      outgoingCount.incrementAndGet();
-      outgoingData.addAndGet(message.getTotalLength());
+    private void add(int direction, int length) {
+      long id = Thread.currentThread().getId();
+      int base = ((int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & (STRIPES - 1)) * LINE + direction;
+      cells.getAndIncrement(base + COUNT);
+      cells.getAndAdd(base + DATA, length);
     }
 
-    public String toString(int nameWidth) {
-      return formatter.rightPad(nameWidth, name) + " | IN: " + formatter.leftPad(15, incomingCount) + ", "
-             + formatter.leftPad(30, incomingData) + " bytes " + "| OUT: " + formatter.leftPad(15, outgoingCount)
-             + ", " + formatter.leftPad(30, outgoingData) + " bytes";
-
+    private long sum(int slot) {
+      long sum = 0;
+      for (int i = 0; i < STRIPES; i++) {
+        sum += cells.get(i * LINE + slot);
+      }
+      return sum;
     }
 
-    public AtomicLong getIncomingCount() {
-      return incomingCount;
+    public long getIncomingCount() {
+      return sum(INCOMING + COUNT);
     }
 
-    public AtomicLong getIncomingData() {
-      return incomingData;
+    public long getIncomingData() {
+      return sum(INCOMING + DATA);
     }
 
-    public AtomicLong getOutgoingCount() {
-      return outgoingCount;
+    public long getOutgoingCount() {
+      return sum(OUTGOING + COUNT);
     }
 
-    public AtomicLong getOutgoingData() {
-      return outgoingData;
+    public long getOutgoingData() {
+      return sum(OUTGOING + DATA);
     }
 
     public String getName() {
       return name;
     }
-  }
 
-  private static class TCMessageTypeComparator implements Comparator<TCMessageType>, Serializable {
+    public String toString(int nameWidth) {
+      return formatter.rightPad(nameWidth, name) + " | IN: " + formatter.leftPad(15, getIncomingCount()) + ", "
+             + formatter.leftPad(30, getIncomingData()) + " bytes " + "| OUT: "
+             + formatter.leftPad(15, getOutgoingCount()) + ", " + formatter.leftPad(30, getOutgoingData()) + " bytes";
+    }
 
-    @Override
-    public int compare(TCMessageType t1, TCMessageType t2) {
-      return t1.getTypeName().compareTo(t2.getTypeName());
+    private String report(int nameWidth, double seconds) {
+      long[] totals = { getIncomingCount(), getIncomingData(), getOutgoingCount(), getOutgoingData() };
+      StringBuilder rv = new StringBuilder(toString(nameWidth));
+      rv.append(" | RATE IN: ").append(rate(totals, 0, seconds)).append("/s, ").append(rate(totals, 1, seconds))
+          .append(" bytes/s | RATE OUT: ").append(rate(totals, 2, seconds)).append("/s, ")
+          .append(rate(totals, 3, seconds)).append(" bytes/s");
+      System.arraycopy(totals, 0, reported, 0, totals.length);
+      return rv.toString();
     }
 
+    private long rate(long[] totals, int slot, double seconds) {
+      return Math.round((totals[slot] - reported[slot]) / seconds);
+    }
   }
 
 }
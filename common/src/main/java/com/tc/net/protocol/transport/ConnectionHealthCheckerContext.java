@@ -34,5 +34,8 @@ public interface ConnectionHealthCheckerContext {
 
   boolean receiveProbe(HealthCheckerProbeMessage message);
 
+  /* Any message, data or probe, arrived from the peer */
+  void heartbeat();
+
   void checkTime();
 }
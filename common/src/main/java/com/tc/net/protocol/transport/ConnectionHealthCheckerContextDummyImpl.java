@@ -53,4 +53,9 @@ public class ConnectionHealthCheckerContextDummyImpl implements ConnectionHealth
     throw new AssertionError("Dummy HealthCheckerContext.");
   }
 
+  @Override
+  public void heartbeat() {
+    // not judging this peer
+  }
+
 }
@@ -66,4 +66,9 @@ public class ConnectionHealthCheckerContextEchoImpl implements ConnectionHealthC
     throw new AssertionError("Echo HealthChecker");
   }
 
+  @Override
+  public void heartbeat() {
+    // not judging this peer
+  }
+
 }
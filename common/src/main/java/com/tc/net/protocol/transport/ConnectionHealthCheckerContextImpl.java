@@ -63,6 +63,10 @@ class ConnectionHealthCheckerContextImpl implements ConnectionHealthCheckerConte
   private final int                              maxProbeCountWithoutReply;
   private final AtomicLong                       probeReplyNotRecievedCount = new AtomicLong(0);
 
+  // Phi accrual suspicion, null when counting probes
+  private final PhiAccrualDetector               phiDetector;
+  private final int                              phiThreshold;
+
   // Context info
   private final HealthCheckerConfig              config;
   private final int                              callbackPort;
@@ -89,6 +93,10 @@ class ConnectionHealthCheckerContextImpl implements ConnectionHealthCheckerConte
     this.config = config;
     this.connectionManager = connMgr;
     this.timeDiffThreshold = config.getTimeDiffThreshold();
+    this.phiThreshold = config.getPhiThreshold();
+    this.phiDetector = (phiThreshold > 0) ? new PhiAccrualDetector(config.getPhiIntervalMillis(),
+                                                                   config.getPhiAcceptablePauseMillis(),
+                                                                   System.currentTimeMillis()) : null;
     this.logger = TCLogging.getLogger(ConnectionHealthCheckerImpl.class.getName() + ". "
                                       + config.getHealthCheckerName());
     this.remoteNodeDesc = mtb.getRemoteAddress().getCanonicalStringForm();
@@ -142,6 +150,17 @@ class ConnectionHealthCheckerContextImpl implements ConnectionHealthCheckerConte
     return ((this.probeReplyNotRecievedCount.get() < getMaxProbeCountWithoutReply()));
   }
 
+  private boolean canTrustPeer() {
+    if (phiDetector == null) { return canPingProbe(); }
+
+    // no socket connect fallback widens the margin the same way it allows more probes
+    double phi = phiDetector.phi(System.currentTimeMillis());
+    if (phi < phiThreshold * configFactor) { return true; }
+    logger.info("Suspicion level for " + remoteNodeDesc + " reached " + String.format("%.1f", phi) + " (max allowed:"
+                + (phiThreshold * configFactor) + ").");
+    return false;
+  }
+
   private int getMaxProbeCountWithoutReply() {
     return this.maxProbeCountWithoutReply * this.configFactor;
   }
@@ -175,7 +194,19 @@ class ConnectionHealthCheckerContextImpl implements ConnectionHealthCheckerConte
     // conn)
     TCSocketAddress sa = new TCSocketAddress(transportBase.getRemoteAddress().getAddress(), callbackPort);
     return new HealthCheckerSocketConnectImpl(sa, connection, remoteNodeDesc + "(callbackport:" + callbackPort + ")",
-                                              loger, cnfg.getSocketConnectTimeout());
+                                              loger, getSocketConnectTimeoutChecks(cnfg));
+  }
+
+  /**
+   * socketConnectTimeout is counted in ping intervals, with phi the connect status is looked at every phi interval so
+   * the count is scaled to give a slow connect the same time.
+   */
+  static int getSocketConnectTimeoutChecks(HealthCheckerConfig cnfg) {
+    if (cnfg.getPhiThreshold() <= 0 || cnfg.getPhiIntervalMillis() >= cnfg.getPingIntervalMillis()) {
+      return cnfg.getSocketConnectTimeout();
+    }
+    long checksPerInterval = (cnfg.getPingIntervalMillis() + cnfg.getPhiIntervalMillis() - 1) / cnfg.getPhiIntervalMillis();
+    return (int) (cnfg.getSocketConnectTimeout() * checksPerInterval);
   }
 
   private void clearPresentConnection() {
@@ -229,8 +260,11 @@ class ConnectionHealthCheckerContextImpl implements ConnectionHealthCheckerConte
   @Override
   public synchronized boolean probeIfAlive() {
 
-    if (!isIntervalTimeElapsed()) { return true; }
-    if (!isIdleTimeElapsed()) { return true; }
+    // the suspicion level already accounts for how long the peer has been quiet
+    if (phiDetector == null) {
+      if (!isIntervalTimeElapsed()) { return true; }
+      if (!isIdleTimeElapsed()) { return true; }
+    }
 
     if (currentState.equals(DEAD)) {
       // connection events might have moved us to DEAD state.
@@ -245,7 +279,7 @@ class ConnectionHealthCheckerContextImpl implements ConnectionHealthCheckerConte
     } else if (currentState.equals(START) || currentState.equals(ALIVE) || currentState.equals(AWAIT_PINGREPLY)) {
 
       /* Send Probe again; if not possible move to next state */
-      if (canPingProbe()) {
+      if (canTrustPeer()) {
         if (logger.isDebugEnabled()) {
           logger.debug("Sending PING Probe to IDLE " + remoteNodeDesc);
         }
@@ -327,6 +361,20 @@ class ConnectionHealthCheckerContextImpl implements ConnectionHealthCheckerConte
         message.getSource().getRemoteAddress()));
   }
 
+  @Override
+  public void heartbeat() {
+    if (phiDetector != null) {
+      phiDetector.heartbeat(System.currentTimeMillis());
+    }
+  }
+
+  /**
+   * Phi for the peer right now, 0 when this context counts probes instead.
+   */
+  public double getSuspicionLevel() {
+    return (phiDetector == null) ? 0 : phiDetector.phi(System.currentTimeMillis());
+  }
+
   private void sendProbeMessage(HealthCheckerProbeMessage message) {
     this.transport.send(message);
   }
@@ -393,6 +441,11 @@ class ConnectionHealthCheckerContextImpl implements ConnectionHealthCheckerConte
           logger.warn(remoteNodeDesc + " might be in Long GC. Ping-probe cycles completed since last reply : "
                       + socketConnectSuccessCount);
           initProbeCycle();
+          if (phiDetector != null) {
+            // as long a grace as a probe cycle gives, so socketConnectCount allows the same GC as without phi
+            phiDetector.restart(System.currentTimeMillis() + config.getPingIntervalMillis()
+                                * getMaxProbeCountWithoutReply());
+          }
           changeState(ALIVE);
         } else {
           logger.error(remoteNodeDesc + " might be in Long GC. Ping-probe cycles completed since last reply : "
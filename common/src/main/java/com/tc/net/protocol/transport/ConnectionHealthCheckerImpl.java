@@ -26,24 +26,38 @@ import com.tc.net.core.TCConnection;
 import com.tc.net.core.TCConnectionManager;
 import com.tc.util.Assert;
 import com.tc.util.concurrent.SetOnceFlag;
-import com.tc.util.concurrent.ThreadUtil;
+import com.tc.util.concurrent.Timer;
+import com.tc.util.concurrent.TimerWheel;
 
 import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The Engine which does the peer health checking work. Based on the config passed, it probes the peer once in specified
  * interval. When it doesn't get a reply from the peer, it disconnects the transport.
+ * <p>
+ * With a phi threshold configured, connections are looked at every phi interval instead and a peer is given up on once
+ * its suspicion level, based on the gaps between everything received from it, crosses the threshold rather than after
+ * a fixed number of unanswered probes.
  * 
  * @author Manoj
  */
 public class ConnectionHealthCheckerImpl implements ConnectionHealthChecker {
 
   private final TCLogger                         logger;
-  private final Thread                           monitorThread;
+  private final Timer                            monitorTimer;
   private final HealthCheckerMonitorThreadEngine monitorThreadEngine;
+  // the wheel only hands the sweep over, walking and pinging every connection is too long for the wheel thread
+  private final ExecutorService                  sweeper;
+  private final AtomicBoolean                    sweeping = new AtomicBoolean(false);
 
   private final SetOnceFlag                      shutdown = new SetOnceFlag();
   private final SetOnceFlag                      started  = new SetOnceFlag();
@@ -55,8 +69,17 @@ public class ConnectionHealthCheckerImpl implements ConnectionHealthChecker {
                                  + healthCheckerConfig.getHealthCheckerName());
     logger.setLevel(LogLevels.DEBUG);
     monitorThreadEngine = getHealthMonitorThreadEngine(healthCheckerConfig, connManager, logger);
-    monitorThread = new Thread(monitorThreadEngine, "HealthChecker");
-    monitorThread.setDaemon(true);
+    // checks run on the shared timer wheel instead of a dedicated sleeping thread per checker
+    monitorTimer = TimerWheel.shared().newTimer("HealthChecker");
+    final String sweeperName = "HealthChecker - " + healthCheckerConfig.getHealthCheckerName();
+    sweeper = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, sweeperName);
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
   }
 
   protected HealthCheckerMonitorThreadEngine getHealthMonitorThreadEngine(HealthCheckerConfig config,
@@ -68,7 +91,12 @@ public class ConnectionHealthCheckerImpl implements ConnectionHealthChecker {
   @Override
   public void start() {
     if (started.attemptSet()) {
-      monitorThread.start();
+      monitorTimer.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          handOffSweep();
+        }
+      }, 0, monitorThreadEngine.getCheckInterval(), TimeUnit.MILLISECONDS);
       logger.info("HealthChecker Started");
     } else {
       logger.warn("HealthChecker already started");
@@ -79,12 +107,37 @@ public class ConnectionHealthCheckerImpl implements ConnectionHealthChecker {
   public void stop() {
     if (shutdown.attemptSet()) {
       monitorThreadEngine.stop();
+      monitorTimer.cancel();
+      sweeper.shutdown();
       logger.info("HealthChecker STOP requested");
     } else {
       logger.info("HealthChecker STOP already requested");
     }
   }
 
+  /**
+   * Runs on the wheel thread.  A sweep still in progress when the next one comes due is not queued behind, the next
+   * due time picks up whatever it missed.
+   */
+  private void handOffSweep() {
+    if (!sweeping.compareAndSet(false, true)) { return; }
+    try {
+      sweeper.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            monitorThreadEngine.run();
+          } finally {
+            sweeping.set(false);
+          }
+        }
+      });
+    } catch (RejectedExecutionException ree) {
+      // stopped
+      sweeping.set(false);
+    }
+  }
+
   public boolean isRunning() {
     return started.isSet();
   }
@@ -141,6 +194,9 @@ public class ConnectionHealthCheckerImpl implements ConnectionHealthChecker {
     private final long                pingIdleTime;
     private final long                pingInterval;
     private final int                 pingProbes;
+    // how often connections are looked at and how quiet one must be to be probed
+    private final long                checkInterval;
+    private final long                probeIdleTime;
     private final long                checkTimeInterval;
     private final SetOnceFlag         stop          = new SetOnceFlag();
     private final HealthCheckerConfig config;
@@ -154,6 +210,13 @@ public class ConnectionHealthCheckerImpl implements ConnectionHealthChecker {
       this.pingInterval = healthCheckerConfig.getPingIntervalMillis();
       this.pingProbes = healthCheckerConfig.getPingProbes();
       this.checkTimeInterval = healthCheckerConfig.getCheckTimeInterval();
+      if (healthCheckerConfig.getPhiThreshold() > 0) {
+        this.checkInterval = healthCheckerConfig.getPhiIntervalMillis();
+        this.probeIdleTime = healthCheckerConfig.getPhiIntervalMillis();
+      } else {
+        this.checkInterval = pingInterval;
+        this.probeIdleTime = pingIdleTime;
+      }
       this.connectionManager = connectionManager;
       this.config = healthCheckerConfig;
 
@@ -166,6 +229,11 @@ public class ConnectionHealthCheckerImpl implements ConnectionHealthChecker {
         logger.info("Disabling HealthChecker for this CommsMgr");
         throw new AssertionError("HealthChecker Config Error");
       }
+      if (checkInterval <= 0) {
+        logger.info("phi.interval cannot be 0 or negative when phi.threshold is set.");
+        logger.info("Disabling HealthChecker for this CommsMgr");
+        throw new AssertionError("HealthChecker Config Error");
+      }
 
     }
 
@@ -191,56 +259,55 @@ public class ConnectionHealthCheckerImpl implements ConnectionHealthChecker {
 
     @Override
     public void run() {
-      while (true) {
+      if (stop.isSet()) {
+        logger.info("HealthChecker SHUTDOWN");
+        return;
+      }
 
-        if (stop.isSet()) {
-          logger.info("HealthChecker SHUTDOWN");
-          return;
-        }
+      // same interval for all connections
+      final boolean canCheckTime = canCheckTime();
 
-        // same interval for all connections
-        final boolean canCheckTime = canCheckTime();
+      Iterator<MessageTransportBase> connectionIterator = connectionMap.values().iterator();
+      while (connectionIterator.hasNext()) {
+        MessageTransportBase mtb = connectionIterator.next();
 
-        Iterator<MessageTransportBase> connectionIterator = connectionMap.values().iterator();
-        while (connectionIterator.hasNext()) {
-          MessageTransportBase mtb = connectionIterator.next();
+        TCConnection conn = mtb.getConnection();
+        if (conn == null || !mtb.isConnected()) {
+          logger.info("[" + (conn == null ? null : conn.getRemoteAddress().getCanonicalStringForm())
+                      + "] is not connected. Health Monitoring for this node is now disabled.");
+          connectionIterator.remove();
+          continue;
+        }
 
-          TCConnection conn = mtb.getConnection();
-          if (conn == null || !mtb.isConnected()) {
-            logger.info("[" + (conn == null ? null : conn.getRemoteAddress().getCanonicalStringForm())
-                        + "] is not connected. Health Monitoring for this node is now disabled.");
-            connectionIterator.remove();
-            continue;
-          }
+        ConnectionHealthCheckerContext connContext = mtb.getHealthCheckerContext();
+        if ((conn.getIdleReceiveTime() >= this.probeIdleTime)) {
 
-          ConnectionHealthCheckerContext connContext = mtb.getHealthCheckerContext();
-          if ((conn.getIdleReceiveTime() >= this.pingIdleTime)) {
-
-            if (!connContext.probeIfAlive()) {
-              // Connection is dead. Disconnect the transport.
-              logger.error("Declared connection dead " + mtb.getConnectionId() + " idle time "
-                           + conn.getIdleReceiveTime() + "ms");
-              mtb.disconnect();
-              connectionIterator.remove();
-            }
-          } else {
-            connContext.refresh();
-          }
-          // is there any significant time difference between hosts ?
-          if (canCheckTime) {
-            connContext.checkTime();
+          if (!connContext.probeIfAlive()) {
+            // Connection is dead. Disconnect the transport.
+            logger.error("Declared connection dead " + mtb.getConnectionId() + " idle time "
+                         + conn.getIdleReceiveTime() + "ms");
+            mtb.disconnect();
+            connectionIterator.remove();
           }
+        } else {
+          connContext.refresh();
         }
-
-        // update last check time once for all connections
+        // is there any significant time difference between hosts ?
         if (canCheckTime) {
-          this.lastCheckTime.set(System.currentTimeMillis());
+          connContext.checkTime();
         }
+      }
 
-        ThreadUtil.reallySleep(this.pingInterval);
+      // update last check time once for all connections
+      if (canCheckTime) {
+        this.lastCheckTime.set(System.currentTimeMillis());
       }
     }
 
+    long getCheckInterval() {
+      return checkInterval;
+    }
+
     boolean canCheckTime() {
       return config.isCheckTimeEnabled() &&
              (System.currentTimeMillis() - this.lastCheckTime.get() >= this.checkTimeInterval);
@@ -47,6 +47,21 @@ public class DisabledHealthCheckerConfigImpl implements HealthCheckerConfig {
     throw new AssertionError("Disabled HealthChecker");
   }
 
+  @Override
+  public int getPhiThreshold() {
+    throw new AssertionError("Disabled HealthChecker");
+  }
+
+  @Override
+  public long getPhiIntervalMillis() {
+    throw new AssertionError("Disabled HealthChecker");
+  }
+
+  @Override
+  public long getPhiAcceptablePauseMillis() {
+    throw new AssertionError("Disabled HealthChecker");
+  }
+
   @Override
   public String getHealthCheckerName() {
     throw new AssertionError("Disabled HealthChecker");
@@ -39,6 +39,18 @@ public interface HealthCheckerConfig {
   /* HC probes a idle connection for ping_probes times before tagging it as dead */
   int getPingProbes();
 
+  /**
+   * When above 0, HC suspects a peer once its phi suspicion level, worked out from the gaps between the messages
+   * received from it, reaches this threshold. This replaces the ping_idle/ping_probes counting.
+   */
+  int getPhiThreshold();
+
+  /* With phi enabled, HC checks its connections and pings any peer quiet for this long once per phi_interval */
+  long getPhiIntervalMillis();
+
+  /* With phi enabled, silence allowed on top of a peer's usual gaps before its suspicion level starts rising */
+  long getPhiAcceptablePauseMillis();
+
   /**
    * When HC detected the peer has died by above probes, it can do additional checks to see any traces of life left out
    * <ol>
@@ -35,6 +35,9 @@ public class HealthCheckerConfigImpl implements HealthCheckerConfig {
   private final long       pingIdleTime;
   private final long       pingInterval;
   private final int        pingProbes;
+  private final int        phiThreshold;
+  private final long       phiInterval;
+  private final long       phiAcceptablePause;
   private final boolean    doSocketConnect;
   private final int        socketConnectTimeout;
   private final int        socketConnectMaxCount;
@@ -51,11 +54,16 @@ public class HealthCheckerConfigImpl implements HealthCheckerConfig {
   private static final int DEFAULT_SOCKETCONNECT_TIMEOUT  = 2;
   private static final long DEFAULT_CHECK_TIME_INTERVAL   = TimeUnit.MINUTES.toMillis(5L);
   private static final long DEFAULT_TIME_DIFF_THRESHOLD   = TimeUnit.MINUTES.toMillis(5L);
+  private static final int DEFAULT_PHI_INTERVAL           = 100;
+  private static final int DEFAULT_PHI_ACCEPTABLE_PAUSE   = 300;
 
   public HealthCheckerConfigImpl(TCProperties healthCheckerProperties, String hcName) {
     this.pingIdleTime = healthCheckerProperties.getLong("ping.idletime");
     this.pingInterval = healthCheckerProperties.getLong("ping.interval");
     this.pingProbes = healthCheckerProperties.getInt("ping.probes");
+    this.phiThreshold = healthCheckerProperties.getInt("phi.threshold", 0);
+    this.phiInterval = healthCheckerProperties.getLong("phi.interval", DEFAULT_PHI_INTERVAL);
+    this.phiAcceptablePause = healthCheckerProperties.getLong("phi.acceptablePause", DEFAULT_PHI_ACCEPTABLE_PAUSE);
     this.name = hcName;
     this.doSocketConnect = healthCheckerProperties.getBoolean("socketConnect");
     this.enable = healthCheckerProperties.getBoolean("ping.enabled");
@@ -90,6 +98,9 @@ public class HealthCheckerConfigImpl implements HealthCheckerConfig {
     this.pingIdleTime = idle;
     this.pingInterval = interval;
     this.pingProbes = probes;
+    this.phiThreshold = 0;
+    this.phiInterval = DEFAULT_PHI_INTERVAL;
+    this.phiAcceptablePause = DEFAULT_PHI_ACCEPTABLE_PAUSE;
     this.name = name;
     this.doSocketConnect = extraCheck;
     this.enable = true;
@@ -125,6 +136,21 @@ public class HealthCheckerConfigImpl implements HealthCheckerConfig {
     return this.pingProbes;
   }
 
+  @Override
+  public int getPhiThreshold() {
+    return this.phiThreshold;
+  }
+
+  @Override
+  public long getPhiIntervalMillis() {
+    return this.phiInterval;
+  }
+
+  @Override
+  public long getPhiAcceptablePauseMillis() {
+    return this.phiAcceptablePause;
+  }
+
   @Override
   public String getHealthCheckerName() {
     return this.name;
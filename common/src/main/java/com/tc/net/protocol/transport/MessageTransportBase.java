@@ -113,6 +113,7 @@ abstract class MessageTransportBase extends AbstractMessageTransport implements
 
   protected final void receiveToReceiveLayer(WireProtocolMessage message) {
     Assert.assertNotNull(receiveLayer);
+    this.healthCheckerContext.heartbeat();
     if (message.getMessageProtocol() == WireProtocolHeader.PROTOCOL_TRANSPORT_HANDSHAKE) {
       // message is printed for debugging
       getLogger().info(message.toString());
@@ -0,0 +1,109 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.net.protocol.transport;
+
+/**
+ * Suspicion level for one peer, computed from the gaps between the messages received from it (Hayashibara et al, "The
+ * phi accrual failure detector"). Phi grows the longer the peer stays silent compared to its usual gaps, a phi of 8
+ * means a live peer would stay this quiet about once in 10^8 gaps. Data and probe replies both count as arrivals so a
+ * busy link and a quiet link answering pings are judged the same way.
+ */
+class PhiAccrualDetector {
+
+  static final int     WINDOW = 100;
+
+  private final long   minGap;
+  private final long   acceptablePause;
+  private final double minStdDeviation;
+
+  // gaps in milliseconds, oldest overwritten first. guarded by this
+  private final long[] gaps   = new long[WINDOW];
+  private int          count;
+  private int          next;
+  private double       sum;
+  private double       sumOfSquares;
+
+  private volatile long lastArrival;
+
+  /**
+   * @param expectedGap arrivals closer together than this are folded into one, peers are pinged once they are this
+   *        quiet so live links never go much longer
+   * @param acceptablePause silence allowed on top of the usual gaps before suspicion starts rising, covers short GC
+   *        and network hiccups
+   */
+  PhiAccrualDetector(long expectedGap, long acceptablePause, long now) {
+    this.minGap = expectedGap;
+    this.acceptablePause = acceptablePause;
+    this.minStdDeviation = Math.max(1, expectedGap / 2);
+    // assume the expected gap until real arrivals are seen
+    record(expectedGap - expectedGap / 4);
+    record(expectedGap + expectedGap / 4);
+    this.lastArrival = now;
+  }
+
+  void heartbeat(long now) {
+    // cheap check first, this runs for every message received
+    if (now - lastArrival < minGap) { return; }
+    synchronized (this) {
+      long gap = now - lastArrival;
+      if (gap < minGap) { return; }
+      record(gap);
+      lastArrival = now;
+    }
+  }
+
+  /**
+   * The peer showed life some other way, suspicion starts over from the given time without counting the silence as a
+   * usual gap. A time in the future holds suspicion off until then.
+   */
+  void restart(long from) {
+    lastArrival = from;
+  }
+
+  synchronized double phi(long now) {
+    double elapsed = now - lastArrival;
+    double mean = sum / count;
+    double variance = Math.max(0, sumOfSquares / count - mean * mean);
+    double stdDeviation = Math.max(Math.sqrt(variance), minStdDeviation);
+    mean += acceptablePause;
+
+    // logistic approximation of the normal distribution's tail
+    double y = (elapsed - mean) / stdDeviation;
+    double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+    if (elapsed > mean) {
+      return -Math.log10(e / (1.0 + e));
+    } else {
+      return -Math.log10(1.0 - 1.0 / (1.0 + e));
+    }
+  }
+
+  private void record(long gap) {
+    if (count == WINDOW) {
+      long dropped = gaps[next];
+      sum -= dropped;
+      sumOfSquares -= (double) dropped * dropped;
+    } else {
+      count++;
+    }
+    gaps[next] = gap;
+    next = (next + 1) % WINDOW;
+    sum += gap;
+    sumOfSquares += (double) gap * gap;
+  }
+}
@@ -31,5 +31,10 @@ public interface ClientHandshakeCallback {
 
   public void initializeHandshake(ClientHandshakeMessage handshakeMessage);
 
+  /**
+   * Called once the handshake has been sent, for anything which has to follow it on the same channel.
+   */
+  public void handshakeSent();
+
   public void shutdown(boolean fromShutdownHook);
 }
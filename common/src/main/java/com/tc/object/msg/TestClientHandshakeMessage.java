@@ -58,6 +58,8 @@ public class TestClientHandshakeMessage extends TestTCMessage implements ClientH
   private TestMessageChannel    channel;
   private String                uuid;
   private String                name;
+  private boolean               moreResends;
+  private boolean               resendChunk;
   private String                clientVersion;
   private int                   pid;
   private final Set<ClientEntityReferenceContext> reconnectReferenceSet = new HashSet<ClientEntityReferenceContext>();
@@ -192,4 +194,24 @@ public class TestClientHandshakeMessage extends TestTCMessage implements ClientH
   public Collection<ResendVoltronEntityMessage> getResendMessages() {
     return this.resendMessageSet;
   }
+
+  @Override
+  public void setMoreResends(boolean moreResends) {
+    this.moreResends = moreResends;
+  }
+
+  @Override
+  public boolean hasMoreResends() {
+    return this.moreResends;
+  }
+
+  @Override
+  public void setResendChunk(boolean resendChunk) {
+    this.resendChunk = resendChunk;
+  }
+
+  @Override
+  public boolean isResendChunk() {
+    return this.resendChunk;
+  }
 }
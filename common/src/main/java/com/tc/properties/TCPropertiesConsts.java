@@ -43,12 +43,15 @@ public interface TCPropertiesConsts {
    *                                      seda stage
    * stage.sink.capacity                : Capacity of seda stage queue, Integer.MAX_VALUE if not set
    *                                      (experimental, do not change)
+   * lock.stage.threads                 : Number of threads for processing and responding to lock requests,
+   *                                      rounded down to a power of two
    * </code>
    ********************************************************************************************************************/
   public static final String ENTITY_PROCESSOR_THREADS                                    = "server.entity.processor.threads";
   public static final String L2_SEDA_STAGE_SINK_CAPACITY                                    = "l2.seda.stage.sink.capacity";
   String L2_TCCOM_WORKERTHREADS                                                          = "l2.tccom.workerthreads";
   String L2_SEDA_STAGE_WORKERTHREADS                                                     = "l2.seda.stage.workerthreads";
+  String L2_SEDA_LOCK_STAGE_THREADS                                                      = "l2.seda.lock.stage.threads";
 
   /*********************************************************************************************************************
    * <code>
@@ -73,8 +76,22 @@ public interface TCPropertiesConsts {
    * tcgroupcomm.reconnect.maxDelayedAcks - At least one ack per maxDelayedAcks messages received
    * tcgroupcomm.reconnect.sendWindow     - Max outstanding messages before ack received
    * tcgroupcomm.reconnect.enabled        - Enable L2-L2 reconnect
+   * tcgroupcomm.dataLane.window          - Ordinary group messages, like replication and sync, handed to a peer's
+   *                                        channel at a time.  Elections, zaps and replication acks are sent ahead
+   *                                        of them.  0 to send everything in order
+   * tcgroupcomm.dataLane.capacity        - Ordinary group messages waiting for a peer before the sender is held back
    * send.timeout.millis                  - Number of milliseconds to retry sending a message
    * dirtydb.backup.enabled               - Creates BackUp of DirtyDB only If it is set to true.
+   * replication.backlog.maxMessages      - Replicated messages a passive may leave unacknowledged before new client
+   *                                        requests are held back, 0 for no limit
+   * replication.backlog.maxBytes         - Replicated payload bytes a passive may leave unacknowledged before new client
+   *                                        requests are held back, 0 for no limit
+   * replication.log.maxMessages          - Replicated messages the active retains to catch up a passive which rejoins
+   *                                        after a short disconnect, both log limits 0 to disable
+   * replication.log.maxBytes             - Replicated payload bytes the active retains to catch up a passive which
+   *                                        rejoins after a short disconnect, both log limits 0 to disable
+   * sync.gatherMillis                    - Milliseconds a passive sync waits for other passives asking for sync so
+   *                                        they can all be synced in one pass, 0 to start right away
    * </code>
    ********************************************************************************************************************/
   public static final String L2_NHA_TCGROUPCOMM_HANDSHAKE_TIMEOUT                           = "l2.nha.tcgroupcomm.handshake.timeout";
@@ -84,11 +101,31 @@ public interface TCPropertiesConsts {
   public static final String L2_NHA_TCGROUPCOMM_RECONNECT_MAX_DELAYEDACKS                   = "l2.nha.tcgroupcomm.reconnect.maxDelayedAcks";
   public static final String L2_NHA_TCGROUPCOMM_RECONNECT_SEND_WINDOW                       = "l2.nha.tcgroupcomm.reconnect.sendWindow";
   public static final String L2_NHA_TCGROUPCOMM_DISCOVERY_INTERVAL                          = "l2.nha.tcgroupcomm.discovery.interval";
+  public static final String L2_NHA_TCGROUPCOMM_DATA_WINDOW                                 = "l2.nha.tcgroupcomm.dataLane.window";
+  public static final String L2_NHA_TCGROUPCOMM_DATA_CAPACITY                               = "l2.nha.tcgroupcomm.dataLane.capacity";
   // a hidden tc.properties only used for l2 proxy testing purpose
   public static final String L2_NHA_TCGROUPCOMM_RECONNECT_L2PROXY_TO_PORT                   = "l2.nha.tcgroupcomm.l2proxytoport";
   public static final String L2_NHA_DIRTYDB_AUTODELETE                                      = "l2.nha.dirtydb.autoDelete";
   public static final String L2_NHA_DIRTYDB_ROLLING                                         = "l2.nha.dirtydb.rolling";
   public static final String L2_NHA_AUTORESTART                                             = "l2.nha.autoRestart";
+  public static final String L2_NHA_REPLICATION_BACKLOG_MAX_MESSAGES                        = "l2.nha.replication.backlog.maxMessages";
+  public static final String L2_NHA_REPLICATION_BACKLOG_MAX_BYTES                           = "l2.nha.replication.backlog.maxBytes";
+  public static final String L2_NHA_REPLICATION_LOG_MAX_MESSAGES                            = "l2.nha.replication.log.maxMessages";
+  public static final String L2_NHA_REPLICATION_LOG_MAX_BYTES                               = "l2.nha.replication.log.maxBytes";
+  public static final String L2_NHA_PASSIVE_SYNC_GATHER_MILLIS                              = "l2.nha.sync.gatherMillis";
+
+  /*********************************************************************************************************************
+   * <code>
+   * Section : L2 Persistence
+   * Description : Storage of the server's own state
+   * mapped.enabled                       - Keep sequences and client IDs in memory-mapped files beside a flat file store
+   *                                        instead of rewriting the store on every change
+   * mapped.sync.interval                 - Milliseconds between forcing changes to the memory-mapped files to disk,
+   *                                        0 to leave it to the operating system
+   * </code>
+   ********************************************************************************************************************/
+  public static final String L2_PERSISTENCE_MAPPED_ENABLED                                  = "l2.persistence.mapped.enabled";
+  public static final String L2_PERSISTENCE_MAPPED_SYNC_INTERVAL                            = "l2.persistence.mapped.sync.interval";
 
   /*********************************************************************************************************************
    * <code>
@@ -98,10 +135,52 @@ public interface TCPropertiesConsts {
    *                                 instance in a cluster with no passives present
    * startuplock.retries.enabled   : If true then L2s will try to lock indefinitely on the data
    *                                 directory while starting up
+   * entity.stats.enabled          : If true then each entity counts its requests, bytes and times
+   * entity.stats.trackedKeys      : Number of hottest concurrency keys tracked per entity
+   * entity.stats.publish.interval : Milliseconds between publishing entity statistics to the
+   *                                 monitoring tree, 0 to disable
+   * entity.hotstandby.enabled     : If true then passive entities keep the active instance they would be promoted to
+   *                                 built ahead of time
    * </code>
    ********************************************************************************************************************/
   public static final String L2_STARTUPLOCK_RETRIES_ENABLED                                 = "l2.startuplock.retries.enabled";
   public static final String ENTITY_DEFERMENT_QUEUE_SIZE                                    = "server.entity.deferment.queue.size";
+  public static final String ENTITY_INVOKE_BATCH_MAX                                        = "server.entity.invoke.batch.max";
+  public static final String ENTITY_STATS_ENABLED                                           = "server.entity.stats.enabled";
+  public static final String ENTITY_STATS_TRACKED_KEYS                                      = "server.entity.stats.trackedKeys";
+  public static final String ENTITY_STATS_PUBLISH_INTERVAL                                  = "server.entity.stats.publish.interval";
+  public static final String ENTITY_HOT_STANDBY_ENABLED                                     = "server.entity.hotstandby.enabled";
+
+  /*********************************************************************************************************************
+   * <code>
+   * Section : L2 Flight Recorder
+   * Description : An always-on ring buffer of server health samples which is dumped on demand or when a stage stalls
+   * enabled         : If true then samples are taken
+   * interval        : Milliseconds between samples
+   * samples         : Number of samples kept, older ones are overwritten
+   * stall.threshold : Milliseconds a stage may spend on a single context before the recording is dumped to the
+   *                   log, 0 to never dump automatically
+   * </code>
+   ********************************************************************************************************************/
+  public static final String L2_FLIGHT_RECORDER_ENABLED                                     = "l2.flightrecorder.enabled";
+  public static final String L2_FLIGHT_RECORDER_INTERVAL                                    = "l2.flightrecorder.interval";
+  public static final String L2_FLIGHT_RECORDER_SAMPLES                                     = "l2.flightrecorder.samples";
+  public static final String L2_FLIGHT_RECORDER_STALL_THRESHOLD                             = "l2.flightrecorder.stall.threshold";
+
+  /*********************************************************************************************************************
+   * <code>
+   * Section : L2 Client Reconnect Window
+   * Description : How long a restarted or promoted server waits for its previous clients before resuming service
+   * adaptive.enabled - If true then the window is shortened once most clients are back, based on how long they took
+   * adaptive.quorum  - Percentage of the previous clients which must be back before the window is shortened
+   * adaptive.factor  - The rest of the window is this many times the time the quorum took to reconnect
+   * adaptive.min     - Milliseconds the rest of the window is never shortened below
+   * </code>
+   ********************************************************************************************************************/
+  public static final String L2_RECONNECT_WINDOW_ADAPTIVE_ENABLED                           = "l2.reconnect.window.adaptive.enabled";
+  public static final String L2_RECONNECT_WINDOW_ADAPTIVE_QUORUM                            = "l2.reconnect.window.adaptive.quorum";
+  public static final String L2_RECONNECT_WINDOW_ADAPTIVE_FACTOR                            = "l2.reconnect.window.adaptive.factor";
+  public static final String L2_RECONNECT_WINDOW_ADAPTIVE_MIN                               = "l2.reconnect.window.adaptive.min";
   
   /*********************************************************************************************************************
    * <code>
@@ -180,6 +259,7 @@ public interface TCPropertiesConsts {
    * Description : Stage monitoring can be enabled or disabled for debugging.
    * stage.monitor.enabled                : <true/false>    - Enable or Disable Monitoring
    * stage.monitor.delay                  : long            - frequency in milliseconds
+   * stage.latency.enabled                : <true/false>    - Record queue wait and execution latency per stage
    * bytebuffer.pooling.enabled           : Enable/disable tc byte buffer pooling
    * bytebuffer.common.pool.maxcount      : Max size of pool for tc byte buffer
    * bytebuffer.threadlocal.pool.maxcount : Thread pool size
@@ -187,6 +267,7 @@ public interface TCPropertiesConsts {
    ********************************************************************************************************************/
   public static final String TC_STAGE_MONITOR_ENABLED                                       = "tc.stage.monitor.enabled";
   public static final String TC_STAGE_MONITOR_DELAY                                         = "tc.stage.monitor.delay";
+  public static final String TC_STAGE_LATENCY_ENABLED                                       = "tc.stage.latency.enabled";
   public static final String TC_BYTEBUFFER_POOLING_ENABLED                                  = "tc.bytebuffer.pooling.enabled";
   public static final String TC_BYTEBUFFER_COMMON_POOL_MAXCOUNT                             = "tc.bytebuffer.common.pool.maxcount";
   public static final String TC_BYTEBUFFER_THREADLOCAL_POOL_MAXCOUNT                        = "tc.bytebuffer.threadlocal.pool.maxcount";
@@ -219,11 +300,13 @@ public interface TCPropertiesConsts {
    * Description       : This section contains the defaults for the client lock manager for the L1
    * striped.count     : striping count for l1 lock manager
    * timeout.interval  : time after which an unused lock will be a candidate for lock GC
+   * request.batch.window : milliseconds lock requests may be held to be sent together, 0 to disable
    * </code>
    ********************************************************************************************************************/
   public static final String L1_LOCKMANAGER_STRIPED_COUNT                                   = "l1.lockmanager.striped.count";
   public static final String L1_LOCKMANAGER_TIMEOUT_INTERVAL                                = "l1.lockmanager.timeout.interval";
   public static final String L1_LOCKMANAGER_PINNING_ENABLED                                 = "l1.lockmanager.pinning.enabled";
+  public static final String L1_LOCKMANAGER_REQUEST_BATCH_WINDOW                            = "l1.lockmanager.request.batch.window";
 
   /*********************************************************************************************************************
    * <code>
@@ -243,11 +326,13 @@ public interface TCPropertiesConsts {
    * enabled            : Enable/disable greedy locks grant from L2
    * leaseTimeInMillis  : Time for which greedy locks are given to L1 if more than one of them
    *                      are contending for them
+   * response.batch.window : milliseconds lock responses may be held to be sent together, 0 to disable
    * </code>
    ********************************************************************************************************************/
   public static final String L2_LOCKMANAGER_GREEDY_LOCKS_ENABLED                            = "l2.lockmanager.greedy.locks.enabled";
   public static final String L2_LOCKMANAGER_GREEDY_LEASE_ENABLED                            = "l2.lockmanager.greedy.lease.enabled";
   public static final String L2_LOCKMANAGER_GREEDY_LEASE_LEASETIME_INMILLS                  = "l2.lockmanager.greedy.lease.leaseTimeInMillis";
+  public static final String L2_LOCKMANAGER_RESPONSE_BATCH_WINDOW                           = "l2.lockmanager.response.batch.window";
 
   /*********************************************************************************************************************
    * <code>
@@ -279,12 +364,21 @@ public interface TCPropertiesConsts {
    *                         connecting to the peer node. On timeout, healthchecker
    *                         concludes peer node as dead irrespective of previous
    *                         successful socket connects
+   *  phi.threshold        - If above 0, peer node is suspected once its suspicion level, worked out
+   *                         from the gaps between messages received from it, reaches this value
+   *  phi.interval         - The interval (in milliseconds) between healthchecker looking at connections
+   *                         and pinging the ones quiet for at least as long
+   *  phi.acceptablePause  - Silence (in milliseconds) allowed on top of the usual gaps before the
+   *                         suspicion level starts rising
    * </code>
    ********************************************************************************************************************/
   public static final String L2_HEALTHCHECK_L1_PING_ENABLED                                 = "l2.healthcheck.l1.ping.enabled";
   public static final String L2_HEALTHCHECK_L1_PING_IDLETIME                                = "l2.healthcheck.l1.ping.idletime";
   public static final String L2_HEALTHCHECK_L1_PING_INTERVAL                                = "l2.healthcheck.l1.ping.interval";
   public static final String L2_HEALTHCHECK_L1_PING_PROBES                                  = "l2.healthcheck.l1.ping.probes";
+  public static final String L2_HEALTHCHECK_L1_PHI_THRESHOLD                                = "l2.healthcheck.l1.phi.threshold";
+  public static final String L2_HEALTHCHECK_L1_PHI_INTERVAL                                 = "l2.healthcheck.l1.phi.interval";
+  public static final String L2_HEALTHCHECK_L1_PHI_ACCEPTABLE_PAUSE                         = "l2.healthcheck.l1.phi.acceptablePause";
   public static final String L2_HEALTHCHECK_L1_SOCKECT_CONNECT                              = "l2.healthcheck.l1.socketConnect";
   public static final String L2_HEALTHCHECK_L1_SOCKECT_CONNECT_TIMEOUT                      = "l2.healthcheck.l1.socketConnectTimeout";
   public static final String L2_HEALTHCHECK_L1_SOCKECT_CONNECT_COUNT                        = "l2.healthcheck.l1.socketConnectCount";
@@ -296,6 +390,9 @@ public interface TCPropertiesConsts {
   public static final String L2_HEALTHCHECK_L2_PING_IDLETIME                                = "l2.healthcheck.l2.ping.idletime";
   public static final String L2_HEALTHCHECK_L2_PING_INTERVAL                                = "l2.healthcheck.l2.ping.interval";
   public static final String L2_HEALTHCHECK_L2_PING_PROBES                                  = "l2.healthcheck.l2.ping.probes";
+  public static final String L2_HEALTHCHECK_L2_PHI_THRESHOLD                                = "l2.healthcheck.l2.phi.threshold";
+  public static final String L2_HEALTHCHECK_L2_PHI_INTERVAL                                 = "l2.healthcheck.l2.phi.interval";
+  public static final String L2_HEALTHCHECK_L2_PHI_ACCEPTABLE_PAUSE                         = "l2.healthcheck.l2.phi.acceptablePause";
   public static final String L2_HEALTHCHECK_L2_SOCKECT_CONNECT                              = "l2.healthcheck.l2.socketConnect";
   public static final String L2_HEALTHCHECK_L2_SOCKECT_CONNECT_TIMEOUT                      = "l2.healthcheck.l2.socketConnectTimeout";
   public static final String L2_HEALTHCHECK_L2_SOCKECT_CONNECT_COUNT                        = "l2.healthcheck.l2.socketConnectCount";
@@ -309,6 +406,9 @@ public interface TCPropertiesConsts {
   public static final String L1_HEALTHCHECK_L2_PING_IDLETIME                                = "l1.healthcheck.l2.ping.idletime";
   public static final String L1_HEALTHCHECK_L2_PING_INTERVAL                                = "l1.healthcheck.l2.ping.interval";
   public static final String L1_HEALTHCHECK_L2_PING_PROBES                                  = "l1.healthcheck.l2.ping.probes";
+  public static final String L1_HEALTHCHECK_L2_PHI_THRESHOLD                                = "l1.healthcheck.l2.phi.threshold";
+  public static final String L1_HEALTHCHECK_L2_PHI_INTERVAL                                 = "l1.healthcheck.l2.phi.interval";
+  public static final String L1_HEALTHCHECK_L2_PHI_ACCEPTABLE_PAUSE                         = "l1.healthcheck.l2.phi.acceptablePause";
   public static final String L1_HEALTHCHECK_L2_SOCKECT_CONNECT                              = "l1.healthcheck.l2.socketConnect";
   public static final String L1_HEALTHCHECK_L2_SOCKECT_CONNECT_TIMEOUT                      = "l1.healthcheck.l2.socketConnectTimeout";
   public static final String L1_HEALTHCHECK_L2_SOCKECT_CONNECT_COUNT                        = "l1.healthcheck.l2.socketConnectCount";
@@ -394,6 +494,23 @@ public interface TCPropertiesConsts {
    ********************************************************************************************************************/
   public static final String VERSION_COMPATIBILITY_CHECK                                    = "version.compatibility.check";
 
+  /*********************************************************************************************************************
+   * <code>
+   * Section :  Request Tracing
+   * l1.request.trace.sampleRate - trace one in every N entity requests through the servers, 0 disables tracing
+   * </code>
+   ********************************************************************************************************************/
+  public static final String L1_REQUEST_TRACE_SAMPLE_RATE                                   = "l1.request.trace.sampleRate";
+
+  /*********************************************************************************************************************
+   * <code>
+   * Section :  Reconnect Resends
+   * l1.reconnect.resend.chunkSize - bytes of in-flight payload resent per message after the handshake, resends which
+   *                                 fit in a single chunk are carried by the handshake itself
+   * </code>
+   ********************************************************************************************************************/
+  public static final String L1_RECONNECT_RESEND_CHUNK_SIZE                                 = "l1.reconnect.resend.chunkSize";
+
   /*********************************************************************************************************************
    * <code>
    * Section :  Some useful subcategories
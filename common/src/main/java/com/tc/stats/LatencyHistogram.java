@@ -0,0 +1,172 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.stats;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of latencies in nanoseconds.  Every power of two is split in 32 buckets so reported values are
+ * within about 3% of what was recorded.
+ * <p>
+ * Each recording thread writes to its own {@link Recorder}, so recording neither allocates nor contends.  Readers merge
+ * the recorders into a {@link Snapshot}.
+ */
+public class LatencyHistogram {
+  private static final int     SUB_BUCKET_BITS  = 5;
+  private static final int     SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int     BUCKET_COUNT     = 64 * SUB_BUCKET_COUNT;
+  // the slot after the buckets holds the sum of all recorded values
+  private static final int     TOTAL            = BUCKET_COUNT;
+
+  private final List<Recorder> recorders        = new CopyOnWriteArrayList<Recorder>();
+  private long[]               baseline         = new long[BUCKET_COUNT + 1];
+
+  /**
+   * @return a recorder which must only ever be written to by one thread at a time
+   */
+  public Recorder newRecorder() {
+    Recorder recorder = new Recorder();
+    recorders.add(recorder);
+    return recorder;
+  }
+
+  /**
+   * @return everything recorded since creation or the last {@link #reset()}
+   */
+  public synchronized Snapshot snapshot() {
+    long[] counts = sum();
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] -= baseline[i];
+    }
+    return new Snapshot(counts);
+  }
+
+  public synchronized void reset() {
+    baseline = sum();
+  }
+
+  private long[] sum() {
+    long[] counts = new long[BUCKET_COUNT + 1];
+    for (Recorder recorder : recorders) {
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] += recorder.counts.get(i);
+      }
+    }
+    return counts;
+  }
+
+  static int indexFor(long value) {
+    if (value < 2 * SUB_BUCKET_COUNT) { return (int) value; }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift * SUB_BUCKET_COUNT) + (int) (value >>> shift);
+  }
+
+  static long highestValueIn(int index) {
+    if (index < 2 * SUB_BUCKET_COUNT) { return index; }
+    int shift = index / SUB_BUCKET_COUNT - 1;
+    long subBucket = index - shift * SUB_BUCKET_COUNT;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  public static final class Recorder {
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT + 1);
+
+    private Recorder() {
+      //
+    }
+
+    public void record(long nanos) {
+      long value = Math.max(0, nanos);
+      int index = indexFor(value);
+      // single writer, so an ordered write of the incremented value is enough
+      counts.lazySet(index, counts.get(index) + 1);
+      counts.lazySet(TOTAL, counts.get(TOTAL) + value);
+    }
+  }
+
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long   count;
+
+    private Snapshot(long[] counts) {
+      this.counts = counts;
+      long c = 0;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        c += counts[i];
+      }
+      this.count = c;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * @return the sum of every recorded value, for computing the mean between two snapshots
+     */
+    public long getTotal() {
+      return counts[TOTAL];
+    }
+
+    public long getMean() {
+      return count == 0 ? 0 : counts[TOTAL] / count;
+    }
+
+    /**
+     * @return the upper bound of the highest non-empty bucket
+     */
+    public long getMax() {
+      for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+        if (counts[i] != 0) { return highestValueIn(i); }
+      }
+      return 0;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the upper bound of the bucket holding the requested percentile, 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+      if (count == 0) { return 0; }
+      long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        seen += counts[i];
+        if (seen >= target) { return highestValueIn(i); }
+      }
+      return getMax();
+    }
+
+    /**
+     * Count followed by mean and percentiles in microseconds.
+     */
+    @Override
+    public String toString() {
+      return "count=" + count + " mean=" + micros(getMean()) + " p50=" + micros(getValueAtPercentile(50)) + " p90="
+             + micros(getValueAtPercentile(90)) + " p99=" + micros(getValueAtPercentile(99)) + " p99.9="
+             + micros(getValueAtPercentile(99.9)) + " max=" + micros(getMax());
+    }
+
+    private static String micros(long nanos) {
+      return String.format("%.1fus", nanos / 1000.0);
+    }
+  }
+}
@@ -0,0 +1,499 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.util.concurrent;
+
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link TaskRunner} backed by a hashed timer wheel.
+ * <p/>
+ * Tasks are hashed by deadline into a fixed ring of buckets, so scheduling and cancelling a task are O(1) no matter how
+ * many tasks are outstanding, and no lock is shared between the threads scheduling tasks.  A single worker thread
+ * advances the wheel one bucket per tick and runs every task of that bucket which has expired in one pass.  Deadlines
+ * are only accurate to one tick, which suits lock, wait and health check timeouts.
+ * <p/>
+ * Expired tasks run on the wheel thread, so they must be short and must not block.  Cancelling a {@link Timer} created
+ * by this runner is lazy: its tasks are dropped when they come due instead of being searched for.
+ *
+ * @see Timer
+ */
+public class TimerWheel implements TaskRunner {
+
+  private static final TCLogger logger                 = TCLogging.getLogger(TimerWheel.class);
+
+  public static final long      DEFAULT_TICK_MILLIS    = 10;
+  public static final int       DEFAULT_WHEEL_SIZE     = 512;
+  // bounds the work done in one tick when a burst of tasks is scheduled at once
+  private static final int      MAX_TRANSFERS_PER_TICK = 100000;
+
+  private final Queue<Timeout>  pending                = new ConcurrentLinkedQueue<Timeout>();
+  private final Queue<Timeout>  cancelled              = new ConcurrentLinkedQueue<Timeout>();
+  private final Bucket[]        wheel;
+  private final int             mask;
+  private final long            tickNanos;
+  private final long            startTime;
+  private final boolean         shared;
+  private final Thread          worker;
+  private volatile boolean      shutdown;
+  // only touched by the worker thread
+  private long                  tick;
+
+  /**
+   * The wheel shared by the whole VM.  It is never shut down; cancel the timers created from it instead.
+   */
+  public static TimerWheel shared() {
+    return SharedWheelHolder.INSTANCE;
+  }
+
+  public TimerWheel(String name) {
+    this(name, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+  }
+
+  public TimerWheel(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+    this(name, tickDuration, unit, wheelSize, false);
+  }
+
+  private TimerWheel(String name, long tickDuration, TimeUnit unit, int wheelSize, boolean shared) {
+    if (tickDuration <= 0) {
+      throw new IllegalArgumentException("tickDuration should be a positive number");
+    }
+    if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+      throw new IllegalArgumentException("wheelSize should be between 1 and 2^30");
+    }
+    int size = 1;
+    while (size < wheelSize) {
+      size <<= 1;
+    }
+    this.wheel = new Bucket[size];
+    for (int i = 0; i < size; i++) {
+      this.wheel[i] = new Bucket();
+    }
+    this.mask = size - 1;
+    this.tickNanos = unit.toNanos(tickDuration);
+    this.shared = shared;
+    this.startTime = System.nanoTime();
+    this.worker = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        runWheel();
+      }
+    }, name);
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  @Override
+  public Timer newTimer() {
+    return newTimer(null);
+  }
+
+  @Override
+  public Timer newTimer(String name) {
+    if (shutdown) {
+      throw new IllegalStateException("Cannot create a timer - the timer wheel has been already shut down");
+    }
+    return new WheelTimer(name);
+  }
+
+  @Override
+  public void cancelTimer(Timer timer) {
+    timer.cancel();
+  }
+
+  @Override
+  public void shutdown() {
+    if (shared) {
+      logger.warn("Ignoring shutdown of the shared timer wheel");
+      return;
+    }
+    shutdown = true;
+    LockSupport.unpark(worker);
+    boolean interrupted = false;
+    try {
+      worker.join(TimeUnit.SECONDS.toMillis(10));
+    } catch (InterruptedException e) {
+      interrupted = true;
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    pending.clear();
+    cancelled.clear();
+  }
+
+  private long now() {
+    return System.nanoTime() - startTime;
+  }
+
+  private Timeout schedule(WheelTimer timer, Runnable command, long delayNanos, long periodNanos) {
+    if (command == null) {
+      throw new NullPointerException("command");
+    }
+    if (shutdown) {
+      throw new RejectedExecutionException("Cannot schedule a task - the timer wheel has been already shut down");
+    }
+    long deadline = now() + Math.max(delayNanos, 0);
+    if (deadline < 0) {
+      // java.util.Timer contract, callers rely on it to detect effectively infinite timeouts
+      throw new IllegalArgumentException("Illegal execution time.");
+    }
+    Timeout timeout = new Timeout(this, timer, command, deadline, periodNanos);
+    pending.add(timeout);
+    return timeout;
+  }
+
+  private void runWheel() {
+    while (!shutdown) {
+      long deadline = waitForNextTick();
+      if (deadline < 0) {
+        break;
+      }
+      removeCancelled();
+      transferPending();
+      Bucket bucket = wheel[(int) (tick & mask)];
+      Timeout timeout = bucket.head;
+      while (timeout != null) {
+        if (timeout.remainingRounds <= 0) {
+          Timeout next = bucket.remove(timeout);
+          runTimeout(timeout);
+          timeout = next;
+        } else if (timeout.isCancelled()) {
+          timeout = bucket.remove(timeout);
+        } else {
+          timeout.remainingRounds--;
+          timeout = timeout.next;
+        }
+      }
+      tick++;
+    }
+  }
+
+  private long waitForNextTick() {
+    long deadline = tickNanos * (tick + 1);
+    while (true) {
+      long sleepNanos = deadline - now();
+      if (sleepNanos <= 0) {
+        return deadline;
+      }
+      LockSupport.parkNanos(this, sleepNanos);
+      if (shutdown) {
+        return -1;
+      }
+    }
+  }
+
+  private void removeCancelled() {
+    Timeout timeout;
+    while ((timeout = cancelled.poll()) != null) {
+      if (timeout.bucket != null) {
+        timeout.bucket.remove(timeout);
+      }
+    }
+  }
+
+  private void transferPending() {
+    for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+      Timeout timeout = pending.poll();
+      if (timeout == null) {
+        break;
+      }
+      if (timeout.isCancelled()) {
+        continue;
+      }
+      long calculated = timeout.deadline / tickNanos;
+      timeout.remainingRounds = (calculated - tick) / wheel.length;
+      // a deadline which has already passed goes in the current bucket so it expires on this tick
+      long ticks = Math.max(calculated, tick);
+      wheel[(int) (ticks & mask)].add(timeout);
+    }
+  }
+
+  private void runTimeout(Timeout timeout) {
+    if (timeout.timer.cancelled) {
+      timeout.cancel(false);
+      return;
+    }
+    if (!timeout.compareAndSetState(Timeout.WAITING, Timeout.RUNNING)) {
+      return;
+    }
+    try {
+      timeout.task.run();
+    } catch (Throwable t) {
+      logger.error("Task " + timeout.task + " of timer " + timeout.timer + " failed", t);
+      timeout.finish(Timeout.FAILED, t);
+      return;
+    }
+    if (timeout.period == 0) {
+      timeout.finish(Timeout.DONE, null);
+    } else {
+      timeout.deadline = (timeout.period > 0) ? timeout.deadline + timeout.period : now() - timeout.period;
+      if (timeout.compareAndSetState(Timeout.RUNNING, Timeout.WAITING)) {
+        pending.add(timeout);
+      }
+    }
+  }
+
+  private static final class SharedWheelHolder {
+    private static final TimerWheel INSTANCE = new TimerWheel("Timer Wheel", DEFAULT_TICK_MILLIS,
+                                                              TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE, true);
+  }
+
+  /**
+   * A doubly linked list of timeouts.  Only touched by the worker thread.
+   */
+  private static final class Bucket {
+    private Timeout head;
+    private Timeout tail;
+
+    private void add(Timeout timeout) {
+      timeout.bucket = this;
+      if (head == null) {
+        head = tail = timeout;
+      } else {
+        tail.next = timeout;
+        timeout.prev = tail;
+        tail = timeout;
+      }
+    }
+
+    private Timeout remove(Timeout timeout) {
+      Timeout next = timeout.next;
+      if (timeout.prev != null) {
+        timeout.prev.next = next;
+      }
+      if (next != null) {
+        next.prev = timeout.prev;
+      }
+      if (timeout == head) {
+        head = next;
+      }
+      if (timeout == tail) {
+        tail = timeout.prev;
+      }
+      timeout.prev = null;
+      timeout.next = null;
+      timeout.bucket = null;
+      return next;
+    }
+  }
+
+  private static final class Timeout implements ScheduledFuture<Object> {
+    private static final int                                    WAITING   = 0;
+    private static final int                                    RUNNING   = 1;
+    private static final int                                    DONE      = 2;
+    private static final int                                    FAILED    = 3;
+    private static final int                                    CANCELLED = 4;
+    private static final AtomicIntegerFieldUpdater<Timeout>     STATE     = AtomicIntegerFieldUpdater
+                                                                              .newUpdater(Timeout.class, "state");
+
+    private final TimerWheel                                    wheel;
+    private final WheelTimer                                    timer;
+    private final Runnable                                      task;
+    // 0 for one-shot tasks, positive for fixed rate and negative for fixed delay tasks
+    private final long                                          period;
+    private volatile long                                       deadline;
+    private volatile int                                        state     = WAITING;
+    private Throwable                                           failure;
+
+    // only touched by the worker thread
+    private long                                                remainingRounds;
+    private Bucket                                              bucket;
+    private Timeout                                             next;
+    private Timeout                                             prev;
+
+    private Timeout(TimerWheel wheel, WheelTimer timer, Runnable task, long deadline, long period) {
+      this.wheel = wheel;
+      this.timer = timer;
+      this.task = task;
+      this.deadline = deadline;
+      this.period = period;
+    }
+
+    private boolean compareAndSetState(int expect, int update) {
+      return STATE.compareAndSet(this, expect, update);
+    }
+
+    private void finish(int finalState, Throwable t) {
+      synchronized (this) {
+        failure = t;
+      }
+      if (compareAndSetState(RUNNING, finalState)) {
+        synchronized (this) {
+          notifyAll();
+        }
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      while (true) {
+        int current = state;
+        if (current >= DONE) {
+          return false;
+        }
+        if (compareAndSetState(current, CANCELLED)) {
+          break;
+        }
+      }
+      wheel.cancelled.add(this);
+      synchronized (this) {
+        notifyAll();
+      }
+      return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return state == CANCELLED;
+    }
+
+    @Override
+    public boolean isDone() {
+      return state >= DONE;
+    }
+
+    @Override
+    public Object get() throws InterruptedException, ExecutionException {
+      synchronized (this) {
+        while (!isDone()) {
+          wait();
+        }
+      }
+      return report();
+    }
+
+    @Override
+    public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      long end = System.nanoTime() + unit.toNanos(timeout);
+      synchronized (this) {
+        while (!isDone()) {
+          long remaining = end - System.nanoTime();
+          if (remaining <= 0) {
+            throw new TimeoutException();
+          }
+          TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+      }
+      return report();
+    }
+
+    private Object report() throws ExecutionException {
+      switch (state) {
+        case CANCELLED:
+          throw new CancellationException();
+        case FAILED:
+          synchronized (this) {
+            throw new ExecutionException(failure);
+          }
+        default:
+          return null;
+      }
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(deadline - wheel.now(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed o) {
+      if (o == this) {
+        return 0;
+      }
+      long diff = getDelay(TimeUnit.NANOSECONDS) - o.getDelay(TimeUnit.NANOSECONDS);
+      return (diff < 0) ? -1 : ((diff > 0) ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+      return "Timeout[" + task + ", timer=" + timer + ", state=" + state + "]";
+    }
+  }
+
+  private final class WheelTimer implements Timer {
+
+    private static final String ALREADY_CANCELLED_MSG = "Cannot schedule a task - the timer has been already cancelled";
+
+    private final String        name;
+    private volatile boolean    cancelled;
+
+    private WheelTimer(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+      checkNotCancelled();
+      return TimerWheel.this.schedule(this, command, unit.toNanos(delay), 0);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+      checkNotCancelled();
+      if (period <= 0) {
+        throw new IllegalArgumentException("period should be a positive number");
+      }
+      return TimerWheel.this.schedule(this, command, unit.toNanos(initialDelay), unit.toNanos(period));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+      checkNotCancelled();
+      if (delay <= 0) {
+        throw new IllegalArgumentException("delay should be a positive number");
+      }
+      return TimerWheel.this.schedule(this, command, unit.toNanos(initialDelay), -unit.toNanos(delay));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      schedule(command, 0, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+    }
+
+    private void checkNotCancelled() {
+      if (cancelled) {
+        throw new IllegalStateException(ALREADY_CANCELLED_MSG);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return (name == null) ? super.toString() : name;
+    }
+  }
+}
@@ -76,6 +76,23 @@ public class OrderedSinkTest extends TCTestCase {
     assertEvents(des, 1, 1000);
   }
 
+  public void testResetDiscardsPending() throws Exception {
+    MockSink<OrderedEventContext> des = new MockSink<OrderedEventContext>();
+    Sink<OrderedEventContext> s = new OrderedSink(TCLogging.getLogger(OrderedSink.class), des);
+
+    s.addSingleThreaded(new MyOrderedEventContext(1));
+    s.addSingleThreaded(new MyOrderedEventContext(3));
+    assertEvents(des, 1, 1);
+
+    // the stream restarts before 2 ever arrives, 3 belongs to the old stream
+    s.addSingleThreaded(new MyOrderedEventContext(0));
+    assertEvents(des, 0, 1);
+    s.addSingleThreaded(new MyOrderedEventContext(1));
+    s.addSingleThreaded(new MyOrderedEventContext(2));
+    s.addSingleThreaded(new MyOrderedEventContext(3));
+    assertEvents(des, 1, 3);
+  }
+
   private List<MyOrderedEventContext> createOrderedEvents(int count) {
     List<MyOrderedEventContext> al = new ArrayList<MyOrderedEventContext>(count);
     for (int i = 1; i <= count; i++) {
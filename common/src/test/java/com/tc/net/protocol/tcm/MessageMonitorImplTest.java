@@ -19,6 +19,8 @@
 package com.tc.net.protocol.tcm;
 
 
+import java.util.List;
+
 import junit.framework.TestCase;
 
 public class MessageMonitorImplTest extends TestCase {
@@ -29,4 +31,39 @@ public class MessageMonitorImplTest extends TestCase {
     mm.newOutgoingMessage(new TestTCMessage());
     System.out.println(mm);
   }
+
+  public void testCountsAcrossThreads() throws Exception {
+    final MessageMonitorImpl mm = new MessageMonitorImpl();
+    final TestTCMessage lock = new TestTCMessage();
+    lock.type = TCMessageType.LOCK_REQUEST_MESSAGE;
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < 1000; j++) {
+            mm.newIncomingMessage(new TestTCMessage());
+            mm.newOutgoingMessage(lock);
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    List<MessageMonitorImpl.MessageCounter> counters = mm.getCounters();
+    assertEquals(2, counters.size());
+    MessageMonitorImpl.MessageCounter lockCounter = counters.get(0);
+    assertEquals("LOCK_REQUEST_MESSAGE", lockCounter.getName());
+    assertEquals(0, lockCounter.getIncomingCount());
+    assertEquals(4000, lockCounter.getOutgoingCount());
+    assertEquals(400000, lockCounter.getOutgoingData());
+    MessageMonitorImpl.MessageCounter pingCounter = counters.get(1);
+    assertEquals("PING_MESSAGE", pingCounter.getName());
+    assertEquals(4000, pingCounter.getIncomingCount());
+    assertEquals(400000, pingCounter.getIncomingData());
+    assertEquals(0, pingCounter.getOutgoingCount());
+  }
 }
@@ -23,8 +23,14 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.tc.logging.TCLogger;
 import com.tc.net.TCSocketAddress;
+import com.tc.net.core.TCConnection;
 import com.tc.net.core.TCConnectionManager;
+import com.tc.net.core.event.TCConnectionEvent;
+import com.tc.net.protocol.transport.HealthCheckerSocketConnect.SocketConnectStartStatus;
+
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -69,6 +75,113 @@ public class ConnectionHealthCheckerContextTest {
     Assert.assertEquals(0, context.getDesyncCount());
   }
 
+  @Test
+  public void testPhiSuspicionDeclaresPeerDead() throws Exception {
+    HealthCheckerConfig phiConfig = phiConfig(false);
+    when(messageTransport.getConnectionId()).thenReturn(ConnectionID.NULL_ID);
+    ConnectionHealthCheckerContextImpl phiContext = new ConnectionHealthCheckerContextImpl(messageTransport, phiConfig,
+                                                                                           null);
+    // the peer has only just been heard from
+    Assert.assertTrue(phiContext.probeIfAlive());
+    Assert.assertTrue(phiContext.getSuspicionLevel() < 8);
+
+    TimeUnit.MILLISECONDS.sleep(300);
+    Assert.assertTrue(phiContext.getSuspicionLevel() >= 8);
+    Assert.assertFalse(phiContext.probeIfAlive());
+  }
+
+  @Test
+  public void testPhiSuspicionMovesToSocketConnect() throws Exception {
+    HealthCheckerConfig phiConfig = phiConfig(true);
+    when(messageTransport.getConnectionId()).thenReturn(ConnectionID.NULL_ID);
+    SocketConnectContext phiContext = new SocketConnectContext(messageTransport, phiConfig);
+    // callback port is not verified when the context starts
+    Assert.assertEquals(0, phiContext.starts);
+    Assert.assertTrue(phiContext.probeIfAlive());
+
+    TimeUnit.MILLISECONDS.sleep(300);
+    // suspected, a socket connect is started instead of giving up
+    Assert.assertTrue(phiContext.probeIfAlive());
+    Assert.assertEquals(1, phiContext.starts);
+
+    // the connect goes through, the peer is only in GC and gets a probe cycle of grace
+    phiContext.notifySocketConnectSuccess(new TCConnectionEvent(phiContext.connection));
+    Assert.assertTrue(phiContext.getSuspicionLevel() < 1);
+    Assert.assertTrue(phiContext.probeIfAlive());
+
+    // the next connect does not go through
+    TimeUnit.MILLISECONDS.sleep(phiConfig.getPingIntervalMillis() * phiConfig.getPingProbes() + 300);
+    Assert.assertTrue(phiContext.probeIfAlive());
+    Assert.assertEquals(2, phiContext.starts);
+    phiContext.connectStatus = false;
+    Assert.assertFalse(phiContext.probeIfAlive());
+  }
+
+  @Test
+  public void testSocketConnectTimeoutKeepsPingIntervalUnits() {
+    HealthCheckerConfig phiConfig = phiConfig(true);
+    Assert.assertEquals(50, ConnectionHealthCheckerContextImpl.getSocketConnectTimeoutChecks(phiConfig));
+    Assert.assertEquals(config.getSocketConnectTimeout(),
+                        ConnectionHealthCheckerContextImpl.getSocketConnectTimeoutChecks(config));
+  }
+
+  private static HealthCheckerConfig phiConfig(boolean socketConnect) {
+    HealthCheckerConfig phiConfig = mock(HealthCheckerConfig.class);
+    when(phiConfig.getHealthCheckerName()).thenReturn("phi-config");
+    when(phiConfig.getPingIdleTimeMillis()).thenReturn(500L);
+    when(phiConfig.getPingIntervalMillis()).thenReturn(100L);
+    when(phiConfig.getPingProbes()).thenReturn(3);
+    when(phiConfig.getPhiThreshold()).thenReturn(8);
+    when(phiConfig.getPhiIntervalMillis()).thenReturn(10L);
+    when(phiConfig.getPhiAcceptablePauseMillis()).thenReturn(0L);
+    when(phiConfig.isSocketConnectOnPingFail()).thenReturn(socketConnect);
+    when(phiConfig.getSocketConnectMaxCount()).thenReturn(3);
+    when(phiConfig.getSocketConnectTimeout()).thenReturn(5);
+    return phiConfig;
+  }
+
+  /**
+   * Socket connects to the peer's callback port that never touch the network.  Nothing is started while the context
+   * verifies the callback port, later connects start and report connectStatus.
+   */
+  private static class SocketConnectContext extends ConnectionHealthCheckerContextImpl {
+
+    private final TCConnection connection = mock(TCConnection.class);
+    private int                starts;
+    private volatile boolean   connectStatus = true;
+    private boolean            verified;
+
+    public SocketConnectContext(MessageTransportBase mtb, HealthCheckerConfig config) {
+      super(mtb, config, null);
+    }
+
+    @Override
+    protected TCConnection getNewConnection(TCConnectionManager connManager) {
+      // the first call comes from the constructor, the callback port check does not use it
+      return connection;
+    }
+
+    @Override
+    protected HealthCheckerSocketConnect getHealthCheckerSocketConnector(TCConnection conn,
+                                                                         MessageTransportBase transportBase,
+                                                                         TCLogger loger, HealthCheckerConfig cnfg) {
+      if (!verified) {
+        verified = true;
+        return new NullHealthCheckerSocketConnectImpl();
+      }
+      HealthCheckerSocketConnect connect = mock(HealthCheckerSocketConnect.class);
+      when(connect.start()).thenReturn(SocketConnectStartStatus.STARTED);
+      when(connect.probeConnectStatus()).thenAnswer(new org.mockito.stubbing.Answer<Boolean>() {
+        @Override
+        public Boolean answer(org.mockito.invocation.InvocationOnMock invocation) {
+          return connectStatus;
+        }
+      });
+      starts++;
+      return connect;
+    }
+  }
+
   private static class TestConnectionHealthCheckerContext extends ConnectionHealthCheckerContextImpl {
 
     private int desyncCount;
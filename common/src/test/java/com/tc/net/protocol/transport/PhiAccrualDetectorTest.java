@@ -0,0 +1,76 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.net.protocol.transport;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PhiAccrualDetectorTest {
+
+  @Test
+  public void testSuspicionRisesWithSilence() {
+    PhiAccrualDetector detector = new PhiAccrualDetector(100, 300, 0);
+    long now = 0;
+    for (int i = 0; i < 50; i++) {
+      now += 100;
+      detector.heartbeat(now);
+    }
+    double onTime = detector.phi(now + 100);
+    double late = detector.phi(now + 600);
+    double dead = detector.phi(now + 1000);
+    assertTrue(onTime < 1);
+    assertTrue(late > onTime);
+    assertTrue(dead > late);
+    assertTrue(dead > 8);
+  }
+
+  @Test
+  public void testBusyLinkIsNotSuspectedForShortPause() {
+    PhiAccrualDetector detector = new PhiAccrualDetector(100, 300, 0);
+    // a message every millisecond folds into one arrival per expected gap
+    for (long now = 1; now <= 5000; now++) {
+      detector.heartbeat(now);
+    }
+    assertTrue(detector.phi(5000 + 300) < 1);
+  }
+
+  @Test
+  public void testIrregularPeerGetsMoreSlack() {
+    PhiAccrualDetector steady = new PhiAccrualDetector(100, 0, 0);
+    PhiAccrualDetector irregular = new PhiAccrualDetector(100, 0, 0);
+    long now = 0;
+    for (int i = 0; i < PhiAccrualDetector.WINDOW; i++) {
+      now += (i % 2 == 0) ? 100 : 900;
+      steady.heartbeat(i * 500L + 500);
+      irregular.heartbeat(now);
+    }
+    long steadyLast = PhiAccrualDetector.WINDOW * 500L;
+    assertTrue(irregular.phi(now + 1500) < steady.phi(steadyLast + 1500));
+  }
+
+  @Test
+  public void testRestartClearsSuspicion() {
+    PhiAccrualDetector detector = new PhiAccrualDetector(100, 300, 0);
+    assertTrue(detector.phi(5000) > 8);
+    detector.restart(5000);
+    assertEquals(0, detector.phi(5000), 1);
+  }
+}
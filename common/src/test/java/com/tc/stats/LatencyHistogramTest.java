@@ -0,0 +1,72 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.stats;
+
+import junit.framework.TestCase;
+
+public class LatencyHistogramTest extends TestCase {
+
+  public void testBucketsAreContiguous() {
+    int last = LatencyHistogram.indexFor(Long.MAX_VALUE);
+    assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueIn(last));
+    for (int i = 1; i <= last; i++) {
+      long low = LatencyHistogram.highestValueIn(i - 1) + 1;
+      assertEquals(i, LatencyHistogram.indexFor(low));
+      assertEquals(i, LatencyHistogram.indexFor(LatencyHistogram.highestValueIn(i)));
+    }
+  }
+
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    LatencyHistogram.Recorder recorder = histogram.newRecorder();
+    for (long micros = 1; micros <= 1000; micros++) {
+      recorder.record(micros * 1000);
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(1000, snapshot.getCount());
+    assertEquals(500500, snapshot.getMean());
+    assertWithin(500000, snapshot.getValueAtPercentile(50));
+    assertWithin(990000, snapshot.getValueAtPercentile(99));
+    assertWithin(1000000, snapshot.getMax());
+  }
+
+  public void testRecordersAreMergedAndReset() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    LatencyHistogram.Recorder first = histogram.newRecorder();
+    LatencyHistogram.Recorder second = histogram.newRecorder();
+    first.record(10);
+    second.record(20);
+    second.record(-5);
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(3, snapshot.getCount());
+    assertEquals(20, snapshot.getMax());
+
+    histogram.reset();
+    assertEquals(0, histogram.snapshot().getCount());
+    assertEquals(0, histogram.snapshot().getValueAtPercentile(99));
+    first.record(1000);
+    snapshot = histogram.snapshot();
+    assertEquals(1, snapshot.getCount());
+    assertEquals(1000, snapshot.getMean());
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertTrue(expected + " vs " + actual, actual >= expected && actual <= expected * 1.04);
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.util.concurrent;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TimerWheelTest {
+
+  private TimerWheel wheel;
+
+  @Before
+  public void setUp() {
+    // a small wheel so that long delays wrap around it several times
+    wheel = new TimerWheel("test-wheel", 1, TimeUnit.MILLISECONDS, 8);
+  }
+
+  @After
+  public void tearDown() {
+    wheel.shutdown();
+  }
+
+  @Test
+  public void testTaskDoesNotRunBeforeDeadline() throws Exception {
+    final Timer timer = wheel.newTimer();
+    final long start = System.nanoTime();
+    final ScheduledFuture<?> future = timer.schedule(new Runnable() {
+      @Override
+      public void run() {
+        // nothing
+      }
+    }, 50, TimeUnit.MILLISECONDS);
+    future.get(5, TimeUnit.SECONDS);
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+    assertTrue(future.isDone());
+  }
+
+  @Test
+  public void testCancelledTasksDoNotRun() throws Exception {
+    final Timer timer = wheel.newTimer();
+    final AtomicInteger runs = new AtomicInteger();
+    final Runnable task = new Runnable() {
+      @Override
+      public void run() {
+        runs.incrementAndGet();
+      }
+    };
+    for (int i = 0; i < 1000; i++) {
+      ScheduledFuture<?> future = timer.schedule(task, i % 20, TimeUnit.MILLISECONDS);
+      if (i % 2 == 0) {
+        assertTrue(future.cancel(false));
+      }
+    }
+    final CountDownLatch last = new CountDownLatch(1);
+    timer.schedule(new Runnable() {
+      @Override
+      public void run() {
+        last.countDown();
+      }
+    }, 40, TimeUnit.MILLISECONDS);
+    assertTrue(last.await(5, TimeUnit.SECONDS));
+    assertEquals(500, runs.get());
+  }
+
+  @Test
+  public void testPeriodicTaskStopsWhenCancelled() throws Exception {
+    final Timer timer = wheel.newTimer();
+    final CountDownLatch latch = new CountDownLatch(5);
+    final ScheduledFuture<?> future = timer.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        latch.countDown();
+      }
+    }, 0, 5, TimeUnit.MILLISECONDS);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertTrue(future.cancel(false));
+    try {
+      future.get();
+      fail();
+    } catch (CancellationException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testFailedTaskReportsException() throws Exception {
+    final Timer timer = wheel.newTimer();
+    final ScheduledFuture<?> future = timer.schedule(new Runnable() {
+      @Override
+      public void run() {
+        throw new IllegalStateException("expected");
+      }
+    }, 0, TimeUnit.MILLISECONDS);
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+  }
+
+  @Test
+  public void testCancelledTimerDropsItsTasksOnly() throws Exception {
+    final Timer cancelledTimer = wheel.newTimer("cancelled");
+    final Timer liveTimer = wheel.newTimer("live");
+    final AtomicInteger runs = new AtomicInteger();
+    cancelledTimer.schedule(new Runnable() {
+      @Override
+      public void run() {
+        runs.incrementAndGet();
+      }
+    }, 10, TimeUnit.MILLISECONDS);
+    final CountDownLatch latch = new CountDownLatch(1);
+    liveTimer.schedule(new Runnable() {
+      @Override
+      public void run() {
+        latch.countDown();
+      }
+    }, 20, TimeUnit.MILLISECONDS);
+    cancelledTimer.cancel();
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertEquals(0, runs.get());
+    try {
+      cancelledTimer.schedule(new Runnable() {
+        @Override
+        public void run() {
+          // nothing
+        }
+      }, 0, TimeUnit.MILLISECONDS);
+      fail();
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testOverflowingDelayIsRejected() {
+    try {
+      wheel.newTimer().schedule(new Runnable() {
+        @Override
+        public void run() {
+          // nothing
+        }
+      }, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testSharedWheelIgnoresShutdown() throws Exception {
+    TimerWheel.shared().shutdown();
+    final CountDownLatch latch = new CountDownLatch(1);
+    final Timer timer = TimerWheel.shared().newTimer();
+    timer.execute(new Runnable() {
+      @Override
+      public void run() {
+        latch.countDown();
+      }
+    });
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    timer.cancel();
+  }
+}
@@ -33,6 +33,7 @@ import org.terracotta.entity.EntityResponse;
 import org.terracotta.exception.EntityException;
 
 import com.tc.entity.NetworkVoltronEntityMessage;
+import com.tc.entity.RequestTrace;
 import com.tc.entity.ResendVoltronEntityMessage;
 import com.tc.entity.VoltronEntityMessage;
 import com.tc.entity.VoltronEntityResponse;
@@ -54,12 +55,18 @@ import com.tc.object.msg.ClientEntityReferenceContext;
 import com.tc.object.msg.ClientHandshakeMessage;
 import com.tc.object.session.SessionID;
 import com.tc.object.tx.TransactionID;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.text.PrettyPrinter;
 import com.tc.util.Assert;
 import com.tc.util.Util;
 import java.io.IOException;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -68,6 +75,11 @@ import java.util.concurrent.atomic.AtomicLong;
 
 
 public class ClientEntityManagerImpl implements ClientEntityManager {
+  // uses the transaction ID as the sampling counter so untraced requests pay for a single compare
+  private static final int TRACE_SAMPLE_RATE = TCPropertiesImpl.getProperties()
+                                                   .getInt(TCPropertiesConsts.L1_REQUEST_TRACE_SAMPLE_RATE, 0);
+  private static final int RESEND_CHUNK_SIZE = TCPropertiesImpl.getProperties()
+                                                   .getInt(TCPropertiesConsts.L1_RECONNECT_RESEND_CHUNK_SIZE, 1024 * 1024);
   private final TCLogger logger;
   
   private final ClientMessageChannel channel;
@@ -80,6 +92,8 @@ public class ClientEntityManagerImpl implements ClientEntityManager {
   private final ConcurrentMap<EntityDescriptor, EntityClientEndpoint> objectStoreMap;
     
   private final StageManager stages;
+  // resends which did not fit in the handshake, sent in chunks right behind it
+  private List<ResendVoltronEntityMessage> pendingResends;
   
   public ClientEntityManagerImpl(ClientMessageChannel channel, StageManager mgr) {
     this.logger = new ClientIDLogger(channel, TCLogging.getLogger(ClientEntityManager.class));
@@ -260,7 +274,9 @@ public class ClientEntityManagerImpl implements ClientEntityManager {
     FlushResponse flush = new FlushResponse();
     responder.getSink().addSingleThreaded(flush);
     flush.waitForAccess();
-    // Walk the inFlightMessages, adding them all to the handshake, since we need them to be replayed.
+    // Walk the inFlightMessages, collecting them all for the handshake, since we need them to be replayed.
+    List<ResendVoltronEntityMessage> resends = new ArrayList<ResendVoltronEntityMessage>(this.inFlightMessages.size());
+    long resendBytes = 0;
     for (InFlightMessage inFlight : this.inFlightMessages.values()) {
       NetworkVoltronEntityMessage message = inFlight.getMessage();
 //  validate the locking on release and destroy on resends
@@ -288,7 +304,53 @@ public class ClientEntityManagerImpl implements ClientEntityManager {
       ResendVoltronEntityMessage packaged = new ResendVoltronEntityMessage(message.getSource(), message.getTransactionID(), 
           message.getEntityDescriptor(), message.getVoltronType(), message.doesRequireReplication(), message.getExtendedData(), 
           message.getOldestTransactionOnClient());
-      handshakeMessage.addResendMessage(packaged);
+      resends.add(packaged);
+      resendBytes += packaged.getExtendedData().length;
+    }
+    if (resendBytes <= RESEND_CHUNK_SIZE) {
+      for (ResendVoltronEntityMessage packaged : resends) {
+        handshakeMessage.addResendMessage(packaged);
+      }
+    } else {
+//  too much to buffer in one message.  keep the handshake small and stream the resends behind it in transaction order
+      Collections.sort(resends, new Comparator<ResendVoltronEntityMessage>() {
+        @Override
+        public int compare(ResendVoltronEntityMessage first, ResendVoltronEntityMessage second) {
+          return first.getTransactionID().compareTo(second.getTransactionID());
+        }
+      });
+      logger.debug("Resending " + resends.size() + " messages (" + resendBytes + " bytes) in chunks after the handshake");
+      handshakeMessage.setMoreResends(true);
+      this.pendingResends = resends;
+    }
+  }
+
+  @Override
+  public synchronized void handshakeSent() {
+    List<ResendVoltronEntityMessage> resends = this.pendingResends;
+    this.pendingResends = null;
+    if (resends == null) {
+      return;
+    }
+    ClientHandshakeMessage chunk = null;
+    long chunkBytes = 0;
+    for (int i = 0; i < resends.size(); i++) {
+      ResendVoltronEntityMessage packaged = resends.get(i);
+      if (chunk == null) {
+        chunk = (ClientHandshakeMessage) this.channel.createMessage(TCMessageType.CLIENT_HANDSHAKE_MESSAGE);
+        chunk.setResendChunk(true);
+        chunkBytes = 0;
+      }
+      chunk.addResendMessage(packaged);
+      chunkBytes += packaged.getExtendedData().length;
+//  drop the reference so each chunk can be collected once it is on the wire
+      resends.set(i, null);
+      boolean last = i == resends.size() - 1;
+      if (chunkBytes >= RESEND_CHUNK_SIZE || last) {
+        chunk.setMoreResends(!last);
+        chunk.send();
+        chunk = null;
+      }
     }
   }
 
@@ -433,6 +495,9 @@ public class ClientEntityManagerImpl implements ClientEntityManager {
     // Create the message and populate it.
     NetworkVoltronEntityMessage message = (NetworkVoltronEntityMessage) channel.createMessage(TCMessageType.VOLTRON_ENTITY_MESSAGE);
     message.setContents(clientID, transactionID, entityDescriptor, type, requiresReplication, config, oldestTransactionPending);
+    if (TRACE_SAMPLE_RATE > 0 && transactionID.toLong() % TRACE_SAMPLE_RATE == 0) {
+      message.setTraceID(RequestTrace.traceID(clientID.toLong(), transactionID.toLong()));
+    }
     return message;
   }
   
@@ -23,6 +23,8 @@ import org.terracotta.exception.EntityException;
 
 import com.tc.entity.NetworkVoltronEntityMessage;
 import com.tc.entity.VoltronEntityMessage;
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
 import com.tc.object.tx.TransactionID;
 import com.tc.util.Assert;
 
@@ -40,6 +42,7 @@ import java.util.concurrent.TimeoutException;
  * make unit testing more direct.
  */
 public class InFlightMessage implements InvokeFuture<byte[]> {
+  private static final TCLogger LOGGER = TCLogging.getLogger(InFlightMessage.class);
   private final NetworkVoltronEntityMessage message;
   /**
    * The set of pending ACKs determines when the caller returns from the send, in order to preserve ordering in the
@@ -56,6 +59,8 @@ public class InFlightMessage implements InvokeFuture<byte[]> {
   private EntityException exception;
   private byte[] value;
   private boolean done;
+  // only set for traced messages
+  private long sentTime;
 
   public InFlightMessage(NetworkVoltronEntityMessage message, Set<VoltronEntityMessage.Acks> acks) {
     this.message = message;
@@ -78,6 +83,9 @@ public class InFlightMessage implements InvokeFuture<byte[]> {
   public void send() {
     Assert.assertFalse(this.isSent);
     this.isSent = true;
+    if (this.message.getTraceID() != 0) {
+      this.sentTime = System.nanoTime();
+    }
     this.message.send();
   }
 
@@ -104,6 +112,9 @@ public class InFlightMessage implements InvokeFuture<byte[]> {
   }
 
   public synchronized void received() {
+    if (this.sentTime != 0) {
+      logTrace(VoltronEntityMessage.Acks.RECEIVED);
+    }
     if (this.pendingAcks.remove(VoltronEntityMessage.Acks.RECEIVED)) {
       if (this.pendingAcks.isEmpty()) {
         notifyAll();
@@ -175,10 +186,20 @@ public class InFlightMessage implements InvokeFuture<byte[]> {
   }
 
   synchronized void setResult(byte[] value, EntityException e) {
+    if (this.sentTime != 0) {
+      logTrace(VoltronEntityMessage.Acks.APPLIED);
+    }
     this.pendingAcks.remove(VoltronEntityMessage.Acks.APPLIED);
     this.exception = e;
     this.value = value;
     this.done = true;
     notifyAll();
   }
+
+  private void logTrace(VoltronEntityMessage.Acks ack) {
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("RequestTrace{id=" + Long.toHexString(this.message.getTraceID()) + "} " + ack + " after "
+                   + (System.nanoTime() - this.sentTime) / 1000 + "us");
+    }
+  }
 }
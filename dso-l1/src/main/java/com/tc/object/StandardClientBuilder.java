@@ -101,7 +101,7 @@ public class StandardClientBuilder implements ClientBuilder {
                                              ClientLockManagerConfig config,
                                              TaskRunner taskRunner) {
     final RemoteLockManager remoteLockManager = new RemoteLockManagerImpl(channel, lockRequestMessageFactory,
-        taskRunner);
+        taskRunner, config.getRequestBatchWindow());
     return new ClientLockManagerImpl(clientIDLogger, sessionManager, channel, remoteLockManager, threadManager, config,
         taskRunner);
   }
@@ -23,8 +23,13 @@ import com.tc.async.api.ConfigurationContext;
 import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
 import com.tc.object.ClientConfigurationContext;
+import com.tc.object.locks.BatchedLockResponse;
 import com.tc.object.locks.ClientLockManager;
+import com.tc.object.locks.LockID;
+import com.tc.object.locks.ServerLockLevel;
+import com.tc.object.locks.ThreadID;
 import com.tc.object.msg.LockResponseMessage;
+import com.tc.object.msg.LockResponseMessage.ResponseType;
 import com.tc.object.session.SessionID;
 import com.tc.object.session.SessionManager;
 
@@ -50,30 +55,44 @@ public class LockResponseHandler<EC> extends AbstractEventHandler<EC> {
     }
 
     switch (msg.getResponseType()) {
+      case INFO:
+        this.lockManager.info(msg.getLockID(), msg.getThreadID(), msg.getContexts());
+        return;
+      case BATCH:
+        for (BatchedLockResponse response : msg.getBatchedLockResponses()) {
+          handleResponse(sessionID, response.getResponseType(), response.getLockID(), response.getThreadID(), 
+              response.getLockLevel(), response.getAwardLeaseTime());
+        }
+        return;
+      default:
+        handleResponse(sessionID, msg.getResponseType(), msg.getLockID(), msg.getThreadID(), msg.getLockLevel(), 
+            msg.getAwardLeaseTime());
+        return;
+    }
+
+  }
+
+  private void handleResponse(SessionID sessionID, ResponseType type, LockID lock, ThreadID thread, ServerLockLevel level, int leaseTime) {
+    switch (type) {
       case AWARD:
-        this.lockManager.award(msg.getLocalSessionID(), msg.getLockID(), msg.getThreadID(), msg.getLockLevel());
+        this.lockManager.award(sessionID, lock, thread, level);
         return;
       case RECALL:
-        this.lockManager.recall(msg.getLocalSessionID(), msg.getLockID(), msg.getLockLevel(), -1);
+        this.lockManager.recall(sessionID, lock, level, -1);
         return;
       case RECALL_WITH_TIMEOUT:
-        this.lockManager.recall(msg.getLocalSessionID(), msg.getLockID(), msg.getLockLevel(),
-                                msg.getAwardLeaseTime());
+        this.lockManager.recall(sessionID, lock, level, leaseTime);
         return;
       case REFUSE:
-        this.lockManager.refuse(msg.getLocalSessionID(), msg.getLockID(), msg.getThreadID(), msg.getLockLevel());
+        this.lockManager.refuse(sessionID, lock, thread, level);
         return;
       case WAIT_TIMEOUT:
-        this.lockManager.notified(msg.getLockID(), msg.getThreadID());
-        return;
-      case INFO:
-        this.lockManager.info(msg.getLockID(), msg.getThreadID(), msg.getContexts());
+        this.lockManager.notified(lock, thread);
         return;
       default:
-        logger.error("Unknown lock response message: " + msg.getResponseType());
+        logger.error("Unknown lock response message: " + type);
         return;
     }
-
   }
 
   @Override
@@ -110,6 +110,9 @@ public class ClientHandshakeManagerImpl implements ClientHandshakeManager {
     }
     this.logger.info("Sending handshake message");
     handshakeMessage.send();
+    for (ClientHandshakeCallback c : this.callBacks) {
+      c.handshakeSent();
+    }
   }
 
   protected boolean isEnterpriseClient() {
@@ -92,6 +92,28 @@ public interface ClientLock {
    */
   public void unlock(RemoteLockManager remote, ThreadID thread, LockLevel level);
 
+  /**
+   * Lock-free acquire of a write lock the thread holds, or was the last to hold, while this client holds the lock
+   * greedily.
+   * <p>
+   * Only succeeds when no recall, queued acquire or waiter is pending, in which case the hold is taken without
+   * touching the lock state monitor.
+   * 
+   * @param thread id of the locking (current) thread
+   * @param level level at which to lock
+   * @return <code>true</code> if locked, <code>false</code> if the regular acquire path must be used
+   */
+  public boolean tryFastLock(ThreadID thread, LockLevel level);
+
+  /**
+   * Lock-free release of a hold taken by {@link #tryFastLock(ThreadID, LockLevel)}.
+   * 
+   * @param thread id of the unlocking (current) thread
+   * @param level at which to unlock
+   * @return <code>true</code> if unlocked, <code>false</code> if the regular unlock path must be used
+   */
+  public boolean tryFastUnlock(ThreadID thread, LockLevel level);
+
   /**
    * Notify a single thread waiting on the lock.
    *
@@ -43,6 +43,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> implements ClientLock {
   private static long                 NULL_AWARD_ID = -1;
@@ -67,6 +68,14 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
   private long                        awardId       = NULL_AWARD_ID;
 
+  /*
+   * Write holds of the greedy holder which were taken without the monitor.  The holder's first write hold stays in the
+   * state as the base of the fast hold, even while the holder has released it, so that it can relock without the
+   * monitor.  Only the owning thread takes or drops fast holds; anyone else may only revoke it so that new acquires go
+   * back through the monitor, and a revoker finding the base released takes it out of the state.
+   */
+  private volatile FastHold           fastHold;
+
   public ClientLockImpl(LockID lock) {
     this.lock = lock;
   }
@@ -80,6 +89,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     }
     greediness = ClientGreediness.FREE;
     pinned = 0;
+    fastHold = null;
     setAwardID(NULL_AWARD_ID);
   }
 
@@ -99,10 +109,12 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   @Override
   public void lock(RemoteLockManager remote,
                    ThreadID thread, LockLevel level) throws GarbageLockException {
+    if (tryFastLock(thread, level)) { return; }
     markUsed();
     if (!tryAcquireLocally(remote, thread, level).isSuccess()) {
       acquireQueued(remote, thread, level);
     }
+    enableFastHold(thread, level);
   }
 
   /*
@@ -116,9 +128,11 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     if (Thread.interrupted()) {
       throw new InterruptedException();
     }
+    if (tryFastLock(thread, level)) { return; }
     if (!tryAcquireLocally(remote, thread, level).isSuccess()) {
       acquireQueuedInterruptibly(remote, thread, level);
     }
+    enableFastHold(thread, level);
   }
 
   /*
@@ -129,13 +143,14 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   @Override
   public boolean tryLock(RemoteLockManager remote,
                          ThreadID thread, LockLevel level) throws GarbageLockException {
+    if (tryFastLock(thread, level)) { return true; }
     markUsed();
     final LockAcquireResult result = tryAcquireLocally(remote, thread, level);
     if (result.isKnownResult()) {
-      return result.isSuccess();
+      return result.isSuccess() && enableFastHold(thread, level);
     } else {
       try {
-        return acquireQueuedTimeout(remote, thread, level, 0);
+        return acquireQueuedTimeout(remote, thread, level, 0) && enableFastHold(thread, level);
       } catch (final InterruptedException e) {
         Thread.currentThread().interrupt();
         return false;
@@ -153,8 +168,9 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     if (Thread.interrupted()) {
       throw new InterruptedException();
     }
-    return tryAcquireLocally(remote, thread, level).isSuccess()
-           || acquireQueuedTimeout(remote, thread, level, timeout);
+    if (tryFastLock(thread, level)) { return true; }
+    return (tryAcquireLocally(remote, thread, level).isSuccess()
+            || acquireQueuedTimeout(remote, thread, level, timeout)) && enableFastHold(thread, level);
   }
 
   /*
@@ -162,12 +178,120 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
    */
   @Override
   public void unlock(RemoteLockManager remote, ThreadID thread, LockLevel level) {
+    if (tryFastUnlock(thread, level)) { return; }
     markUsed();
     if (release(remote, thread, level)) {
       unparkFirstQueuedAcquire();
     }
   }
 
+  /*
+   * A thread taking the write lock it holds, or last held, on a greedy lock cannot change what any other thread or the
+   * server sees, so the hold is only counted.  Nested releases are just as invisible, which is why a revoked fast hold
+   * can still be released here.
+   */
+  @Override
+  public boolean tryFastLock(ThreadID thread, LockLevel level) {
+    final FastHold hold = this.fastHold;
+    if (level != LockLevel.WRITE || hold == null || hold.revoked || !hold.owner.equals(thread)) { return false; }
+    final int depth = hold.depth.get();
+    if (depth >= 0) {
+      hold.depth.set(depth + 1);
+    } else if (!hold.depth.compareAndSet(FastHold.RELEASED, 0)) {
+      // a revoker took the base out of the state
+      return false;
+    }
+    if (this.gcCycleCount != 0) {
+      markUsed();
+    }
+    return true;
+  }
+
+  @Override
+  public boolean tryFastUnlock(ThreadID thread, LockLevel level) {
+    final FastHold hold = this.fastHold;
+    if (level != LockLevel.WRITE || hold == null || !hold.owner.equals(thread)) { return false; }
+    final int depth = hold.depth.get();
+    if (depth > 0) {
+      hold.depth.set(depth - 1);
+    } else if (depth < 0 || hold.revoked || !hold.depth.compareAndSet(0, FastHold.RELEASED)) {
+      return false;
+    } else if (hold.revoked && hold.depth.compareAndSet(FastHold.RELEASED, 0)) {
+      // revoked while releasing the base and no revoker saw it released - release it through the monitor
+      return false;
+    }
+    if (this.gcCycleCount != 0) {
+      markUsed();
+    }
+    return true;
+  }
+
+  /*
+   * Lets further write acquires by this thread take the fast path if its hold is now the only state of a greedy write
+   * lock.  Always returns true so it can be chained onto a successful acquire.
+   */
+  private boolean enableFastHold(ThreadID thread, LockLevel level) {
+    if (level != LockLevel.WRITE || this.fastHold != null) { return true; }
+    synchronized (this) {
+      if (this.fastHold != null || this.greediness != ClientGreediness.GREEDY_WRITE || isEmpty()) { return true; }
+      final LockStateNode s = getFirst();
+      if (s != getLast() || !(s instanceof LockHold) || !s.getOwner().equals(thread)
+          || ((LockHold) s).getLockLevel() != LockLevel.WRITE) { return true; }
+      this.fastHold = new FastHold((LockHold) s);
+    }
+    return true;
+  }
+
+  /*
+   * Sends all further acquires through the monitor.  Must be called before the greediness moves off greedy write, a
+   * base the holder has released is taken out of the state here and taking it out has no effect outside this client
+   * only while the lock is still greedy.
+   */
+  private void revokeFastHold() {
+    final FastHold hold = this.fastHold;
+    if (hold != null) {
+      hold.revoked = true;
+      if (removeReleasedBase(hold)) {
+        unparkFirstQueuedAcquire();
+      }
+    }
+  }
+
+  private boolean removeReleasedBase(FastHold hold) {
+    if (!hold.depth.compareAndSet(FastHold.RELEASED, FastHold.REMOVED)) { return false; }
+    synchronized (this) {
+      remove(hold.base);
+      if (this.fastHold == hold) {
+        this.fastHold = null;
+      }
+    }
+    return true;
+  }
+
+  private boolean isReleasedBase(LockStateNode node) {
+    final FastHold hold = this.fastHold;
+    return hold != null && hold.base == node && hold.depth.get() < 0;
+  }
+
+  /*
+   * Turns the fast holds of the thread back into real lock holds (or drops a base it has released), needed before the
+   * holds of the thread go through the monitor.
+   */
+  private synchronized void inflateFastHold(ThreadID thread) {
+    final FastHold hold = this.fastHold;
+    if (hold != null && hold.owner.equals(thread)) {
+      final int depth = hold.depth.get();
+      if (depth < 0) {
+        removeReleasedBase(hold);
+      } else {
+        for (int i = 0; i < depth; i++) {
+          addFirst(new LockHold(thread, LockLevel.WRITE));
+        }
+      }
+      this.fastHold = null;
+    }
+  }
+
   /*
    * Find a lock waiter in the state and unpark it - while concurrently checking for a write hold by the notifying
    * thread
@@ -244,6 +368,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
       throw new InterruptedException();
     }
 
+    inflateFastHold(thread);
     if (!isLockedBy(thread, WRITE_LEVELS)) { throw new IllegalMonitorStateException(); }
 
     LockWaiter waiter = null;
@@ -379,6 +504,9 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     }
 
     for (final LockStateNode s : this) {
+      if (isReleasedBase(s)) {
+        continue;
+      }
       final ClientServerExchangeLockContext c = s.toContext(this.lock, client);
       if (c != null) {
         contexts.add(c);
@@ -413,7 +541,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   @Override
   public synchronized boolean isLocked(LockLevel level) {
     for (final LockStateNode s : this) {
-      if ((s instanceof LockHold) && (((LockHold) s).getLockLevel().equals(level))) { return true; }
+      if ((s instanceof LockHold) && (((LockHold) s).getLockLevel().equals(level)) && !isReleasedBase(s)) { return true; }
     }
     return false;
   }
@@ -422,14 +550,15 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   public synchronized boolean isLockedBy(ThreadID thread, LockLevel level) {
     for (final LockStateNode s : this) {
       if ((s instanceof LockHold) && (((LockHold) s).getLockLevel().equals(level) || (level == null))
-          && s.getOwner().equals(thread)) { return true; }
+          && s.getOwner().equals(thread) && !isReleasedBase(s)) { return true; }
     }
     return false;
   }
 
   public synchronized boolean isLockedBy(ThreadID thread, Set<LockLevel> levels) {
     for (final LockStateNode s : this) {
-      if ((s instanceof LockHold) && s.getOwner().equals(thread) && levels.contains(((LockHold) s).getLockLevel())) { return true; }
+      if ((s instanceof LockHold) && s.getOwner().equals(thread) && levels.contains(((LockHold) s).getLockLevel())
+          && !isReleasedBase(s)) { return true; }
     }
     return false;
   }
@@ -438,7 +567,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   public synchronized int holdCount(LockLevel level) {
     int holders = 0;
     for (final LockStateNode s : this) {
-      if ((s instanceof LockHold) && ((LockHold) s).getLockLevel().equals(level)) {
+      if ((s instanceof LockHold) && ((LockHold) s).getLockLevel().equals(level) && !isReleasedBase(s)) {
         holders++;
       } else if (s instanceof LockWaiter) {
         break;
@@ -446,6 +575,10 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
         break;
       }
     }
+    final FastHold hold = this.fastHold;
+    if (hold != null && level == LockLevel.WRITE) {
+      holders += Math.max(0, hold.depth.get());
+    }
     return holders;
   }
 
@@ -515,6 +648,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   @Override
   public synchronized boolean recall(RemoteLockManager remote, ServerLockLevel interest, int lease,
                                      boolean batch) {
+    revokeFastHold();
     // transition the greediness state
     this.greediness = this.greediness.recalled(this, lease, interest);
 
@@ -706,6 +840,8 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     // if this is a concurrent acquire then just let it through.
     if (level == LockLevel.CONCURRENT) { return LockAcquireResult.SHARED_SUCCESS; }
 
+    // any acquire that missed the fast path must see the real state of the lock
+    revokeFastHold();
     synchronized (this) {
       LockAcquireResult result = tryAcquireUsingThreadState(remote, thread, level);
       boolean interrupted = false;
@@ -780,6 +916,8 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
     LockHold unlock = null;
     synchronized (this) {
+      // the fast hold no longer covers this thread's holds once one of them goes through the monitor
+      inflateFastHold(thread);
       for (final Iterator<LockStateNode> it = iterator(); it.hasNext();) {
         final LockStateNode s = it.next();
         if (s instanceof LockHold) {
@@ -894,6 +1032,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   private void acquireQueued(RemoteLockManager remote,
                              ThreadID thread, LockLevel level) throws GarbageLockException {
     final PendingLockHold node = new PendingLockHold(thread, level);
+    revokeFastHold();
     addLast(node);
     acquireQueued(remote, thread, level, node);
   }
@@ -950,6 +1089,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   private void acquireQueuedInterruptibly(RemoteLockManager remote, ThreadID thread, LockLevel level)
       throws InterruptedException, GarbageLockException {
     final PendingLockHold node = new PendingLockHold(thread, level);
+    revokeFastHold();
     addLast(node);
     try {
       for (;;) {
@@ -996,6 +1136,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
                                        long timeout) throws InterruptedException, GarbageLockException {
     long lastTime = System.currentTimeMillis();
     final PendingTryLockHold node = new PendingTryLockHold(thread, level, timeout);
+    revokeFastHold();
     addLast(node);
     try {
       while (!node.isRefused()) {
@@ -1238,6 +1379,10 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
    */
   @Override
   public synchronized boolean tryMarkAsGarbage(RemoteLockManager remote) {
+    if (this.gcCycleCount > 0) {
+      // an unused greedy holder keeps its released base in the state, it must not hold off collection
+      revokeFastHold();
+    }
     if (this.pinned == 0 && isEmpty() && this.gcCycleCount > 0) {
       this.greediness = this.greediness.markAsGarbage();
       if (this.greediness.isGarbage()) {
@@ -1357,4 +1502,21 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   synchronized final void setAwardID(long awardId) {
     this.awardId = awardId;
   }
+
+  private static final class FastHold {
+    // depth of the base when the holder has released it, and once a revoker has taken it out of the state
+    private static final int     RELEASED = -1;
+    private static final int     REMOVED  = Integer.MIN_VALUE;
+
+    private final LockHold       base;
+    private final ThreadID       owner;
+    // holds on top of the base, or RELEASED/REMOVED
+    private final AtomicInteger  depth    = new AtomicInteger();
+    private volatile boolean     revoked;
+
+    private FastHold(LockHold base) {
+      this.base = base;
+      this.owner = base.getOwner();
+    }
+  }
 }
@@ -22,9 +22,15 @@ public interface ClientLockManagerConfig {
 
   public static final long DEFAULT_TIMEOUT_INTERVAL = 6000;
   public static final int  DEFAULT_STRIPED_COUNT    = 1;
+  public static final long DEFAULT_REQUEST_BATCH_WINDOW = 0;
 
   public long getTimeoutInterval();
   
   public int getStripedCount();
 
+  /**
+   * @return milliseconds lock requests may be held back to be coalesced into one message, 0 disables batching
+   */
+  public long getRequestBatchWindow();
+
 }
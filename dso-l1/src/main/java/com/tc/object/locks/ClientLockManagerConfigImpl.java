@@ -24,10 +24,12 @@ public class ClientLockManagerConfigImpl implements ClientLockManagerConfig {
   
   private final long timeoutInterval;
   private final int stripedCount;
+  private final long requestBatchWindow;
    
   public ClientLockManagerConfigImpl(TCProperties lockManagerProperties ) {
     this.timeoutInterval = lockManagerProperties.getLong("timeout.interval");  
     this.stripedCount = lockManagerProperties.getInt("striped.count");
+    this.requestBatchWindow = lockManagerProperties.getLong("request.batch.window", DEFAULT_REQUEST_BATCH_WINDOW);
   }
 
   @Override
@@ -39,4 +41,9 @@ public class ClientLockManagerConfigImpl implements ClientLockManagerConfig {
   public int getStripedCount() {
     return stripedCount;
   }
+
+  @Override
+  public long getRequestBatchWindow() {
+    return requestBatchWindow;
+  }
 }
@@ -55,7 +55,8 @@ public class ClientLockManagerImpl implements ClientLockManager, ClientLockManag
   private final ConcurrentMap<LockID, ClientLock> locks;
   private final ReentrantReadWriteLock            stateGuard          = new ReentrantReadWriteLock();
   private final Condition                         runningCondition    = this.stateGuard.writeLock().newCondition();
-  private State                                   state               = State.RUNNING;
+  // volatile so the fast lock path can check it without the state guard
+  private volatile State                          state               = State.RUNNING;
 
   private final RemoteLockManager                 remoteLockManager;
   private final ThreadIDManager                   threadManager;
@@ -115,6 +116,7 @@ public class ClientLockManagerImpl implements ClientLockManager, ClientLockManag
 
   @Override
   public void lock(LockID lock, LockLevel level) {
+    if (tryFastLock(lock, level)) { return; }
     waitUntilRunning();
 
     while (true) {
@@ -132,6 +134,7 @@ public class ClientLockManagerImpl implements ClientLockManager, ClientLockManag
 
   @Override
   public boolean tryLock(LockID lock, LockLevel level) {
+    if (tryFastLock(lock, level)) { return true; }
     waitUntilRunning();
 
     while (true) {
@@ -194,8 +197,20 @@ public class ClientLockManagerImpl implements ClientLockManager, ClientLockManag
 
   @Override
   public void unlock(LockID lock, LockLevel level) {
+    final ThreadID thread = this.threadManager.getThreadID();
+    final ClientLock existing = getClientLockState(lock);
+    if (existing != null && existing.tryFastUnlock(thread, level)) { return; }
     final ClientLock lockState = getOrCreateClientLockState(lock);
-    lockState.unlock(this.remoteLockManager, this.threadManager.getThreadID(), level);
+    lockState.unlock(this.remoteLockManager, thread, level);
+  }
+
+  /*
+   * Re-acquiring a write lock already held on a greedy lock needs neither the state guard nor the lock state monitor.
+   */
+  private boolean tryFastLock(LockID lock, LockLevel level) {
+    if (this.state != State.RUNNING) { return false; }
+    final ClientLock lockState = getClientLockState(lock);
+    return lockState != null && lockState.tryFastLock(this.threadManager.getThreadID(), level);
   }
 
   @Override
@@ -590,6 +605,11 @@ public class ClientLockManagerImpl implements ClientLockManager, ClientLockManag
     }
   }
 
+  @Override
+  public void handshakeSent() {
+    // lock state travels entirely in the handshake
+  }
+
   @Override
   public void pause() {
     this.stateGuard.writeLock().lock();
@@ -45,4 +45,9 @@ public class NullClientLockManagerConfig implements ClientLockManagerConfig {
     return ClientLockManagerConfig.DEFAULT_STRIPED_COUNT;
   }
 
+  @Override
+  public long getRequestBatchWindow() {
+    return ClientLockManagerConfig.DEFAULT_REQUEST_BATCH_WINDOW;
+  }
+
 }
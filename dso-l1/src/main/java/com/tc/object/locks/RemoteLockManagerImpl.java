@@ -23,6 +23,7 @@ import com.tc.logging.TCLogging;
 import com.tc.net.ClientID;
 import com.tc.object.ClientIDProvider;
 import com.tc.object.msg.LockRequestMessage;
+import com.tc.object.msg.LockRequestMessage.RequestType;
 import com.tc.object.msg.LockRequestMessageFactory;
 import com.tc.util.concurrent.TaskRunner;
 import com.tc.util.concurrent.Timer;
@@ -39,29 +40,47 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
 
   private final static int                     MAX_BATCHED_RECALL_COMMITS  = 10000;
   private final static long                    MAX_TIME_IN_QUEUE           = 1;
+  private final static int                     MAX_BATCHED_REQUESTS        = 1000;
 
   private final LockRequestMessageFactory      messageFactory;
   private final ClientIDProvider               clientIdProvider;
 
   private final Queue<RecallBatchContext>      queue                       = new LinkedList<RecallBatchContext>();
+  // lock requests waiting to go out in one message, guarded by queue.  only one of requests and queue is ever
+  // non-empty so that requests and recall commits reach the server in the order they were issued
+  private final Queue<BatchedLockRequest>      requests                    = new LinkedList<BatchedLockRequest>();
   private boolean                              shutdown;
 
   private final Timer                          batchRecallTimer;
   private ScheduledFuture<?>                   batchRecallTask;
+  private ScheduledFuture<?>                   batchRequestTask;
+  private final long                           requestBatchWindow;
 
 
   public RemoteLockManagerImpl(ClientIDProvider clientIdProvider,
                                LockRequestMessageFactory messageFactory,
                                TaskRunner taskRunner) {
+    this(clientIdProvider, messageFactory, taskRunner, 0);
+  }
+
+  /**
+   * @param requestBatchWindow milliseconds a lock request may wait to be coalesced with others into one message,
+   *        0 sends every request immediately
+   */
+  public RemoteLockManagerImpl(ClientIDProvider clientIdProvider,
+                               LockRequestMessageFactory messageFactory,
+                               TaskRunner taskRunner, long requestBatchWindow) {
     this.messageFactory = messageFactory;
     this.clientIdProvider = clientIdProvider;
     this.batchRecallTimer = taskRunner.newTimer("Batch Recall Timer");
+    this.requestBatchWindow = requestBatchWindow;
   }
 
   @Override
   public void cleanup() {
     synchronized (queue) {
       queue.clear();
+      requests.clear();
     }
   }
 
@@ -82,6 +101,10 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
 
   @Override
   public void interrupt(LockID lock, ThreadID thread) {
+    if (requestBatchWindow > 0) {
+      batchRequest(new BatchedLockRequest(RequestType.INTERRUPT_WAIT, lock, thread, null, -1));
+      return;
+    }
     sendPendingRecallCommits();
 
     final LockRequestMessage msg = createMessage();
@@ -91,6 +114,10 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
 
   @Override
   public void lock(LockID lock, ThreadID thread, ServerLockLevel level) {
+    if (requestBatchWindow > 0) {
+      batchRequest(new BatchedLockRequest(RequestType.LOCK, lock, thread, level, -1));
+      return;
+    }
     sendPendingRecallCommits();
 
     final LockRequestMessage msg = createMessage();
@@ -100,6 +127,10 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
 
   @Override
   public void query(LockID lock, ThreadID thread) {
+    if (requestBatchWindow > 0) {
+      batchRequest(new BatchedLockRequest(RequestType.QUERY, lock, thread, null, -1));
+      return;
+    }
     sendPendingRecallCommits();
 
     final LockRequestMessage msg = createMessage();
@@ -109,6 +140,10 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
 
   @Override
   public void tryLock(LockID lock, ThreadID thread, ServerLockLevel level, long timeout) {
+    if (requestBatchWindow > 0) {
+      batchRequest(new BatchedLockRequest(RequestType.TRY_LOCK, lock, thread, level, timeout));
+      return;
+    }
     sendPendingRecallCommits();
 
     final LockRequestMessage msg = createMessage();
@@ -118,6 +153,10 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
 
   @Override
   public void unlock(LockID lock, ThreadID thread, ServerLockLevel level) {
+    if (requestBatchWindow > 0) {
+      batchRequest(new BatchedLockRequest(RequestType.UNLOCK, lock, thread, level, -1));
+      return;
+    }
     sendPendingRecallCommits();
 
     final LockRequestMessage msg = createMessage();
@@ -127,6 +166,10 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
 
   @Override
   public void wait(LockID lock, ThreadID thread, long waitTime) {
+    if (requestBatchWindow > 0) {
+      batchRequest(new BatchedLockRequest(RequestType.WAIT, lock, thread, null, waitTime));
+      return;
+    }
     sendPendingRecallCommits();
 
     final LockRequestMessage msg = createMessage();
@@ -155,6 +198,7 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
     // add it to the queue
     // check if it needs to be send immediately
     synchronized (queue) {
+      sendBatchedLockRequestsImmediately();
       queue.add(new RecallBatchContext(lockState, lock));
       if (queue.size() >= MAX_BATCHED_RECALL_COMMITS) {
         sendPendingRecallCommits();
@@ -168,6 +212,27 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
     }
   }
 
+  private void batchRequest(BatchedLockRequest request) {
+    synchronized (queue) {
+      if (!queue.isEmpty()) {
+        sendBatchedRequestsImmediately();
+        if (batchRecallTask != null) {
+          batchRecallTask.cancel(false);
+          batchRecallTask = null;
+        }
+      }
+      requests.add(request);
+      if (requests.size() >= MAX_BATCHED_REQUESTS) {
+        sendBatchedLockRequestsImmediately();
+        return;
+      }
+      if (batchRequestTask == null && !shutdown) {
+        batchRequestTask = batchRecallTimer.schedule(new BatchLockRequestsTask(),
+            requestBatchWindow, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
   @Override
   public void shutdown() {
     synchronized (queue) {
@@ -188,15 +253,66 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
       batchRecallTask.cancel(false);
     }
     batchRecallTask = null;
+    if (batchRequestTask != null) {
+      batchRequestTask.cancel(false);
+    }
+    batchRequestTask = null;
   }
 
   public void sendPendingRecallCommits() {
     synchronized (queue) {
+      sendBatchedLockRequestsImmediately();
       sendBatchedRequestsImmediately();
       cancelTimerTask();
     }
   }
 
+  private void sendBatchedLockRequestsImmediately() {
+    if (batchRequestTask != null) {
+      batchRequestTask.cancel(false);
+      batchRequestTask = null;
+    }
+    if (requests.isEmpty()) { return; }
+    LockRequestMessage lrm = createMessage();
+    if (requests.size() == 1) {
+      // no point wrapping a lone request
+      BatchedLockRequest request = requests.remove();
+      initializeSingleRequest(lrm, request);
+    } else {
+      lrm.initializeBatchedRequest();
+      for (final BatchedLockRequest request : requests) {
+        request.addToMessage(lrm);
+      }
+      requests.clear();
+    }
+    sendMessage(lrm);
+  }
+
+  private static void initializeSingleRequest(LockRequestMessage lrm, BatchedLockRequest request) {
+    switch (request.getRequestType()) {
+      case LOCK:
+        lrm.initializeLock(request.getLockID(), request.getThreadID(), request.getLockLevel());
+        break;
+      case TRY_LOCK:
+        lrm.initializeTryLock(request.getLockID(), request.getThreadID(), request.getTimeout(), request.getLockLevel());
+        break;
+      case UNLOCK:
+        lrm.initializeUnlock(request.getLockID(), request.getThreadID(), request.getLockLevel());
+        break;
+      case WAIT:
+        lrm.initializeWait(request.getLockID(), request.getThreadID(), request.getTimeout());
+        break;
+      case QUERY:
+        lrm.initializeQuery(request.getLockID(), request.getThreadID());
+        break;
+      case INTERRUPT_WAIT:
+        lrm.initializeInterruptWait(request.getLockID(), request.getThreadID());
+        break;
+      default:
+        throw new AssertionError("unexpected batched request: " + request);
+    }
+  }
+
   private void sendBatchedRequestsImmediately() {
     if (queue.size() == 0) { return; }
     // create a message and send it to the server
@@ -232,4 +348,18 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
       }
     }
   }
+
+  private class BatchLockRequestsTask implements Runnable {
+    @Override
+    public void run() {
+      synchronized (queue) {
+        if (shutdown) {
+          logger.info("Ignoring Batched Lock Requests Timer task as timer is already shut down.");
+          return;
+        }
+        batchRequestTask = null;
+        sendBatchedLockRequestsImmediately();
+      }
+    }
+  }
 }
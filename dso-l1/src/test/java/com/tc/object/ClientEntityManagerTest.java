@@ -539,6 +539,19 @@ public class ClientEntityManagerTest extends TestCase {
     public void setContents(ClientID clientID, TransactionID transactionID, EntityDescriptor entityDescriptor, Type type, boolean requiresReplication, byte[] extendedData, TransactionID oldestTransactionPending) {
       this.transactionID = transactionID;
     }
+    long traceID = 0;
+    @Override
+    public void setTraceID(long traceID) {
+      this.traceID = traceID;
+    }
+    @Override
+    public long getTraceID() {
+      return this.traceID;
+    }
+    @Override
+    public long getHydrateTime() {
+      return 0;
+    }
   }
   
   private static class FakeSink implements Sink<Object> {
@@ -0,0 +1,181 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.object.locks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collection;
+
+/**
+ * Covers the lock-free path a thread takes on a lock this client holds greedily for write.
+ */
+public class ClientLockImplTest {
+  private static final ThreadID OWNER = new ThreadID(1);
+  private static final ThreadID OTHER = new ThreadID(2);
+
+  private final LockID          lockID = new LongLockID(1);
+  private RemoteLockManager     remote;
+  private ClientLockImpl        lock;
+
+  @Before
+  public void setUp() throws Exception {
+    remote = mock(RemoteLockManager.class);
+    when(remote.asyncFlush(any(LockID.class), any(LockFlushCallback.class))).thenReturn(true);
+    lock = new ClientLockImpl(lockID);
+    lock.award(remote, ThreadID.VM_ID, ServerLockLevel.WRITE, 1);
+  }
+
+  @Test
+  public void testRelockAfterUnlockStaysFast() throws Exception {
+    lock.lock(remote, OWNER, LockLevel.WRITE);
+    for (int i = 0; i < 3; i++) {
+      assertTrue(lock.tryFastUnlock(OWNER, LockLevel.WRITE));
+      assertFalse(lock.isLockedBy(OWNER, LockLevel.WRITE));
+      assertEquals(0, lock.holdCount(LockLevel.WRITE));
+      assertTrue(lock.tryFastLock(OWNER, LockLevel.WRITE));
+      assertTrue(lock.isLockedBy(OWNER, LockLevel.WRITE));
+      assertEquals(1, lock.holdCount(LockLevel.WRITE));
+    }
+    verify(remote, never()).lock(any(LockID.class), any(ThreadID.class), any(ServerLockLevel.class));
+    verify(remote, never()).unlock(any(LockID.class), any(ThreadID.class), any(ServerLockLevel.class));
+  }
+
+  @Test
+  public void testOtherThreadTakesFastReleasedLock() throws Exception {
+    lock.lock(remote, OWNER, LockLevel.WRITE);
+    lock.unlock(remote, OWNER, LockLevel.WRITE);
+
+    assertTrue(lock.tryLock(remote, OTHER, LockLevel.WRITE));
+    assertTrue(lock.isLockedBy(OTHER, LockLevel.WRITE));
+    assertEquals(1, lock.holdCount(LockLevel.WRITE));
+    assertFalse(lock.tryFastLock(OWNER, LockLevel.WRITE));
+    assertFalse(lock.tryLock(remote, OWNER, LockLevel.WRITE));
+  }
+
+  @Test
+  public void testUnlockAfterRevokeGoesThroughTheMonitor() throws Exception {
+    lock.lock(remote, OWNER, LockLevel.WRITE);
+    assertTrue(lock.tryFastLock(OWNER, LockLevel.WRITE));
+
+    // a failed acquire by another thread revokes the fast hold
+    assertFalse(lock.tryLock(remote, OTHER, LockLevel.WRITE));
+    assertFalse(lock.tryFastLock(OWNER, LockLevel.WRITE));
+
+    // the nested hold is still released without the monitor, the base is not
+    assertTrue(lock.tryFastUnlock(OWNER, LockLevel.WRITE));
+    assertFalse(lock.tryFastUnlock(OWNER, LockLevel.WRITE));
+    assertTrue(lock.isLockedBy(OWNER, LockLevel.WRITE));
+    lock.unlock(remote, OWNER, LockLevel.WRITE);
+    assertFalse(lock.isLocked(LockLevel.WRITE));
+
+    assertTrue(lock.tryLock(remote, OTHER, LockLevel.WRITE));
+  }
+
+  @Test
+  public void testRecallWhileFastHeldWaitsForUnlock() throws Exception {
+    lock.lock(remote, OWNER, LockLevel.WRITE);
+    assertTrue(lock.tryFastLock(OWNER, LockLevel.WRITE));
+
+    assertFalse(lock.recall(remote, ServerLockLevel.WRITE, 0, false));
+    assertFalse(lock.tryFastLock(OWNER, LockLevel.WRITE));
+    verify(remote, never()).recallCommit(eq(lockID), any(Collection.class), anyBoolean());
+
+    lock.unlock(remote, OWNER, LockLevel.WRITE);
+    verify(remote, never()).recallCommit(eq(lockID), any(Collection.class), anyBoolean());
+    lock.unlock(remote, OWNER, LockLevel.WRITE);
+    verify(remote).recallCommit(eq(lockID), any(Collection.class), eq(false));
+  }
+
+  @Test
+  public void testRecallAfterFastReleaseCommitsImmediately() throws Exception {
+    lock.lock(remote, OWNER, LockLevel.WRITE);
+    lock.unlock(remote, OWNER, LockLevel.WRITE);
+
+    assertFalse(lock.recall(remote, ServerLockLevel.WRITE, 0, false));
+    verify(remote).recallCommit(eq(lockID), any(Collection.class), eq(false));
+    assertFalse(lock.tryFastLock(OWNER, LockLevel.WRITE));
+    assertFalse(lock.isLocked(LockLevel.WRITE));
+  }
+
+  @Test
+  public void testUnusedFastReleasedLockIsCollected() throws Exception {
+    lock.lock(remote, OWNER, LockLevel.WRITE);
+    lock.unlock(remote, OWNER, LockLevel.WRITE);
+
+    assertFalse(lock.tryMarkAsGarbage(remote));
+    assertFalse(lock.tryMarkAsGarbage(remote));
+    verify(remote).recallCommit(eq(lockID), any(Collection.class), eq(false));
+    assertFalse(lock.isLocked(LockLevel.WRITE));
+  }
+
+  @Test
+  public void testWaitInflatesFastHolds() throws Exception {
+    lock.lock(remote, OWNER, LockLevel.WRITE);
+    assertTrue(lock.tryFastLock(OWNER, LockLevel.WRITE));
+    assertTrue(lock.tryFastLock(OWNER, LockLevel.WRITE));
+
+    lock.wait(remote, mock(WaitListener.class), OWNER, null, 10);
+
+    assertEquals(3, lock.holdCount(LockLevel.WRITE));
+    for (int i = 0; i < 3; i++) {
+      assertTrue(lock.isLockedBy(OWNER, LockLevel.WRITE));
+      lock.unlock(remote, OWNER, LockLevel.WRITE);
+    }
+    assertFalse(lock.isLocked(LockLevel.WRITE));
+  }
+
+  @Test
+  public void testWaitAfterFastReleaseIsIllegal() throws Exception {
+    lock.lock(remote, OWNER, LockLevel.WRITE);
+    lock.unlock(remote, OWNER, LockLevel.WRITE);
+    try {
+      lock.wait(remote, mock(WaitListener.class), OWNER, null, 10);
+      fail();
+    } catch (IllegalMonitorStateException expected) {
+      // the owner released the lock
+    }
+    assertTrue(lock.tryLock(remote, OTHER, LockLevel.WRITE));
+  }
+
+  @Test
+  public void testUnlockAfterFastReleaseIsIllegal() throws Exception {
+    lock.lock(remote, OWNER, LockLevel.WRITE);
+    lock.unlock(remote, OWNER, LockLevel.WRITE);
+    try {
+      lock.unlock(remote, OWNER, LockLevel.WRITE);
+      fail();
+    } catch (IllegalMonitorStateException expected) {
+      // the owner released the lock
+    }
+    assertFalse(lock.isLocked(LockLevel.WRITE));
+  }
+}
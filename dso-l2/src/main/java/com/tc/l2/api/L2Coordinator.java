@@ -35,4 +35,6 @@ public interface L2Coordinator extends GroupEventsListener, PrettyPrintable {
 
   public GroupManager<AbstractGroupMessage> getGroupManager();
 
+  public void addStandbyListener(PassiveStandbyListener listener);
+
 }
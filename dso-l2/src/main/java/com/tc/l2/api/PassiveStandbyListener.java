@@ -0,0 +1,31 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.l2.api;
+
+import com.tc.net.NodeID;
+
+/**
+ * Told about a server which joined the group only once it has agreed to stand by for this active.  A server which
+ * refuses, for instance because it made itself active while it was cut off, is zapped instead and never reported here.
+ */
+public interface PassiveStandbyListener {
+
+  public void standbyAgreed(NodeID nodeID);
+
+}
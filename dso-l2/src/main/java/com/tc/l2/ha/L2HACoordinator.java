@@ -21,6 +21,7 @@ package com.tc.l2.ha;
 import com.tc.async.api.StageManager;
 import com.tc.config.schema.setup.L2ConfigurationSetupManager;
 import com.tc.l2.api.L2Coordinator;
+import com.tc.l2.api.PassiveStandbyListener;
 import com.tc.l2.api.ReplicatedClusterStateManager;
 import com.tc.l2.context.StateChangedEvent;
 import com.tc.l2.operatorevent.OperatorEventsZapRequestListener;
@@ -42,6 +43,9 @@ import com.tc.objectserver.persistence.ClusterStatePersistor;
 import com.tc.text.PrettyPrinter;
 import com.tc.util.sequence.SequenceGenerator;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 
 
 public class L2HACoordinator implements L2Coordinator {
@@ -56,6 +60,7 @@ public class L2HACoordinator implements L2Coordinator {
   private ReplicatedClusterStateManager                     rClusterStateMgr;
 
   private final L2ConfigurationSetupManager                 configSetupManager;
+  private final List<PassiveStandbyListener>                standbyListeners = new CopyOnWriteArrayList<>();
 
   public L2HACoordinator(TCLogger consoleLogger, DistributedObjectServer server,
                          StageManager stageManager, StateManager stateManager, 
@@ -122,6 +127,11 @@ public class L2HACoordinator implements L2Coordinator {
     return this.groupManager;
   }
 
+  @Override
+  public void addStandbyListener(PassiveStandbyListener listener) {
+    this.standbyListeners.add(listener);
+  }
+
   @Override
   public void nodeJoined(NodeID nodeID) {
     log(nodeID + " joined the cluster");
@@ -129,6 +139,9 @@ public class L2HACoordinator implements L2Coordinator {
       try {
         this.stateManager.publishActiveState(nodeID);
         this.rClusterStateMgr.publishClusterState(nodeID);
+        for (PassiveStandbyListener listener : this.standbyListeners) {
+          listener.standbyAgreed(nodeID);
+        }
       } catch (final GroupException ge) {
         final String errMesg = "A Terracotta server tried to join the mirror group as a second ACTIVE: " + nodeID
                                + " Zapping it to allow it to join as PASSIVE standby (backup): ";
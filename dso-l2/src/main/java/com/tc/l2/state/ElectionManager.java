@@ -20,6 +20,7 @@ package com.tc.l2.state;
 
 import com.tc.l2.msg.L2StateMessage;
 import com.tc.net.NodeID;
+import com.tc.stats.LatencyHistogram;
 
 public interface ElectionManager {
 
@@ -34,4 +35,9 @@ public interface ElectionManager {
   public void reset(Enrollment winner);
 
   public long getElectionTime();
+
+  /**
+   * @return how long each election this server ran took to decide a winner, in nanoseconds
+   */
+  public LatencyHistogram.Snapshot getElectionDurations();
 }
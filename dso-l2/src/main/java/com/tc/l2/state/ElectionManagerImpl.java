@@ -27,14 +27,19 @@ import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
 import com.tc.net.NodeID;
 import com.tc.net.ServerID;
+import com.tc.net.groups.GroupEventsListener;
 import com.tc.net.groups.GroupException;
 import com.tc.net.groups.GroupManager;
 import com.tc.net.groups.GroupResponse;
+import com.tc.stats.LatencyHistogram;
 import com.tc.util.Assert;
 import com.tc.util.State;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class ElectionManagerImpl implements ElectionManager {
 
@@ -54,10 +59,40 @@ public class ElectionManagerImpl implements ElectionManager {
   private Enrollment            winner;
 
   private final long            electionTime;
+  private final int             groupSize;
+  // servers currently connected to this one, an election can finish as soon as all of them have voted
+  private final Set<NodeID>     connected            = new HashSet<>();
+  // a winner has been known since this server started, so its peers have had the chance to connect
+  private boolean               settled              = false;
+  private final LatencyHistogram electionDurations   = new LatencyHistogram();
+  // elections only run on the election stage thread
+  private final LatencyHistogram.Recorder durationRecorder = electionDurations.newRecorder();
 
   public ElectionManagerImpl(GroupManager groupManager, StateManagerConfig stateManagerConfig) {
     this.groupManager = groupManager;
     electionTime = stateManagerConfig.getElectionTimeInSecs() * 1000;
+    groupSize = stateManagerConfig.getGroupSize();
+    groupManager.registerForGroupEvents(new GroupEventsListener() {
+      @Override
+      public void nodeJoined(NodeID nodeID) {
+        memberJoined(nodeID);
+      }
+
+      @Override
+      public void nodeLeft(NodeID nodeID) {
+        memberLeft(nodeID);
+      }
+    });
+  }
+
+  private synchronized void memberJoined(NodeID nodeID) {
+    connected.add(nodeID);
+  }
+
+  private synchronized void memberLeft(NodeID nodeID) {
+    connected.remove(nodeID);
+    // the election may have been waiting on this node's vote
+    notifyAll();
   }
   
   public EventHandler<ElectionContext> getEventHandler() {
@@ -77,6 +112,7 @@ public class ElectionManagerImpl implements ElectionManager {
       // Note : WE dont want to do this for new candidates when we are not new.
       Enrollment vote = msg.getEnrollment();
       Enrollment old = votes.put(vote.getNodeID(), vote);
+      notifyAll();
       boolean sendResponse = msg.inResponseTo().isNull();
       if (old != null && !vote.equals(old)) {
         logger.warn("Received duplicate vote : Replacing with new one : " + vote + " old one : " + old);
@@ -165,6 +201,9 @@ public class ElectionManagerImpl implements ElectionManager {
   @Override
   public synchronized void reset(Enrollment winningEnrollment) {
     this.winner = winningEnrollment;
+    if (winningEnrollment != null) {
+      this.settled = true;
+    }
     this.state = INIT;
     this.votes.clear();
     this.myVote = null;
@@ -205,6 +244,7 @@ public class ElectionManagerImpl implements ElectionManager {
       throws GroupException, InterruptedException {
 
     // Step 1: publish to cluster NodeID, weight and election start
+    long start = System.nanoTime();
     Enrollment e = EnrollmentFactory.createEnrollment(myNodeId, isNew, weightsFactory);
     electionStarted(e);
 
@@ -217,6 +257,9 @@ public class ElectionManagerImpl implements ElectionManager {
 
     // Step 3: Compute Winner
     Enrollment lWinner = computeResult();
+    long duration = System.nanoTime() - start;
+    durationRecorder.record(duration);
+    logger.info("Election decided in " + TimeUnit.NANOSECONDS.toMillis(duration) + "ms");
     if (lWinner != e) {
       logger.info("Election lost : Winner is : " + lWinner);
       Assert.assertNotNull(lWinner);
@@ -266,10 +309,22 @@ public class ElectionManagerImpl implements ElectionManager {
     return computedWinner;
   }
 
+  /**
+   * Every connected server has voted so there is nothing more to wait for.  Until a winner has been known, this server
+   * may still be starting up and not connected to all its peers, so it only finishes early once every server in the
+   * stripe has voted.  Without the size of the stripe, elections always run for the full election time.
+   */
+  private boolean allVotesIn() {
+    if (groupSize <= 0 || (!settled && votes.size() < groupSize)) {
+      return false;
+    }
+    return votes.keySet().containsAll(connected);
+  }
+
   private synchronized void waitTillElectionComplete() throws InterruptedException {
     long diff = electionTime;
     debugInfo("Waiting till election complete, electionTime=" + electionTime);
-    while (state == ELECTION_IN_PROGRESS && diff > 0) {
+    while (state == ELECTION_IN_PROGRESS && diff > 0 && !allVotesIn()) {
       long start = System.currentTimeMillis();
       wait(diff);
       diff = diff - (System.currentTimeMillis() - start);
@@ -297,6 +352,11 @@ public class ElectionManagerImpl implements ElectionManager {
     return electionTime;
   }
 
+  @Override
+  public LatencyHistogram.Snapshot getElectionDurations() {
+    return electionDurations.snapshot();
+  }
+
   private static void debugInfo(String message) {
     logger.debug(message);
   }
@@ -24,4 +24,9 @@ public interface StateManagerConfig {
    * @return election time in seconds
    */
   int getElectionTimeInSecs();
+
+  /**
+   * @return number of servers configured in the stripe, 0 if unknown
+   */
+  int getGroupSize();
 }
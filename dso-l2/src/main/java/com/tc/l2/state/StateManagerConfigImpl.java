@@ -21,9 +21,15 @@ package com.tc.l2.state;
 public class StateManagerConfigImpl implements StateManagerConfig {
 
   private final int electionTimeInSecs;
+  private final int groupSize;
 
   public StateManagerConfigImpl(int electionTimeInSecs) {
+    this(electionTimeInSecs, 0);
+  }
+
+  public StateManagerConfigImpl(int electionTimeInSecs, int groupSize) {
     this.electionTimeInSecs = electionTimeInSecs;
+    this.groupSize = groupSize;
 
     if (electionTimeInSecs <= 0) { throw new AssertionError(
                                                             "Election time has to be a positive integer, but is set to "
@@ -36,4 +42,9 @@ public class StateManagerConfigImpl implements StateManagerConfig {
 
   }
 
+  @Override
+  public int getGroupSize() {
+    return groupSize;
+  }
+
 }
@@ -0,0 +1,64 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.management.beans;
+
+import com.tc.management.AbstractTerracottaMBean;
+import com.tc.objectserver.entity.RequestTracer;
+import com.tc.stats.LatencyHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.NotCompliantMBeanException;
+
+public class RequestTracing extends AbstractTerracottaMBean implements RequestTracingMBean {
+  private final RequestTracer tracer;
+
+  public RequestTracing(RequestTracer tracer) throws NotCompliantMBeanException {
+    super(RequestTracingMBean.class, false);
+    this.tracer = tracer;
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> getHopLatencies() {
+    Map<String, Map<String, Long>> latencies = new LinkedHashMap<String, Map<String, Long>>();
+    for (Map.Entry<RequestTracer.Hop, LatencyHistogram.Snapshot> e : tracer.getHopLatencies().entrySet()) {
+      LatencyHistogram.Snapshot snapshot = e.getValue();
+      Map<String, Long> values = new LinkedHashMap<String, Long>();
+      values.put("count", snapshot.getCount());
+      values.put("mean", snapshot.getMean());
+      values.put("p50", snapshot.getValueAtPercentile(50));
+      values.put("p90", snapshot.getValueAtPercentile(90));
+      values.put("p99", snapshot.getValueAtPercentile(99));
+      values.put("max", snapshot.getMax());
+      latencies.put(e.getKey().name(), values);
+    }
+    return latencies;
+  }
+
+  @Override
+  public String getHopLatencyDetails() {
+    return tracer.getDetails();
+  }
+
+  @Override
+  public void reset() {
+    tracer.reset();
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.management.beans;
+
+import com.tc.async.api.StageLatencyStats;
+import com.tc.async.api.StageManager;
+import com.tc.management.AbstractTerracottaMBean;
+import com.tc.stats.LatencyHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.NotCompliantMBeanException;
+
+public class StageStats extends AbstractTerracottaMBean implements StageStatsMBean {
+  private final StageManager stageManager;
+
+  public StageStats(StageManager stageManager) throws NotCompliantMBeanException {
+    super(StageStatsMBean.class, false);
+    this.stageManager = stageManager;
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> getStageLatencies() {
+    Map<String, Map<String, Long>> latencies = new LinkedHashMap<String, Map<String, Long>>();
+    for (StageLatencyStats stats : stageManager.getLatencyStats()) {
+      Map<String, Long> values = new LinkedHashMap<String, Long>();
+      addSnapshot(values, "wait.", stats.getQueueWaitLatency());
+      addSnapshot(values, "exec.", stats.getExecutionLatency());
+      latencies.put(stats.getName(), values);
+    }
+    return latencies;
+  }
+
+  private static void addSnapshot(Map<String, Long> values, String prefix, LatencyHistogram.Snapshot snapshot) {
+    values.put(prefix + "count", snapshot.getCount());
+    values.put(prefix + "mean", snapshot.getMean());
+    values.put(prefix + "p50", snapshot.getValueAtPercentile(50));
+    values.put(prefix + "p90", snapshot.getValueAtPercentile(90));
+    values.put(prefix + "p99", snapshot.getValueAtPercentile(99));
+    values.put(prefix + "p99.9", snapshot.getValueAtPercentile(99.9));
+    values.put(prefix + "max", snapshot.getMax());
+  }
+
+  @Override
+  public String getStageLatencyDetails() {
+    StringBuilder details = new StringBuilder();
+    for (StageLatencyStats stats : stageManager.getLatencyStats()) {
+      details.append(stats.getDetails()).append('\n');
+    }
+    return details.toString();
+  }
+
+  @Override
+  public void reset() {
+    for (StageLatencyStats stats : stageManager.getLatencyStats()) {
+      stats.reset();
+    }
+  }
+}
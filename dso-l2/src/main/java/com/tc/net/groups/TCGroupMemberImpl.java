@@ -28,7 +28,13 @@ import com.tc.net.protocol.tcm.ChannelEventListener;
 import com.tc.net.protocol.tcm.ChannelEventType;
 import com.tc.net.protocol.tcm.MessageChannel;
 import com.tc.net.protocol.tcm.TCMessageType;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 
+import java.util.LinkedList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /*
@@ -44,11 +50,38 @@ public class TCGroupMemberImpl implements TCGroupMember, ChannelEventListener {
   private final AtomicBoolean   ready        = new AtomicBoolean(false);
   private final AtomicBoolean   joined       = new AtomicBoolean(false);
   private volatile boolean      memberAdding = false;
+  //  priority messages go straight to the channel.  everything else waits in the data lane and only dataWindow of
+  //  those are handed to the channel at a time, so a priority message never queues in the channel behind more than
+  //  dataWindow data messages.  guarded by dataLane
+  private final int             dataWindow;
+  private final int             dataCapacity;
+  private final LinkedList<TCGroupMessageWrapper> dataLane = new LinkedList<TCGroupMessageWrapper>();
+  private int                   dataInFlight = 0;
+  private boolean               draining     = false;
+  private boolean               drainQueued  = false;
+  //  data is never handed to the channel from a sent callback, that runs on the comm thread.  a drain already running
+  //  or already queued picks up the room a sent callback frees, so a busy lane costs one hop, not one per message
+  private static final Executor dataLaneDrainer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread drainer = new Thread(r, "Group data lane");
+      drainer.setDaemon(true);
+      return drainer;
+    }
+  });
 
   public TCGroupMemberImpl(ServerID localNodeID, ServerID peerNodeID, MessageChannel channel) {
+    this(localNodeID, peerNodeID, channel,
+         TCPropertiesImpl.getProperties().getInt(TCPropertiesConsts.L2_NHA_TCGROUPCOMM_DATA_WINDOW),
+         TCPropertiesImpl.getProperties().getInt(TCPropertiesConsts.L2_NHA_TCGROUPCOMM_DATA_CAPACITY));
+  }
+
+  TCGroupMemberImpl(ServerID localNodeID, ServerID peerNodeID, MessageChannel channel, int dataWindow, int dataCapacity) {
     this.channel = channel;
     this.localNodeID = localNodeID;
     this.peerNodeID = peerNodeID;
+    this.dataWindow = dataWindow;
+    this.dataCapacity = dataCapacity;
     this.channel.addListener(this);
   }
 
@@ -78,7 +111,90 @@ public class TCGroupMemberImpl implements TCGroupMember, ChannelEventListener {
   private void sendMessage(AbstractGroupMessage msg) {
     TCGroupMessageWrapper wrapper = (TCGroupMessageWrapper) channel.createMessage(TCMessageType.GROUP_WRAPPER_MESSAGE);
     wrapper.setGroupMessage(msg);
-    wrapper.send();
+    if (dataWindow <= 0 || msg.isPriority()) {
+      wrapper.send();
+    } else if (queueData(wrapper)) {
+      drainData();
+    } else {
+      logger.warn("Channel closed while waiting to send to " + this + ", msg will not be sent: " + msg);
+    }
+  }
+
+  /**
+   * @return false if the channel closed before there was room, the message is dropped like any other queued data
+   */
+  private boolean queueData(TCGroupMessageWrapper wrapper) {
+    synchronized (dataLane) {
+      //  hold the sender back the same way a full channel send queue would
+      boolean interrupted = false;
+      while (dataLane.size() >= dataCapacity && channel.isOpen()) {
+        try {
+          dataLane.wait(1000);
+        } catch (InterruptedException ie) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      //  the lane was, or is about to be, cleared by CHANNEL_CLOSED and nothing added now would ever be sent
+      if (!channel.isOpen()) {
+        return false;
+      }
+      dataLane.addLast(wrapper);
+      return true;
+    }
+  }
+
+  /**
+   * Hands queued data to the channel while the window allows.  Only one thread drains at a time so the data lane keeps
+   * its order.
+   */
+  private void drainData() {
+    synchronized (dataLane) {
+      if (draining) {
+        return;
+      }
+      draining = true;
+    }
+    while (true) {
+      TCGroupMessageWrapper next;
+      synchronized (dataLane) {
+        if (dataLane.isEmpty() || dataInFlight >= dataWindow) {
+          draining = false;
+          return;
+        }
+        next = dataLane.removeFirst();
+        dataInFlight++;
+        dataLane.notifyAll();
+      }
+      next.setSentCallback(new Runnable() {
+        @Override
+        public void run() {
+          dataSent();
+        }
+      });
+      next.send();
+    }
+  }
+
+  private void dataSent() {
+    synchronized (dataLane) {
+      dataInFlight--;
+      if (dataLane.isEmpty() || draining || drainQueued) {
+        return;
+      }
+      drainQueued = true;
+    }
+    dataLaneDrainer.execute(new Runnable() {
+      @Override
+      public void run() {
+        synchronized (dataLane) {
+          drainQueued = false;
+        }
+        drainData();
+      }
+    });
   }
 
   @Override
@@ -99,6 +215,13 @@ public class TCGroupMemberImpl implements TCGroupMember, ChannelEventListener {
       } else if ((event.getType() == ChannelEventType.TRANSPORT_DISCONNECTED_EVENT)
                  || (event.getType() == ChannelEventType.CHANNEL_CLOSED_EVENT)) {
         ready.set(false);
+        if (event.getType() == ChannelEventType.CHANNEL_CLOSED_EVENT) {
+          //  nothing queued will be sent, release anyone waiting for room
+          synchronized (dataLane) {
+            dataLane.clear();
+            dataLane.notifyAll();
+          }
+        }
       }
     }
   }
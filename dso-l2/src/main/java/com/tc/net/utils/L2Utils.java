@@ -45,6 +45,21 @@ public class L2Utils {
     return TCPropertiesImpl.getProperties().getInt(TCPropertiesConsts.L2_SEDA_STAGE_WORKERTHREADS, def);
   }
 
+  /**
+   * Calculates the number of worker threads for the lock stages.  The count is rounded down to a power of two no larger
+   * than the number of lock stripes so every thread owns the same number of stripes.
+   * <p/>{@code l2.seda.lock.stage.threads} configuration property overrides the default of half the cpus.
+   *
+   * @param stripes the number of lock stripes, a power of two
+   * @return the number of threads for the lock stages
+   */
+  public static int getOptimalLockStageWorkerThreads(int stripes) {
+    int def = Runtime.getRuntime().availableProcessors() / 2;
+    int threads = TCPropertiesImpl.getProperties().getInt(TCPropertiesConsts.L2_SEDA_LOCK_STAGE_THREADS, def);
+    threads = Math.max(1, Math.min(threads, stripes));
+    return Integer.highestOneBit(threads);
+  }
+
   /**
    * Calculates the optimal number of worker threads for the apply stage.
    * <p/>{@code l2.seda.apply.stage.threads} configuration property overrides this value.
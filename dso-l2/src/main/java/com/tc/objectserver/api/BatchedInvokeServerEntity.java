@@ -0,0 +1,51 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.api;
+
+import org.terracotta.entity.ClientDescriptor;
+import org.terracotta.entity.EntityMessage;
+import org.terracotta.entity.EntityResponse;
+
+import java.util.List;
+
+
+/**
+ * Optional interface an active server entity can implement to have consecutive read-only invokes on the same
+ * concurrency key handed to it in a single call instead of one call per message.
+ * <p>
+ * Only messages which are not replicated to passives and which the entity reports as batchable are grouped.  A run of
+ * batched messages is always executed on the thread which owns their concurrency key so per-key ordering is the same as
+ * if the messages had been invoked one at a time.
+ */
+public interface BatchedInvokeServerEntity<M extends EntityMessage, R extends EntityResponse> {
+  /**
+   * @param message a decoded invoke
+   * @return true if the message has no side-effects and may be executed together with its neighbours on the same key
+   */
+  boolean isBatchable(M message);
+
+  /**
+   * Executes a run of batchable messages which arrived back to back on the same concurrency key.
+   *
+   * @param clients the source of each message, index aligned with messages
+   * @param messages the messages in arrival order
+   * @return one response per message, index aligned with messages
+   */
+  List<R> invokeBatch(List<ClientDescriptor> clients, List<M> messages);
+}
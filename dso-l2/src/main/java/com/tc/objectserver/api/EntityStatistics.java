@@ -0,0 +1,166 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.api;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Point in time copy of the counters a managed entity keeps about the requests scheduled on it.  Times are
+ * cumulative nanoseconds since the entity was instantiated on this server so rates and means are computed by the
+ * reader, usually by diffing two snapshots.
+ * <p>
+ * This is published under the entity's node in the platform monitoring tree so it must stay serializable.
+ */
+public class EntityStatistics implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final String entityClass;
+  private final String entityName;
+  private final long requests;
+  private final long bytesIn;
+  private final long bytesOut;
+  private final long queueNanos;
+  private final long replicationNanos;
+  private final long executionNanos;
+  private final List<KeyStatistics> hotKeys;
+
+  public EntityStatistics(String entityClass, String entityName, long requests, long bytesIn, long bytesOut,
+                          long queueNanos, long replicationNanos, long executionNanos, List<KeyStatistics> hotKeys) {
+    this.entityClass = entityClass;
+    this.entityName = entityName;
+    this.requests = requests;
+    this.bytesIn = bytesIn;
+    this.bytesOut = bytesOut;
+    this.queueNanos = queueNanos;
+    this.replicationNanos = replicationNanos;
+    this.executionNanos = executionNanos;
+    this.hotKeys = Collections.unmodifiableList(hotKeys);
+  }
+
+  public String getEntityClass() {
+    return entityClass;
+  }
+
+  public String getEntityName() {
+    return entityName;
+  }
+
+  /**
+   * @return number of requests which have finished executing, a batch of invokes counts as one request per invoke
+   */
+  public long getRequests() {
+    return requests;
+  }
+
+  public long getBytesIn() {
+    return bytesIn;
+  }
+
+  public long getBytesOut() {
+    return bytesOut;
+  }
+
+  /**
+   * @return time spent between arriving at the entity and being picked up by a request processor thread
+   */
+  public long getQueueNanos() {
+    return queueNanos;
+  }
+
+  /**
+   * @return time request processor threads spent waiting on passives to acknowledge replication before executing
+   */
+  public long getReplicationNanos() {
+    return replicationNanos;
+  }
+
+  public long getExecutionNanos() {
+    return executionNanos;
+  }
+
+  /**
+   * @return the concurrency keys which received the most requests, busiest first.  counts are approximate once the
+   * entity has used more keys than are tracked, see {@link KeyStatistics#getError()}
+   */
+  public List<KeyStatistics> getHotKeys() {
+    return hotKeys;
+  }
+
+  @Override
+  public String toString() {
+    return "EntityStatistics{" + entityClass + ":" + entityName + " requests=" + requests + " in=" + bytesIn + "B out=" + bytesOut +
+        "B queue=" + micros(queueNanos, requests) + "us replication=" + micros(replicationNanos, requests) +
+        "us execution=" + micros(executionNanos, requests) + "us hotKeys=" + hotKeys + '}';
+  }
+
+  private static long micros(long nanos, long count) {
+    return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(nanos / count);
+  }
+
+  /**
+   * Estimated load on one concurrency key.  Since every request on a key runs on the same request processor thread,
+   * a key with a large share of the entity's execution time is one which serializes that thread.
+   */
+  public static class KeyStatistics implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int key;
+    private final long requests;
+    private final long error;
+    private final long executionNanos;
+
+    public KeyStatistics(int key, long requests, long error, long executionNanos) {
+      this.key = key;
+      this.requests = requests;
+      this.error = error;
+      this.executionNanos = executionNanos;
+    }
+
+    public int getKey() {
+      return key;
+    }
+
+    /**
+     * @return requests counted against this key, an over-estimate by at most {@link #getError()}
+     */
+    public long getRequests() {
+      return requests;
+    }
+
+    public long getError() {
+      return error;
+    }
+
+    /**
+     * @return estimated execution time on this key, an over-estimate if other keys collide with it in the sketch
+     */
+    public long getExecutionNanos() {
+      return executionNanos;
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + requests + "(+/-" + error + ")/" + TimeUnit.NANOSECONDS.toMicros(executionNanos) + "us";
+    }
+  }
+}
@@ -25,6 +25,7 @@ import com.tc.net.ClientID;
 import com.tc.net.NodeID;
 import com.tc.object.EntityID;
 
+import java.util.Set;
 
 /**
  * Contains a managed entity or holds a place for a specific entity yet-to-be-created.
@@ -58,11 +59,12 @@ public interface ManagedEntity {
    */
   public void reconnectClient(ClientID clientID, ClientDescriptor clientDescriptor, byte[] extendedReconnectData);
   /**
-   * Called to sync an entity.  Caller initiates sync of an entity through this method.  
+   * Called to sync an entity.  Caller initiates sync of an entity through this method.  Each sync payload is 
+   * encoded once and sent to all the passives.
    * 
-   * @param passive target passive
+   * @param passives target passives
    */
-  void sync(NodeID passive);
+  void sync(Set<NodeID> passives);
   
   void loadEntity(byte[] configuration);
   
@@ -75,4 +77,9 @@ public interface ManagedEntity {
    * @return The codec which can translate to/from this entity's message dialect.
    */
   MessageCodec<?, ?> getCodec();
+
+  /**
+   * @return a copy of the request counters this entity keeps, or null if it does not keep any
+   */
+  EntityStatistics getStatistics();
 }
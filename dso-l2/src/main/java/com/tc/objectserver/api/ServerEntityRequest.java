@@ -18,6 +18,7 @@
  */
 package com.tc.objectserver.api;
 
+import com.tc.entity.RequestTrace;
 import com.tc.net.ClientID;
 import org.terracotta.entity.ClientDescriptor;
 import org.terracotta.exception.EntityException;
@@ -57,4 +58,8 @@ public interface ServerEntityRequest {
  * @return the passives that this request needs to be replicated to
  */  
   Set<NodeID> replicateTo(Set<NodeID> passives);
+/**
+ * @return the trace of a sampled request, null if the request is not traced
+ */
+  RequestTrace getTrace();
 }
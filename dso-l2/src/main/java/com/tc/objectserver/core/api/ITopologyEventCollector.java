@@ -22,6 +22,7 @@ import com.tc.net.ClientID;
 import com.tc.net.ServerID;
 import com.tc.net.protocol.tcm.MessageChannel;
 import com.tc.object.EntityID;
+import com.tc.objectserver.api.EntityStatistics;
 import com.tc.util.State;
 import org.terracotta.entity.ClientDescriptor;
 
@@ -116,4 +117,13 @@ public interface ITopologyEventCollector {
    * @param id The unique identifier for this entity.
    */
   public void clientDidReleaseEntity(ClientID client, EntityID id);
+
+  /**
+   * Called periodically with the latest request counters of an entity.  Unlike the other events, this may arrive for
+   * an entity which has just been destroyed and such updates are dropped.
+   * 
+   * @param id The unique identifier for this entity.
+   * @param stats A snapshot of the entity's counters.
+   */
+  public void entityStatisticsUpdated(EntityID id, EntityStatistics stats);
 }
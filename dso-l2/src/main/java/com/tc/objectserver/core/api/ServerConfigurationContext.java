@@ -38,6 +38,7 @@ public interface ServerConfigurationContext extends ConfigurationContext {
   public final static String TRANSACTION_LOOKUP_STAGE                           = "transaction_lookup_stage";
   public final static String RESPOND_TO_LOCK_REQUEST_STAGE                      = "respond_to_lock_request_stage";
   public final static String REQUEST_LOCK_STAGE                                 = "request_lock_stage";
+  public final static String PROCESS_LOCK_REQUEST_STAGE                         = "process_lock_request_stage";
   public final static String CHANNEL_LIFE_CYCLE_STAGE                           = "channel_life_cycle_stage";
   public final static String TRANSACTION_ACKNOWLEDGEMENT_STAGE                  = "transaction_acknowledgement_stage";
   public final static String CLIENT_HANDSHAKE_STAGE                             = "client_handshake_stage";
@@ -80,6 +81,7 @@ public interface ServerConfigurationContext extends ConfigurationContext {
   public static final String PASSIVE_REPLICATION_ACK_STAGE                            = "passive_replication_ack_stage";
   
   public static final String PLATFORM_INFORMATION_REQUEST                       = "platform_information_request";
+  public static final String PLATFORM_MONITORING_UPDATE_STAGE                   = "platform_monitoring_update_stage";
   
   // TODO::Move to enterprise
   public static final String AA_TRANSACTION_WATERMARK_BROADCAST_STAGE           = "aa_transaction_watermark_broadcast_stage";
@@ -18,10 +18,15 @@
  */
 package com.tc.objectserver.core.impl;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.terracotta.entity.ClientDescriptor;
 import org.terracotta.monitoring.IMonitoringProducer;
@@ -30,6 +35,9 @@ import org.terracotta.monitoring.PlatformConnectedClient;
 import org.terracotta.monitoring.PlatformEntity;
 import org.terracotta.monitoring.PlatformMonitoringConstants;
 
+import com.tc.async.api.AbstractEventHandler;
+import com.tc.async.api.EventHandler;
+import com.tc.async.api.Sink;
 import com.tc.l2.state.StateManager;
 import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
@@ -39,6 +47,7 @@ import com.tc.net.ServerID;
 import com.tc.net.TCSocketAddress;
 import com.tc.net.protocol.tcm.MessageChannel;
 import com.tc.object.EntityID;
+import com.tc.objectserver.api.EntityStatistics;
 import com.tc.objectserver.core.api.ITopologyEventCollector;
 import com.tc.objectserver.handshakemanager.ClientHandshakeMonitoringInfo;
 import com.tc.server.TCServerMain;
@@ -53,6 +62,12 @@ import org.terracotta.monitoring.ServerState;
 /**
  * The basic implementation of ITopologyEventCollector which ensures that events aren't obviously incorrect by ensuring
  * consistent state and symmetry of events.
+ * <p>
+ * Client and entity events arrive on the request path from many threads at once (most visibly when every client
+ * reconnects and re-fetches its entities after a fail-over) so they only update concurrent bookkeeping and queue the
+ * matching change to the monitoring tree.  The queued changes are applied in batches by the stage set with
+ * {@link #setUpdateSink(Sink)}, or inline by the caller if there is none.  A fetch which is released again before its
+ * batch is applied never reaches the tree.
  */
 public class ManagementTopologyEventCollector implements ITopologyEventCollector {
   // Note that serviceInterface may be null if there isn't an IMonitoringProducer service registered.
@@ -61,18 +76,26 @@ public class ManagementTopologyEventCollector implements ITopologyEventCollector
   private final Set<EntityID> entities;
   private final Map<NodeID, PlatformServer> servers;
   private final Map<FetchTuple, Integer> fetchPairCounts;
-  private boolean isActiveState;
+  private volatile boolean isActiveState;
+  
+  private final ConcurrentLinkedQueue<TreeUpdate> pendingUpdates = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean applyScheduled = new AtomicBoolean();
+  private final Runnable applyTask = this::applyPendingUpdates;
+  private final Object applyLock = new Object();
+  private volatile Sink<Runnable> updateSink;
     
   private final ServerID thisNode;
 
   private static final TCLogger LOGGER = TCLogging.getLogger(ManagementTopologyEventCollector.class);
+  // The name of the child node, under each entity, which holds its latest EntityStatistics.
+  public static final String STATISTICS_NODE_NAME = "statistics";
 
   public ManagementTopologyEventCollector(ServerID self, IMonitoringProducer serviceInterface) {
     this.thisNode = self;
     this.serviceInterface = serviceInterface;
-    this.connectedClients = new HashSet<ClientID>();
-    this.entities = new HashSet<EntityID>();
-    this.fetchPairCounts = new HashMap<FetchTuple, Integer>();
+    this.connectedClients = ConcurrentHashMap.newKeySet();
+    this.entities = ConcurrentHashMap.newKeySet();
+    this.fetchPairCounts = new ConcurrentHashMap<FetchTuple, Integer>();
     this.servers = new HashMap<NodeID, PlatformServer>();
     this.isActiveState = false;
     
@@ -90,6 +113,24 @@ public class ManagementTopologyEventCollector implements ITopologyEventCollector
       this.serviceInterface.addNode(PlatformMonitoringConstants.PLATFORM_PATH, PlatformMonitoringConstants.SERVERS_ROOT_NAME, null);
     }
   }
+  
+  /**
+   * Hands the application of monitoring tree changes to a single threaded stage.  Until this is called, each event
+   * applies its own changes before returning.
+   */
+  public void setUpdateSink(Sink<Runnable> sink) {
+    this.updateSink = sink;
+    scheduleApply();
+  }
+  
+  public EventHandler<Runnable> getEventHandler() {
+    return new AbstractEventHandler<Runnable>() {
+      @Override
+      public void handleEvent(Runnable context) {
+        context.run();
+      }
+    };
+  }
 //  server information is communicated in a broadcast fashion
 //  from multiple pathways.  It is possible to get duplicate information and 
 //  this method must tolerate that
@@ -105,9 +146,8 @@ public class ManagementTopologyEventCollector implements ITopologyEventCollector
     PlatformServer server = new PlatformServer(serverName, hostname, hostAddress, bindAddress, bindPort, groupPort, version, build, TCServerMain.getServer().getStartTime()); 
     if (this.servers.put(node, server) == null) {
       LOGGER.debug("adding NODE:" + Arrays.toString(PlatformMonitoringConstants.SERVERS_PATH) + " NAME:" + serverIdentifierForService(node) + " VALUE:" + server);
-      if (null != this.serviceInterface) {
-        this.serviceInterface.addNode(PlatformMonitoringConstants.SERVERS_PATH, serverIdentifierForService(node), server);
-      }
+      enqueue(TreeUpdate.add(PlatformMonitoringConstants.SERVERS_PATH, serverIdentifierForService(node), server));
+      scheduleApply();
     } else {
       LOGGER.debug("adding an already existing server node:" + node);
     }
@@ -119,9 +159,8 @@ public class ManagementTopologyEventCollector implements ITopologyEventCollector
   public synchronized void serverDidLeaveGroup(ServerID node) {
     if (this.servers.remove(node) != null) {
       LOGGER.debug("removing NODE:" + Arrays.toString(PlatformMonitoringConstants.SERVERS_PATH) + " NAME:" + serverIdentifierForService(node));
-      if (this.serviceInterface != null) {
-        this.serviceInterface.removeNode(PlatformMonitoringConstants.SERVERS_PATH, serverIdentifierForService(node));
-      }
+      enqueue(TreeUpdate.remove(PlatformMonitoringConstants.SERVERS_PATH, serverIdentifierForService(node)));
+      scheduleApply();
     } else {
       LOGGER.info("removing non-existent server node " + node);
     }
@@ -153,10 +192,9 @@ public class ManagementTopologyEventCollector implements ITopologyEventCollector
     
     LOGGER.debug("state NODE:" + serverIdentifierForService(node) + " announcing state " + stateValue);
     // Set this in the monitoring interface.
-    if (null != this.serviceInterface) {
-      this.serviceInterface.removeNode(makeServerPath(node), PlatformMonitoringConstants.STATE_NODE_NAME);
-      this.serviceInterface.addNode(makeServerPath(node), PlatformMonitoringConstants.STATE_NODE_NAME, new ServerState(stateValue, System.currentTimeMillis(), activateTime));
-    }
+    enqueue(TreeUpdate.remove(makeServerPath(node), PlatformMonitoringConstants.STATE_NODE_NAME));
+    enqueue(TreeUpdate.add(makeServerPath(node), PlatformMonitoringConstants.STATE_NODE_NAME, new ServerState(stateValue, System.currentTimeMillis(), activateTime)));
+    scheduleApply();
   }
 
   private String[] makeServerPath(ServerID node, String...slot) {
@@ -174,11 +212,9 @@ public class ManagementTopologyEventCollector implements ITopologyEventCollector
   }
   
   @Override
-  public synchronized void clientDidConnect(MessageChannel channel, ClientID client) {
-    // Ensure that this client isn't already connected.
-    Assert.assertFalse(this.connectedClients.contains(client));
-    // Now, add it to the connected set.
-    this.connectedClients.add(client);
+  public void clientDidConnect(MessageChannel channel, ClientID client) {
+    // Ensure that this client isn't already connected while adding it to the connected set.
+    Assert.assertTrue(this.connectedClients.add(client));
     
     // Add it to the monitoring interface.
     if (null != this.serviceInterface) {
@@ -194,94 +230,103 @@ public class ManagementTopologyEventCollector implements ITopologyEventCollector
               minfo.getPid() & 0xffffffffL);
       // We will use the ClientID long value as the node name.
       String nodeName = clientIdentifierForService(client);
-      this.serviceInterface.addNode(PlatformMonitoringConstants.CLIENTS_PATH, nodeName, clientDescription);
+      enqueue(TreeUpdate.add(PlatformMonitoringConstants.CLIENTS_PATH, nodeName, clientDescription));
+      scheduleApply();
     }
   }
 
   @Override
-  public synchronized void clientDidDisconnect(MessageChannel channel, ClientID client) {
-    // Ensure that this client was already connected.
-    Assert.assertTrue(this.connectedClients.contains(client));
-    // Now, remove it from the connected set.
-    this.connectedClients.remove(client);
+  public void clientDidDisconnect(MessageChannel channel, ClientID client) {
+    // Ensure that this client was already connected while removing it from the connected set.
+    Assert.assertTrue(this.connectedClients.remove(client));
     
     // Remove it from the monitoring interface.
-    if (null != this.serviceInterface) {
-      String nodeName = clientIdentifierForService(client);
-      this.serviceInterface.removeNode(PlatformMonitoringConstants.CLIENTS_PATH, nodeName);
-    }
+    String nodeName = clientIdentifierForService(client);
+    enqueue(TreeUpdate.remove(PlatformMonitoringConstants.CLIENTS_PATH, nodeName));
+    scheduleApply();
   }
 
   @Override
-  public synchronized void entityWasCreated(EntityID id, boolean isActive) {
+  public void entityWasCreated(EntityID id, boolean isActive) {
     // Ensure that this is the expected state.
     Assert.assertTrue(isActive == this.isActiveState);
     // Ensure that this entity didn't already exist.
-    Assert.assertFalse(this.entities.contains(id));
+    Assert.assertTrue(this.entities.add(id));
     addEntityToTracking(id, isActive);
   }
 
   @Override
-  public synchronized void entityWasDestroyed(EntityID id) {
-    // Ensure that this entity already exists.
-    Assert.assertTrue(this.entities.contains(id));
-    // Now, remove it from the set.
+  public void entityWasDestroyed(EntityID id) {
+    // Ensure that this entity already exists while removing it from the set.
+    Assert.assertTrue(this.entities.remove(id));
     removeEntityFromTracking(id);
   }
 
   @Override
-  public synchronized void entityWasReloaded(EntityID id, boolean isActive) {
+  public void entityWasReloaded(EntityID id, boolean isActive) {
     // Ensure that this is the expected state.
     // NOTE:  We currently can't verify the isActiveState since the reload path sets it _after_ the entities are reloaded.
     // Note that this could happen due to promotion or reloading from restart so we can't know if it already is in our set.
-    if (!this.entities.contains(id)) {
-      // Seems to be new so add it to the set.
+    if (this.entities.add(id)) {
+      // Seems to be new so add it to the tree.
       addEntityToTracking(id, isActive);
     }
   }
 
   @Override
-  public synchronized void clientDidFetchEntity(ClientID client, EntityID id, ClientDescriptor clientDescriptor) {
+  public void clientDidFetchEntity(ClientID client, EntityID id, ClientDescriptor clientDescriptor) {
     // XXX: Note that there is currently no handling of reconnect on entity promotion from passive to active so there may
     // be double-counting, here.
     FetchTuple tuple = new FetchTuple(client, id);
-    int count = 0;
-    if (this.fetchPairCounts.containsKey(tuple)) {
-      count = this.fetchPairCounts.get(tuple);
-    }
-    count += 1;
-    this.fetchPairCounts.put(tuple, count);
-    
-    // Add it to the monitoring interface.
-    if (null != this.serviceInterface) {
-      String clientIdentifier = clientIdentifierForService(client);
-      String entityIdentifier = entityIdentifierForService(id);
-      PlatformClientFetchedEntity record = new PlatformClientFetchedEntity(clientIdentifier, entityIdentifier, clientDescriptor);
-      String fetchIdentifier = fetchIdentifierForService(clientIdentifier, entityIdentifier);
-      this.serviceInterface.addNode(PlatformMonitoringConstants.FETCHED_PATH, fetchIdentifier, record);
-    }
+    // The tree holds one node per client-entity pair so only the first fetch adds it.  This is queued while the count is
+    // locked so that a racing release can't queue its removal ahead of the addition.
+    this.fetchPairCounts.compute(tuple, (key, count) -> {
+      if (null == count) {
+        String clientIdentifier = clientIdentifierForService(client);
+        String entityIdentifier = entityIdentifierForService(id);
+        PlatformClientFetchedEntity record = new PlatformClientFetchedEntity(clientIdentifier, entityIdentifier, clientDescriptor);
+        enqueue(TreeUpdate.add(PlatformMonitoringConstants.FETCHED_PATH, fetchIdentifierForService(clientIdentifier, entityIdentifier), record));
+        return 1;
+      }
+      return count + 1;
+    });
+    scheduleApply();
   }
 
   @Override
-  public synchronized void clientDidReleaseEntity(ClientID client, EntityID id) {
+  public void clientDidReleaseEntity(ClientID client, EntityID id) {
     FetchTuple tuple = new FetchTuple(client, id);
-    // We can't release something we didn't fetch.
-    Assert.assertTrue(this.fetchPairCounts.containsKey(tuple));
-    int count = this.fetchPairCounts.remove(tuple);
-    count -= 1;
-    if (count > 0) {
-      this.fetchPairCounts.put(tuple, count);
-    }
-    
-    // Remove it from the monitoring interface.
-    if (null != this.serviceInterface) {
+    this.fetchPairCounts.compute(tuple, (key, count) -> {
+      // We can't release something we didn't fetch.
+      Assert.assertNotNull(count);
+      if (count > 1) {
+        return count - 1;
+      }
       String clientIdentifier = clientIdentifierForService(client);
       String entityIdentifier = entityIdentifierForService(id);
-      String fetchIdentifier = fetchIdentifierForService(clientIdentifier, entityIdentifier);
-      this.serviceInterface.removeNode(PlatformMonitoringConstants.FETCHED_PATH, fetchIdentifier);
+      enqueue(TreeUpdate.remove(PlatformMonitoringConstants.FETCHED_PATH, fetchIdentifierForService(clientIdentifier, entityIdentifier)));
+      return null;
+    });
+    scheduleApply();
+  }
+
+  @Override
+  public void entityStatisticsUpdated(EntityID id, EntityStatistics stats) {
+    // Statistics are published on a timer so they can race with the entity being destroyed.  Losing that race only
+    // queues changes to a node which no longer exists, which the tree ignores.
+    if (this.entities.contains(id)) {
+      String[] entityPath = makeEntityPath(id);
+      enqueue(TreeUpdate.remove(entityPath, STATISTICS_NODE_NAME));
+      enqueue(TreeUpdate.add(entityPath, STATISTICS_NODE_NAME, stats));
+      scheduleApply();
     }
   }
-  
+
+  private String[] makeEntityPath(EntityID id) {
+    String[] path = Arrays.copyOf(PlatformMonitoringConstants.ENTITIES_PATH, PlatformMonitoringConstants.ENTITIES_PATH.length + 1);
+    path[PlatformMonitoringConstants.ENTITIES_PATH.length] = entityIdentifierForService(id);
+    return path;
+  }
   
   private static class FetchTuple {
     private final ClientID client;
@@ -312,25 +357,112 @@ public class ManagementTopologyEventCollector implements ITopologyEventCollector
 
 
   private void addEntityToTracking(EntityID id, boolean isActive) {
-    this.entities.add(id);
-    
     // Add it to the monitoring interface.
-    if (null != this.serviceInterface) {
-      String entityClassName = id.getClassName();
-      String entityName = id.getEntityName();
-      PlatformEntity record = new PlatformEntity(entityClassName, entityName, isActive);
-      String entityIdentifier = entityIdentifierForService(id);
-      this.serviceInterface.addNode(PlatformMonitoringConstants.ENTITIES_PATH, entityIdentifier, record);
-    }
+    String entityClassName = id.getClassName();
+    String entityName = id.getEntityName();
+    PlatformEntity record = new PlatformEntity(entityClassName, entityName, isActive);
+    String entityIdentifier = entityIdentifierForService(id);
+    enqueue(TreeUpdate.add(PlatformMonitoringConstants.ENTITIES_PATH, entityIdentifier, record));
+    scheduleApply();
   }
 
   private void removeEntityFromTracking(EntityID id) {
-    this.entities.remove(id);
-    
     // Remove it to the monitoring interface.
+    String entityIdentifier = entityIdentifierForService(id);
+    enqueue(TreeUpdate.remove(makeEntityPath(id), STATISTICS_NODE_NAME));
+    enqueue(TreeUpdate.remove(PlatformMonitoringConstants.ENTITIES_PATH, entityIdentifier));
+    scheduleApply();
+  }
+
+  private void enqueue(TreeUpdate update) {
     if (null != this.serviceInterface) {
-      String entityIdentifier = entityIdentifierForService(id);
-      this.serviceInterface.removeNode(PlatformMonitoringConstants.ENTITIES_PATH, entityIdentifier);
+      this.pendingUpdates.add(update);
+    }
+  }
+
+  private void scheduleApply() {
+    if (null == this.serviceInterface) {
+      return;
+    }
+    Sink<Runnable> sink = this.updateSink;
+    if (null == sink) {
+      applyPendingUpdates();
+    } else if (this.applyScheduled.compareAndSet(false, true)) {
+      sink.addSingleThreaded(this.applyTask);
+    }
+  }
+
+  private void applyPendingUpdates() {
+    // Cleared before draining so anything queued from here on schedules another pass rather than being stranded.
+    this.applyScheduled.set(false);
+    synchronized (this.applyLock) {
+      List<TreeUpdate> batch = new ArrayList<>();
+      for (TreeUpdate update = this.pendingUpdates.poll(); null != update; update = this.pendingUpdates.poll()) {
+        batch.add(update);
+      }
+      if (batch.isEmpty()) {
+        return;
+      }
+      // A fetch node added and then removed within the batch cancels out.  Nothing else in the tree hangs off a fetch
+      // node so dropping the pair can't reorder anything which depends on it.
+      Map<String, Integer> addedFetches = new HashMap<>();
+      int cancelled = 0;
+      for (int x = 0; x < batch.size(); x++) {
+        TreeUpdate update = batch.get(x);
+        if (update.path == PlatformMonitoringConstants.FETCHED_PATH) {
+          if (update.isAdd) {
+            addedFetches.put(update.name, x);
+          } else {
+            Integer added = addedFetches.remove(update.name);
+            if (null != added) {
+              batch.set(added, null);
+              batch.set(x, null);
+              cancelled += 1;
+            }
+          }
+        }
+      }
+      for (TreeUpdate update : batch) {
+        if (null != update) {
+          update.applyTo(this.serviceInterface);
+        }
+      }
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("applied " + (batch.size() - 2 * cancelled) + " monitoring tree updates, " + cancelled + " fetch/release pairs cancelled");
+      }
+    }
+  }
+
+  /**
+   * One queued change to the monitoring tree.
+   */
+  private static class TreeUpdate {
+    private final boolean isAdd;
+    private final String[] path;
+    private final String name;
+    private final Serializable value;
+
+    private TreeUpdate(boolean isAdd, String[] path, String name, Serializable value) {
+      this.isAdd = isAdd;
+      this.path = path;
+      this.name = name;
+      this.value = value;
+    }
+
+    static TreeUpdate add(String[] path, String name, Serializable value) {
+      return new TreeUpdate(true, path, name, value);
+    }
+
+    static TreeUpdate remove(String[] path, String name) {
+      return new TreeUpdate(false, path, name, null);
+    }
+
+    void applyTo(IMonitoringProducer producer) {
+      if (this.isAdd) {
+        producer.addNode(this.path, this.name, this.value);
+      } else {
+        producer.removeNode(this.path, this.name);
+      }
     }
   }
 
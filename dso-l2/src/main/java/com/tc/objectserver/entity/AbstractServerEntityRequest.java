@@ -18,6 +18,7 @@
  */
 package com.tc.objectserver.entity;
 
+import com.tc.entity.RequestTrace;
 import com.tc.entity.VoltronEntityAppliedResponse;
 import com.tc.entity.VoltronEntityReceivedResponse;
 import com.tc.net.ClientID;
@@ -42,6 +43,7 @@ public abstract class AbstractServerEntityRequest implements ServerEntityRequest
   private final ClientID  src;
   private final boolean requiresReplication;
   
+  private RequestTrace trace;
   private boolean done = false;
 
   public AbstractServerEntityRequest(ServerEntityAction action, TransactionID transaction, TransactionID oldest, ClientID src, boolean requiresReplication) {
@@ -75,6 +77,15 @@ public abstract class AbstractServerEntityRequest implements ServerEntityRequest
     return requiresReplication ? current : Collections.emptySet();
   }
 
+  @Override
+  public RequestTrace getTrace() {
+    return trace;
+  }
+
+  public void setTrace(RequestTrace trace) {
+    this.trace = trace;
+  }
+
   @Override
   public ClientID getNodeID() {
     return src;
@@ -93,8 +104,7 @@ public abstract class AbstractServerEntityRequest implements ServerEntityRequest
       message.setFailure(transaction, e);
       message.send();
     });
-    done = true;
-    this.notifyAll();
+    finish();
   }
 
   @Override
@@ -125,8 +135,7 @@ public abstract class AbstractServerEntityRequest implements ServerEntityRequest
           throw new IllegalArgumentException("Unexpected action in complete() " + action);
       }
     });
-    done = true;
-    this.notifyAll();
+    finish();
   }
   
   @Override
@@ -144,8 +153,15 @@ public abstract class AbstractServerEntityRequest implements ServerEntityRequest
           throw new IllegalArgumentException("Unexpected action in complete(byte[]) " + action);
       }
     });
+    finish();
+  }
+
+  private void finish() {
     done = true;
     this.notifyAll();
+    if (trace != null) {
+      trace.finish();
+    }
   }
   
   protected boolean isDone() {
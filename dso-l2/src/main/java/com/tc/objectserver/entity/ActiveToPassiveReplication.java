@@ -19,6 +19,8 @@
 package com.tc.objectserver.entity;
 
 import com.tc.async.api.Sink;
+import com.tc.l2.api.PassiveStandbyListener;
+import com.tc.l2.ha.L2HAZapNodeRequestProcessor;
 import com.tc.l2.msg.PassiveSyncMessage;
 import com.tc.l2.msg.ReplicationEnvelope;
 import com.tc.l2.msg.ReplicationMessage;
@@ -26,15 +28,27 @@ import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
 import com.tc.net.NodeID;
 import com.tc.net.groups.GroupEventsListener;
+import com.tc.net.groups.GroupManager;
 import com.tc.net.groups.GroupMessage;
 import com.tc.net.groups.MessageID;
+import com.tc.object.EntityID;
 import com.tc.objectserver.api.ManagedEntity;
 import com.tc.objectserver.handler.ProcessTransactionHandler;
 import com.tc.objectserver.handler.ReplicationSender;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
+import com.tc.text.PrettyPrintable;
+import com.tc.text.PrettyPrinter;
 import com.tc.util.Assert;
-import java.util.Collections;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -51,8 +65,11 @@ import java.util.concurrent.TimeoutException;
  *
  *  This class lies idle until activated by setting the current passive nodes.  This should 
  *  occur only when the server is transitioning from passive-standby to active
+ *
+ *  Replicated messages are also kept in a bounded log so a passive which drops out of the group 
+ *  and rejoins shortly after is sent only what it missed rather than being synced from scratch.
  */
-public class ActiveToPassiveReplication implements PassiveReplicationBroker, GroupEventsListener {
+public class ActiveToPassiveReplication implements PassiveReplicationBroker, GroupEventsListener, PassiveStandbyListener, PrettyPrintable {
   
   private static final TCLogger logger           = TCLogging.getLogger(PassiveReplicationBroker.class);
   private final Iterable<ManagedEntity> entities;
@@ -63,11 +80,47 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
   private final ConcurrentHashMap<MessageID, Set<NodeID>> waiters = new ConcurrentHashMap<>();
   private final Sink<ReplicationEnvelope> replicate;
   private final Executor passiveSyncPool = Executors.newCachedThreadPool();
+  private final ConcurrentHashMap<NodeID, Backlog> backlogs = new ConcurrentHashMap<>();
+  private final int maxBacklogMessages;
+  private final long maxBacklogBytes;
+  private final GroupManager<?> group;
+//  guards log index assignment so messages reach the replication sink in log order
+  private final ReplicationLog log;
+//  passives which have been fully synced and so can be caught up from the log
+  private final Set<NodeID> syncedNodes = new CopyOnWriteArraySet<>();
+//  passives which left the group -> first log index they may not have applied
+  private final ConcurrentHashMap<NodeID, Long> departed = new ConcurrentHashMap<>();
+//  passives waiting for the next sync pass to start
+  private final Set<NodeID> syncQueue = new HashSet<>();
+  private final ConcurrentHashMap<NodeID, SyncProgress> syncProgress = new ConcurrentHashMap<>();
+  private final long syncGatherMillis;
+
+  public ActiveToPassiveReplication(Iterable<NodeID> passives, Iterable<ManagedEntity> entities, Sink<ReplicationEnvelope> replicate, GroupManager<?> group) {
+    this(passives, entities, replicate, group,
+        TCPropertiesImpl.getProperties().getInt(TCPropertiesConsts.L2_NHA_REPLICATION_BACKLOG_MAX_MESSAGES, 0),
+        TCPropertiesImpl.getProperties().getLong(TCPropertiesConsts.L2_NHA_REPLICATION_BACKLOG_MAX_BYTES, 0),
+        TCPropertiesImpl.getProperties().getInt(TCPropertiesConsts.L2_NHA_REPLICATION_LOG_MAX_MESSAGES, 0),
+        TCPropertiesImpl.getProperties().getLong(TCPropertiesConsts.L2_NHA_REPLICATION_LOG_MAX_BYTES, 0),
+        TCPropertiesImpl.getProperties().getLong(TCPropertiesConsts.L2_NHA_PASSIVE_SYNC_GATHER_MILLIS, 0));
+  }
 
-  public ActiveToPassiveReplication(Iterable<NodeID> passives, Iterable<ManagedEntity> entities, Sink<ReplicationEnvelope> replicate) {
+  /**
+   * @param maxBacklogMessages replicated messages a passive may leave unacknowledged before new replication waits, 0 for no limit
+   * @param maxBacklogBytes payload bytes a passive may leave unacknowledged before new replication waits, 0 for no limit
+   * @param maxLogMessages replicated messages retained to catch up a rejoining passive, both log limits 0 to disable catch up
+   * @param maxLogBytes payload bytes retained to catch up a rejoining passive, both log limits 0 to disable catch up
+   * @param syncGatherMillis how long a sync pass waits for other passives to ask for sync before it starts
+   */
+  ActiveToPassiveReplication(Iterable<NodeID> passives, Iterable<ManagedEntity> entities, Sink<ReplicationEnvelope> replicate, GroupManager<?> group, 
+      int maxBacklogMessages, long maxBacklogBytes, int maxLogMessages, long maxLogBytes, long syncGatherMillis) {
     this.entities = entities;
     this.replicate = replicate;
     this.passives = passives;
+    this.group = group;
+    this.maxBacklogMessages = maxBacklogMessages;
+    this.maxBacklogBytes = maxBacklogBytes;
+    this.log = new ReplicationLog(maxLogMessages, maxLogBytes);
+    this.syncGatherMillis = syncGatherMillis;
   }
   
   @Override
@@ -85,6 +138,8 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
     passives.forEach(i -> {
       if (prime(i)) {
         passiveNodes.add(i);
+//  these were standing by for the previous active and so hold everything replicated so far
+        syncedNodes.add(i);
       }
     });
   }
@@ -94,6 +149,7 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
   private boolean prime(NodeID node) {
     if (!passiveNodes.contains(node)) {
       logger.info("Starting message sequence on " + node);
+      backlogs.put(node, new Backlog(node));
       ReplicationMessage resetOrderedSink = new ReplicationMessage();
       Semaphore block = new Semaphore(0);
       replicate.addSingleThreaded(resetOrderedSink.target(node,()->block.release()));
@@ -112,29 +168,61 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
       Assert.assertTrue("passive node unable to prime and not in the list of passives", passiveNodes.contains(newNode));
     }
     logger.info("Starting sync to " + newNode);
-    executePassiveSync(newNode);
+    syncProgress.put(newNode, new SyncProgress());
+    boolean startPass;
+    synchronized (syncQueue) {
+      startPass = syncQueue.isEmpty();
+      syncQueue.add(newNode);
+    }
+    if (startPass) {
+      executePassiveSync();
+    }
   }
   /**
-   * Using an executor service here to sync multiple passives at once
-   * @param groups
-   * @param newNode 
+   * Using an executor service here to sync multiple passives at once.  Passives which ask for sync within 
+   * the gather window of each other are synced in the same pass so every entity is walked and every sync 
+   * payload encoded once for all of them.  A passive asking while a pass is running gets a pass of its own.
    */
-  private void executePassiveSync(final NodeID newNode) {
+  private void executePassiveSync() {
     passiveSyncPool.execute(new Runnable() {
       @Override
       public void run() {    
+        if (syncGatherMillis > 0) {
+          try {
+            TimeUnit.MILLISECONDS.sleep(syncGatherMillis);
+          } catch (InterruptedException ie) {
+            throw new AssertionError("error during passive sync", ie);
+          }
+        }
+        Set<NodeID> newNodes;
+        synchronized (syncQueue) {
+          newNodes = new HashSet<>(syncQueue);
+          syncQueue.clear();
+        }
         // start passive sync message
-        logger.debug("starting sync for " + newNode);
+        logger.debug("starting sync for " + newNodes);
         try {
-          replicateMessage(PassiveSyncMessage.createStartSyncMessage(), Collections.singleton(newNode)).get();
+          replicateMessage(PassiveSyncMessage.createStartSyncMessage(), newNodes).get();
           for (ManagedEntity entity : entities) {
-            logger.debug("starting sync for entity " + newNode + "/" + entity.getID());
-            entity.sync(newNode);
-            logger.debug("ending sync for entity " + newNode + "/" + entity.getID());
+            logger.debug("starting sync for entity " + newNodes + "/" + entity.getID());
+            for (NodeID node : newNodes) {
+              SyncProgress progress = syncProgress.get(node);
+              if (progress != null) {
+                progress.startEntity(entity);
+              }
+            }
+            entity.sync(newNodes);
+            logger.debug("ending sync for entity " + newNodes + "/" + entity.getID());
           }
       //  passive sync done message.  causes passive to go into passive standby mode
-          logger.debug("ending sync " + newNode);
-          replicateMessage(PassiveSyncMessage.createEndSyncMessage(), Collections.singleton(newNode)).get();
+          logger.debug("ending sync " + newNodes);
+          replicateMessage(PassiveSyncMessage.createEndSyncMessage(), newNodes).get();
+          for (NodeID node : newNodes) {
+            syncProgress.remove(node);
+            if (passiveNodes.contains(node)) {
+              syncedNodes.add(node);
+            }
+          }
         } catch (InterruptedException | ExecutionException e) {
           throw new AssertionError("error during passive sync", e);
         }
@@ -142,7 +230,18 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
     });
   }
 
+  /**
+   * @return for each passive being synced, how far its sync has come
+   */
+  public Map<NodeID, SyncProgress> getSyncProgress() {
+    return new HashMap<>(syncProgress);
+  }
+
   private void acknowledge(MessageID mid, NodeID releaser) {
+    Backlog backlog = backlogs.get(releaser);
+    if (backlog != null) {
+      backlog.remove(mid);
+    }
     Set<NodeID> plist = waiters.get(mid);
     if (plist != null) {
       synchronized(plist) {
@@ -167,15 +266,49 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
     return passiveNodes;
   }
 
+  /**
+   * @return for each passive, how far behind the replication stream it is
+   */
+  public Map<NodeID, ReplicationLag> getReplicationLag() {
+    Map<NodeID, ReplicationLag> lag = new HashMap<>();
+    long now = System.nanoTime();
+    for (NodeID node : passiveNodes) {
+      Backlog backlog = backlogs.get(node);
+      lag.put(node, backlog != null ? backlog.snapshot(now) : new ReplicationLag(0, 0, 0, 0));
+    }
+    return lag;
+  }
+
   @Override
   public Future<Void> replicateMessage(ReplicationMessage msg, Set<NodeID> all) {
     Set<NodeID> copy = new HashSet<>(all); 
 // don't replicate to a passive that is no longer there
     copy.retainAll(passives());
-    if (!copy.isEmpty()) {
-      waiters.put(msg.getMessageID(), copy);
-      for (NodeID node : copy) {
-        replicate.addSingleThreaded(msg.target(node, ()->acknowledge(msg.getMessageID(), node)));
+    int size = payloadSize(msg);
+    for (NodeID node : copy) {
+      Backlog backlog = backlogs.get(node);
+      if (backlog != null) {
+//  applies backpressure to whoever is feeding replication, normally client intake, when a passive falls too far behind
+        backlog.awaitCapacity(maxBacklogMessages, maxBacklogBytes);
+      }
+    }
+    synchronized (log) {
+//  a passive may have left or been caught up while waiting for capacity
+      copy.retainAll(passives());
+      if (log.isEnabled() && msg.getType() == ReplicationMessage.REPLICATE) {
+        log.append(msg);
+      }
+      if (!copy.isEmpty()) {
+        for (NodeID node : copy) {
+          Backlog backlog = backlogs.get(node);
+          if (backlog != null) {
+            backlog.add(msg.getMessageID(), size, msg.getLogIndex());
+          }
+        }
+        waiters.put(msg.getMessageID(), copy);
+        for (NodeID node : copy) {
+          replicate.addSingleThreaded(msg.target(node, ()->acknowledge(msg.getMessageID(), node)));
+        }
       }
     }
     
@@ -220,6 +353,25 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
 // first remove it from the list of passive nodes so that anything sending new messages 
 // will have to remove it from the list of nodes to send to
     passiveNodes.remove(nodeID);
+    syncProgress.remove(nodeID);
+    boolean synced = syncedNodes.remove(nodeID);
+    Backlog backlog = backlogs.get(nodeID);
+    if (synced && backlog != null && log.isEnabled()) {
+//  remember where this passive stopped so it can be caught up if it comes back.  Under the log lock nothing 
+//  can be logged for it without also being in its backlog
+      synchronized (log) {
+        long oldest = backlog.oldestLogIndex();
+        departed.put(nodeID, oldest > 0 ? oldest : log.nextIndex());
+      }
+    } else {
+//  left without being caught up, e.g. zapped for refusing to stand by, it restarts under a new id
+      departed.remove(nodeID);
+    }
+//  release anything waiting for this node's backlog to drain
+    backlogs.remove(nodeID);
+    if (backlog != null) {
+      backlog.close();
+    }
 //  acknowledge all the messages for this node because it is gone, this may result in 
 //  a double ack locally but that is ok.  acknowledge is loose and can tolerate it. 
     if (activated) {
@@ -232,6 +384,11 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
     }
   }
   
+  private static int payloadSize(ReplicationMessage msg) {
+    byte[] payload = msg.getExtendedData();
+    return (payload != null) ? payload.length : 0;
+  }
+
   private void waitOnSemaphore(Semaphore block) {
     try {
       block.acquire();
@@ -245,6 +402,34 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
         + standByNodes + " passivesNodes:" + passiveNodes);
   }
 
+  /**
+   * Resumes replication to a passive which left while standing by for this server and has joined again, sending it 
+   * only the messages it has not acknowledged.  If some of those have already dropped out of the log the passive 
+   * can't be brought up to date this way and it is zapped so it restarts and syncs from scratch.
+   */
+  private void catchUp(NodeID node, long resumeFrom) {
+    synchronized (log) {
+      List<ReplicationMessage> missed = log.since(resumeFrom);
+      if (missed == null) {
+        logger.warn(node + " rejoined needing replication from " + resumeFrom + " but the log starts at " + log.firstIndex() + ", zapping for full sync");
+        group.zapNode(node, L2HAZapNodeRequestProcessor.COMMUNICATION_ERROR, "rejoined after missing more replication than the active retains");
+        return;
+      }
+      if (!prime(node)) {
+        return;
+      }
+      logger.info("Catching up " + node + " with " + missed.size() + " replicated messages");
+      Backlog backlog = backlogs.get(node);
+      for (ReplicationMessage msg : missed) {
+        backlog.add(msg.getMessageID(), payloadSize(msg), msg.getLogIndex());
+        replicate.addSingleThreaded(msg.target(node, ()->acknowledge(msg.getMessageID(), node)));
+      }
+//  from here on new messages are logged and sent to this node in order behind the ones above
+      passiveNodes.add(node);
+      syncedNodes.add(node);
+    }
+  }
+
   @Override
   public void nodeJoined(NodeID nodeID) {
 //  standby nodes for tracking only.  no practical use
@@ -253,6 +438,16 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
     }
   }
 
+  @Override
+  public void standbyAgreed(NodeID nodeID) {
+//  only a server which accepted this one as active may be caught up, one which made itself active while it was 
+//  away has been zapped by the coordinator instead
+    Long resumeFrom = departed.remove(nodeID);
+    if (resumeFrom != null && activated) {
+      catchUp(nodeID, resumeFrom);
+    }
+  }
+
   @Override
   public void nodeLeft(NodeID nodeID) {
     removePassive(nodeID);
@@ -261,4 +456,228 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
       standByNodes.remove(nodeID);
     }
   }
+
+  @Override
+  public PrettyPrinter prettyPrint(PrettyPrinter out) {
+    out.print(getClass().getName()).flush();
+    for (Map.Entry<NodeID, ReplicationLag> e : getReplicationLag().entrySet()) {
+      out.indent().print(e.getKey()).print(": ").print(e.getValue()).flush();
+    }
+    for (Map.Entry<NodeID, SyncProgress> e : getSyncProgress().entrySet()) {
+      out.indent().print(e.getKey()).print(": ").print(e.getValue()).flush();
+    }
+    return out;
+  }
+
+  /**
+   * How far one passive is behind: what has been handed to replication and not acknowledged yet, how long the oldest
+   * of it has been waiting and how long replication has been held back on its account.
+   */
+  public static class ReplicationLag {
+    private final int messages;
+    private final long bytes;
+    private final long oldestAgeMillis;
+    private final long throttledMillis;
+
+    public ReplicationLag(int messages, long bytes, long oldestAgeMillis, long throttledMillis) {
+      this.messages = messages;
+      this.bytes = bytes;
+      this.oldestAgeMillis = oldestAgeMillis;
+      this.throttledMillis = throttledMillis;
+    }
+
+    public int getMessages() {
+      return messages;
+    }
+
+    public long getBytes() {
+      return bytes;
+    }
+
+    public long getOldestAgeMillis() {
+      return oldestAgeMillis;
+    }
+
+    /**
+     * @return total time replication to this passive waited for its backlog to drain
+     */
+    public long getThrottledMillis() {
+      return throttledMillis;
+    }
+
+    @Override
+    public String toString() {
+      return "ReplicationLag{" + "messages=" + messages + ", bytes=" + bytes + ", oldestAgeMillis=" + oldestAgeMillis + ", throttledMillis=" + throttledMillis + '}';
+    }
+  }
+
+  /**
+   * How far the sync of one passive has come: the entities it has been sent so far and the one in progress.
+   */
+  public static class SyncProgress {
+    private final long startMillis = System.currentTimeMillis();
+    private volatile int entities;
+    private volatile EntityID current;
+
+    void startEntity(ManagedEntity entity) {
+      entities++;
+      current = entity.getID();
+    }
+
+    /**
+     * @return entities sent or being sent to the passive, including the current one
+     */
+    public int getEntities() {
+      return entities;
+    }
+
+    /**
+     * @return the entity being sent, null if the pass has not reached the first entity yet
+     */
+    public EntityID getCurrentEntity() {
+      return current;
+    }
+
+    public long getElapsedMillis() {
+      return System.currentTimeMillis() - startMillis;
+    }
+
+    @Override
+    public String toString() {
+      return "SyncProgress{" + "entities=" + entities + ", current=" + current + ", elapsedMillis=" + getElapsedMillis() + '}';
+    }
+  }
+
+  /**
+   * The messages a passive has yet to acknowledge, in the order they were replicated.
+   */
+  private static class Backlog {
+    private final NodeID node;
+    //  message -> {time replicated, payload size, log index}
+    private final LinkedHashMap<MessageID, long[]> pending = new LinkedHashMap<>();
+    private long bytes;
+    private long throttledNanos;
+    private boolean closed;
+
+    Backlog(NodeID node) {
+      this.node = node;
+    }
+
+    synchronized void add(MessageID mid, int size, long logIndex) {
+      if (!closed) {
+        pending.put(mid, new long[] {System.nanoTime(), size, logIndex});
+        bytes += size;
+      }
+    }
+
+    /**
+     * @return the log index of the oldest unacknowledged logged message, 0 if there is none
+     */
+    synchronized long oldestLogIndex() {
+      for (long[] entry : pending.values()) {
+        if (entry[2] > 0) {
+          return entry[2];
+        }
+      }
+      return 0;
+    }
+
+    synchronized void remove(MessageID mid) {
+      long[] entry = pending.remove(mid);
+      if (entry != null) {
+        bytes -= entry[1];
+        notifyAll();
+      }
+    }
+
+    synchronized void close() {
+      closed = true;
+      pending.clear();
+      bytes = 0;
+      notifyAll();
+    }
+
+    private boolean isFull(int maxMessages, long maxBytes) {
+      return (maxMessages > 0 && pending.size() >= maxMessages) || (maxBytes > 0 && bytes >= maxBytes);
+    }
+
+    synchronized void awaitCapacity(int maxMessages, long maxBytes) {
+      if (closed || !isFull(maxMessages, maxBytes)) {
+        return;
+      }
+      logger.warn("replication to " + node + " is " + pending.size() + " messages and " + bytes + " bytes behind, holding back new requests");
+      long start = System.nanoTime();
+      boolean interrupted = false;
+      while (!closed && isFull(maxMessages, maxBytes)) {
+        try {
+          wait();
+        } catch (InterruptedException ie) {
+          interrupted = true;
+        }
+      }
+      throttledNanos += System.nanoTime() - start;
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    synchronized ReplicationLag snapshot(long now) {
+      Iterator<long[]> oldest = pending.values().iterator();
+      long age = oldest.hasNext() ? now - oldest.next()[0] : 0;
+      return new ReplicationLag(pending.size(), bytes, TimeUnit.NANOSECONDS.toMillis(age), TimeUnit.NANOSECONDS.toMillis(throttledNanos));
+    }
+  }
+
+  /**
+   * The most recent replicated messages, indexed in the order they were handed to the replication sink.
+   */
+  private static class ReplicationLog {
+    private final int maxMessages;
+    private final long maxBytes;
+    private final ArrayDeque<ReplicationMessage> entries = new ArrayDeque<>();
+    private long bytes;
+    private long nextIndex = 1;
+
+    ReplicationLog(int maxMessages, long maxBytes) {
+      this.maxMessages = maxMessages;
+      this.maxBytes = maxBytes;
+    }
+
+    boolean isEnabled() {
+      return maxMessages > 0 || maxBytes > 0;
+    }
+
+    long nextIndex() {
+      return nextIndex;
+    }
+
+    long firstIndex() {
+      return entries.isEmpty() ? nextIndex : entries.peekFirst().getLogIndex();
+    }
+
+    void append(ReplicationMessage msg) {
+      msg.setLogIndex(nextIndex++);
+      entries.addLast(msg);
+      bytes += payloadSize(msg);
+      while ((maxMessages > 0 && entries.size() > maxMessages) || (maxBytes > 0 && bytes > maxBytes)) {
+        bytes -= payloadSize(entries.removeFirst());
+      }
+    }
+
+    /**
+     * @return the logged messages from index on, null if some of them are no longer retained
+     */
+    List<ReplicationMessage> since(long index) {
+      if (index < firstIndex()) {
+        return null;
+      }
+      List<ReplicationMessage> list = new ArrayList<>();
+      for (ReplicationMessage msg : entries) {
+        if (msg.getLogIndex() >= index) {
+          list.add(msg);
+        }
+      }
+      return list;
+    }
+  }
 }
@@ -27,6 +27,7 @@ import org.terracotta.exception.EntityVersionMismatchException;
 
 import com.tc.object.EntityID;
 import com.tc.objectserver.api.EntityManager;
+import com.tc.objectserver.api.EntityStatistics;
 import com.tc.objectserver.api.ManagedEntity;
 import com.tc.objectserver.core.api.ITopologyEventCollector;
 import com.tc.services.TerracottaServiceProviderRegistry;
@@ -139,6 +140,19 @@ public class EntityManagerImpl implements EntityManager {
   public Collection<ManagedEntity> getAll() {
     return new ArrayList<>(entities.values());
   }
+
+  /**
+   * Pushes a fresh copy of each entity's request counters to the topology event collector so they show up in the
+   * platform monitoring tree.  Called periodically off the request path.
+   */
+  public void publishStatistics() {
+    for (ManagedEntity entity : entities.values()) {
+      EntityStatistics stats = entity.getStatistics();
+      if (stats != null) {
+        eventCollector.entityStatisticsUpdated(entity.getID(), stats);
+      }
+    }
+  }
   
   private ServerEntityService<EntityMessage, EntityResponse> getVersionCheckedService(EntityID entityID, long version) throws EntityVersionMismatchException {
     // Valid entity versions start at 1.
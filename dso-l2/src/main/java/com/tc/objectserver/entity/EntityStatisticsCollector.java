@@ -0,0 +1,162 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.entity;
+
+import com.tc.object.EntityID;
+import com.tc.objectserver.api.EntityStatistics;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Counters for one managed entity.  Arrivals are only reported by the scheduling thread (VOLTRON_MESSAGE_STAGE on
+ * an active, PASSIVE_REPLICATION_STAGE on a passive) while completions are reported by any number of request
+ * processor threads so everything on the completion path is either striped or lock-free.
+ * <p>
+ * Per-key load is kept in two sketches of fixed size no matter how many concurrency keys the entity uses.  A
+ * space-saving summary (Metwally, Agrawal and El Abbadi) tracks the keys with the most arrivals and a count-min
+ * sketch accumulates execution time by key, which is looked up for each of those hot keys on snapshot.
+ */
+class EntityStatisticsCollector {
+  private static final int SKETCH_ROWS = 4;
+  private static final int SKETCH_BITS = 8;
+  private static final int SKETCH_WIDTH = 1 << SKETCH_BITS;
+  //  odd multipliers for the row hashes, the top bits of the product pick the column
+  private static final long[] SKETCH_SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+
+  private final boolean enabled;
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder bytesIn = new LongAdder();
+  private final LongAdder bytesOut = new LongAdder();
+  private final LongAdder queueNanos = new LongAdder();
+  private final LongAdder replicationNanos = new LongAdder();
+  private final LongAdder executionNanos = new LongAdder();
+  private final AtomicLongArray keyNanos = new AtomicLongArray(SKETCH_ROWS * SKETCH_WIDTH);
+  //  space-saving summary, guarded by this
+  private final int[] keys;
+  private final long[] counts;
+  private final long[] errors;
+  private int tracked = 0;
+
+  EntityStatisticsCollector(boolean enabled, int trackedKeys) {
+    this.enabled = enabled;
+    this.keys = new int[trackedKeys];
+    this.counts = new long[trackedKeys];
+    this.errors = new long[trackedKeys];
+  }
+
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * A request arrived on the entity.  Only called from the scheduling thread.
+   */
+  void arrived(int key, byte[] payload) {
+    if (!enabled) {
+      return;
+    }
+    if (payload != null) {
+      bytesIn.add(payload.length);
+    }
+    if (keys.length > 0) {
+      offer(key);
+    }
+  }
+
+  /**
+   * A scheduled call finished on a request processor thread.
+   *
+   * @param count number of requests the call executed, more than one for a batch of invokes
+   */
+  void finished(int key, int count, long queued, long replicated, long executed) {
+    if (!enabled) {
+      return;
+    }
+    requests.add(count);
+    queueNanos.add(queued);
+    replicationNanos.add(replicated);
+    executionNanos.add(executed);
+    for (int row = 0; row < SKETCH_ROWS; row++) {
+      keyNanos.addAndGet(slot(row, key), executed);
+    }
+  }
+
+  void responded(byte[] response) {
+    if (enabled && response != null) {
+      bytesOut.add(response.length);
+    }
+  }
+
+  /**
+   * @return a copy of the current counters or null if statistics are disabled
+   */
+  EntityStatistics snapshot(EntityID id) {
+    if (!enabled) {
+      return null;
+    }
+    List<EntityStatistics.KeyStatistics> hot = new ArrayList<>();
+    synchronized (this) {
+      for (int x = 0; x < tracked; x++) {
+        hot.add(new EntityStatistics.KeyStatistics(keys[x], counts[x], errors[x], estimateNanos(keys[x])));
+      }
+    }
+    hot.sort((a, b) -> Long.compare(b.getRequests(), a.getRequests()));
+    return new EntityStatistics(id.getClassName(), id.getEntityName(), requests.sum(), bytesIn.sum(), bytesOut.sum(),
+        queueNanos.sum(), replicationNanos.sum(), executionNanos.sum(), hot);
+  }
+
+  private synchronized void offer(int key) {
+    int min = 0;
+    for (int x = 0; x < tracked; x++) {
+      if (keys[x] == key) {
+        counts[x] += 1;
+        return;
+      }
+      if (counts[x] < counts[min]) {
+        min = x;
+      }
+    }
+    if (tracked < keys.length) {
+      keys[tracked] = key;
+      counts[tracked] = 1;
+      errors[tracked] = 0;
+      tracked += 1;
+    } else {
+      //  evict the least counted key, the newcomer inherits its count as the bound on its own error
+      keys[min] = key;
+      errors[min] = counts[min];
+      counts[min] += 1;
+    }
+  }
+
+  long estimateNanos(int key) {
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < SKETCH_ROWS; row++) {
+      estimate = Math.min(estimate, keyNanos.get(slot(row, key)));
+    }
+    return estimate;
+  }
+
+  private static int slot(int row, int key) {
+    return row * SKETCH_WIDTH + (int)(((key & 0xFFFFFFFFL) * SKETCH_SEEDS[row]) >>> (Long.SIZE - SKETCH_BITS));
+  }
+}
@@ -38,6 +38,8 @@ import com.tc.net.NodeID;
 import com.tc.object.ClientInstanceID;
 import com.tc.object.EntityDescriptor;
 import com.tc.object.EntityID;
+import com.tc.objectserver.api.BatchedInvokeServerEntity;
+import com.tc.objectserver.api.EntityStatistics;
 import com.tc.objectserver.api.ManagedEntity;
 import com.tc.objectserver.api.ServerEntityAction;
 import com.tc.objectserver.api.ServerEntityRequest;
@@ -48,13 +50,20 @@ import com.tc.properties.TCPropertiesImpl;
 import com.tc.services.InternalServiceRegistry;
 import com.tc.util.Assert;
 import static com.tc.util.Assert.assertNotNull;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -81,7 +90,7 @@ public class ManagedEntityImpl implements ManagedEntity {
   // PTH sink so things can be injected into the stream
   private final BiConsumer<EntityID, Long> noopLoopback;
   // isInActiveState defines which entity type to check/create - we need the flag to represent the pre-create state.
-  private boolean isInActiveState;
+  private volatile boolean isInActiveState;
   private volatile boolean isDestroyed;
   
   private final MessageCodec<EntityMessage, EntityResponse> codec;
@@ -91,8 +100,30 @@ public class ManagedEntityImpl implements ManagedEntity {
 
   private final DefermentQueue<SchedulingRunnable> runnables = new DefermentQueue<>(TCPropertiesImpl.getProperties()
         .getInt(TCPropertiesConsts.ENTITY_DEFERMENT_QUEUE_SIZE, 1024));
+  private final int maxInvokeBatch = TCPropertiesImpl.getProperties()
+        .getInt(TCPropertiesConsts.ENTITY_INVOKE_BATCH_MAX, 64);
+  //  batches of read-only invokes which have been scheduled but not yet started, by concurrency key.  only touched
+  //  by the scheduling thread (see scheduleInOrder)
+  private final Map<Integer, InvokeBatch> openBatches = new HashMap<>();
+  private final EntityStatisticsCollector statistics = new EntityStatisticsCollector(TCPropertiesImpl.getProperties()
+        .getBoolean(TCPropertiesConsts.ENTITY_STATS_ENABLED, true), TCPropertiesImpl.getProperties()
+        .getInt(TCPropertiesConsts.ENTITY_STATS_TRACKED_KEYS, 16));
 
   private volatile PassiveServerEntity<EntityMessage, EntityResponse> passiveServerEntity;
+  //  when hot standby is enabled, a passive entity keeps the active instance it would be promoted to ready, built
+  //  in the background by standbyBuilder.  guarded by standbyLock
+  private final boolean hotStandby = TCPropertiesImpl.getProperties()
+        .getBoolean(TCPropertiesConsts.ENTITY_HOT_STANDBY_ENABLED, false);
+  private static final Executor defaultStandbyBuilder = Executors.newSingleThreadExecutor(r -> {
+    Thread builder = new Thread(r, "Hot standby builder");
+    builder.setDaemon(true);
+    return builder;
+  });
+  private final Executor standbyBuilder;
+  private final Object standbyLock = new Object();
+  private ActiveServerEntity<EntityMessage, EntityResponse> standbyEntity;
+  private ConcurrencyStrategy<EntityMessage> standbyStrategy;
+  private byte[] standbyConfig;
   //  reconnect access has to be exclusive.  it is out-of-band from normal invoke access
   private final ReadWriteLock reconnectAccessLock = new ReentrantReadWriteLock();
   // NOTE:  This may be removed in the future if we change how we access the config from the ServerEntityService but
@@ -103,6 +134,13 @@ public class ManagedEntityImpl implements ManagedEntity {
   ManagedEntityImpl(EntityID id, long version, BiConsumer<EntityID, Long> loopback, InternalServiceRegistry registry, ClientEntityStateManager clientEntityStateManager, ITopologyEventCollector eventCollector,
                     RequestProcessor process, ServerEntityService<EntityMessage, EntityResponse> factory,
                     boolean isInActiveState) {
+    this(id, version, loopback, registry, clientEntityStateManager, eventCollector, process, factory, isInActiveState,
+         defaultStandbyBuilder);
+  }
+
+  ManagedEntityImpl(EntityID id, long version, BiConsumer<EntityID, Long> loopback, InternalServiceRegistry registry, ClientEntityStateManager clientEntityStateManager, ITopologyEventCollector eventCollector,
+                    RequestProcessor process, ServerEntityService<EntityMessage, EntityResponse> factory,
+                    boolean isInActiveState, Executor standbyBuilder) {
     this.id = id;
     this.version = version;
     this.noopLoopback = loopback;
@@ -112,6 +150,7 @@ public class ManagedEntityImpl implements ManagedEntity {
     this.factory = factory;
     this.executor = process;
     this.isInActiveState = isInActiveState;
+    this.standbyBuilder = standbyBuilder;
     registry.setOwningEntity(this);
     this.codec = factory.getMessageCodec();
     this.syncCodec = factory.getSyncMessageCodec();
@@ -143,28 +182,35 @@ public class ManagedEntityImpl implements ManagedEntity {
       Assert.assertNotNull(entity);
       Assert.assertNotNull(payload);
     
-      EntityMessage message = null;
-      try {
-        message = runWithHelper(()->codec.decodeMessage(payload));
-      } catch (EntityUserException e) {
-        throw new RuntimeException(e);
-      }
-      // If we are still ok and managed to deserialize the message, continue.
-      if (null != message) {
+      if (null == concurrencyStrategy) {
+        // No concurrency strategy means use the default key which on passives is the key used to run the action on the
+        // active.  The message isn't needed to find the key so it is decoded on the thread which owns the key, that way
+        // replicated invokes are decoded and applied in parallel across keys instead of decoded one at a time on the
+        // replication stage
+        scheduleInOrder(getEntityDescriptorForSource(request.getSourceDescriptor()), request, payload, ()->invoke(request, decodeMessage(payload), defaultKey), defaultKey);
+      } else {
         // Since concurrency key is pulled out in different ways for these different message types, we will do that here.
         // on actives, the concurrency strategy is available on actives and null on passives.
-        // see concurrencyStrategy assignment further up this method.  No concurrency strategy means use the default
-        // key which on passives is the key used to run the action on the active.
-        final int concurrencyKey = ((null != concurrencyStrategy)) ?
-          concurrencyStrategy.concurrencyKey(message) : defaultKey;
-        final EntityMessage safeMessage = message;
-        processInvokeRequest(request, payload, safeMessage, concurrencyKey);
-      } else {
-        throw new RuntimeException("entity deserializer returned null while processing invoke request");
+        EntityMessage message = decodeMessage(payload);
+        processInvokeRequest(request, payload, message, concurrencyStrategy.concurrencyKey(message));
       }
     }
   }
   
+  private EntityMessage decodeMessage(byte[] payload) {
+    EntityMessage message;
+    try {
+      message = runWithHelper(()->codec.decodeMessage(payload));
+    } catch (EntityUserException e) {
+      throw new RuntimeException(e);
+    }
+    // If we are still ok and managed to deserialize the message, continue.
+    if (null == message) {
+      throw new RuntimeException("entity deserializer returned null while processing invoke request");
+    }
+    return message;
+  }
+  
   private void scheduleInOrder(EntityDescriptor desc, ServerEntityRequest request, byte[] payload, Runnable r, int ckey) {
 // this all makes sense because this is only called by the PTH single thread
 // deferCleared is cleared by one of the request queues
@@ -174,6 +220,15 @@ public class ManagedEntityImpl implements ManagedEntity {
       Assert.assertTrue(Thread.currentThread().getName().contains(ServerConfigurationContext.PASSIVE_REPLICATION_STAGE));
     }
     
+    //  anything scheduled behind an open batch on the same key has to run after it so the batch can no longer grow.
+    //  management requests are ordered against every key
+    if (ckey == ConcurrencyStrategy.MANAGEMENT_KEY) {
+      openBatches.clear();
+    } else {
+      openBatches.remove(ckey);
+    }
+    
+    statistics.arrived(ckey, payload);
     SchedulingRunnable next = new SchedulingRunnable(desc, request, payload, r, ckey);
     
     for (SchedulingRunnable msg : runnables) {
@@ -187,7 +242,33 @@ public class ManagedEntityImpl implements ManagedEntity {
   
   private void processInvokeRequest(final ServerEntityRequest request, byte[] payloadForReplicate, EntityMessage message, int key) {
     ClientDescriptor client = request.getSourceDescriptor();
-    scheduleInOrder(getEntityDescriptorForSource(client), request, payloadForReplicate, ()->invoke(request, message, key), key);
+    if (isBatchable(request, message, key)) {
+      InvokeBatch batch = openBatches.get(key);
+      if (batch == null || !batch.offer(request, message)) {
+        batch = new InvokeBatch(request, message, key);
+        scheduleInOrder(getEntityDescriptorForSource(client), request, payloadForReplicate, batch, key);
+        openBatches.put(key, batch);
+      } else {
+        statistics.arrived(key, payloadForReplicate);
+      }
+    } else {
+      scheduleInOrder(getEntityDescriptorForSource(client), request, payloadForReplicate, ()->invoke(request, message, key), key);
+    }
+  }
+  
+  @SuppressWarnings("unchecked")
+  private boolean isBatchable(ServerEntityRequest request, EntityMessage message, int key) {
+    if (maxInvokeBatch <= 1 || !this.isInActiveState || !(this.activeServerEntity instanceof BatchedInvokeServerEntity)) {
+      return false;
+    }
+    //  only keys which are pinned to one thread keep their order, and anything replicated has to go through one at a time
+    if (key == ConcurrencyStrategy.MANAGEMENT_KEY || key == ConcurrencyStrategy.UNIVERSAL_KEY) {
+      return false;
+    }
+    if (!request.replicateTo(executor.passives()).isEmpty()) {
+      return false;
+    }
+    return ((BatchedInvokeServerEntity<EntityMessage, EntityResponse>)this.activeServerEntity).isBatchable(message);
   }
 
   @Override
@@ -356,6 +437,58 @@ public class ManagedEntityImpl implements ManagedEntity {
       }
   }
   
+  /**
+   * Runs a batch of read-only invokes on the thread which owns their concurrency key.  The reconnect lock is
+   * taken once for the whole batch and the responses are encoded in one pass once the entity returns.
+   *  
+   * @param requests The requests in arrival order
+   * @param messages The decoded messages, index aligned with requests
+   * @param concurrencyKey The key this thread is processing by running this batch
+   */
+  @SuppressWarnings("unchecked")
+  private void invokeBatch(List<ServerEntityRequest> requests, List<EntityMessage> messages, int concurrencyKey) {
+    Lock read = reconnectAccessLock.readLock();
+    //  requests before this index have already been answered
+    int answered = 0;
+      try {
+        read.lock();
+        if (logger.isDebugEnabled()) {
+          logger.debug("Invoking batch of " + requests.size() + " on " + getID() + "/" + concurrencyKey);
+        }
+        if (null == this.activeServerEntity) {
+          throw new IllegalStateException("Actions on a non-existent entity.");
+        }
+        List<ClientDescriptor> clients = new ArrayList<>(requests.size());
+        for (ServerEntityRequest request : requests) {
+          clients.add(request.getSourceDescriptor());
+        }
+        BatchedInvokeServerEntity<EntityMessage, EntityResponse> batching = (BatchedInvokeServerEntity<EntityMessage, EntityResponse>)this.activeServerEntity;
+        List<EntityResponse> responses = runWithHelper(()->batching.invokeBatch(clients, messages));
+        if (responses == null || responses.size() != requests.size()) {
+          throw new IllegalStateException("batch of " + requests.size() + " invokes returned "
+              + (responses == null ? "no" : String.valueOf(responses.size())) + " responses");
+        }
+        for (int x = 0; x < requests.size(); x++, answered++) {
+          EntityResponse response = responses.get(x);
+          //  a response which fails to encode aborts the rest of the batch, as it would a single invoke
+          byte[] er = runWithHelper(()->codec.encodeResponse(response));
+          statistics.responded(er);
+          requests.get(x).complete(er);
+        }
+      } catch (Exception e) {
+        // Wrap this exception.
+        EntityUserException wrapper = (e instanceof EntityUserException) ? (EntityUserException)e : new EntityUserException(id.getClassName(), id.getEntityName(), e);
+        logger.error("caught exception during invoke ", wrapper);
+        //  same as a single invoke, nobody in the batch is left waiting for an answer
+        for (int x = answered; x < requests.size(); x++) {
+          requests.get(x).failure(wrapper);
+        }
+        throw new RuntimeException(wrapper);
+      } finally {
+        read.unlock();
+      }
+  }
+  
   private void receiveSyncEntityStart(ServerEntityRequest request, byte[] constructor) {
     if (this.passiveServerEntity != null) {
       throw new AssertionError("not null " + this.getID());
@@ -411,6 +544,11 @@ public class ManagedEntityImpl implements ManagedEntity {
     // Fire the event that the entity was destroyed.
     this.eventCollector.entityWasDestroyed(this.getID());
     this.isDestroyed = true;
+    synchronized (standbyLock) {
+      this.standbyEntity = null;
+      this.standbyStrategy = null;
+      this.standbyConfig = null;
+    }
   }
 
   private void reconfigureEntity(ServerEntityRequest reconfigureEntityRequest, byte[] constructorInfo) {
@@ -449,6 +587,7 @@ public class ManagedEntityImpl implements ManagedEntity {
     entityToCreate.loadExisting();
     // Fire the event that the entity was created.
     this.eventCollector.entityWasReloaded(this.getID(), this.isInActiveState);
+    warmStandby();
   }
   
   private void createEntity(ServerEntityRequest createEntityRequest, byte[] constructorInfo) {
@@ -486,6 +625,7 @@ public class ManagedEntityImpl implements ManagedEntity {
     entityToCreate.createNew();
     // Fire the event that the entity was created.
     this.eventCollector.entityWasCreated(this.getID(), this.isInActiveState);
+    warmStandby();
   }
 
   private void performSync(ServerEntityRequest wrappedRequest, Set<NodeID> passives, int concurrencyKey) {
@@ -498,31 +638,28 @@ public class ManagedEntityImpl implements ManagedEntity {
           @Override
 //  TODO:  what should be done about exception handling?
           public void synchronizeToPassive(EntityMessage payload) {
-            for (NodeID passive : passives) {
-              try {
-                byte[] message = runWithHelper(()->syncCodec.encode(concurrencyKey, payload));
-                executor.scheduleSync(PassiveSyncMessage.createPayloadMessage(id, version, concurrencyKey, message), passive).get();
-              } catch (EntityUserException eu) {
-              // TODO: do something reasoned here
-                throw new RuntimeException(eu);
-              } catch (ExecutionException ee) {
-              // TODO: do something reasoned here
-                throw new RuntimeException(ee);
-              } catch (InterruptedException ie) {
-              // TODO: do something reasoned here
-                Thread.currentThread().interrupt();
-                throw new RuntimeException(ie);
-              }
+//  encoded once and fanned out to every passive being synced
+            try {
+              byte[] message = runWithHelper(()->syncCodec.encode(concurrencyKey, payload));
+              executor.scheduleSync(PassiveSyncMessage.createPayloadMessage(id, version, concurrencyKey, message), passives).get();
+            } catch (EntityUserException eu) {
+            // TODO: do something reasoned here
+              throw new RuntimeException(eu);
+            } catch (ExecutionException ee) {
+            // TODO: do something reasoned here
+              throw new RuntimeException(ee);
+            } catch (InterruptedException ie) {
+            // TODO: do something reasoned here
+              Thread.currentThread().interrupt();
+              throw new RuntimeException(ie);
             }
           }};
 //  start is handled by the sync request that triggered this action
         this.activeServerEntity.synchronizeKeyToPassive(syncChannel, concurrencyKey);
-        for (NodeID passive : passives) {
-          try {
-            executor.scheduleSync(PassiveSyncMessage.createEndEntityKeyMessage(id, version, concurrencyKey), passive).get();
-          } catch (ExecutionException | InterruptedException e) {
-            throw new RuntimeException(e);
-          }
+        try {
+          executor.scheduleSync(PassiveSyncMessage.createEndEntityKeyMessage(id, version, concurrencyKey), passives).get();
+        } catch (ExecutionException | InterruptedException e) {
+          throw new RuntimeException(e);
         }
         wrappedRequest.complete();
       }
@@ -542,6 +679,7 @@ public class ManagedEntityImpl implements ManagedEntity {
       } else {
         try {
           byte[] er = runWithHelper(()->codec.encodeResponse(this.activeServerEntity.invoke(wrappedRequest.getSourceDescriptor(), message)));
+          statistics.responded(er);
           wrappedRequest.complete(er);
         } catch (EntityUserException e) {
           wrappedRequest.failure(e);
@@ -563,6 +701,11 @@ public class ManagedEntityImpl implements ManagedEntity {
     return this.codec;
   }
 
+  @Override
+  public EntityStatistics getStatistics() {
+    return statistics.snapshot(id);
+  }
+
   @Override
   public void loadEntity(byte[] configuration) {
     this.loadExisting(configuration);
@@ -620,8 +763,24 @@ public class ManagedEntityImpl implements ManagedEntity {
     
     this.isInActiveState = true;
     if (null != this.passiveServerEntity) {
-      this.activeServerEntity = factory.createActiveEntity(this.registry, this.constructorInfo);
-      this.concurrencyStrategy = factory.getConcurrencyStrategy(this.constructorInfo);
+      ActiveServerEntity<EntityMessage, EntityResponse> entity = null;
+      ConcurrencyStrategy<EntityMessage> strategy = null;
+      synchronized (standbyLock) {
+//  only use the standby if it was built from the configuration this entity has now
+        if (this.standbyConfig == this.constructorInfo) {
+          entity = this.standbyEntity;
+          strategy = this.standbyStrategy;
+        }
+        this.standbyEntity = null;
+        this.standbyStrategy = null;
+        this.standbyConfig = null;
+      }
+      if (entity == null) {
+        entity = factory.createActiveEntity(this.registry, this.constructorInfo);
+        strategy = factory.getConcurrencyStrategy(this.constructorInfo);
+      }
+      this.activeServerEntity = entity;
+      this.concurrencyStrategy = strategy;
       this.activeServerEntity.loadExisting();
       this.passiveServerEntity = null;
       // Fire the event that the entity was reloaded.
@@ -631,17 +790,47 @@ public class ManagedEntityImpl implements ManagedEntity {
     }
   }
 
+  /**
+   * Builds the active instance and concurrency strategy this passive entity would be promoted to on a background thread,
+   * so promotion only swaps them in and loads state.  The entity's state still lives with the passive instance and the
+   * services until then, which is why the standby is not loaded ahead of time.
+   */
+  private void warmStandby() {
+    if (this.hotStandby && !this.isInActiveState) {
+      byte[] config = this.constructorInfo;
+      standbyBuilder.execute(() -> {
+        if (this.isDestroyed || this.isInActiveState) {
+          return;
+        }
+        try {
+          ActiveServerEntity<EntityMessage, EntityResponse> entity = factory.createActiveEntity(this.registry, config);
+          ConcurrencyStrategy<EntityMessage> strategy = factory.getConcurrencyStrategy(config);
+          synchronized (standbyLock) {
+            if (!this.isDestroyed && !this.isInActiveState) {
+              this.standbyEntity = entity;
+              this.standbyStrategy = strategy;
+              this.standbyConfig = config;
+            }
+          }
+        } catch (RuntimeException e) {
+//  promotion will build the active instance itself
+          logger.warn("unable to build the standby active instance of " + getID(), e);
+        }
+      });
+    }
+  }
+
   private void promoteEntity(ServerEntityRequest request) {
     promoteEntity();
     request.complete();
   }
 
   @Override
-  public void sync(NodeID passive) {
+  public void sync(Set<NodeID> passives) {
     if (!this.isDestroyed) {
       try {
     // wait for future is ok, occuring on sync executor thread
-        executor.scheduleSync(PassiveSyncMessage.createStartEntityMessage(id, version, constructorInfo), passive).get();
+        executor.scheduleSync(PassiveSyncMessage.createStartEntityMessage(id, version, constructorInfo), passives).get();
     // iterate through all the concurrency keys of an entity
         EntityDescriptor entityDescriptor = new EntityDescriptor(this.id, ClientInstanceID.NULL_ID, this.version);
     //  this is simply a barrier to make sure all actions are flushed before sync is started (hence, it has a null passive).
@@ -654,13 +843,13 @@ public class ManagedEntityImpl implements ManagedEntity {
         }, ConcurrencyStrategy.MANAGEMENT_KEY).get();
 
         for (Integer concurrency : concurrencyStrategy.getKeysForSynchronization()) {
-          PassiveSyncServerEntityRequest req = new PassiveSyncServerEntityRequest(passive);
+          PassiveSyncServerEntityRequest req = new PassiveSyncServerEntityRequest(passives);
           // We don't actually use the message in the direct strategy so this is safe.
           executor.scheduleRequest(entityDescriptor, req, null, () -> invoke(req, null, concurrency), concurrency).get();
         }
     //  end passive sync for an entity
     // wait for future is ok, occuring on sync executor thread
-        executor.scheduleSync(PassiveSyncMessage.createEndEntityMessage(id, version), passive).get();
+        executor.scheduleSync(PassiveSyncMessage.createEndEntityMessage(id, version), passives).get();
       } catch (ExecutionException | InterruptedException e) {
         throw new AssertionError("sync failed", e);
       }
@@ -692,14 +881,15 @@ public class ManagedEntityImpl implements ManagedEntity {
     entityToLoad.loadExisting();
     // Fire the event that the entity was reloaded.
     this.eventCollector.entityWasReloaded(this.getID(), this.isInActiveState);
+    warmStandby();
   }
 
   private static class PassiveSyncServerEntityRequest extends AbstractServerEntityRequest {
-    private final NodeID passive;
+    private final Set<NodeID> passives;
     
-    public PassiveSyncServerEntityRequest(NodeID passive) {
+    public PassiveSyncServerEntityRequest(Set<NodeID> passives) {
       super(ServerEntityAction.REQUEST_SYNC_ENTITY, null, null, ClientID.NULL_ID, false);
-      this.passive = passive;
+      this.passives = passives;
     }
 
     @Override
@@ -709,7 +899,12 @@ public class ManagedEntityImpl implements ManagedEntity {
 
     @Override
     public Set<NodeID> replicateTo(Set<NodeID> passives) {
-      return passive == null ? Collections.emptySet() : Collections.singleton(passive);
+      if (this.passives == null) {
+        return Collections.emptySet();
+      }
+      Set<NodeID> targets = new HashSet<>(this.passives);
+      targets.retainAll(passives);
+      return targets;
     }
 
     @Override
@@ -723,12 +918,17 @@ public class ManagedEntityImpl implements ManagedEntity {
     }
   }
   
-  private class SchedulingRunnable implements Runnable {
+  private class SchedulingRunnable implements RequestProcessor.TimedCall {
     private final EntityDescriptor desc;
     private final ServerEntityRequest request;
     private final byte[] payload;
     private final Runnable original;
     private final int concurrency;
+    //  nanoTime stamps for the entity statistics.  arrival is taken on the scheduling thread, the rest are set and
+    //  read on the request processor thread which runs this
+    private final long arrived;
+    private long dequeued;
+    private long replicated;
 
     public SchedulingRunnable(EntityDescriptor desc, ServerEntityRequest request, byte[] payload, Runnable r, int concurrency) {
       this.desc = desc;
@@ -736,6 +936,7 @@ public class ManagedEntityImpl implements ManagedEntity {
       this.payload = payload;
       this.original = r;
       this.concurrency = concurrency;
+      this.arrived = statistics.isEnabled() ? System.nanoTime() : 0L;
     }
         
     private void start() {
@@ -745,10 +946,21 @@ public class ManagedEntityImpl implements ManagedEntity {
       executor.scheduleRequest(desc, request, payload, this, concurrency);
     }
     
+    @Override
+    public void ready(long dequeued, long replicated) {
+      this.dequeued = dequeued;
+      this.replicated = replicated;
+    }
+
+    @Override
     public void run() {
       try {
         original.run();
       } finally {
+        if (arrived != 0 && replicated != 0) {
+          int count = (original instanceof InvokeBatch) ? ((InvokeBatch)original).size() : 1;
+          statistics.finished(concurrency, count, dequeued - arrived, replicated - dequeued, System.nanoTime() - replicated);
+        }
         this.end();
       }
     }
@@ -763,6 +975,50 @@ public class ManagedEntityImpl implements ManagedEntity {
     }
   };
   
+  /**
+   * A run of consecutive batchable invokes on one concurrency key.  The scheduling thread appends to it until
+   * the request processor picks it up, after which it is closed and the next invoke starts a new batch.
+   */
+  private class InvokeBatch implements Runnable {
+    private final List<ServerEntityRequest> requests = new ArrayList<>();
+    private final List<EntityMessage> messages = new ArrayList<>();
+    private final int concurrency;
+    private boolean started = false;
+
+    public InvokeBatch(ServerEntityRequest request, EntityMessage message, int concurrency) {
+      this.requests.add(request);
+      this.messages.add(message);
+      this.concurrency = concurrency;
+    }
+    
+    synchronized boolean offer(ServerEntityRequest request, EntityMessage message) {
+      if (started || requests.size() >= maxInvokeBatch) {
+        return false;
+      }
+      requests.add(request);
+      messages.add(message);
+      return true;
+    }
+    
+    private synchronized void close() {
+      started = true;
+    }
+
+    synchronized int size() {
+      return requests.size();
+    }
+
+    @Override
+    public void run() {
+      close();
+      if (requests.size() == 1) {
+        invoke(requests.get(0), messages.get(0), concurrency);
+      } else {
+        invokeBatch(requests, messages, concurrency);
+      }
+    }
+  }
+  
   private static class DefermentQueue<T> implements Iterable<T> {
     private final LinkedList<T> queue = new LinkedList<>();
     private final int limit;
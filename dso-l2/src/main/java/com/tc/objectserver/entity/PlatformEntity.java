@@ -23,6 +23,7 @@ import com.tc.net.NodeID;
 import com.tc.object.ClientInstanceID;
 import com.tc.object.EntityDescriptor;
 import com.tc.object.EntityID;
+import com.tc.objectserver.api.EntityStatistics;
 import com.tc.objectserver.api.ManagedEntity;
 import com.tc.objectserver.api.ServerEntityRequest;
 import com.tc.util.Assert;
@@ -31,6 +32,7 @@ import org.terracotta.entity.ClientDescriptor;
 import org.terracotta.entity.ConcurrencyStrategy;
 import org.terracotta.entity.MessageCodec;
 
+import java.util.Set;
 
 public class PlatformEntity implements ManagedEntity {
   public static EntityID PLATFORM_ID = new EntityID("platform", "root");
@@ -73,7 +75,7 @@ public class PlatformEntity implements ManagedEntity {
   }
 
   @Override
-  public void sync(NodeID passive) {
+  public void sync(Set<NodeID> passives) {
   //  never sync
   }
 
@@ -89,6 +91,12 @@ public class PlatformEntity implements ManagedEntity {
     return null;
   }
 
+  @Override
+  public EntityStatistics getStatistics() {
+    // The platform entity is not exposed as an entity in the monitoring tree so there is nothing to count.
+    return null;
+  }
+
   @Override
   public void promoteEntity() {
 
@@ -20,6 +20,7 @@ package com.tc.objectserver.entity;
 
 import com.tc.async.api.MultiThreadedEventContext;
 import com.tc.async.api.Sink;
+import com.tc.entity.RequestTrace;
 import com.tc.l2.context.StateChangedEvent;
 import com.tc.l2.msg.PassiveSyncMessage;
 import com.tc.l2.msg.ReplicationMessage;
@@ -46,6 +47,15 @@ public class RequestProcessor implements StateChangeListener {
   private boolean isActive = false;
 //  TODO: do some accounting for transaction de-dupping on failover
 
+  /**
+   * May be implemented by the call handed to scheduleRequest to learn when it was taken off the request queue and
+   * when its replication to passives was acknowledged.  Both times are System.nanoTime() values taken on the
+   * executing thread, immediately before the call is run.
+   */
+  interface TimedCall extends Runnable {
+    void ready(long dequeued, long replicated);
+  }
+
   public RequestProcessor(Sink<Runnable> requestExecution) {
     this.requestExecution = requestExecution;
   }
@@ -56,11 +66,11 @@ public class RequestProcessor implements StateChangeListener {
   }
   
   public Set<NodeID> passives() {
-    return passives.passives();
+    return (passives != null) ? passives.passives() : Collections.emptySet();
   }
 
-  public Future<Void> scheduleSync(PassiveSyncMessage msg, NodeID passive) {
-    return passives.replicateMessage(msg, Collections.singleton(passive));
+  public Future<Void> scheduleSync(PassiveSyncMessage msg, Set<NodeID> passives) {
+    return this.passives.replicateMessage(msg, passives);
   }
   
   public void setReplication(PassiveReplicationBroker passives) {
@@ -77,11 +87,17 @@ public class RequestProcessor implements StateChangeListener {
   public synchronized Future<Void> scheduleRequest(EntityDescriptor entity, ServerEntityRequest request, byte[] payload, Runnable call, int concurrencyKey) {
     // Unless this is a message type we allow to choose its own concurrency key, we will use management (default for all internal operations).
     Set<NodeID> replicateTo = (isActive && passives != null) ? request.replicateTo(passives.passives()) : Collections.emptySet();
-    Future<Void> token = (!replicateTo.isEmpty())
-        ? passives.replicateMessage(createReplicationMessage(entity, request.getNodeID(), request.getAction(), 
-            request.getTransaction(), request.getOldestTransactionOnClient(), payload, concurrencyKey), replicateTo)
-        : NoReplicationBroker.NOOP_FUTURE;
-    EntityRequest entityRequest =  new EntityRequest(entity, call, concurrencyKey, token);
+    RequestTrace trace = request.getTrace();
+    Future<Void> token = NoReplicationBroker.NOOP_FUTURE;
+    if (!replicateTo.isEmpty()) {
+      ReplicationMessage msg = createReplicationMessage(entity, request.getNodeID(), request.getAction(), 
+            request.getTransaction(), request.getOldestTransactionOnClient(), payload, concurrencyKey);
+      if (trace != null) {
+        msg.setTrace(trace);
+      }
+      token = passives.replicateMessage(msg, replicateTo);
+    }
+    EntityRequest entityRequest =  new EntityRequest(entity, call, concurrencyKey, token, trace);
     requestExecution.addMultiThreaded(entityRequest);
     return new Future() {
       @Override
@@ -164,13 +180,15 @@ public class RequestProcessor implements StateChangeListener {
     private final Runnable invoke;
     private final Future<Void>  token;
     private final int key;
+    private final RequestTrace trace;
     private boolean done = false;
 
-    public EntityRequest(EntityDescriptor entity, Runnable runnable, int key, Future<Void>  token) {
+    public EntityRequest(EntityDescriptor entity, Runnable runnable, int key, Future<Void>  token, RequestTrace trace) {
       this.entity = entity;
       this.invoke = runnable;
       this.token = token;
       this.key = key;
+      this.trace = trace;
     }
 
     @Override
@@ -193,7 +211,17 @@ public class RequestProcessor implements StateChangeListener {
 //  in ManagedEntityImpl is accounted for.  For exclusive mode, ManagedEntityImpl
 //  in passive mode relies on this control flow in the active so that no new messages are 
 //  received on the passive entity before exclusive mode is completed
+        long dequeued = (invoke instanceof TimedCall) ? System.nanoTime() : 0L;
+        if (trace != null) {
+          trace.mark(RequestTrace.Point.DEQUEUED);
+        }
         token.get();
+        if (trace != null) {
+          trace.mark(RequestTrace.Point.READY);
+        }
+        if (invoke instanceof TimedCall) {
+          ((TimedCall)invoke).ready(dequeued, System.nanoTime());
+        }
         invoke.run();
         finish();
       } catch (InterruptedException interrupted) {
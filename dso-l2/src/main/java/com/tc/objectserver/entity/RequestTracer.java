@@ -0,0 +1,115 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.entity;
+
+import com.tc.entity.RequestTrace;
+import com.tc.entity.RequestTrace.Point;
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import com.tc.stats.LatencyHistogram;
+import com.tc.stats.Stats;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Aggregates finished {@link RequestTrace}s into one latency histogram per hop.  A hop is only recorded when the trace
+ * marked both of its ends, so requests which were not replicated, for example, don't skew the replication hops.
+ */
+public class RequestTracer implements RequestTrace.Listener, Stats {
+  private static final TCLogger LOGGER = TCLogging.getLogger(RequestTracer.class);
+
+  public enum Hop {
+    VOLTRON_QUEUE(Point.HYDRATED, Point.ORDERED),
+    PROCESSOR_QUEUE(Point.ORDERED, Point.DEQUEUED),
+    PASSIVE_WAIT(Point.DEQUEUED, Point.READY),
+    REPLICATION_ROUND_TRIP(Point.REPLICATION_SENT, Point.READY),
+    EXECUTION(Point.READY, Point.APPLIED),
+    PASSIVE_APPLY(Point.PASSIVE_RECEIVED, Point.APPLIED),
+    TOTAL(Point.HYDRATED, Point.APPLIED);
+
+    private final Point from;
+    private final Point to;
+
+    private Hop(Point from, Point to) {
+      this.from = from;
+      this.to = to;
+    }
+  }
+
+  private final Map<Hop, LatencyHistogram>          histograms = new EnumMap<Hop, LatencyHistogram>(Hop.class);
+  // finished() is synchronized so a single recorder per hop is enough
+  private final Map<Hop, LatencyHistogram.Recorder> recorders  = new EnumMap<Hop, LatencyHistogram.Recorder>(Hop.class);
+
+  public RequestTracer() {
+    for (Hop hop : Hop.values()) {
+      LatencyHistogram histogram = new LatencyHistogram();
+      histograms.put(hop, histogram);
+      recorders.put(hop, histogram.newRecorder());
+    }
+  }
+
+  public RequestTrace start(long traceID) {
+    return new RequestTrace(traceID, this);
+  }
+
+  @Override
+  public synchronized void finished(RequestTrace trace) {
+    for (Hop hop : Hop.values()) {
+      long from = trace.getTime(hop.from);
+      long to = trace.getTime(hop.to);
+      if (from != 0 && to != 0) {
+        recorders.get(hop).record(to - from);
+      }
+    }
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug(trace);
+    }
+  }
+
+  public Map<Hop, LatencyHistogram.Snapshot> getHopLatencies() {
+    Map<Hop, LatencyHistogram.Snapshot> latencies = new EnumMap<Hop, LatencyHistogram.Snapshot>(Hop.class);
+    for (Map.Entry<Hop, LatencyHistogram> e : histograms.entrySet()) {
+      latencies.put(e.getKey(), e.getValue().snapshot());
+    }
+    return latencies;
+  }
+
+  public void reset() {
+    for (LatencyHistogram histogram : histograms.values()) {
+      histogram.reset();
+    }
+  }
+
+  @Override
+  public String getDetails() {
+    StringBuilder sb = new StringBuilder();
+    for (Map.Entry<Hop, LatencyHistogram.Snapshot> e : getHopLatencies().entrySet()) {
+      sb.append(e.getKey()).append(": ").append(e.getValue()).append('\n');
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public void logDetails(TCLogger statsLogger) {
+    for (Map.Entry<Hop, LatencyHistogram.Snapshot> e : getHopLatencies().entrySet()) {
+      statsLogger.info(e.getKey() + ": " + e.getValue());
+    }
+  }
+}
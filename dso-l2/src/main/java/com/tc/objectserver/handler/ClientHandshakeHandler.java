@@ -56,6 +56,10 @@ public class ClientHandshakeHandler extends AbstractEventHandler<ClientHandshake
 
   @Override
   public void handleEvent(ClientHandshakeMessage clientMsg) {
+    if (clientMsg.isResendChunk()) {
+      this.handshakeManager.notifyClientResends(clientMsg);
+      return;
+    }
     try {
       NodeID remoteNodeID = clientMsg.getChannel().getRemoteNodeID();
       checkCompatibility(clientMsg.enterpriseClient(), remoteNodeID);
@@ -0,0 +1,84 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.handler;
+
+import com.tc.async.api.AbstractEventHandler;
+import com.tc.async.api.ConfigurationContext;
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import com.tc.net.ClientID;
+import com.tc.object.locks.LockID;
+import com.tc.object.locks.ThreadID;
+import com.tc.objectserver.core.api.ServerConfigurationContext;
+import com.tc.objectserver.locks.LockManager;
+import com.tc.objectserver.locks.StripedLockRequestContext;
+
+/**
+ * Applies single lock operations to the lock manager.  Each stage thread owns a fixed set of lock stripes.
+ */
+public class ProcessLockRequestHandler extends AbstractEventHandler<StripedLockRequestContext> {
+  private static final TCLogger logger = TCLogging.getLogger(ProcessLockRequestHandler.class);
+
+  private LockManager lockManager;
+
+  @Override
+  public void handleEvent(StripedLockRequestContext request) {
+    LockID lid = request.getLockID();
+    ClientID cid = request.getClientID();
+    ThreadID tid = request.getThreadID();
+
+    if (request.getTimerContext() != null) {
+      lockManager.processTimerTimeout(request.getTimerContext());
+      return;
+    }
+    switch (request.getRequestType()) {
+      case RECALL_COMMIT:
+        lockManager.recallCommit(lid, cid, request.getContexts());
+        return;
+      case LOCK:
+        lockManager.lock(lid, cid, tid, request.getLockLevel());
+        return;
+      case TRY_LOCK:
+        lockManager.tryLock(lid, cid, tid, request.getLockLevel(), request.getTimeout());
+        return;
+      case UNLOCK:
+        lockManager.unlock(lid, cid, tid);
+        return;
+      case WAIT:
+        lockManager.wait(lid, cid, tid, request.getTimeout());
+        return;
+      case QUERY:
+        lockManager.queryLock(lid, cid, tid);
+        return;
+      case INTERRUPT_WAIT:
+        lockManager.interrupt(lid, cid, tid);
+        return;
+      default:
+        logger.error("Unexpected lock request type: " + request.getRequestType());
+        return;
+    }
+  }
+
+  @Override
+  public void initialize(ConfigurationContext context) {
+    super.initialize(context);
+    ServerConfigurationContext oscc = (ServerConfigurationContext) context;
+    this.lockManager = oscc.getLockManager();
+  }
+}
@@ -21,6 +21,8 @@ package com.tc.objectserver.handler;
 import com.tc.async.api.AbstractEventHandler;
 import com.tc.async.api.ConfigurationContext;
 import com.tc.async.api.EventHandlerException;
+import com.tc.entity.NetworkVoltronEntityMessage;
+import com.tc.entity.RequestTrace;
 import com.tc.entity.ResendVoltronEntityMessage;
 import com.tc.entity.VoltronEntityMessage;
 import com.tc.logging.TCLogger;
@@ -37,8 +39,8 @@ import com.tc.object.tx.TransactionID;
 import com.tc.objectserver.api.EntityManager;
 import com.tc.objectserver.api.ManagedEntity;
 import com.tc.objectserver.api.ServerEntityAction;
-import com.tc.objectserver.api.ServerEntityRequest;
 import com.tc.objectserver.core.api.ServerConfigurationContext;
+import com.tc.objectserver.entity.RequestTracer;
 import com.tc.objectserver.entity.ServerEntityRequestImpl;
 import com.tc.objectserver.persistence.EntityData;
 import com.tc.objectserver.persistence.EntityPersistor;
@@ -61,6 +63,7 @@ public class ProcessTransactionHandler {
   private final static TCLogger logger = TCLogging.getLogger(ProcessTransactionHandler.class);
   private final EntityPersistor entityPersistor;
   private final TransactionOrderPersistor transactionOrderPersistor;
+  private final RequestTracer tracer;
   
   private EntityManager entityManager;
   private DSOChannelManager dsoChannelManager;
@@ -84,8 +87,17 @@ public class ProcessTransactionHandler {
       TransactionID transactionID = message.getTransactionID();
       boolean doesRequireReplication = message.doesRequireReplication();
       TransactionID oldestTransactionOnClient = message.getOldestTransactionOnClient();
+      RequestTrace trace = null;
+      if (message instanceof NetworkVoltronEntityMessage) {
+        NetworkVoltronEntityMessage networkMessage = (NetworkVoltronEntityMessage) message;
+        if (networkMessage.getTraceID() != 0) {
+          trace = tracer.start(networkMessage.getTraceID());
+          trace.mark(RequestTrace.Point.HYDRATED, networkMessage.getHydrateTime());
+          trace.mark(RequestTrace.Point.ORDERED);
+        }
+      }
       
-      ProcessTransactionHandler.this.addMessage(sourceNodeID, descriptor, action, extendedData, transactionID, doesRequireReplication, oldestTransactionOnClient);
+      ProcessTransactionHandler.this.addMessage(sourceNodeID, descriptor, action, extendedData, transactionID, doesRequireReplication, oldestTransactionOnClient, trace);
     }
 
     @Override
@@ -114,9 +126,10 @@ public class ProcessTransactionHandler {
     this.entityManager = entityManager;
   }
 
-  public ProcessTransactionHandler(EntityPersistor entityPersistor, TransactionOrderPersistor transactionOrderPersistor) {
+  public ProcessTransactionHandler(EntityPersistor entityPersistor, TransactionOrderPersistor transactionOrderPersistor, RequestTracer tracer) {
     this.entityPersistor = entityPersistor;
     this.transactionOrderPersistor = transactionOrderPersistor;
+    this.tracer = tracer;
     
     this.resendReplayList = new SparseList<>();
     this.resendNewList = new Vector<>();
@@ -134,7 +147,7 @@ public class ProcessTransactionHandler {
   }
 // TODO:  Make sure that the ReplicatedTransactionHandler is flushed before 
 //   adding any new messages to the PTH
-  private synchronized void addMessage(ClientID sourceNodeID, EntityDescriptor descriptor, ServerEntityAction action, byte[] extendedData, TransactionID transactionID, boolean doesRequireReplication, TransactionID oldestTransactionOnClient) {
+  private synchronized void addMessage(ClientID sourceNodeID, EntityDescriptor descriptor, ServerEntityAction action, byte[] extendedData, TransactionID transactionID, boolean doesRequireReplication, TransactionID oldestTransactionOnClient, RequestTrace trace) {
     // Version error or duplicate creation requests will manifest as exceptions here so catch them so we can send them back
     //  over the wire as an error in the request.
     EntityID entityID = descriptor.getEntityID();
@@ -174,7 +187,8 @@ public class ProcessTransactionHandler {
     }
     
     // In the general case, however, we need to pass this as a real ServerEntityRequest, into the entityProcessor.
-    ServerEntityRequest serverEntityRequest = new ServerEntityRequestImpl(descriptor, action, transactionID, oldestTransactionOnClient, sourceNodeID, doesRequireReplication, safeGetChannel(sourceNodeID));
+    ServerEntityRequestImpl serverEntityRequest = new ServerEntityRequestImpl(descriptor, action, transactionID, oldestTransactionOnClient, sourceNodeID, doesRequireReplication, safeGetChannel(sourceNodeID));
+    serverEntityRequest.setTrace(trace);
     // Before we pass this on to the entity or complete it, directly, we can send the received() ACK, since we now know the message order.
     // Note that we only want to persist the messages with a true sourceNodeID.  Synthetic invocations and sync messages
     // don't have one (although sync messages shouldn't come down this path).
@@ -293,7 +307,7 @@ public class ProcessTransactionHandler {
     boolean doesRequireReplication = message.doesRequireReplication();
     TransactionID oldestTransactionOnClient = message.getOldestTransactionOnClient();
     
-    ProcessTransactionHandler.this.addMessage(sourceNodeID, descriptor, action, extendedData, transactionID, doesRequireReplication, oldestTransactionOnClient);
+    ProcessTransactionHandler.this.addMessage(sourceNodeID, descriptor, action, extendedData, transactionID, doesRequireReplication, oldestTransactionOnClient, null);
   }
 
   private static ServerEntityAction decodeMessageType(VoltronEntityMessage.Type type) {
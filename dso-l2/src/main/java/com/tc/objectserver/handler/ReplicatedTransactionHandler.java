@@ -23,6 +23,7 @@ import com.tc.async.api.ConfigurationContext;
 import com.tc.async.api.EventHandler;
 import com.tc.async.api.EventHandlerException;
 import com.tc.async.api.Sink;
+import com.tc.entity.RequestTrace;
 import com.tc.l2.msg.ReplicationMessage;
 import com.tc.l2.msg.ReplicationMessageAck;
 import com.tc.l2.state.StateManager;
@@ -44,6 +45,7 @@ import com.tc.objectserver.api.ServerEntityAction;
 import com.tc.objectserver.api.ServerEntityRequest;
 import com.tc.objectserver.core.api.ServerConfigurationContext;
 import com.tc.objectserver.entity.PlatformEntity;
+import com.tc.objectserver.entity.RequestTracer;
 import com.tc.objectserver.entity.ServerEntityRequestImpl;
 import com.tc.objectserver.persistence.EntityPersistor;
 import com.tc.objectserver.persistence.TransactionOrderPersistor;
@@ -66,14 +68,19 @@ public class ReplicatedTransactionHandler {
   private final TransactionOrderPersistor orderedTransactions;
   private final StateManager stateManager;
   private final ManagedEntity platform;
+  private final RequestTracer tracer;
   
   private Sink<ReplicationMessage> loopback;
   
   private final SyncState state = new SyncState();
+//  the active the log indexes below came from, they are only comparable between messages of the same active
+  private NodeID logSource = ServerID.NULL_ID;
+  private long lastLogIndex = 0;
   
   public ReplicatedTransactionHandler(StateManager state, TransactionOrderPersistor transactionOrderPersistor, 
-      EntityManager manager, EntityPersistor entityPersistor, GroupManager<AbstractGroupMessage> groupManager) {
+      EntityManager manager, EntityPersistor entityPersistor, GroupManager<AbstractGroupMessage> groupManager, RequestTracer tracer) {
     this.stateManager = state;
+    this.tracer = tracer;
     this.entityManager = manager;
     this.entityPersistor = entityPersistor;
     this.groupManager = groupManager;
@@ -120,7 +127,10 @@ public class ReplicatedTransactionHandler {
   private void processMessage(ReplicationMessage rep) throws EntityException {
     switch (rep.getType()) {
       case ReplicationMessage.REPLICATE:
-        if (state.ignore(rep)) {
+        if (alreadyApplied(rep)) {
+          LOGGER.debug("Already applied:" + rep);
+          acknowledge(rep);
+        } else if (state.ignore(rep)) {
           LOGGER.debug("Ignoring:" + rep);
           acknowledge(rep);
         } else if (state.defer(rep)) {
@@ -146,6 +156,26 @@ public class ReplicatedTransactionHandler {
     }
   }
   
+  /**
+   * The active resends what it has not seen acknowledged when this server rejoins after dropping out, some of which 
+   * may have been applied here already.
+   */
+  private boolean alreadyApplied(ReplicationMessage rep) {
+    long index = rep.getLogIndex();
+    if (index == 0) {
+      return false;
+    }
+    if (!rep.messageFrom().equals(logSource)) {
+      logSource = rep.messageFrom();
+      lastLogIndex = 0;
+    }
+    if (index <= lastLogIndex) {
+      return true;
+    }
+    lastLogIndex = index;
+    return false;
+  }
+
   private void replicatedMessageReceived(ReplicationMessage rep) throws EntityException {
     ClientID sourceNodeID = rep.getSource();
     TransactionID transactionID = rep.getTransactionID();
@@ -186,7 +216,12 @@ public class ReplicatedTransactionHandler {
     }
 
     // Create the request, since it is how we will generically return complete.
-    ServerEntityRequest request = make(rep);
+    ServerEntityRequestImpl request = make(rep);
+    if (rep.getTraceID() != 0) {
+      RequestTrace trace = tracer.start(rep.getTraceID());
+      trace.mark(RequestTrace.Point.PASSIVE_RECEIVED);
+      request.setTrace(trace);
+    }
     // If we satisfied this as a known re-send, don't add the request to the entity.
     if (didAlreadyHandle) {
       request.complete();
@@ -21,6 +21,7 @@ package com.tc.objectserver.handler;
 import com.tc.async.api.AbstractEventHandler;
 import com.tc.async.api.ConfigurationContext;
 import com.tc.async.api.EventHandlerException;
+import com.tc.entity.RequestTrace;
 import com.tc.l2.msg.PassiveSyncMessage;
 import com.tc.l2.msg.ReplicationEnvelope;
 import com.tc.l2.msg.ReplicationMessage;
@@ -93,6 +94,10 @@ public class ReplicationSender extends AbstractEventHandler<ReplicationEnvelope>
       try {
         msg.setReplicationID(rOrder.getAndIncrement());
         group.sendTo(nodeid, msg);
+        RequestTrace trace = msg.getTrace();
+        if (trace != null) {
+          trace.mark(RequestTrace.Point.REPLICATION_SENT);
+        }
       }  catch (GroupException ge) {
         logger.info(msg, ge);
       }
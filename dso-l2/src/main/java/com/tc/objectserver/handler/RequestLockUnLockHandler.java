@@ -20,69 +20,57 @@ package com.tc.objectserver.handler;
 
 import com.tc.async.api.AbstractEventHandler;
 import com.tc.async.api.ConfigurationContext;
-import com.tc.logging.TCLogger;
-import com.tc.logging.TCLogging;
+import com.tc.async.api.Sink;
 import com.tc.net.ClientID;
-import com.tc.net.NodeID;
-import com.tc.object.locks.ClientServerExchangeLockContext;
+import com.tc.object.locks.BatchedLockRequest;
 import com.tc.object.locks.LockID;
 import com.tc.object.locks.RecallBatchContext;
-import com.tc.object.locks.ThreadID;
 import com.tc.object.msg.LockRequestMessage;
 import com.tc.objectserver.core.api.ServerConfigurationContext;
 import com.tc.objectserver.locks.LockManager;
-
-import java.util.Collection;
-import java.util.LinkedList;
+import com.tc.objectserver.locks.StripedLockRequestContext;
 
 /**
- * Makes the request for a lock on behalf of a client
+ * Makes the request for a lock on behalf of a client.
+ * <p>
+ * Messages are split into single lock operations which are handed to the lock processing stage keyed by the stripe of
+ * their lock.  Messages from one client arrive here in order, so operations on any one lock reach the processing stage,
+ * and are applied, in the order the client issued them.
  * 
  * @author steve
  */
 public class RequestLockUnLockHandler extends AbstractEventHandler<LockRequestMessage> {
-  private static final TCLogger logger = TCLogging.getLogger(RequestLockUnLockHandler.class);
-  
-  private LockManager lockManager;
+  private LockManager                     lockManager;
+  private Sink<StripedLockRequestContext> processSink;
 
   @Override
   public void handleEvent(LockRequestMessage lrm) {
-    LockID lid = lrm.getLockID();
-    NodeID cid = lrm.getSourceNodeID();
-    ThreadID tid = lrm.getThreadID();
+    ClientID cid = (ClientID) lrm.getSourceNodeID();
 
     switch (lrm.getRequestType()) {
-      case LOCK:
-        lockManager.lock(lid, (ClientID) cid, tid, lrm.getLockLevel());
-        return;
-      case TRY_LOCK:
-        lockManager.tryLock(lid, (ClientID) cid, tid, lrm.getLockLevel(), lrm.getTimeout());
-        return;
-      case UNLOCK:
-        lockManager.unlock(lid, (ClientID) cid, tid);
-        return;
-      case WAIT:
-        lockManager.wait(lid, (ClientID) cid, tid, lrm.getTimeout());
-        return;
       case RECALL_COMMIT:
-        Collection<ClientServerExchangeLockContext> contexts = lrm.getContexts();
-        lockManager.recallCommit(lid, (ClientID) cid, contexts);
-        return;
-      case QUERY:
-        lockManager.queryLock(lid, (ClientID) cid, tid);
-        return;
-      case INTERRUPT_WAIT:
-        lockManager.interrupt(lid, (ClientID) cid, tid);
+        processSink.addMultiThreaded(new StripedLockRequestContext(lrm.getLockID(), cid, lrm.getContexts(), 
+            lockManager.getStripe(lrm.getLockID())));
         return;
       case BATCHED_RECALL_COMMIT:
-        LinkedList<RecallBatchContext> recallContexts = lrm.getRecallBatchedContexts();
-        for (RecallBatchContext recallContext : recallContexts) {
-          Collection<ClientServerExchangeLockContext> lockState = recallContext.getContexts();
-          lockManager.recallCommit(recallContext.getLockID(), (ClientID) cid, lockState);
+        for (RecallBatchContext recallContext : lrm.getRecallBatchedContexts()) {
+          LockID lid = recallContext.getLockID();
+          processSink.addMultiThreaded(new StripedLockRequestContext(lid, cid, recallContext.getContexts(), 
+              lockManager.getStripe(lid)));
+        }
+        return;
+      case BATCHED_REQUEST:
+//  requests in a batch were issued in this order on the client so they are queued in the same order
+        for (BatchedLockRequest request : lrm.getBatchedLockRequests()) {
+          LockID lid = request.getLockID();
+          processSink.addMultiThreaded(new StripedLockRequestContext(request.getRequestType(), lid, cid, 
+              request.getThreadID(), request.getLockLevel(), request.getTimeout(), lockManager.getStripe(lid)));
         }
         return;
       default:
-        logger.error("Unexpected lock request type: " + lrm.getRequestType());
+        LockID lid = lrm.getLockID();
+        processSink.addMultiThreaded(new StripedLockRequestContext(lrm.getRequestType(), lid, cid, lrm.getThreadID(), 
+            lrm.getLockLevel(), lrm.getTimeout(), lockManager.getStripe(lid)));
         return;
     }
   }
@@ -92,5 +80,6 @@ public class RequestLockUnLockHandler extends AbstractEventHandler<LockRequestMe
     super.initialize(context);
     ServerConfigurationContext oscc = (ServerConfigurationContext) context;
     this.lockManager = oscc.getLockManager();
+    this.processSink = oscc.getStage(ServerConfigurationContext.PROCESS_LOCK_REQUEST_STAGE, StripedLockRequestContext.class).getSink();
   }
 }
@@ -20,11 +20,13 @@ package com.tc.objectserver.handler;
 
 import com.tc.async.api.AbstractEventHandler;
 import com.tc.async.api.ConfigurationContext;
+import com.tc.async.api.DrainListener;
 import com.tc.logging.TCLogger;
 import com.tc.net.ClientID;
 import com.tc.net.NodeID;
 import com.tc.net.protocol.tcm.MessageChannel;
 import com.tc.net.protocol.tcm.TCMessageType;
+import com.tc.object.locks.BatchedLockResponse;
 import com.tc.object.locks.ClientServerExchangeLockContext;
 import com.tc.object.locks.ThreadID;
 import com.tc.object.locks.ServerLockContext.State;
@@ -34,51 +36,85 @@ import com.tc.object.net.NoSuchChannelException;
 import com.tc.objectserver.core.api.ServerConfigurationContext;
 import com.tc.objectserver.locks.LockResponseContext;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Award, refuse, recall and wait timeout responses are gathered per client and sent as a single batched message
+ * once the worker's queue drains, the batch fills or the oldest held response has waited the batch window, so a burst
+ * of lock traffic for one client costs one network message instead of one per response.  A window of 0 sends every
+ * response as it comes.  Lock info responses are never batched.
+ * 
  * @author steve
  */
-public class RespondToRequestLockHandler extends AbstractEventHandler<LockResponseContext> {
+public class RespondToRequestLockHandler extends AbstractEventHandler<LockResponseContext> implements DrainListener {
+  private static final int  MAX_BATCHED_RESPONSES = 1000;
+  
   private DSOChannelManager channelManager;
   private TCLogger          logger;
+  private final long        batchWindowNanos;
+  //  responses for a client are always handled on the same worker thread (the client is the scheduling key)
+  private final ThreadLocal<PendingResponses> pending = ThreadLocal.withInitial(PendingResponses::new);
+
+  /**
+   * @param batchWindow milliseconds a response may be held back to be sent with others, 0 to send right away
+   */
+  public RespondToRequestLockHandler(long batchWindow) {
+    this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(batchWindow);
+  }
 
   @Override
   public void handleEvent(LockResponseContext lrc) {
     NodeID cid = lrc.getNodeID();
+    
+    if (!lrc.isLockInfo()) {
+      if (batchWindowNanos <= 0) {
+        flush(cid, Collections.singletonList(toBatchedResponse(lrc)));
+        return;
+      }
+      PendingResponses responses = pending.get();
+      long now = System.nanoTime();
+      if (responses.batches.isEmpty()) {
+        responses.oldest = now;
+      }
+      List<BatchedLockResponse> batch = responses.batches.get(cid);
+      if (batch == null) {
+        batch = new ArrayList<BatchedLockResponse>();
+        responses.batches.put(cid, batch);
+      }
+      batch.add(toBatchedResponse(lrc));
+      if (batch.size() >= MAX_BATCHED_RESPONSES) {
+        flush(cid, responses.batches.remove(cid));
+      }
+//  under steady load the queue may never drain, the window bounds how long any response is held
+      if (now - responses.oldest >= batchWindowNanos) {
+        flushAll(responses);
+      }
+      return;
+    }
+//  keep the order of responses to this client
+    List<BatchedLockResponse> batch = pending.get().batches.remove(cid);
+    if (batch != null) {
+      flush(cid, batch);
+    }
 
     try {
-      LockResponseMessage responseMessage = null;
-
-      if (lrc.isLockAward()) {
-        responseMessage = createMessage(lrc, TCMessageType.LOCK_RESPONSE_MESSAGE);
-        responseMessage.initializeAward(lrc.getLockID(), lrc.getThreadID(), lrc.getLockLevel());
-      } else if (lrc.isLockNotAwarded()) {
-        responseMessage = createMessage(lrc, TCMessageType.LOCK_RESPONSE_MESSAGE);
-        responseMessage.initializeRefuse(lrc.getLockID(), lrc.getThreadID(), lrc.getLockLevel());
-      } else if (lrc.isLockRecall()) {
-        responseMessage = createMessage(lrc, TCMessageType.LOCK_RECALL_MESSAGE);
-        responseMessage.initializeRecallWithTimeout(lrc.getLockID(), lrc.getThreadID(), lrc.getLockLevel(), lrc
-            .getAwardLeaseTime());
-      } else if (lrc.isLockWaitTimeout()) {
-        responseMessage = createMessage(lrc, TCMessageType.LOCK_RESPONSE_MESSAGE);
-        responseMessage.initializeWaitTimeout(lrc.getLockID(), lrc.getThreadID(), lrc.getLockLevel());
-      } else if (lrc.isLockInfo()) {
-        responseMessage = createMessage(lrc, TCMessageType.LOCK_QUERY_RESPONSE_MESSAGE);
-        responseMessage.initializeLockInfo(lrc.getLockID(), lrc.getThreadID(), lrc.getLockLevel());
-
-        Collection<ClientServerExchangeLockContext> list = lrc.getGlobalLockInfo();
-        for (ClientServerExchangeLockContext clientServerExchangeLockContext : list) {
-          responseMessage.addContext(clientServerExchangeLockContext);
-        }
+      LockResponseMessage responseMessage = createMessage(lrc, TCMessageType.LOCK_QUERY_RESPONSE_MESSAGE);
+      responseMessage.initializeLockInfo(lrc.getLockID(), lrc.getThreadID(), lrc.getLockLevel());
 
-        for (int i = 0; i < lrc.getNumberOfPendingRequests(); i++) {
-          responseMessage.addContext(new ClientServerExchangeLockContext(lrc.getLockID(), ClientID.NULL_ID,
-                                                                         ThreadID.NULL_ID, State.PENDING_READ));
-        }
+      Collection<ClientServerExchangeLockContext> list = lrc.getGlobalLockInfo();
+      for (ClientServerExchangeLockContext clientServerExchangeLockContext : list) {
+        responseMessage.addContext(clientServerExchangeLockContext);
+      }
 
-      } else {
-        throw new AssertionError("Unknown lock response context : " + lrc);
+      for (int i = 0; i < lrc.getNumberOfPendingRequests(); i++) {
+        responseMessage.addContext(new ClientServerExchangeLockContext(lrc.getLockID(), ClientID.NULL_ID,
+                                                                       ThreadID.NULL_ID, State.PENDING_READ));
       }
 
       send(responseMessage);
@@ -89,9 +125,87 @@ public class RespondToRequestLockHandler extends AbstractEventHandler<LockRespon
     }
   }
 
+  @Override
+  public void queueDrained() {
+    flushAll(pending.get());
+  }
+
+  private void flushAll(PendingResponses responses) {
+    if (responses.batches.isEmpty()) {
+      return;
+    }
+    for (Map.Entry<NodeID, List<BatchedLockResponse>> batch : responses.batches.entrySet()) {
+      flush(batch.getKey(), batch.getValue());
+    }
+    responses.batches.clear();
+  }
+  
+  private void flush(NodeID cid, List<BatchedLockResponse> batch) {
+    try {
+      if (batch.size() == 1) {
+        send(createSingleResponse(cid, batch.get(0)));
+      } else {
+        LockResponseMessage responseMessage = createMessage(cid, TCMessageType.LOCK_RESPONSE_MESSAGE);
+        responseMessage.initializeBatch();
+        for (BatchedLockResponse response : batch) {
+          response.addToMessage(responseMessage);
+        }
+        send(responseMessage);
+      }
+    } catch (NoSuchChannelException e) {
+      logger.info("Failed to send " + batch.size() + " lock messages to:" + cid + " because the session is dead.");
+    }
+  }
+  
+  private LockResponseMessage createSingleResponse(NodeID cid, BatchedLockResponse response) throws NoSuchChannelException {
+    LockResponseMessage responseMessage = null;
+    switch (response.getResponseType()) {
+      case AWARD:
+        responseMessage = createMessage(cid, TCMessageType.LOCK_RESPONSE_MESSAGE);
+        responseMessage.initializeAward(response.getLockID(), response.getThreadID(), response.getLockLevel());
+        break;
+      case REFUSE:
+        responseMessage = createMessage(cid, TCMessageType.LOCK_RESPONSE_MESSAGE);
+        responseMessage.initializeRefuse(response.getLockID(), response.getThreadID(), response.getLockLevel());
+        break;
+      case RECALL_WITH_TIMEOUT:
+        responseMessage = createMessage(cid, TCMessageType.LOCK_RECALL_MESSAGE);
+        responseMessage.initializeRecallWithTimeout(response.getLockID(), response.getThreadID(), response.getLockLevel(), 
+            response.getAwardLeaseTime());
+        break;
+      case WAIT_TIMEOUT:
+        responseMessage = createMessage(cid, TCMessageType.LOCK_RESPONSE_MESSAGE);
+        responseMessage.initializeWaitTimeout(response.getLockID(), response.getThreadID(), response.getLockLevel());
+        break;
+      default:
+        throw new AssertionError("Unexpected batched lock response : " + response);
+    }
+    return responseMessage;
+  }
+
+  private static BatchedLockResponse toBatchedResponse(LockResponseContext lrc) {
+    LockResponseMessage.ResponseType type = null;
+    if (lrc.isLockAward()) {
+      type = LockResponseMessage.ResponseType.AWARD;
+    } else if (lrc.isLockNotAwarded()) {
+      type = LockResponseMessage.ResponseType.REFUSE;
+    } else if (lrc.isLockRecall()) {
+      type = LockResponseMessage.ResponseType.RECALL_WITH_TIMEOUT;
+    } else if (lrc.isLockWaitTimeout()) {
+      type = LockResponseMessage.ResponseType.WAIT_TIMEOUT;
+    } else {
+      throw new AssertionError("Unknown lock response context : " + lrc);
+    }
+    return new BatchedLockResponse(type, lrc.getLockID(), lrc.getThreadID(), lrc.getLockLevel(), lrc.getAwardLeaseTime());
+  }
+
   protected LockResponseMessage createMessage(LockResponseContext lrc, TCMessageType messageType)
       throws NoSuchChannelException {
-    NodeID cid = lrc.getNodeID();
+    return createMessage(lrc.getNodeID(), messageType);
+  }
+
+  protected LockResponseMessage createMessage(NodeID cid, TCMessageType messageType)
+      throws NoSuchChannelException {
     MessageChannel channel = channelManager.getActiveChannel(cid);
     return (LockResponseMessage) channel.createMessage(messageType);
   }
@@ -108,4 +222,10 @@ public class RespondToRequestLockHandler extends AbstractEventHandler<LockRespon
   protected void send(LockResponseMessage responseMessage) {
     responseMessage.send();
   }
+
+  private static class PendingResponses {
+    private final Map<NodeID, List<BatchedLockResponse>> batches = new HashMap<NodeID, List<BatchedLockResponse>>();
+    //  when the oldest response still held was added
+    private long                                         oldest;
+  }
 }
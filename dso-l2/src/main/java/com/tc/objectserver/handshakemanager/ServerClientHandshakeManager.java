@@ -42,6 +42,9 @@ import com.tc.objectserver.entity.ClientDescriptorImpl;
 import com.tc.objectserver.entity.NoopEntityMessage;
 import com.tc.objectserver.handler.ProcessTransactionHandler;
 import com.tc.objectserver.locks.LockManager;
+import com.tc.properties.TCProperties;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.util.Assert;
 import java.util.Collection;
 import java.util.Collections;
@@ -50,6 +53,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 
 public class ServerClientHandshakeManager {
@@ -74,6 +78,13 @@ public class ServerClientHandshakeManager {
   private final Set<ClientID>            existingUnconnectedClients        = new HashSet<>();
   private final boolean                  persistent;
   private final TCLogger                 consoleLogger;
+  private final boolean                  adaptiveWindow;
+  private final int                      adaptiveQuorum;
+  private final int                      adaptiveFactor;
+  private final long                     adaptiveMinimum;
+  private int                            expectedClients;
+  private long                           reconnectStart;
+  private boolean                        windowShortened;
 
   public ServerClientHandshakeManager(TCLogger logger, DSOChannelManager channelManager,
                                       LockManager lockManager, EntityManager entityManager, 
@@ -92,6 +103,11 @@ public class ServerClientHandshakeManager {
     this.persistent = persistent;
     this.consoleLogger = consoleLogger;
     this.reconnectTimerTask = new ReconnectTimerTask(this, timer);
+    TCProperties props = TCPropertiesImpl.getProperties();
+    this.adaptiveWindow = props.getBoolean(TCPropertiesConsts.L2_RECONNECT_WINDOW_ADAPTIVE_ENABLED, false);
+    this.adaptiveQuorum = props.getInt(TCPropertiesConsts.L2_RECONNECT_WINDOW_ADAPTIVE_QUORUM, 90);
+    this.adaptiveFactor = props.getInt(TCPropertiesConsts.L2_RECONNECT_WINDOW_ADAPTIVE_FACTOR, 3);
+    this.adaptiveMinimum = props.getLong(TCPropertiesConsts.L2_RECONNECT_WINDOW_ADAPTIVE_MIN, 5000);
   }
 
   public synchronized boolean isStarting() {
@@ -155,19 +171,7 @@ public class ServerClientHandshakeManager {
           entity.get().reconnectClient(clientID, clientDescriptor, extendedReconnectData);
         }
         
-        // Find any resent messages and re-apply them in the transaction handler.
-        for (ResendVoltronEntityMessage resentMessage : handshake.getResendMessages()) {
-          this.transactionHandler.handleResentMessage(resentMessage);
-        }
-
-        // Now that we have processed everything from this resend, see if it was the last one.
-        this.logger.debug("Removing client " + clientID + " from set of existing unconnected clients.");
-        this.existingUnconnectedClients.remove(clientID);
-        if (this.existingUnconnectedClients.isEmpty()) {
-          this.logger.debug("Last existing unconnected client (" + clientID + ") now connected.  Cancelling timer");
-          this.timer.cancel();
-          start();
-        }
+        handleResends(clientID, handshake);
       } else {
         // This is an unexpected state.  We should only be able to receive handshakes while STARTING (reconnect) or STARTED (new clients).
         Assert.fail();
@@ -175,6 +179,42 @@ public class ServerClientHandshakeManager {
     }
   }
 
+  /**
+   * Handles a continuation of a reconnect handshake which carries only resends.  The client does not count as
+   * reconnected until the last of these has arrived.
+   */
+  public synchronized void notifyClientResends(ClientHandshakeMessage resends) {
+    final ClientID clientID = (ClientID) resends.getSourceNodeID();
+    if (this.state == State.STARTING && this.existingUnconnectedClients.contains(clientID)) {
+      handleResends(clientID, resends);
+    } else {
+      this.logger.warn("Ignoring " + resends.getResendMessages().size() + " resends from " + clientID + " while " + this.state);
+    }
+  }
+
+  // Should be called from within the sync block
+  private void handleResends(ClientID clientID, ClientHandshakeMessage handshake) {
+    // Find any resent messages and re-apply them in the transaction handler.
+    for (ResendVoltronEntityMessage resentMessage : handshake.getResendMessages()) {
+      this.transactionHandler.handleResentMessage(resentMessage);
+    }
+    if (handshake.hasMoreResends()) {
+      this.logger.debug("Waiting for more resends from " + clientID);
+      return;
+    }
+
+    // Now that we have processed everything from this resend, see if it was the last one.
+    this.logger.debug("Removing client " + clientID + " from set of existing unconnected clients.");
+    this.existingUnconnectedClients.remove(clientID);
+    if (this.existingUnconnectedClients.isEmpty()) {
+      this.logger.debug("Last existing unconnected client (" + clientID + ") now connected.  Cancelling timer");
+      this.timer.cancel();
+      start();
+    } else {
+      shortenReconnectWindow();
+    }
+  }
+
   public void notifyClientRefused(ClientHandshakeMessage clientMsg, String message) {
     final ClientID clientID = (ClientID) clientMsg.getSourceNodeID();
     this.channelManager.makeChannelRefuse(clientID, message);
@@ -202,6 +242,41 @@ public class ServerClientHandshakeManager {
     }
   }
 
+  /**
+   * Once the quorum of previous clients is back, the ones still missing are most likely dead.  Rather than holding
+   * everyone for the whole configured window, give the stragglers a multiple of the time the quorum took.  Should be
+   * called from within the sync block.
+   */
+  private void shortenReconnectWindow() {
+    if (!this.adaptiveWindow || this.windowShortened || this.expectedClients == 0) {
+      return;
+    }
+    int returned = this.expectedClients - this.existingUnconnectedClients.size();
+    if (returned * 100L < (long) this.adaptiveQuorum * this.expectedClients) {
+      return;
+    }
+    this.windowShortened = true;
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.reconnectStart);
+    long remaining = Math.max(this.adaptiveMinimum, elapsed * this.adaptiveFactor);
+    if (elapsed + remaining >= this.reconnectTimeout) {
+      return;
+    }
+    try {
+      this.timer.schedule(new TimerTask() {
+        @Override
+        public void run() {
+          timer.cancel();
+          notifyTimeout();
+        }
+      }, remaining);
+      this.consoleLogger.info(returned + " of " + this.expectedClients + " clients reconnected in " + elapsed
+                              + " ms.  Shortening reconnect window to " + remaining + " ms for the remaining "
+                              + this.existingUnconnectedClients.size() + " clients.");
+    } catch (IllegalStateException closing) {
+      // the reconnect timer already fired and the window is closing anyway
+    }
+  }
+
   // Should be called from within the sync block
   private void start() {
     this.logger.info("Starting TSA services...");
@@ -240,6 +315,10 @@ public class ServerClientHandshakeManager {
     }
     this.consoleLogger.info(message);
 
+    synchronized (this) {
+      this.expectedClients = this.existingUnconnectedClients.size();
+      this.reconnectStart = System.nanoTime();
+    }
     if (this.reconnectTimeout < RECONNECT_WARN_INTERVAL) {
       this.timer.schedule(this.reconnectTimerTask, this.reconnectTimeout);
     } else {
@@ -169,12 +169,15 @@ import com.tc.objectserver.core.impl.ServerManagementContext;
 import com.tc.objectserver.entity.ActiveToPassiveReplication;
 import com.tc.objectserver.handler.ChannelLifeCycleHandler;
 import com.tc.objectserver.handler.ClientHandshakeHandler;
+import com.tc.objectserver.handler.ProcessLockRequestHandler;
 import com.tc.objectserver.handler.ProcessTransactionHandler;
 import com.tc.objectserver.handler.RequestLockUnLockHandler;
 import com.tc.objectserver.handler.RespondToRequestLockHandler;
 import com.tc.objectserver.handshakemanager.ServerClientHandshakeManager;
 import com.tc.objectserver.locks.LockManagerImpl;
 import com.tc.objectserver.locks.LockResponseContext;
+import com.tc.objectserver.locks.LockStore;
+import com.tc.objectserver.locks.StripedLockRequestContext;
 import com.tc.objectserver.persistence.ClientStatePersistor;
 import com.tc.objectserver.persistence.FlatFileStorageProviderConfiguration;
 import com.tc.objectserver.persistence.FlatFileStorageServiceProvider;
@@ -230,6 +233,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
 import java.util.Timer;
+import java.util.TimerTask;
 
 import com.tc.objectserver.entity.ClientEntityStateManager;
 import com.tc.objectserver.entity.ClientEntityStateManagerImpl;
@@ -237,6 +241,7 @@ import com.tc.objectserver.entity.EntityManagerImpl;
 import com.tc.objectserver.entity.NoopEntityMessage;
 import com.tc.objectserver.entity.RequestProcessor;
 import com.tc.objectserver.entity.RequestProcessorHandler;
+import com.tc.objectserver.entity.RequestTracer;
 import com.tc.objectserver.handler.ReplicatedTransactionHandler;
 import com.tc.objectserver.handler.ReplicationSender;
 import com.tc.objectserver.handler.ServerManagementHandler;
@@ -292,6 +297,9 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
   private final TaskRunner                       taskRunner;
   private final TerracottaServiceProviderRegistry serviceRegistry;
   private WeightGeneratorFactory globalWeightGeneratorFactory;
+  private final RequestTracer                    requestTracer    = new RequestTracer();
+  private Timer                                  entityStatisticsTimer;
+  private final FlightRecorder                   flightRecorder   = new FlightRecorder();
 
   // used by a test
   public DistributedObjectServer(L2ConfigurationSetupManager configSetupManager, TCThreadGroup threadGroup,
@@ -567,8 +575,12 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
     final Stage<ServerEntityResponseMessage> communicatorResponseStage = stageManager.createStage(ServerConfigurationContext.SERVER_ENTITY_MESSAGE_RESPONSE_STAGE, ServerEntityResponseMessage.class,  new CommunicatorResponseHandler(communicatorService), 1, maxStageSize);
 
     // Creating a stage here so that the sink can be passed
-    final Stage<LockResponseContext> respondToLockStage = stageManager.createStage(ServerConfigurationContext.RESPOND_TO_LOCK_REQUEST_STAGE, LockResponseContext.class, new RespondToRequestLockHandler(), 1, maxStageSize);
-    this.lockManager = new LockManagerImpl(respondToLockStage.getSink(), channelManager);
+    // Lock stages are striped like the lock store, each thread owning the same number of lock store segments
+    final int lockStageThreads = L2Utils.getOptimalLockStageWorkerThreads(LockStore.DEFAULT_SEGMENTS);
+    final Stage<LockResponseContext> respondToLockStage = stageManager.createStage(ServerConfigurationContext.RESPOND_TO_LOCK_REQUEST_STAGE, LockResponseContext.class, new RespondToRequestLockHandler(
+        TCPropertiesImpl.getProperties().getLong(TCPropertiesConsts.L2_LOCKMANAGER_RESPONSE_BATCH_WINDOW)), lockStageThreads, maxStageSize);
+    final Stage<StripedLockRequestContext> processLockStage = stageManager.createStage(ServerConfigurationContext.PROCESS_LOCK_REQUEST_STAGE, StripedLockRequestContext.class, new ProcessLockRequestHandler(), lockStageThreads, maxStageSize);
+    this.lockManager = new LockManagerImpl(respondToLockStage.getSink(), processLockStage.getSink(), channelManager);
 
     final CallbackDumpAdapter lockDumpAdapter = new CallbackDumpAdapter(this.lockManager);
     this.dumpHandler.registerForDump(lockDumpAdapter);
@@ -603,7 +615,7 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
         .createCounter(sampledCumulativeCounterConfig);
 
     // We need to set up a stage to point at the ProcessTransactionHandler and we also need to register it for events, below.
-    final ProcessTransactionHandler processTransactionHandler = new ProcessTransactionHandler(this.persistor.getEntityPersistor(), this.persistor.getTransactionOrderPersistor());
+    final ProcessTransactionHandler processTransactionHandler = new ProcessTransactionHandler(this.persistor.getEntityPersistor(), this.persistor.getTransactionOrderPersistor(), this.requestTracer);
     final Stage<Runnable> requestProcessorStage = stageManager.createStage(ServerConfigurationContext.REQUEST_PROCESSOR_STAGE, Runnable.class, new RequestProcessorHandler(), L2Utils.getOptimalApplyStageWorkerThreads(true), maxStageSize);
     final Stage<VoltronEntityMessage> processTransactionStage_voltron = stageManager.createStage(ServerConfigurationContext.VOLTRON_MESSAGE_STAGE, VoltronEntityMessage.class, processTransactionHandler.getVoltronMessageHandler(), 1, maxStageSize);
     final Sink<VoltronEntityMessage> voltronMessageSink = processTransactionStage_voltron.getSink();
@@ -619,6 +631,10 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
         return IMonitoringProducer.class;
       }});
     ManagementTopologyEventCollector eventCollector = new ManagementTopologyEventCollector(this.getServerNodeID(), serviceInterface);
+    // client and entity events come in on the request path so the monitoring tree is updated off to the side
+    Stage<Runnable> monitoringUpdateStage = stageManager.createStage(ServerConfigurationContext.PLATFORM_MONITORING_UPDATE_STAGE, 
+        Runnable.class, eventCollector.getEventHandler(), 1, maxStageSize);
+    eventCollector.setUpdateSink(monitoringUpdateStage.getSink());
 // add this server to the tree of servers
     eventCollector.serverDidJoinGroup(this.getServerNodeID(), server.getL2Identifier(), host, 
         bindAddress, serverPort, l2DSOConfig.tsaGroupPort().getValue(),
@@ -628,6 +644,7 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
     EntityManagerImpl entityManager = new EntityManagerImpl(this.serviceRegistry, clientEntityStateManager, eventCollector, processor, this::sendNoop);
     channelManager.addEventListener(clientEntityStateManager);
     processTransactionHandler.setLateBoundComponents(channelManager, entityManager);
+    startEntityStatisticsPublisher(entityManager);
     
     // We need to connect the IInterEntityMessengerProvider to the voltronMessageSink.
     final EntityMessengerProvider messengerProvider = new EntityMessengerProvider(voltronMessageSink);
@@ -638,7 +655,7 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
       processTransactionHandler.loadExistingEntities();
     }
 
-    final Stage<LockRequestMessage> requestLock = stageManager.createStage(ServerConfigurationContext.REQUEST_LOCK_STAGE, LockRequestMessage.class, new RequestLockUnLockHandler(), 1, maxStageSize);
+    final Stage<LockRequestMessage> requestLock = stageManager.createStage(ServerConfigurationContext.REQUEST_LOCK_STAGE, LockRequestMessage.class, new RequestLockUnLockHandler(), lockStageThreads, maxStageSize);
     final ChannelLifeCycleHandler channelLifeCycleHandler = new ChannelLifeCycleHandler(this.communicationsManager, channelManager, this.haConfig);
     stageManager.createStage(ServerConfigurationContext.CHANNEL_LIFE_CYCLE_STAGE, NodeStateEventContext.class, channelLifeCycleHandler, 1, maxStageSize);
     channelManager.addEventListener(channelLifeCycleHandler);
@@ -698,7 +715,8 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
     final Stage<StateChangedEvent> stateChange = stageManager.createStage(ServerConfigurationContext.L2_STATE_CHANGE_STAGE, StateChangedEvent.class, new L2StateChangeHandler(this.getServerNodeID(), createStageController(), eventCollector), 1, maxStageSize);
     StateManager state = new StateManagerImpl(DistributedObjectServer.consoleLogger, this.groupCommManager, 
         stateChange.getSink(), stageManager, 
-        new StateManagerConfigImpl(configSetupManager.getActiveServerGroupForThisL2().getElectionTimeInSecs()),
+        new StateManagerConfigImpl(configSetupManager.getActiveServerGroupForThisL2().getElectionTimeInSecs(), 
+            configSetupManager.getActiveServerGroupForThisL2().getMembers().length),
         weightGeneratorFactory, 
         this.persistor.getClusterStatePersistor());
     
@@ -716,12 +734,14 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
 // setup replication    
     final Stage<ReplicationEnvelope> replicationDriver = stageManager.createStage(ServerConfigurationContext.ACTIVE_TO_PASSIVE_DRIVER_STAGE, ReplicationEnvelope.class, new ReplicationSender(groupCommManager), 1, maxStageSize);
     
-    final ActiveToPassiveReplication passives = new ActiveToPassiveReplication(l2Coordinator.getReplicatedClusterStateManager().getPassives(), processTransactionHandler.getEntityList(), replicationDriver.getSink());
+    final ActiveToPassiveReplication passives = new ActiveToPassiveReplication(l2Coordinator.getReplicatedClusterStateManager().getPassives(), processTransactionHandler.getEntityList(), replicationDriver.getSink(), groupCommManager);
     processor.setReplication(passives); 
+    this.dumpHandler.registerForDump(new CallbackDumpAdapter(passives));
+    startFlightRecorder(stageManager, passives);
 //  routing for passive to receive replication    
     Stage<ReplicationMessage> replicationStage = stageManager.createStage(ServerConfigurationContext.PASSIVE_REPLICATION_STAGE, ReplicationMessage.class, 
         new ReplicatedTransactionHandler(this.l2Coordinator.getStateManager(), this.persistor.getTransactionOrderPersistor(), entityManager, 
-            this.persistor.getEntityPersistor(), groupCommManager).getEventHandler(), 1, maxStageSize);
+            this.persistor.getEntityPersistor(), groupCommManager, this.requestTracer).getEventHandler(), 1, maxStageSize);
     Stage<ReplicationMessageAck> replicationStageAck = stageManager.createStage(ServerConfigurationContext.PASSIVE_REPLICATION_ACK_STAGE, ReplicationMessageAck.class, 
         new AbstractEventHandler<ReplicationMessageAck>() {
           @Override
@@ -746,6 +766,7 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
     GroupEventsDispatchHandler dispatchHandler = new GroupEventsDispatchHandler();
     dispatchHandler.addListener(this.l2Coordinator);  
     dispatchHandler.addListener(passives);
+    this.l2Coordinator.addStandbyListener(passives);
     dispatchHandler.addListener(connectPassiveOperatorEvents(haConfig.getNodesStore(), eventCollector));
     Stage<GroupEvent> groupEvents = stageManager.createStage(ServerConfigurationContext.GROUP_EVENTS_DISPATCH_STAGE, GroupEvent.class, dispatchHandler, 1, maxStageSize);
     this.groupCommManager.registerForGroupEvents(dispatchHandler.createDispatcher(groupEvents.getSink()));
@@ -847,6 +868,34 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
     });
   }
   
+  private void startFlightRecorder(StageManager stageManager, ActiveToPassiveReplication passives) {
+    this.flightRecorder.addProbe(this.flightRecorder.stages(stageManager));
+    this.flightRecorder.addProbe(FlightRecorder.queueWait(stageManager, ServerConfigurationContext.REQUEST_LOCK_STAGE));
+    this.flightRecorder.addProbe(FlightRecorder.queueWait(stageManager, ServerConfigurationContext.PROCESS_LOCK_REQUEST_STAGE));
+    this.flightRecorder.addProbe(FlightRecorder.lockGrantWait(this.lockManager));
+    this.flightRecorder.addProbe(FlightRecorder.garbageCollectors());
+    this.flightRecorder.addProbe(FlightRecorder.network("l1", this.communicationsManager.getConnectionManager().getTcComm()));
+    this.flightRecorder.addProbe(FlightRecorder.replication(passives));
+    this.flightRecorder.addProbe(FlightRecorder.persistence());
+    this.dumpHandler.registerForDump(new CallbackDumpAdapter(this.flightRecorder));
+    if (FlightRecorder.isEnabled()) {
+      this.flightRecorder.start();
+    }
+  }
+
+  private void startEntityStatisticsPublisher(EntityManagerImpl entityManager) {
+    long interval = TCPropertiesImpl.getProperties().getLong(TCPropertiesConsts.ENTITY_STATS_PUBLISH_INTERVAL, 10000);
+    if (interval > 0 && TCPropertiesImpl.getProperties().getBoolean(TCPropertiesConsts.ENTITY_STATS_ENABLED, true)) {
+      this.entityStatisticsTimer = new Timer("Entity statistics publisher", true);
+      this.entityStatisticsTimer.schedule(new TimerTask() {
+        @Override
+        public void run() {
+          entityManager.publishStatistics();
+        }
+      }, interval, interval);
+    }
+  }
+  
   private void startStages(StageManager stageManager, List<PostInit> toInit) {
 //  exclude from startup specific stages that are controlled by the stage controller. 
     stageManager.startAll(this.context, toInit, 
@@ -1077,6 +1126,11 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
 
     this.seda.getStageManager().stopAll();
 
+    if (this.entityStatisticsTimer != null) {
+      this.entityStatisticsTimer.cancel();
+    }
+    this.flightRecorder.stop();
+
     if (this.l1Listener != null) {
       try {
         this.l1Listener.stop(5000);
@@ -1132,6 +1186,14 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
     return this.operatorEventHistoryProvider;
   }
 
+  public RequestTracer getRequestTracer() {
+    return this.requestTracer;
+  }
+
+  public FlightRecorder getFlightRecorder() {
+    return this.flightRecorder;
+  }
+
   @Override
   public void addAllLocksTo(LockInfoByThreadID lockInfo) {
     // this feature not implemented for server. DEV-1949
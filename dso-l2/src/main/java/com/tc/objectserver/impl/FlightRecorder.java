@@ -0,0 +1,444 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.impl;
+
+import com.tc.async.api.Stage;
+import com.tc.async.api.StageManager;
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import com.tc.net.NodeID;
+import com.tc.net.core.TCComm;
+import com.tc.objectserver.entity.ActiveToPassiveReplication;
+import com.tc.objectserver.locks.LockManagerImpl;
+import com.tc.objectserver.persistence.FlatFilePersistentStorage;
+import com.tc.properties.TCProperties;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
+import com.tc.stats.LatencyHistogram;
+import com.tc.text.PrettyPrintable;
+import com.tc.text.PrettyPrinter;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * An always-on, fixed size recording of server health taken at a fixed interval.  Each sample is a set of named
+ * readings contributed by {@link Probe}s (stage queue depths, GC, network, replication, persistence and so on) and
+ * the oldest sample is overwritten once the ring is full.  The recording is dumped through JMX or the server dump,
+ * and automatically to the log when a stage spends longer than the stall threshold on a single context, so the
+ * minutes leading up to a latency spike can be looked at after the fact.
+ * <p>
+ * Probes only run on the recorder thread so they may keep the previous reading around to report deltas.
+ */
+public class FlightRecorder implements PrettyPrintable {
+  private static final TCLogger logger = TCLogging.getLogger(FlightRecorder.class);
+
+  /**
+   * A source of readings, called once per sample on the recorder thread.
+   */
+  public interface Probe {
+    void sample(Sample sample);
+  }
+
+  private final long intervalMillis;
+  private final long stallThresholdNanos;
+  private final Sample[] ring;
+  private final List<Probe> probes = new CopyOnWriteArrayList<>();
+  //  ring position and fill, guarded by this
+  private int next = 0;
+  private int size = 0;
+  //  only touched by the recorder thread
+  private Sample last;
+  private long lastAutoDump;
+  private int autoDumps = 0;
+  private Timer timer;
+
+  public FlightRecorder() {
+    this(TCPropertiesImpl.getProperties());
+  }
+
+  private FlightRecorder(TCProperties props) {
+    this(props.getLong(TCPropertiesConsts.L2_FLIGHT_RECORDER_INTERVAL, 1000),
+        props.getInt(TCPropertiesConsts.L2_FLIGHT_RECORDER_SAMPLES, 600),
+        props.getLong(TCPropertiesConsts.L2_FLIGHT_RECORDER_STALL_THRESHOLD, 10000));
+  }
+
+  FlightRecorder(long intervalMillis, int samples, long stallThresholdMillis) {
+    this.intervalMillis = intervalMillis;
+    this.ring = new Sample[samples];
+    this.stallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(stallThresholdMillis);
+  }
+
+  public static boolean isEnabled() {
+    return TCPropertiesImpl.getProperties().getBoolean(TCPropertiesConsts.L2_FLIGHT_RECORDER_ENABLED, true);
+  }
+
+  public void addProbe(Probe probe) {
+    probes.add(probe);
+  }
+
+  public synchronized void start() {
+    if (timer == null) {
+      timer = new Timer("Flight recorder", true);
+      timer.scheduleAtFixedRate(new TimerTask() {
+        @Override
+        public void run() {
+          sample();
+        }
+      }, intervalMillis, intervalMillis);
+    }
+  }
+
+  public synchronized void stop() {
+    if (timer != null) {
+      timer.cancel();
+      timer = null;
+    }
+  }
+
+  void sample() {
+    Sample sample = new Sample(System.currentTimeMillis());
+    for (Probe probe : probes) {
+      try {
+        probe.sample(sample);
+      } catch (Throwable t) {
+        logger.warn("flight recorder probe " + probe + " failed", t);
+      }
+    }
+    sample.seal(last);
+    last = sample;
+    synchronized (this) {
+      ring[next] = sample;
+      next = (next + 1) % ring.length;
+      size = Math.min(size + 1, ring.length);
+    }
+    if (!sample.stalls.isEmpty()) {
+      long now = System.nanoTime();
+      //  dump at most once per turn of the ring so a long stall doesn't log the same samples over and over
+      if (autoDumps == 0 || now - lastAutoDump > TimeUnit.MILLISECONDS.toNanos(intervalMillis * ring.length)) {
+        lastAutoDump = now;
+        autoDumps += 1;
+        logger.warn("Stall detected, " + sample.stalls + "\n" + dump());
+      }
+    }
+  }
+
+  int getAutoDumpCount() {
+    return autoDumps;
+  }
+
+  /**
+   * @return the recorded samples, oldest first
+   */
+  public synchronized List<Sample> getSamples() {
+    List<Sample> list = new ArrayList<>(size);
+    for (int x = 0; x < size; x++) {
+      list.add(ring[(next - size + x + ring.length) % ring.length]);
+    }
+    return list;
+  }
+
+  public synchronized void reset() {
+    Arrays.fill(ring, null);
+    next = 0;
+    size = 0;
+  }
+
+  /**
+   * @return the whole recording, one line per sample with the readings which were not zero
+   */
+  public String dump() {
+    List<Sample> samples = getSamples();
+    SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss.SSS");
+    StringBuilder out = new StringBuilder();
+    out.append("Flight recorder: ").append(samples.size()).append(" samples every ").append(intervalMillis).append("ms");
+    for (Sample sample : samples) {
+      out.append('\n').append(format.format(new Date(sample.getTime())));
+      for (int x = 0; x < sample.names.length; x++) {
+        if (sample.values[x] != 0) {
+          out.append(' ').append(sample.names[x]).append('=').append(sample.values[x]);
+        }
+      }
+    }
+    return out.toString();
+  }
+
+  @Override
+  public PrettyPrinter prettyPrint(PrettyPrinter out) {
+    out.print(getClass().getName()).flush();
+    out.indent().print(dump()).flush();
+    return out;
+  }
+
+  /**
+   * The readings taken at one instant.  Names are shared with the previous sample when they are the same, which they
+   * usually are, so a full ring costs little more than its values.
+   */
+  public static class Sample {
+    private final long time;
+    private List<String> pendingNames = new ArrayList<>();
+    private long[] pendingValues = new long[64];
+    private final List<String> stalls = new ArrayList<>(0);
+    private String[] names;
+    private long[] values;
+
+    Sample(long time) {
+      this.time = time;
+    }
+
+    public void record(String name, long value) {
+      int index = pendingNames.size();
+      if (index == pendingValues.length) {
+        pendingValues = Arrays.copyOf(pendingValues, index * 2);
+      }
+      pendingNames.add(name);
+      pendingValues[index] = value;
+    }
+
+    /**
+     * Flags something in this sample as stuck, which causes the recording to be dumped.
+     */
+    public void stalled(String description) {
+      stalls.add(description);
+    }
+
+    private void seal(Sample previous) {
+      String[] list = pendingNames.toArray(new String[pendingNames.size()]);
+      this.names = (previous != null && Arrays.equals(previous.names, list)) ? previous.names : list;
+      this.values = Arrays.copyOf(pendingValues, list.length);
+      this.pendingNames = null;
+      this.pendingValues = null;
+    }
+
+    public long getTime() {
+      return time;
+    }
+
+    public Map<String, Long> getValues() {
+      Map<String, Long> map = new HashMap<>();
+      for (int x = 0; x < names.length; x++) {
+        map.put(names[x], values[x]);
+      }
+      return map;
+    }
+  }
+
+  /**
+   * Queue depth of every stage and how long any stage has been stuck on one context.  The latter is what drives the
+   * automatic dump.
+   */
+  public Probe stages(StageManager stageManager) {
+    return new Probe() {
+      @Override
+      public void sample(Sample sample) {
+        for (Stage<?> stage : stageManager.getStages()) {
+          sample.record("stage." + stage.getName() + ".depth", stage.getSink().size());
+          long running = stage.getLongestRunningTime();
+          sample.record("stage." + stage.getName() + ".runningMs", TimeUnit.NANOSECONDS.toMillis(running));
+          if (stallThresholdNanos > 0 && running > stallThresholdNanos) {
+            sample.stalled(stage.getName() + " has been running one context for " + TimeUnit.NANOSECONDS.toMillis(running) + "ms");
+          }
+        }
+      }
+
+      @Override
+      public String toString() {
+        return "stages";
+      }
+    };
+  }
+
+  /**
+   * Mean time contexts waited in the queue of the named stage over the last interval.  Used for the lock stages, where
+   * lock requests wait before the lock manager sees them.
+   */
+  public static Probe queueWait(StageManager stageManager, String stageName) {
+    return new Probe() {
+      private long lastCount;
+      private long lastTotal;
+
+      @Override
+      public void sample(Sample sample) {
+        for (Stage<?> stage : stageManager.getStages()) {
+          if (stage.getName().equals(stageName)) {
+            LatencyHistogram.Snapshot wait = stage.getLatencyStats().getQueueWaitLatency();
+            if (wait.getCount() < lastCount) {
+              //  the stage statistics were reset
+              lastCount = 0;
+              lastTotal = 0;
+            }
+            long count = wait.getCount() - lastCount;
+            long total = wait.getTotal() - lastTotal;
+            lastCount = wait.getCount();
+            lastTotal = wait.getTotal();
+            sample.record("wait." + stageName + ".meanUs", count > 0 ? TimeUnit.NANOSECONDS.toMicros(total / count) : 0);
+          }
+        }
+      }
+
+      @Override
+      public String toString() {
+        return "queueWait(" + stageName + ")";
+      }
+    };
+  }
+
+  /**
+   * Lock requests granted after queuing behind other requests over the last interval, and the mean time they waited
+   * for the grant.
+   */
+  public static Probe lockGrantWait(LockManagerImpl lockManager) {
+    return new Probe() {
+      private long lastCount;
+      private long lastTotal;
+
+      @Override
+      public void sample(Sample sample) {
+        LatencyHistogram.Snapshot wait = lockManager.getGrantWaitLatency();
+        long count = wait.getCount() - lastCount;
+        long total = wait.getTotal() - lastTotal;
+        lastCount = wait.getCount();
+        lastTotal = wait.getTotal();
+        sample.record("lock.grants", count);
+        sample.record("lock.grantWait.meanUs", count > 0 ? TimeUnit.NANOSECONDS.toMicros(total / count) : 0);
+      }
+
+      @Override
+      public String toString() {
+        return "lockGrantWait";
+      }
+    };
+  }
+
+  /**
+   * Collections and time spent collecting over the last interval, per collector.
+   */
+  public static Probe garbageCollectors() {
+    return new Probe() {
+      private final Map<String, long[]> previous = new HashMap<>();
+
+      @Override
+      public void sample(Sample sample) {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+          long[] last = previous.computeIfAbsent(gc.getName(), k -> new long[2]);
+          long count = gc.getCollectionCount();
+          long time = gc.getCollectionTime();
+          sample.record("gc." + gc.getName() + ".count", count - last[0]);
+          sample.record("gc." + gc.getName() + ".ms", time - last[1]);
+          last[0] = count;
+          last[1] = time;
+        }
+      }
+
+      @Override
+      public String toString() {
+        return "garbageCollectors";
+      }
+    };
+  }
+
+  /**
+   * Percentage of the last interval the selector threads of a comm layer were doing something other than waiting in
+   * select().
+   */
+  public static Probe network(String name, TCComm comm) {
+    return new Probe() {
+      private long lastIdle = comm.getSelectIdleNanos();
+      private long lastTime = System.nanoTime();
+
+      @Override
+      public void sample(Sample sample) {
+        long idle = comm.getSelectIdleNanos();
+        long now = System.nanoTime();
+        long capacity = (now - lastTime) * comm.getSelectThreadCount();
+        if (capacity > 0) {
+          long busy = Math.max(0, capacity - (idle - lastIdle));
+          sample.record("nio." + name + ".busyPercent", busy * 100 / capacity);
+        }
+        lastIdle = idle;
+        lastTime = now;
+      }
+
+      @Override
+      public String toString() {
+        return "network(" + name + ")";
+      }
+    };
+  }
+
+  /**
+   * Replicated messages and bytes each passive has yet to acknowledge and the age of the oldest of them.
+   */
+  public static Probe replication(ActiveToPassiveReplication replication) {
+    return new Probe() {
+      @Override
+      public void sample(Sample sample) {
+        for (Map.Entry<NodeID, ActiveToPassiveReplication.ReplicationLag> e : replication.getReplicationLag().entrySet()) {
+          ActiveToPassiveReplication.ReplicationLag lag = e.getValue();
+          sample.record("replication." + e.getKey() + ".unacked", lag.getMessages());
+          sample.record("replication." + e.getKey() + ".unackedBytes", lag.getBytes());
+          sample.record("replication." + e.getKey() + ".oldestMs", lag.getOldestAgeMillis());
+        }
+      }
+
+      @Override
+      public String toString() {
+        return "replication";
+      }
+    };
+  }
+
+  /**
+   * Flushes of the flat file storage over the last interval, their total and longest time.
+   */
+  public static Probe persistence() {
+    return new Probe() {
+      private long lastCount = FlatFilePersistentStorage.getFlushCount();
+      private long lastNanos = FlatFilePersistentStorage.getFlushNanos();
+
+      @Override
+      public void sample(Sample sample) {
+        long count = FlatFilePersistentStorage.getFlushCount();
+        long nanos = FlatFilePersistentStorage.getFlushNanos();
+        sample.record("persistence.flushes", count - lastCount);
+        sample.record("persistence.flushMs", TimeUnit.NANOSECONDS.toMillis(nanos - lastNanos));
+        sample.record("persistence.flushMaxMs", TimeUnit.NANOSECONDS.toMillis(FlatFilePersistentStorage.getAndResetMaxFlushNanos()));
+        lastCount = count;
+        lastNanos = nanos;
+      }
+
+      @Override
+      public String toString() {
+        return "persistence";
+      }
+    };
+  }
+}
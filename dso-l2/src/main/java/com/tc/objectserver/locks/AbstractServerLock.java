@@ -43,7 +43,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
-import java.util.TimerTask;
+import java.util.concurrent.Future;
 
 /**
  * This class extends SinglyLinkedList which stores ServerLockContext. The ServerLockContexts are placed in the order of
@@ -295,7 +295,7 @@ public abstract class AbstractServerLock extends SinglyLinkedList<ServerLockCont
         .getThreadID(), cselc.getState(), cselc.timeout(), helper);
     if (cselc.timeout() > 0) {
       LockTimerContext ltc = new LockTimerContext(lockID, cselc.getThreadID(), (ClientID) cselc.getNodeID(), helper);
-      TimerTask task = helper.getLockTimer().scheduleTimer(helper.getTimerCallback(), cselc.timeout(), ltc);
+      Future<?> task = helper.getLockTimer().scheduleTimer(helper.getTimerCallback(), cselc.timeout(), ltc);
       context.setTimerTask(task);
     }
     return context;
@@ -322,7 +322,7 @@ public abstract class AbstractServerLock extends SinglyLinkedList<ServerLockCont
     WaitServerLockContext waiter = createWaitOrTryPendingServerLockContext(cid, tid, State.WAITER, timeout, helper);
     if (timeout > 0) {
       LockTimerContext ltc = new LockTimerContext(lockID, tid, cid, helper);
-      TimerTask task = helper.getLockTimer().scheduleTimer(helper.getTimerCallback(), timeout, ltc);
+      Future<?> task = helper.getLockTimer().scheduleTimer(helper.getTimerCallback(), timeout, ltc);
       waiter.setTimerTask(task);
     }
     addWaiter(waiter, helper);
@@ -344,7 +344,7 @@ public abstract class AbstractServerLock extends SinglyLinkedList<ServerLockCont
         WaitServerLockContext waitContext = createTryPendingServerLockContext(cid, tid, level, timeout, helper);
         if (timeout > 0) {
           LockTimerContext ltc = new LockTimerContext(lockID, tid, cid, helper);
-          TimerTask task;
+          Future<?> task;
           try {
             task = helper.getLockTimer().scheduleTimer(helper.getTimerCallback(), timeout, ltc);
           } catch (IllegalArgumentException e) {
@@ -356,10 +356,15 @@ public abstract class AbstractServerLock extends SinglyLinkedList<ServerLockCont
           }
           waitContext.setTimerTask(task);
         }
+        waitContext.markQueued();
         addTryPending(waitContext, helper);
         break;
       case PENDING:
         ServerLockContext pendingContext = createPendingContext(cid, tid, level, helper);
+        if (pendingContext instanceof LinkedServerLockContext) {
+          // a single context means the lock was empty and the request is granted straight away
+          ((LinkedServerLockContext) pendingContext).markQueued();
+        }
         addPending(pendingContext, helper);
         break;
       //$CASES-OMITTED$
@@ -421,7 +426,7 @@ public abstract class AbstractServerLock extends SinglyLinkedList<ServerLockCont
           case TRY_PENDING:
             WaitServerLockContext waitContext = (WaitServerLockContext) context;
             if (waitContext.getTimerTask() != null) {
-              waitContext.getTimerTask().cancel();
+              waitContext.getTimerTask().cancel(false);
             }
             break;
           //$CASES-OMITTED$
@@ -480,6 +485,9 @@ public abstract class AbstractServerLock extends SinglyLinkedList<ServerLockCont
    * Assumption that this context has already been removed from the list
    */
   protected void awardLock(LockHelper helper, ServerLockContext request, State state, boolean toRespond) {
+    if (request instanceof LinkedServerLockContext && ((LinkedServerLockContext) request).getQueuedAt() != 0) {
+      helper.recordGrantWait(System.nanoTime() - ((LinkedServerLockContext) request).getQueuedAt());
+    }
     // add this request to the front of the list
     cancelTryLockOrWaitTimer(request, helper);
     request = changeStateToHolder(request, state, helper);
@@ -686,7 +694,7 @@ public abstract class AbstractServerLock extends SinglyLinkedList<ServerLockCont
     if (request.isTryPending() || request.isWaiter()) {
       WaitServerLockContext waitRequest = (WaitServerLockContext) request;
       if (waitRequest.getTimerTask() != null) {
-        waitRequest.getTimerTask().cancel();
+        waitRequest.getTimerTask().cancel(false);
       }
     }
   }
@@ -22,6 +22,7 @@ import com.tc.async.api.Sink;
 import com.tc.object.locks.ServerLockContextStateMachine;
 import com.tc.objectserver.locks.timer.LockTimer;
 import com.tc.objectserver.locks.timer.TimerCallback;
+import com.tc.stats.LatencyHistogram;
 
 public class LockHelper {
   private final LockTimer                     lockTimer;
@@ -29,6 +30,9 @@ public class LockHelper {
   private final LockStore                     lockStore;
   private final ServerLockContextStateMachine contextStateMachine;
   private final TimerCallback                 timerCallback;
+  // how long queued lock requests waited to be granted, recorded by whichever thread grants them
+  private final LatencyHistogram              grantWait = new LatencyHistogram();
+  private final ThreadLocal<LatencyHistogram.Recorder> grantWaitRecorder = ThreadLocal.withInitial(grantWait::newRecorder);
 
   public LockHelper(Sink<LockResponseContext> lockSink, LockStore lockStore, TimerCallback timerCallback) {
     this.lockTimer = new LockTimer();
@@ -57,4 +61,12 @@ public class LockHelper {
   public TimerCallback getTimerCallback() {
     return timerCallback;
   }
+
+  public void recordGrantWait(long nanos) {
+    grantWaitRecorder.get().record(nanos);
+  }
+
+  public LatencyHistogram.Snapshot getGrantWaitLatency() {
+    return grantWait.snapshot();
+  }
 }
@@ -24,6 +24,7 @@ import com.tc.object.locks.LockID;
 import com.tc.object.locks.ServerLockLevel;
 import com.tc.object.locks.ThreadID;
 import com.tc.objectserver.locks.ServerLock.NotifyAction;
+import com.tc.objectserver.locks.timer.LockTimer.LockTimerContext;
 
 import java.util.Collection;
 
@@ -112,6 +113,13 @@ public interface LockManager {
    */
   void wait(LockID lid, ClientID cid, ThreadID tid, long timeout);
 
+  /**
+   * Called by the stage thread when a wait or try lock timer, handed over by the timer thread, comes due.
+   * 
+   * @param lockTimerContext - the timer which came due
+   */
+  void processTimerTimeout(LockTimerContext lockTimerContext);
+
   /**
    * This method is called during handshake when the client informs the server of its locks. This method will only be
    * called with holders context and waiters.
@@ -134,4 +142,18 @@ public interface LockManager {
    * timers and start processing of the pending requests.
    */
   void start();
+
+  /**
+   * Requests for locks on the same stripe touch the same lock store segment.  Stage threads are assigned whole stripes
+   * so requests for one lock are always handled in arrival order by a single thread.
+   * 
+   * @param lid - Id of the lock.
+   * @return the stripe the lock belongs to, between 0 and {@link #getStripeCount()} - 1
+   */
+  int getStripe(LockID lid);
+
+  /**
+   * @return the number of independent stripes the locks are spread across
+   */
+  int getStripeCount();
 }
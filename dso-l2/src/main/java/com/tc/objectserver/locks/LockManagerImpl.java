@@ -35,6 +35,7 @@ import com.tc.objectserver.locks.ServerLock.NotifyAction;
 import com.tc.objectserver.locks.factory.ServerLockFactoryImpl;
 import com.tc.objectserver.locks.timer.LockTimer.LockTimerContext;
 import com.tc.objectserver.locks.timer.TimerCallback;
+import com.tc.stats.LatencyHistogram;
 import com.tc.text.PrettyPrintable;
 import com.tc.text.PrettyPrinter;
 import com.tc.util.Assert;
@@ -60,15 +61,19 @@ public class LockManagerImpl implements LockManager, PrettyPrintable, LockManage
   private final ReentrantReadWriteLock                  statusLock       = new ReentrantReadWriteLock();
   private boolean                                       isStarted        = false;
   private final LinkedBlockingQueue<RequestLockContext> lockRequestQueue = new LinkedBlockingQueue<>();
+  // timers come due on the shared timer thread, which only hands them to the stage owning their stripe
+  private final Sink<StripedLockRequestContext>         timeoutSink;
 
   private static final TCLogger                         logger           = TCLogging.getLogger(LockManagerImpl.class);
 
-  public LockManagerImpl(Sink lockSink, DSOChannelManager channelManager) {
-    this(lockSink, channelManager, new ServerLockFactoryImpl());
+  public LockManagerImpl(Sink lockSink, Sink<StripedLockRequestContext> timeoutSink, DSOChannelManager channelManager) {
+    this(lockSink, timeoutSink, channelManager, new ServerLockFactoryImpl());
   }
 
-  public LockManagerImpl(Sink lockSink, DSOChannelManager channelManager, LockFactory factory) {
+  public LockManagerImpl(Sink lockSink, Sink<StripedLockRequestContext> timeoutSink, DSOChannelManager channelManager,
+                         LockFactory factory) {
     this.lockStore = new LockStore(factory);
+    this.timeoutSink = timeoutSink;
     this.channelManager = channelManager;
     this.lockHelper = new LockHelper(lockSink, lockStore, this);
     channelManager.addEventListener(this);
@@ -125,6 +130,16 @@ public class LockManagerImpl implements LockManager, PrettyPrintable, LockManage
     }
   }
 
+  @Override
+  public int getStripe(LockID lid) {
+    return lockStore.segmentFor(lid);
+  }
+
+  @Override
+  public int getStripeCount() {
+    return lockStore.getSegmentCount();
+  }
+
   @Override
   public void queryLock(LockID lid, ClientID cid, ThreadID tid) {
     if (!isValidStateFor(lid, cid, tid, "QueryLock")) { return; }
@@ -305,6 +320,11 @@ public class LockManagerImpl implements LockManager, PrettyPrintable, LockManage
 
   @Override
   public void timerTimeout(LockTimerContext lockTimerContext) {
+    timeoutSink.addMultiThreaded(new StripedLockRequestContext(lockTimerContext, getStripe(lockTimerContext.getLockID())));
+  }
+
+  @Override
+  public void processTimerTimeout(LockTimerContext lockTimerContext) {
     LockID lid = lockTimerContext.getLockID();
     ServerLock lock = lockStore.checkOut(lid);
     try {
@@ -475,6 +495,13 @@ public class LockManagerImpl implements LockManager, PrettyPrintable, LockManage
     return result;
   }
 
+  /**
+   * @return how long lock requests which had to queue behind other requests waited until they were granted
+   */
+  public LatencyHistogram.Snapshot getGrantWaitLatency() {
+    return lockHelper.getGrantWaitLatency();
+  }
+
   /**
    * To be used only in tests
    */
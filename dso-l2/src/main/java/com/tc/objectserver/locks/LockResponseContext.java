@@ -160,6 +160,6 @@ public class LockResponseContext implements MultiThreadedEventContext {
   @Override
   public boolean flush() {
 //  lock operations are independent, no flush needed
-    return true;
+    return false;
   }
 }
@@ -36,7 +36,7 @@ import java.util.concurrent.locks.ReentrantLock;
  * lock.
  */
 public class LockStore {
-  private static final int                  DEFAULT_SEGMENTS = 32;
+  public static final int                   DEFAULT_SEGMENTS = 32;
   private final Map<LockID, ServerLock>     segments[];
   private final ReentrantLock[]             guards;
   private final int                         segmentShift;
@@ -103,6 +103,18 @@ public class LockStore {
     guards[index].unlock();
   }
 
+  /**
+   * The segment a lock lives in.  All requests for locks in the same segment can be handled by one thread without
+   * contending with threads working on other segments.
+   */
+  public int segmentFor(LockID lockID) {
+    return indexFor(lockID);
+  }
+
+  public int getSegmentCount() {
+    return segments.length;
+  }
+
   private final int indexFor(Object o) {
     int hash = hash(o);
     return ((hash >>> segmentShift) & segmentMask);
@@ -0,0 +1,128 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.locks;
+
+import com.tc.async.api.MultiThreadedEventContext;
+import com.tc.net.ClientID;
+import com.tc.object.locks.ClientServerExchangeLockContext;
+import com.tc.object.locks.LockID;
+import com.tc.object.locks.ServerLockLevel;
+import com.tc.object.locks.ThreadID;
+import com.tc.object.msg.LockRequestMessage.RequestType;
+import com.tc.objectserver.locks.timer.LockTimer.LockTimerContext;
+
+import java.util.Collection;
+
+/**
+ * A single lock operation split out of a lock request message.  Operations are scheduled by the stripe of their lock so
+ * that all operations on one lock are handled, in order, by the same stage thread.  Wait and try lock timeouts are
+ * scheduled the same way, handed over by the timer thread.
+ */
+public class StripedLockRequestContext implements MultiThreadedEventContext {
+  private final RequestType                                 requestType;
+  private final LockID                                      lockID;
+  private final ClientID                                    clientID;
+  private final ThreadID                                    threadID;
+  private final ServerLockLevel                             level;
+  private final long                                        timeout;
+  private final Collection<ClientServerExchangeLockContext> contexts;
+  private final LockTimerContext                            timerContext;
+  private final Integer                                     stripe;
+
+  public StripedLockRequestContext(RequestType requestType, LockID lockID, ClientID clientID, ThreadID threadID,
+                                   ServerLockLevel level, long timeout, int stripe) {
+    this(requestType, lockID, clientID, threadID, level, timeout, null, null, stripe);
+  }
+
+  public StripedLockRequestContext(LockID lockID, ClientID clientID,
+                                   Collection<ClientServerExchangeLockContext> contexts, int stripe) {
+    this(RequestType.RECALL_COMMIT, lockID, clientID, ThreadID.VM_ID, null, 0, contexts, null, stripe);
+  }
+
+  public StripedLockRequestContext(LockTimerContext timerContext, int stripe) {
+    this(null, timerContext.getLockID(), timerContext.getClientID(), timerContext.getThreadID(), null, 0, null,
+         timerContext, stripe);
+  }
+
+  private StripedLockRequestContext(RequestType requestType, LockID lockID, ClientID clientID, ThreadID threadID,
+                                    ServerLockLevel level, long timeout,
+                                    Collection<ClientServerExchangeLockContext> contexts, LockTimerContext timerContext,
+                                    int stripe) {
+    this.requestType = requestType;
+    this.lockID = lockID;
+    this.clientID = clientID;
+    this.threadID = threadID;
+    this.level = level;
+    this.timeout = timeout;
+    this.contexts = contexts;
+    this.timerContext = timerContext;
+    this.stripe = stripe;
+  }
+
+  public RequestType getRequestType() {
+    return requestType;
+  }
+
+  public LockID getLockID() {
+    return lockID;
+  }
+
+  public ClientID getClientID() {
+    return clientID;
+  }
+
+  public ThreadID getThreadID() {
+    return threadID;
+  }
+
+  public ServerLockLevel getLockLevel() {
+    return level;
+  }
+
+  public long getTimeout() {
+    return timeout;
+  }
+
+  public Collection<ClientServerExchangeLockContext> getContexts() {
+    return contexts;
+  }
+
+  /**
+   * @return the wait or try lock timer which came due, or null if this is a request from a client
+   */
+  public LockTimerContext getTimerContext() {
+    return timerContext;
+  }
+
+  @Override
+  public Object getSchedulingKey() {
+    return stripe;
+  }
+
+  @Override
+  public boolean flush() {
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return "StripedLockRequestContext [" + requestType + ", " + lockID + ", " + clientID + ", " + threadID + ", stripe="
+           + stripe + "]";
+  }
+}
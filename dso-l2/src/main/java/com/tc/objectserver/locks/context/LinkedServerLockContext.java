@@ -24,11 +24,21 @@ import com.tc.object.locks.ThreadID;
 
 public class LinkedServerLockContext extends ServerLockContext {
   private ServerLockContext next;
+  // System.nanoTime() when the request was queued behind other contexts of the lock, 0 if it was not
+  private long              queuedAt;
   
   public LinkedServerLockContext(ClientID clientID, ThreadID threadID) {
     super(clientID, threadID);
   }
 
+  public void markQueued() {
+    this.queuedAt = System.nanoTime();
+  }
+
+  public long getQueuedAt() {
+    return queuedAt;
+  }
+
   @Override
   public ServerLockContext getNext() {
     return next;
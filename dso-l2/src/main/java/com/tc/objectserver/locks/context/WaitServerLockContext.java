@@ -21,17 +21,17 @@ package com.tc.objectserver.locks.context;
 import com.tc.net.ClientID;
 import com.tc.object.locks.ThreadID;
 
-import java.util.TimerTask;
+import java.util.concurrent.Future;
 
 public class WaitServerLockContext extends LinkedServerLockContext {
-  private TimerTask  task;
+  private Future<?> task;
   private final long timeout;
 
   public WaitServerLockContext(ClientID clientID, ThreadID threadID, long timeout) {
     this(clientID, threadID, timeout, null);
   }
 
-  public WaitServerLockContext(ClientID clientID, ThreadID threadID, long timeout, TimerTask task) {
+  public WaitServerLockContext(ClientID clientID, ThreadID threadID, long timeout, Future<?> task) {
     super(clientID, threadID);
     this.timeout = timeout;
     this.task = task;
@@ -41,11 +41,11 @@ public class WaitServerLockContext extends LinkedServerLockContext {
     return timeout;
   }
 
-  public void setTimerTask(TimerTask task) {
+  public void setTimerTask(Future<?> task) {
     this.task = task;
   }
 
-  public TimerTask getTimerTask() {
+  public Future<?> getTimerTask() {
     return task;
   }
 }
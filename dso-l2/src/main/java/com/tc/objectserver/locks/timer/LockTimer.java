@@ -24,15 +24,19 @@ import com.tc.net.ClientID;
 import com.tc.object.locks.LockID;
 import com.tc.object.locks.ThreadID;
 import com.tc.objectserver.locks.LockHelper;
+import com.tc.util.concurrent.Timer;
+import com.tc.util.concurrent.TimerWheel;
 
 import java.util.LinkedList;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class LockTimer {
   private static final TCLogger logger    = TCLogging.getLogger(LockTimer.class);
 
-  private final Timer           timer     = new Timer("DSO Lock Object.wait() timer", true);
+  private final Timer           timer     = TimerWheel.shared().newTimer("DSO Lock Object.wait() timer");
   private boolean               started   = false;
   private boolean               shutdown  = false;
   private LinkedList<TaskImpl>  taskQueue = new LinkedList<>();
@@ -53,13 +57,16 @@ public class LockTimer {
 
   private void scheduleQueuedTasks() {
     for (TaskImpl task : taskQueue) {
+      if (task.isCancelled()) {
+        continue;
+      }
       long timeDelay = task.getScheduleDelay() - (System.currentTimeMillis() - task.scheduledAt());
       timeDelay = timeDelay < 0 ? 0 : timeDelay;
-      timer.schedule(task, timeDelay);
+      task.setScheduled(timer.schedule(task, timeDelay, TimeUnit.MILLISECONDS));
     }
   }
 
-  public TimerTask scheduleTimer(TimerCallback callback, long timeInMillis, LockTimerContext callbackObject) {
+  public Future<?> scheduleTimer(TimerCallback callback, long timeInMillis, LockTimerContext callbackObject) {
     final TaskImpl rv = new TaskImpl(callback, timeInMillis, callbackObject);
 
     synchronized (this) {
@@ -69,7 +76,7 @@ public class LockTimer {
       }
     }
 
-    timer.schedule(rv, timeInMillis);
+    rv.setScheduled(timer.schedule(rv, timeInMillis, TimeUnit.MILLISECONDS));
     return rv;
   }
 
@@ -79,16 +86,23 @@ public class LockTimer {
     this.timer.cancel();
   }
 
-  private static class TaskImpl extends TimerTask {
-
-    private final TimerCallback    callback;
-    private final LockTimerContext callbackObject;
-    private final long             scheduleDelayInMillis;
-    private final long             scheduledAt;
-
-    TaskImpl(TimerCallback callback, long timeInMillis, LockTimerContext callbackObject) {
-      this.callback = callback;
-      this.callbackObject = callbackObject;
+  private static class TaskImpl extends FutureTask<Void> {
+
+    private final long                  scheduleDelayInMillis;
+    private final long                  scheduledAt;
+    private volatile ScheduledFuture<?> scheduled;
+
+    TaskImpl(final TimerCallback callback, long timeInMillis, final LockTimerContext callbackObject) {
+      super(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            callback.timerTimeout(callbackObject);
+          } catch (Exception e) {
+            logger.error("Error processing wait timeout for " + callbackObject, e);
+          }
+        }
+      }, null);
       this.scheduleDelayInMillis = timeInMillis;
       this.scheduledAt = System.currentTimeMillis();
     }
@@ -101,18 +115,22 @@ public class LockTimer {
       return scheduledAt;
     }
 
-    @Override
-    public void run() {
-      try {
-        callback.timerTimeout(callbackObject);
-      } catch (Exception e) {
-        logger.error("Error processing wait timeout for " + callbackObject, e);
+    void setScheduled(ScheduledFuture<?> scheduled) {
+      this.scheduled = scheduled;
+      // a cancel which raced with scheduling still frees the slot in the timer wheel
+      if (isCancelled()) {
+        scheduled.cancel(false);
       }
     }
 
     @Override
-    public boolean cancel() {
-      return super.cancel();
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean cancelled = super.cancel(mayInterruptIfRunning);
+      ScheduledFuture<?> current = scheduled;
+      if (cancelled && current != null) {
+        current.cancel(false);
+      }
+      return cancelled;
     }
   }
 
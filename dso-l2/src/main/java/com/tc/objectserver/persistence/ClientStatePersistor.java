@@ -24,6 +24,7 @@ import com.tc.net.protocol.tcm.ChannelID;
 import com.tc.objectserver.api.ClientNotFoundException;
 import com.tc.util.sequence.MutableSequence;
 
+import java.util.HashSet;
 import java.util.Set;
 import org.terracotta.persistence.IPersistentStorage;
 import org.terracotta.persistence.KeyValueStorage;
@@ -37,14 +38,47 @@ public class ClientStatePersistor {
 
   private final MutableSequence clientIDSequence;
   private final KeyValueStorage<ChannelID, Boolean> clients;
+  private final MappedSlotFile mapped;
 
   public ClientStatePersistor(SequenceManager sequenceManager, IPersistentStorage storageManager) {
+    this(sequenceManager, storageManager, null);
+  }
+
+  /**
+   * @param mapped if not null, where the set of clients is kept instead of the key-value storage so a connecting or
+   *        departing client does not rewrite the storage
+   */
+  ClientStatePersistor(SequenceManager sequenceManager, IPersistentStorage storageManager, MappedSlotFile mapped) {
     this.clientIDSequence = sequenceManager.getSequence(CLIENT_STATE_SEQUENCE);
     this.clients = storageManager.getKeyValueStorage(CLIENT_STATES, ChannelID.class, Boolean.class);
+    this.mapped = mapped;
+    if (mapped != null && mapped.isNew()) {
+//  carry over the clients saved before the mapped file was in use
+      for (ChannelID id : clients.keySet()) {
+        mapped.put(key(id), 1);
+      }
+    }
+  }
+
+//  channel IDs start at zero and zero marks a free slot in the mapped file
+  private static long key(ChannelID id) {
+    return id.toLong() + 1;
+  }
+
+  /**
+   * Moves the clients of a mapped file no longer in use back into the key-value storage.
+   */
+  void restoreFrom(MappedSlotFile old) {
+    for (long key : old.keys()) {
+      clients.put(new ChannelID(key - 1), true);
+    }
   }
 
   public void clear() {
     clients.clear();
+    if (mapped != null) {
+      mapped.clear();
+    }
   }
 
   public MutableSequence getConnectionIDSequence() {
@@ -52,19 +86,31 @@ public class ClientStatePersistor {
   }
 
   public Set<ChannelID> loadClientIDs() {
+    if (mapped != null) {
+      Set<ChannelID> ids = new HashSet<>();
+      for (long key : mapped.keys()) {
+        ids.add(new ChannelID(key - 1));
+      }
+      return ids;
+    }
     return clients.keySet();
   }
 
   public boolean containsClient(ChannelID id) {
-    return clients.containsKey(id);
+    return (mapped != null) ? mapped.contains(key(id)) : clients.containsKey(id);
   }
 
   public void saveClientState(ChannelID channelID) {
-    clients.put(channelID, true);
+    if (mapped != null) {
+      mapped.put(key(channelID), 1);
+    } else {
+      clients.put(channelID, true);
+    }
   }
 
   public void deleteClientState(ChannelID id) throws ClientNotFoundException {
-    if (!clients.remove(id)) {
+    boolean removed = (mapped != null) ? mapped.remove(key(id)) : clients.remove(id);
+    if (!removed) {
       throw new ClientNotFoundException();
     }
   }
@@ -34,6 +34,7 @@ import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
@@ -43,6 +44,11 @@ import java.util.concurrent.ConcurrentHashMap;
  * well as any key-value storage objects or properties maps it returns.
  */
 public class FlatFilePersistentStorage implements IPersistentStorage {
+  // flush timings across every instance in the server, sampled by the flight recorder
+  private static final AtomicLong FLUSH_COUNT = new AtomicLong();
+  private static final AtomicLong FLUSH_NANOS = new AtomicLong();
+  private static final AtomicLong FLUSH_MAX_NANOS = new AtomicLong();
+
   private final File store;
   private FlatFileProperties properties;
   private Map<String, FlatFileKeyValueStorage<?, ?>> maps;
@@ -54,6 +60,7 @@ public class FlatFilePersistentStorage implements IPersistentStorage {
       try {
         synchronized (store) {
             result = r.call();
+            long start = System.nanoTime();
             File temp = new File(store.getParentFile(), "temp_" + store.getName());
             FileOutputStream file = new FileOutputStream(temp);
             ObjectOutputStream out = new ObjectOutputStream(file);
@@ -65,6 +72,7 @@ public class FlatFilePersistentStorage implements IPersistentStorage {
             file.close();
             Files.move(temp.toPath(), store.toPath(), 
                 StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            recordFlush(System.nanoTime() - start);
         }
       } catch (Exception e) {
         // If something happened here, that is a serious bug so we need to assert.
@@ -74,9 +82,37 @@ public class FlatFilePersistentStorage implements IPersistentStorage {
     }
   };
   
+  private static void recordFlush(long nanos) {
+    FLUSH_COUNT.incrementAndGet();
+    FLUSH_NANOS.addAndGet(nanos);
+    FLUSH_MAX_NANOS.accumulateAndGet(nanos, Math::max);
+  }
+
+  public static long getFlushCount() {
+    return FLUSH_COUNT.get();
+  }
+
+  public static long getFlushNanos() {
+    return FLUSH_NANOS.get();
+  }
+
+  /**
+   * @return the longest flush since the last call
+   */
+  public static long getAndResetMaxFlushNanos() {
+    return FLUSH_MAX_NANOS.getAndSet(0);
+  }
+
   public FlatFilePersistentStorage(File file) {
     this.store = file;
   }
+
+  /**
+   * @return a file next to the store which belongs with it, deleted whenever the store is created anew
+   */
+  public File getCompanionFile(String suffix) {
+    return new File(store.getParentFile(), store.getName() + "." + suffix);
+  }
   
   @Override
   @SuppressWarnings("unchecked")
@@ -104,6 +140,12 @@ public class FlatFilePersistentStorage implements IPersistentStorage {
 
   @Override
   public void create() throws IOException {
+    File[] companions = store.getAbsoluteFile().getParentFile().listFiles((dir, name) -> name.startsWith(store.getName() + "."));
+    if (companions != null) {
+      for (File companion : companions) {
+        companion.delete();
+      }
+    }
     this.properties = new FlatFileProperties(doFlush);
     this.maps = new ConcurrentHashMap<>();
     // Write the file, for the first time, so that we can attempt to open it later, even if we don't write anything.
@@ -93,7 +93,7 @@ public class FlatFileStorageServiceProvider implements ServiceProvider {
     // check that either there are no consumers or platform is the only consumer
     Assert.assertTrue((consumers.size() == 0) || (consumers.size() == 1 && consumers.iterator().next() == 0));
 
-    final String CONSUMER_FILE_PAT = "consumer_[0-9]+.dat";
+    final String CONSUMER_FILE_PAT = "consumer_[0-9]+\\.dat(\\..+)?";
 
     // remove data files
     for(File file : directory.toFile().listFiles()) {
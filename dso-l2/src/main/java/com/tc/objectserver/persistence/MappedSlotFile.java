@@ -0,0 +1,205 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.persistence;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * A file of fixed width slots, each holding a non-zero key and a value, mapped into memory so that changing a value is a
+ * store into the mapping instead of a rewrite of the file.  Changes survive a crash of the server process as soon as
+ * they are made and reach the disk when {@link #sync()} is called or whenever the operating system writes the pages
+ * back.
+ * <p>
+ * Layout is a 16 byte header (magic, version, slot count) followed by 16 byte slots (key, value).  A key of zero marks a
+ * free slot.
+ */
+class MappedSlotFile implements Closeable {
+  private static final int MAGIC = 0x54435346;
+  private static final int VERSION = 1;
+  private static final int HEADER = 16;
+  private static final int SLOT = 16;
+
+  private final File file;
+  private final RandomAccessFile raf;
+  private final FileChannel channel;
+  private final boolean created;
+  private final Map<Long, Integer> index = new HashMap<>();
+  private final Deque<Integer> free = new ArrayDeque<>();
+  private MappedByteBuffer buffer;
+  private int slots;
+  private volatile boolean dirty;
+
+  MappedSlotFile(File file, int initialSlots) throws IOException {
+    this.file = file;
+    this.raf = new RandomAccessFile(file, "rw");
+    this.channel = raf.getChannel();
+    if (raf.length() >= HEADER) {
+      map((int)((raf.length() - HEADER) / SLOT));
+    }
+//  a header that never reached the disk means the file was still being created, nothing was stored in it yet
+    this.created = (buffer == null) || (buffer.getInt(0) == 0 && buffer.getInt(4) == 0);
+    if (created) {
+      map(initialSlots);
+      buffer.putInt(0, MAGIC);
+      buffer.putInt(4, VERSION);
+      buffer.putInt(8, initialSlots);
+      buffer.force();
+      for (int x = initialSlots - 1; x >= 0; x--) {
+        free.push(x);
+      }
+    } else {
+//  the file is extended before its header is changed, so a crash part way through growing leaves more slots than the
+//  header counts, never fewer.  all of them are read and the header catches up
+      if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) > slots) {
+        close();
+        throw new IOException(file + " is not a valid slot file");
+      }
+      if (buffer.getInt(8) != slots) {
+        buffer.putInt(8, slots);
+        dirty = true;
+      }
+      for (int x = slots - 1; x >= 0; x--) {
+        long key = buffer.getLong(offset(x));
+        if (key != 0) {
+          index.put(key, x);
+        } else {
+          free.push(x);
+        }
+      }
+    }
+  }
+
+  private void map(int count) throws IOException {
+    this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long)count * SLOT);
+    this.slots = count;
+  }
+
+  private static int offset(int slot) {
+    return HEADER + slot * SLOT;
+  }
+
+  /**
+   * @return true if the file did not exist before or was never finished, so callers know to carry over any state kept elsewhere
+   */
+  boolean isNew() {
+    return created;
+  }
+
+  synchronized boolean contains(long key) {
+    return index.containsKey(key);
+  }
+
+  synchronized Long get(long key) {
+    Integer slot = index.get(key);
+    return (slot != null) ? buffer.getLong(offset(slot) + 8) : null;
+  }
+
+  synchronized Set<Long> keys() {
+    return new HashSet<>(index.keySet());
+  }
+
+  synchronized void put(long key, long value) {
+    if (key == 0) {
+      throw new IllegalArgumentException("zero key");
+    }
+    Integer slot = index.get(key);
+    if (slot != null) {
+      buffer.putLong(offset(slot) + 8, value);
+    } else {
+      if (free.isEmpty()) {
+        grow();
+      }
+      slot = free.pop();
+//  value first so a slot is never seen with its key and a stale value
+      buffer.putLong(offset(slot) + 8, value);
+      buffer.putLong(offset(slot), key);
+      index.put(key, slot);
+    }
+    dirty = true;
+  }
+
+  synchronized boolean remove(long key) {
+    Integer slot = index.remove(key);
+    if (slot == null) {
+      return false;
+    }
+    buffer.putLong(offset(slot), 0);
+    free.push(slot);
+    dirty = true;
+    return true;
+  }
+
+  synchronized void clear() {
+    for (Integer slot : index.values()) {
+      buffer.putLong(offset(slot), 0);
+      free.push(slot);
+    }
+    index.clear();
+    dirty = true;
+  }
+
+  private void grow() {
+    int old = slots;
+    try {
+      map(old * 2);
+//  the new length is on the disk before the header or any new slot can be
+      channel.force(true);
+    } catch (IOException ioe) {
+      throw new RuntimeException("unable to grow " + file, ioe);
+    }
+    for (int x = slots - 1; x >= old; x--) {
+      free.push(x);
+    }
+    buffer.putInt(8, slots);
+  }
+
+  /**
+   * Forces any changes since the last call to the disk.  Writers are not held up while the pages are written.
+   */
+  void sync() {
+    MappedByteBuffer current;
+    synchronized (this) {
+      if (!dirty) {
+        return;
+      }
+      dirty = false;
+      current = buffer;
+    }
+    current.force();
+  }
+
+  @Override
+  public void close() throws IOException {
+    sync();
+    channel.close();
+    raf.close();
+  }
+}
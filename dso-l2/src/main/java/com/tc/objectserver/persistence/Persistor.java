@@ -20,16 +20,25 @@
 package com.tc.objectserver.persistence;
 
 
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import com.tc.properties.TCProperties;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.text.PrettyPrintable;
 import com.tc.text.PrettyPrinter;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Timer;
+import java.util.TimerTask;
 
 import org.terracotta.persistence.IPersistentStorage;
 /**
  * @author tim
  */
 public class Persistor implements PrettyPrintable {
+  private static final TCLogger logger = TCLogging.getLogger(Persistor.class);
   private final IPersistentStorage persistentStorage;
   private boolean wasDBClean;
 
@@ -41,6 +50,10 @@ public class Persistor implements PrettyPrintable {
   private SequenceManager sequenceManager;
   private final EntityPersistor entityPersistor;
   private final TransactionOrderPersistor transactionOrderPersistor;
+//  when the storage is a flat file, sequences and client IDs live in memory-mapped files beside it
+  private MappedSlotFile sequenceFile;
+  private MappedSlotFile clientFile;
+  private Timer syncTimer;
 
   public Persistor(IPersistentStorage persistentStorage) {
     // The persistor only wants to operate on opened storage.
@@ -63,15 +76,97 @@ public class Persistor implements PrettyPrintable {
   }
 
   public void start() {
-    sequenceManager = new SequenceManager(persistentStorage);
-    clientStatePersistor = new ClientStatePersistor(sequenceManager, persistentStorage);
+    TCProperties props = TCPropertiesImpl.getProperties();
+    boolean useMapped = props.getBoolean(TCPropertiesConsts.L2_PERSISTENCE_MAPPED_ENABLED, true);
+    if (persistentStorage instanceof FlatFilePersistentStorage && useMapped) {
+      openMappedFiles((FlatFilePersistentStorage)persistentStorage, props.getLong(TCPropertiesConsts.L2_PERSISTENCE_MAPPED_SYNC_INTERVAL, 1000));
+    }
+    sequenceManager = new SequenceManager(persistentStorage, sequenceFile);
+    if (persistentStorage instanceof FlatFilePersistentStorage && !useMapped) {
+      restoreSequences((FlatFilePersistentStorage)persistentStorage);
+    }
+    clientStatePersistor = new ClientStatePersistor(sequenceManager, persistentStorage, clientFile);
+    if (persistentStorage instanceof FlatFilePersistentStorage && !useMapped) {
+      restoreClients((FlatFilePersistentStorage)persistentStorage);
+    }
     wasDBClean = this.clusterStatePersistor.isDBClean();
     started = true;
   }
 
+  private void openMappedFiles(FlatFilePersistentStorage storage, long syncInterval) {
+    try {
+      sequenceFile = new MappedSlotFile(storage.getCompanionFile("sequences"), 16);
+      clientFile = new MappedSlotFile(storage.getCompanionFile("clients"), 1024);
+    } catch (IOException ioe) {
+      throw new RuntimeException(ioe);
+    }
+    if (syncInterval > 0) {
+      syncTimer = new Timer("Persistence sync", true);
+      syncTimer.schedule(new TimerTask() {
+        @Override
+        public void run() {
+          sequenceFile.sync();
+          clientFile.sync();
+        }
+      }, syncInterval, syncInterval);
+    }
+  }
+
+  /**
+   * The mapped files are no longer in use but may hold newer values than the storage, from a run that used them.  Move
+   * those back so sequences and client IDs do not go backwards, then delete the files so a later run that uses them
+   * again starts from the storage.
+   */
+  private void restoreSequences(FlatFilePersistentStorage storage) {
+    File file = storage.getCompanionFile("sequences");
+    if (file.exists()) {
+      logger.info("Moving sequences from " + file + " back to the persistent storage");
+      try (MappedSlotFile old = new MappedSlotFile(file, 16)) {
+        sequenceManager.restoreFrom(old);
+      } catch (IOException ioe) {
+        throw new RuntimeException(ioe);
+      }
+      deleteMappedFile(file);
+    }
+  }
+
+  private void restoreClients(FlatFilePersistentStorage storage) {
+    File file = storage.getCompanionFile("clients");
+    if (file.exists()) {
+      logger.info("Moving client IDs from " + file + " back to the persistent storage");
+      try (MappedSlotFile old = new MappedSlotFile(file, 1024)) {
+        clientStatePersistor.restoreFrom(old);
+      } catch (IOException ioe) {
+        throw new RuntimeException(ioe);
+      }
+      deleteMappedFile(file);
+    }
+  }
+
+  private static void deleteMappedFile(File file) {
+    if (!file.delete()) {
+      throw new RuntimeException("unable to delete " + file);
+    }
+  }
+
   public void close() {
+    if (syncTimer != null) {
+      syncTimer.cancel();
+    }
+    closeMappedFile(sequenceFile);
+    closeMappedFile(clientFile);
     persistentStorage.close();
   }
+
+  private static void closeMappedFile(MappedSlotFile file) {
+    if (file != null) {
+      try {
+        file.close();
+      } catch (IOException ioe) {
+        logger.warn("unable to close " + file, ioe);
+      }
+    }
+  }
   
   public ClientStatePersistor getClientStatePersistor() {
     checkStarted();
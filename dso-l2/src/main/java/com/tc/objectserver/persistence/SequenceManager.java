@@ -39,21 +39,47 @@ public class SequenceManager {
           new ConcurrentHashMap<>();
   private final KeyValueStorage<String, Long> sequenceMap;
   private final KeyValueStorage<String, String> uuidMap;
+  private final MappedSlotFile mapped;
 
   public SequenceManager(IPersistentStorage storageManager) {
+    this(storageManager, null);
+  }
+
+  /**
+   * @param mapped if not null, where sequence values are kept instead of the key-value storage so advancing a sequence
+   *        does not rewrite the storage
+   */
+  SequenceManager(IPersistentStorage storageManager, MappedSlotFile mapped) {
     this.sequenceMap = storageManager.getKeyValueStorage(SEQUENCE_MAP, String.class, Long.class);
     this.uuidMap = storageManager.getKeyValueStorage(SEQUENCE_UUID_MAP, String.class, String.class);
+    this.mapped = mapped;
   }
 
   public void clear() {
     sequenceMap.clear();
     uuidMap.clear();
+    if (mapped != null) {
+      mapped.clear();
+    }
+  }
+
+  /**
+   * Moves the values of a mapped file no longer in use back into the key-value storage so no sequence goes backwards.
+   * Must be called before any sequence is created.
+   */
+  void restoreFrom(MappedSlotFile old) {
+    for (String name : sequenceMap.keySet()) {
+      Long value = old.get(mappedKey(name));
+      if (value != null && value > sequenceMap.get(name)) {
+        sequenceMap.put(name, value);
+      }
+    }
   }
 
   public MutableSequence getSequence(String name, long initialValue) {
     Sequence sequence = createdSequences.get(name);
     if (sequence == null) {
-      sequence = new Sequence(sequenceMap, uuidMap, name, initialValue);
+      sequence = new Sequence(sequenceMap, uuidMap, mapped, name, initialValue);
       Sequence racer = createdSequences.putIfAbsent(name, sequence);
       if (racer != null) {
         sequence = racer;
@@ -71,6 +97,18 @@ public class SequenceManager {
 //    configs.put("platform" + "|" + SEQUENCE_UUID_MAP, ImmutableKeyValueStorageConfig.builder(String.class, String.class).build());
 //  }
 
+  /**
+   * @return the key of a sequence in the mapped file, a 64 bit FNV-1a hash of its name
+   */
+  static long mappedKey(String name) {
+    long hash = 0xcbf29ce484222325L;
+    for (int x = 0; x < name.length(); x++) {
+      hash ^= name.charAt(x);
+      hash *= 0x100000001b3L;
+    }
+    return (hash != 0) ? hash : 1;
+  }
+
   private static class Sequence implements MutableSequence {
 
     private String uuid;
@@ -78,17 +116,40 @@ public class SequenceManager {
 
     private final KeyValueStorage<String, Long> sequenceMap;
     private final KeyValueStorage<String, String> uuidMap;
+    private final MappedSlotFile mapped;
     private final String name;
+    private final long key;
 
-    Sequence(KeyValueStorage<String, Long> sequenceMap, KeyValueStorage<String, String> uuidMap, String name, long initialValue) {
+    Sequence(KeyValueStorage<String, Long> sequenceMap, KeyValueStorage<String, String> uuidMap, MappedSlotFile mapped, String name, long initialValue) {
       this.name = name;
       this.sequenceMap = sequenceMap;
       this.uuidMap = uuidMap;
+      this.mapped = mapped;
+      this.key = mappedKey(name);
       if (sequenceMap.get(name) != null) {
         this.next = sequenceMap.get(name);
       } else {
         this.next = initialValue;
       }
+      if (mapped != null) {
+//  the key-value storage holds the value from before the mapped file was in use, if any.  never go backwards
+        Long current = mapped.get(key);
+        if (current != null && current > this.next) {
+          this.next = current;
+        }
+//  the mapped file only knows the hash of the name, the storage keeps the name so the value can be moved back to it
+        if (sequenceMap.get(name) == null) {
+          sequenceMap.put(name, initialValue);
+        }
+      }
+    }
+
+    private void store() {
+      if (mapped != null) {
+        mapped.put(key, next);
+      } else {
+        sequenceMap.put(name, next);
+      }
     }
 
     @Override
@@ -109,7 +170,7 @@ public class SequenceManager {
     public synchronized long nextBatch(long batchSize) {
       long r = next;
       next += batchSize;
-      sequenceMap.put(name, next);
+      store();
       return r;
     }
 
@@ -119,7 +180,7 @@ public class SequenceManager {
         throw new AssertionError("next=" + next + " current=" + this.next);
       }
       this.next = next;
-      sequenceMap.put(name, next);
+      store();
     }
 
     @Override
@@ -27,7 +27,9 @@ import com.tc.object.tx.TransactionID;
 import com.tc.util.Assert;
 
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 
@@ -46,6 +48,8 @@ public class TransactionOrderPersistor {
   private final KeyValueStorage<NodeID, List<ClientTransaction>> clientLocals;
   private final KeyValueStorage<String, List<ClientTransaction>> listContainer;
   private final KeyValueStorage<String, Long> localVariables;
+  // position of each transaction in the global list, built on the first replay lookup and dropped on any change
+  private Map<ClientTransaction, Integer> replayIndex;
   
 
   // Unchecked and raw warnings because we are trying to use Class<List<?>>, which the compiler doesn't like but has no runtime meaning.
@@ -113,6 +117,7 @@ public class TransactionOrderPersistor {
       globalList.remove(removed);
     }
     
+    this.replayIndex = null;
     // Create this new pair and add it to the global list.
     localList.add(transaction);
     globalList.add(transaction);
@@ -123,7 +128,8 @@ public class TransactionOrderPersistor {
   /**
    * Called when we no longer need to track transaction ordering information from source (presumably due to a disconnect).
    */
-  public void removeTrackingForClient(NodeID source) {
+  public synchronized void removeTrackingForClient(NodeID source) {
+    this.replayIndex = null;
     // Remove the local list for this client.
     clientLocals.remove(source);
     
@@ -163,25 +169,32 @@ public class TransactionOrderPersistor {
    * Called to ask where a given client-local transaction exists in the global transaction list.
    * Returns the index or -1 if it isn't known.
    */
-  public int getIndexToReplay(NodeID source, TransactionID transactionID) {
-    int index = -1;
-    
-    List<ClientTransaction> globalList = this.listContainer.get(LIST_KEY);
-    int seek = 0;
-    for (ClientTransaction transaction : globalList) {
-      if (source.equals(transaction.client) && transactionID.equals(transaction.id)) {
-        index = seek;
-        break;
+  public synchronized int getIndexToReplay(NodeID source, TransactionID transactionID) {
+    if (null == this.replayIndex) {
+      // Every resend after a restart asks for its position so index the global list once rather than scanning it
+      // for each of them.
+      List<ClientTransaction> globalList = this.listContainer.get(LIST_KEY);
+      Map<ClientTransaction, Integer> index = new HashMap<>(globalList.size() * 2);
+      int seek = 0;
+      for (ClientTransaction transaction : globalList) {
+        // a transaction listed twice replays at its first position, as the scan this replaces found it
+        index.putIfAbsent(transaction, seek);
+        seek += 1;
       }
-      seek += 1;
+      this.replayIndex = index;
     }
-    return index;
+    ClientTransaction transaction = new ClientTransaction();
+    transaction.client = source;
+    transaction.id = transactionID;
+    Integer index = this.replayIndex.get(transaction);
+    return (null != index) ? index : -1;
   }
 
   /**
    * Clears all internal state.
    */
-  public void clearAllRecords() {
+  public synchronized void clearAllRecords() {
+    this.replayIndex = null;
     this.clientLocals.clear();
     this.listContainer.clear();
     this.listContainer.put(LIST_KEY, new Vector<>());
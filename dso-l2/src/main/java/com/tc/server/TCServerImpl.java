@@ -37,8 +37,11 @@ import com.tc.lang.ThrowableHandlerImpl;
 import com.tc.logging.CustomerLogging;
 import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
+import com.tc.management.beans.FlightRecording;
 import com.tc.management.beans.L2Dumper;
 import com.tc.management.beans.L2MBeanNames;
+import com.tc.management.beans.RequestTracing;
+import com.tc.management.beans.StageStats;
 import com.tc.management.beans.TCDumper;
 import com.tc.management.beans.TCServerInfo;
 import com.tc.net.GroupID;
@@ -479,11 +482,13 @@ public class TCServerImpl extends SEDA<HttpConnectionContext> implements TCServe
       throws NotCompliantMBeanException, InstanceAlreadyExistsException, MBeanRegistrationException {
     mBeanServer.registerMBean(new TCServerInfo(this), L2MBeanNames.TC_SERVER_INFO);
     mBeanServer.registerMBean(new L2Dumper(tcDumper, mBeanServer), L2MBeanNames.DUMPER);
+    mBeanServer.registerMBean(new StageStats(getStageManager()), L2MBeanNames.STAGE_STATS);
   }
   
   protected void unregisterServerMBeans(MBeanServer mbs) throws MBeanRegistrationException, InstanceNotFoundException {
     mbs.unregisterMBean(L2MBeanNames.TC_SERVER_INFO);
     mbs.unregisterMBean(L2MBeanNames.DUMPER);
+    mbs.unregisterMBean(L2MBeanNames.STAGE_STATS);
   }
   protected void registerDSOMBeans(ServerManagementContext mgmtContext, ServerConfigurationContext configContext, TCDumper tcDumper,
                                    MBeanServer mBeanServer) throws NotCompliantMBeanException,
@@ -492,10 +497,14 @@ public class TCServerImpl extends SEDA<HttpConnectionContext> implements TCServe
         .getOperatorEventsHistoryProvider();
     DSOMBean dso = new DSO(mgmtContext, configContext, mBeanServer, operatorEventHistoryProvider);
     mBeanServer.registerMBean(dso, L2MBeanNames.DSO);
+    mBeanServer.registerMBean(new RequestTracing(this.dsoServer.getRequestTracer()), L2MBeanNames.REQUEST_TRACING);
+    mBeanServer.registerMBean(new FlightRecording(this.dsoServer.getFlightRecorder()), L2MBeanNames.FLIGHT_RECORDER);
   }
 
   protected void unregisterDSOMBeans(MBeanServer mbs) throws MBeanRegistrationException, InstanceNotFoundException {
     mbs.unregisterMBean(L2MBeanNames.DSO);
+    mbs.unregisterMBean(L2MBeanNames.REQUEST_TRACING);
+    mbs.unregisterMBean(L2MBeanNames.FLIGHT_RECORDER);
   }
 
   // TODO: check that this is not needed then remove
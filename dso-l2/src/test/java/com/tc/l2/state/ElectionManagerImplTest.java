@@ -0,0 +1,82 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.l2.state;
+
+import com.tc.l2.ha.WeightGeneratorFactory;
+import com.tc.net.NodeID;
+import com.tc.net.ServerID;
+import com.tc.net.groups.GroupEventsListener;
+import com.tc.net.groups.GroupManager;
+import com.tc.net.groups.GroupResponse;
+import com.tc.test.TCTestCase;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.mockito.ArgumentCaptor;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+public class ElectionManagerImplTest extends TCTestCase {
+  private GroupManager groupManager;
+  private final NodeID me = new ServerID("me", new byte[] {1});
+  private final WeightGeneratorFactory weights = new WeightGeneratorFactory();
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    groupManager = mock(GroupManager.class);
+    GroupResponse response = mock(GroupResponse.class);
+    when(response.getResponses()).thenReturn(Collections.emptyList());
+    when(groupManager.sendAllAndWaitForResponse(any())).thenReturn(response);
+  }
+
+  public void testFinishesOnceConnectedMembersVoted() throws Exception {
+    ElectionManagerImpl election = new ElectionManagerImpl(groupManager, new StateManagerConfigImpl(5, 2));
+    ArgumentCaptor<GroupEventsListener> listener = ArgumentCaptor.forClass(GroupEventsListener.class);
+    verify(groupManager).registerForGroupEvents(listener.capture());
+    NodeID active = new ServerID("active", new byte[] {2});
+    listener.getValue().nodeJoined(active);
+    election.reset(EnrollmentFactory.createTrumpEnrollment(active, weights));
+    // the active is gone, leaving no one else to wait for
+    listener.getValue().nodeLeft(active);
+
+    long start = System.nanoTime();
+    assertEquals(me, runElection(election));
+    assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+    assertEquals(1, election.getElectionDurations().getCount());
+  }
+
+  public void testStartingServerWaitsForWholeStripe() throws Exception {
+    ElectionManagerImpl election = new ElectionManagerImpl(groupManager, new StateManagerConfigImpl(1, 2));
+    long start = System.nanoTime();
+    assertEquals(me, runElection(election));
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 1000);
+  }
+
+  private NodeID runElection(ElectionManagerImpl election) throws Exception {
+    AtomicReference<NodeID> winner = new AtomicReference<>();
+    election.getEventHandler().handleEvent(new ElectionContext(me, false, weights, winner::set));
+    return winner.get();
+  }
+}
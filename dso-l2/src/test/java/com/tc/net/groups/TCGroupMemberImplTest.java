@@ -0,0 +1,192 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.net.groups;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.tc.net.ServerID;
+import com.tc.net.protocol.tcm.ChannelEventImpl;
+import com.tc.net.protocol.tcm.ChannelEventType;
+import com.tc.net.protocol.tcm.MessageChannel;
+import com.tc.net.protocol.tcm.TCMessage;
+import com.tc.net.protocol.tcm.TCMessageType;
+import com.tc.util.Assert;
+import com.tc.util.UUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+public class TCGroupMemberImplTest {
+  private final ServerID                    local   = new ServerID("local", UUID.getUUID().toString().getBytes());
+  private final ServerID                    peer    = new ServerID("peer", UUID.getUUID().toString().getBytes());
+  private final List<TCGroupMessageWrapper> created = new ArrayList<TCGroupMessageWrapper>();
+  private final List<TCGroupMessageWrapper> sent    = Collections.synchronizedList(new ArrayList<TCGroupMessageWrapper>());
+  private final AtomicBoolean               open    = new AtomicBoolean(true);
+  private MessageChannel                    channel;
+
+  @Before
+  public void setUp() {
+    channel = mock(MessageChannel.class);
+    when(channel.isOpen()).thenAnswer(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) {
+        return open.get();
+      }
+    });
+    when(channel.createMessage(TCMessageType.GROUP_WRAPPER_MESSAGE)).thenAnswer(new Answer<TCMessage>() {
+      @Override
+      public TCMessage answer(InvocationOnMock invocation) {
+        final TCGroupMessageWrapper wrapper = mock(TCGroupMessageWrapper.class);
+        doAnswer(new Answer<Object>() {
+          @Override
+          public Object answer(InvocationOnMock send) {
+            synchronized (sent) {
+              sent.add(wrapper);
+              sent.notifyAll();
+            }
+            return null;
+          }
+        }).when(wrapper).send();
+        synchronized (created) {
+          created.add(wrapper);
+        }
+        return wrapper;
+      }
+    });
+  }
+
+  @Test
+  public void testNoWindowSendsStraightToTheChannel() throws Exception {
+    TCGroupMemberImpl member = new TCGroupMemberImpl(local, peer, channel, 0, 10);
+    for (int i = 0; i < 5; i++) {
+      member.send(data());
+    }
+    Assert.assertEquals(created, sent);
+    Assert.assertNull(sent.get(0).getSentCallback());
+  }
+
+  @Test
+  public void testPriorityOvertakesQueuedData() throws Exception {
+    TCGroupMemberImpl member = new TCGroupMemberImpl(local, peer, channel, 2, 10);
+    for (int i = 0; i < 5; i++) {
+      member.send(data());
+    }
+    Assert.assertEquals(2, sent.size());
+    member.send(priority());
+    Assert.assertEquals(3, sent.size());
+    Assert.assertEquals(created.get(5), sent.get(2));
+    Assert.assertNull(sent.get(2).getSentCallback());
+  }
+
+  @Test
+  public void testDataDrainsInOrderAsTheWindowOpens() throws Exception {
+    TCGroupMemberImpl member = new TCGroupMemberImpl(local, peer, channel, 2, 10);
+    for (int i = 0; i < 6; i++) {
+      member.send(data());
+    }
+    Assert.assertEquals(2, sent.size());
+    for (int acked = 0; acked < 4; acked++) {
+      sent.get(acked).getSentCallback().run();
+      waitForSent(acked + 3);
+    }
+    Assert.assertEquals(created, sent);
+  }
+
+  @Test
+  public void testFullLaneHoldsTheSenderBack() throws Exception {
+    TCGroupMemberImpl member = new TCGroupMemberImpl(local, peer, channel, 1, 2);
+    for (int i = 0; i < 3; i++) {
+      member.send(data());
+    }
+    Thread sender = sendInBackground(member);
+    sender.join(500);
+    Assert.assertTrue(sender.isAlive());
+    Assert.assertEquals(1, sent.size());
+
+    sent.get(0).getSentCallback().run();
+    sender.join(10000);
+    Assert.assertFalse(sender.isAlive());
+    waitForSent(2);
+    Assert.assertEquals(created.get(1), sent.get(1));
+  }
+
+  @Test
+  public void testChannelClosedReleasesBlockedSender() throws Exception {
+    TCGroupMemberImpl member = new TCGroupMemberImpl(local, peer, channel, 1, 2);
+    for (int i = 0; i < 3; i++) {
+      member.send(data());
+    }
+    Thread sender = sendInBackground(member);
+    sender.join(500);
+    Assert.assertTrue(sender.isAlive());
+
+    open.set(false);
+    member.notifyChannelEvent(new ChannelEventImpl(ChannelEventType.CHANNEL_CLOSED_EVENT, channel));
+    sender.join(10000);
+    Assert.assertFalse(sender.isAlive());
+    Assert.assertEquals(1, sent.size());
+
+    // the released message was dropped, not left in the lane for the next drain
+    sent.get(0).getSentCallback().run();
+    Thread.sleep(200);
+    Assert.assertEquals(1, sent.size());
+  }
+
+  private Thread sendInBackground(final TCGroupMemberImpl member) {
+    Thread sender = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        member.sendIgnoreNotReady(data());
+      }
+    });
+    sender.setDaemon(true);
+    sender.start();
+    return sender;
+  }
+
+  private void waitForSent(int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    synchronized (sent) {
+      while (sent.size() < count && System.currentTimeMillis() < deadline) {
+        sent.wait(100);
+      }
+      Assert.assertEquals(count, sent.size());
+    }
+  }
+
+  private static AbstractGroupMessage data() {
+    return mock(AbstractGroupMessage.class);
+  }
+
+  private static AbstractGroupMessage priority() {
+    AbstractGroupMessage msg = mock(AbstractGroupMessage.class);
+    when(msg.isPriority()).thenReturn(true);
+    return msg;
+  }
+}
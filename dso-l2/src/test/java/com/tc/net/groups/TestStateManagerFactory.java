@@ -85,6 +85,11 @@ public class TestStateManagerFactory {
     public int getElectionTimeInSecs() {
       return electionTime;
     }
+
+    @Override
+    public int getGroupSize() {
+      return 0;
+    }
   }
   
   private class LateLoadingEventHandler extends AbstractEventHandler<StateChangedEvent> {
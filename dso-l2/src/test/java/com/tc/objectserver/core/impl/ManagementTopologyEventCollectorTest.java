@@ -18,6 +18,7 @@
  */
 package com.tc.objectserver.core.impl;
 
+import com.tc.async.api.Sink;
 import com.tc.net.TCSocketAddress;
 import com.tc.stats.Client;
 import org.junit.Assert;
@@ -40,6 +41,7 @@ import org.terracotta.monitoring.PlatformConnectedClient;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -234,4 +236,35 @@ public class ManagementTopologyEventCollectorTest {
     verify(monitoringProducer).addNode(any(), any(), argumentCaptor.capture());
     Assert.assertEquals(clientDescriptor, argumentCaptor.getValue().clientDescriptor);
   }
+
+  @Test
+  public void testQueuedFetchReleaseCancels() throws Exception {
+    IMonitoringProducer monitoringProducer = mock(IMonitoringProducer.class);
+    this.collector = new ManagementTopologyEventCollector(selfID, monitoringProducer);
+    @SuppressWarnings("unchecked")
+    Sink<Runnable> sink = mock(Sink.class);
+    this.collector.setUpdateSink(sink);
+    reset(monitoringProducer);
+
+    EntityID entityID = mock(EntityID.class);
+    ClientID client = mock(ClientID.class);
+    ClientID other = mock(ClientID.class);
+    when(other.toLong()).thenReturn(1L);
+    ClientDescriptor clientDescriptor = mock(ClientDescriptor.class);
+    this.collector.clientDidFetchEntity(client, entityID, clientDescriptor);
+    this.collector.clientDidFetchEntity(other, entityID, clientDescriptor);
+    this.collector.clientDidReleaseEntity(client, entityID);
+    
+    // Nothing reaches the tree until the stage runs and it is only scheduled once for the whole batch.
+    verify(monitoringProducer, never()).addNode(any(), any(), any());
+    ArgumentCaptor<Runnable> apply = ArgumentCaptor.forClass(Runnable.class);
+    verify(sink).addSingleThreaded(apply.capture());
+    apply.getValue().run();
+    
+    // The fetch which was released in the same batch never shows up.
+    ArgumentCaptor<String> nameCaptor = ArgumentCaptor.forClass(String.class);
+    verify(monitoringProducer).addNode(any(), nameCaptor.capture(), any());
+    Assert.assertTrue(nameCaptor.getValue().startsWith("1"));
+    verify(monitoringProducer, never()).removeNode(any(), any());
+  }
 }
@@ -19,13 +19,25 @@
 package com.tc.objectserver.entity;
 
 import com.tc.async.api.Sink;
+import com.tc.l2.ha.L2HAZapNodeRequestProcessor;
 import com.tc.l2.msg.ReplicationEnvelope;
 import com.tc.l2.msg.ReplicationMessage;
+import com.tc.net.ClientID;
 import com.tc.net.ServerID;
+import com.tc.net.groups.GroupManager;
+import com.tc.net.groups.GroupMessage;
 import com.tc.net.groups.MessageID;
+import com.tc.object.ClientInstanceID;
+import com.tc.object.EntityDescriptor;
+import com.tc.object.EntityID;
+import com.tc.object.tx.TransactionID;
 import com.tc.objectserver.api.ManagedEntity;
 import com.tc.util.Assert;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import org.junit.After;
@@ -36,6 +48,10 @@ import org.junit.Test;
 import org.mockito.Matchers;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -48,6 +64,9 @@ public class ActiveToPassiveReplicationTest {
   
   ServerID passive;
   private ActiveToPassiveReplication replication;
+  private Iterable<ManagedEntity> entities;
+  private Sink<ReplicationEnvelope> replicate;
+  private GroupManager<?> group;
   
   
   public ActiveToPassiveReplicationTest() {
@@ -64,8 +83,9 @@ public class ActiveToPassiveReplicationTest {
   @Before
   public void setUp() {
     passive = mock(ServerID.class);
-    Iterable<ManagedEntity> entities = mock(Iterable.class);
-    Sink<ReplicationEnvelope> replicate = mock(Sink.class);
+    entities = mock(Iterable.class);
+    replicate = mock(Sink.class);
+    group = mock(GroupManager.class);
     doAnswer(new Answer<Void>() {
       @Override
       public Void answer(InvocationOnMock invocation) throws Throwable {
@@ -73,7 +93,7 @@ public class ActiveToPassiveReplicationTest {
         return null;
       }
     }).when(replicate).addSingleThreaded(Matchers.any());
-    replication = new ActiveToPassiveReplication(Collections.singleton(passive), entities, replicate);
+    replication = new ActiveToPassiveReplication(Collections.singleton(passive), entities, replicate, group);
   }
   
   @Test
@@ -105,6 +125,147 @@ public class ActiveToPassiveReplicationTest {
     Assert.assertTrue(ack.isDone());
   }
   
+  @Test
+  public void testBacklogAppliesBackpressure() throws Exception {
+    replication = new ActiveToPassiveReplication(Collections.singleton(passive), entities, replicate, group, 1, 0, 0, 0, 0);
+    replication.enterActiveState();
+    ReplicationMessage first = mockMessage(1, 10);
+    replication.replicateMessage(first, Collections.singleton(passive));
+    Assert.assertEquals(1, replication.getReplicationLag().get(passive).getMessages());
+    Assert.assertEquals(10L, replication.getReplicationLag().get(passive).getBytes());
+
+    ReplicationMessage second = mockMessage(2, 20);
+    Thread blocked = new Thread(()->replication.replicateMessage(second, Collections.singleton(passive)));
+    blocked.start();
+    blocked.join(100);
+//  the passive has not acknowledged the first message so the second is held back
+    Assert.assertTrue(blocked.isAlive());
+
+    GroupMessage ack = mock(GroupMessage.class);
+    when(ack.inResponseTo()).thenReturn(new MessageID(1));
+    when(ack.messageFrom()).thenReturn(passive);
+    replication.acknowledge(ack);
+    blocked.join();
+    Assert.assertEquals(1, replication.getReplicationLag().get(passive).getMessages());
+    Assert.assertEquals(20L, replication.getReplicationLag().get(passive).getBytes());
+  }
+
+  @Test
+  public void testRejoinReplaysUnacknowledged() throws Exception {
+    List<ReplicationEnvelope> sent = new ArrayList<>();
+    replication = new ActiveToPassiveReplication(Collections.singleton(passive), entities, capturingSink(sent), group, 0, 0, 10, 0, 0);
+    replication.enterActiveState();
+    ReplicationMessage first = invoke(1);
+    replication.replicateMessage(first, Collections.singleton(passive));
+    ReplicationMessage second = invoke(2);
+    replication.replicateMessage(second, Collections.singleton(passive));
+    sent.get(0).release();
+    replication.nodeLeft(passive);
+//  replicated while the passive was gone
+    ReplicationMessage third = invoke(3);
+    replication.replicateMessage(third, Collections.singleton(passive));
+    Assert.assertFalse(replication.passives().contains(passive));
+    sent.clear();
+
+    replication.nodeJoined(passive);
+//  nothing is replayed until the passive has agreed to stand by
+    Assert.assertTrue(sent.isEmpty());
+    replication.standbyAgreed(passive);
+    Assert.assertTrue(replication.passives().contains(passive));
+    Assert.assertEquals(2, sent.size());
+    Assert.assertEquals(second, sent.get(0).getMessage());
+    Assert.assertEquals(third, sent.get(1).getMessage());
+    Assert.assertEquals(2, replication.getReplicationLag().get(passive).getMessages());
+    verify(group, never()).zapNode(Matchers.any(), Matchers.anyInt(), Matchers.anyString());
+  }
+
+  @Test
+  public void testRejoinBeyondLogZaps() throws Exception {
+    List<ReplicationEnvelope> sent = new ArrayList<>();
+    replication = new ActiveToPassiveReplication(Collections.singleton(passive), entities, capturingSink(sent), group, 0, 0, 1, 0, 0);
+    replication.enterActiveState();
+    replication.replicateMessage(invoke(1), Collections.singleton(passive));
+    replication.nodeLeft(passive);
+    replication.replicateMessage(invoke(2), Collections.singleton(passive));
+    sent.clear();
+
+    replication.nodeJoined(passive);
+    replication.standbyAgreed(passive);
+    Assert.assertFalse(replication.passives().contains(passive));
+    Assert.assertTrue(sent.isEmpty());
+    verify(group).zapNode(Matchers.eq(passive), Matchers.eq(L2HAZapNodeRequestProcessor.COMMUNICATION_ERROR), Matchers.anyString());
+  }
+
+  @Test
+  public void testRejoinRefusingStandbyIsNotCaughtUp() throws Exception {
+    List<ReplicationEnvelope> sent = new ArrayList<>();
+    replication = new ActiveToPassiveReplication(Collections.singleton(passive), entities, capturingSink(sent), group, 0, 0, 10, 0, 0);
+    replication.enterActiveState();
+    replication.replicateMessage(invoke(1), Collections.singleton(passive));
+    replication.nodeLeft(passive);
+    replication.replicateMessage(invoke(2), Collections.singleton(passive));
+    sent.clear();
+
+//  the passive elected itself while it was away, the coordinator zaps it rather than reporting it as a standby
+    replication.nodeJoined(passive);
+    Assert.assertFalse(replication.passives().contains(passive));
+    Assert.assertTrue(sent.isEmpty());
+    replication.nodeLeft(passive);
+
+//  whatever joins under that id later is not mistaken for the passive which left
+    replication.nodeJoined(passive);
+    replication.standbyAgreed(passive);
+    Assert.assertFalse(replication.passives().contains(passive));
+    Assert.assertTrue(sent.isEmpty());
+  }
+
+  @Test
+  public void testPassivesJoiningTogetherShareSync() throws Exception {
+    ServerID other = mock(ServerID.class);
+    ManagedEntity entity = mock(ManagedEntity.class);
+    replication = new ActiveToPassiveReplication(Collections.emptySet(), Collections.singletonList(entity), replicate, group, 0, 0, 0, 0, 200);
+    replication.enterActiveState();
+    replication.startPassiveSync(passive);
+    replication.startPassiveSync(other);
+    Assert.assertEquals(2, replication.getSyncProgress().size());
+//  one walk of the entities for both passives
+    verify(entity, timeout(5000)).sync(new HashSet<>(Arrays.asList(passive, other)));
+    verify(entity, times(1)).sync(Matchers.any());
+  }
+
+  /**
+   * releases priming and flushes right away and keeps everything else for the test to release
+   */
+  private static Sink<ReplicationEnvelope> capturingSink(List<ReplicationEnvelope> sent) {
+    Sink<ReplicationEnvelope> sink = mock(Sink.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        ReplicationEnvelope env = (ReplicationEnvelope)invocation.getArguments()[0];
+        if (env.getMessage() == null || env.getMessage().getType() == ReplicationMessage.START) {
+          env.release();
+        } else {
+          sent.add(env);
+        }
+        return null;
+      }
+    }).when(sink).addSingleThreaded(Matchers.any());
+    return sink;
+  }
+
+  private static ReplicationMessage invoke(long tid) {
+    return new ReplicationMessage(new EntityDescriptor(new EntityID("test", "test"), ClientInstanceID.NULL_ID, 1), 
+        new ClientID(1), new TransactionID(tid), new TransactionID(1), ReplicationMessage.ReplicationType.INVOKE_ACTION, new byte[10], 0);
+  }
+
+  private static ReplicationMessage mockMessage(long id, int size) {
+    ReplicationMessage msg = mock(ReplicationMessage.class);
+    when(msg.getMessageID()).thenReturn(new MessageID(id));
+    when(msg.getExtendedData()).thenReturn(new byte[size]);
+    when(msg.target(Matchers.any(), Matchers.any())).thenReturn(mock(ReplicationEnvelope.class));
+    return msg;
+  }
+
   @After
   public void tearDown() {
   }
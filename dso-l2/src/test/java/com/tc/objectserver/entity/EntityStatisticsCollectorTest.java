@@ -0,0 +1,84 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.entity;
+
+import com.tc.object.EntityID;
+import com.tc.objectserver.api.EntityStatistics;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class EntityStatisticsCollectorTest {
+  private final EntityID id = new EntityID("TestClass", "test");
+
+  @Test
+  public void testCountersAccumulate() {
+    EntityStatisticsCollector collector = new EntityStatisticsCollector(true, 4);
+    collector.arrived(1, new byte[10]);
+    collector.arrived(1, new byte[5]);
+    collector.finished(1, 1, 100, 20, 1000);
+    collector.finished(1, 1, 300, 40, 3000);
+    collector.responded(new byte[7]);
+    collector.responded(null);
+
+    EntityStatistics stats = collector.snapshot(id);
+    assertEquals("TestClass", stats.getEntityClass());
+    assertEquals(2, stats.getRequests());
+    assertEquals(15, stats.getBytesIn());
+    assertEquals(7, stats.getBytesOut());
+    assertEquals(400, stats.getQueueNanos());
+    assertEquals(60, stats.getReplicationNanos());
+    assertEquals(4000, stats.getExecutionNanos());
+    assertEquals(1, stats.getHotKeys().size());
+    assertEquals(2, stats.getHotKeys().get(0).getRequests());
+    assertEquals(4000, stats.getHotKeys().get(0).getExecutionNanos());
+  }
+
+  @Test
+  public void testHotKeysSurviveEviction() {
+    EntityStatisticsCollector collector = new EntityStatisticsCollector(true, 4);
+    for (int x = 0; x < 1000; x++) {
+      // key 7 takes half the traffic, the rest is spread over many more keys than are tracked
+      collector.arrived(7, null);
+      collector.finished(7, 1, 0, 0, 10);
+      collector.arrived(100 + (x % 50), null);
+      collector.finished(100 + (x % 50), 1, 0, 0, 1);
+    }
+    List<EntityStatistics.KeyStatistics> hot = collector.snapshot(id).getHotKeys();
+    assertEquals(4, hot.size());
+    assertEquals(7, hot.get(0).getKey());
+    assertEquals(1000, hot.get(0).getRequests() - hot.get(0).getError());
+    // count-min only ever over-estimates
+    assertTrue(hot.get(0).getExecutionNanos() >= 10000);
+    for (int x = 1; x < hot.size(); x++) {
+      assertTrue(hot.get(x - 1).getRequests() >= hot.get(x).getRequests());
+    }
+  }
+
+  @Test
+  public void testDisabled() {
+    EntityStatisticsCollector collector = new EntityStatisticsCollector(false, 4);
+    collector.arrived(1, new byte[10]);
+    collector.finished(1, 1, 1, 1, 1);
+    assertNull(collector.snapshot(id));
+  }
+}
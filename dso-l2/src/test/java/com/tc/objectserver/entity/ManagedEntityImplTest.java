@@ -38,10 +38,13 @@ import com.tc.net.NodeID;
 import com.tc.object.ClientInstanceID;
 import com.tc.object.EntityDescriptor;
 import com.tc.object.EntityID;
+import com.tc.objectserver.api.BatchedInvokeServerEntity;
 import com.tc.objectserver.api.ServerEntityAction;
 import com.tc.objectserver.api.ServerEntityRequest;
 import com.tc.objectserver.core.api.ITopologyEventCollector;
 import com.tc.objectserver.core.api.ServerConfigurationContext;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.services.InternalServiceRegistry;
 import com.tc.util.Assert;
 
@@ -49,8 +52,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CyclicBarrier;
 import java.util.function.BiConsumer;
@@ -65,6 +70,7 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.terracotta.entity.ConcurrencyStrategy;
@@ -142,6 +148,48 @@ public class ManagedEntityImplTest {
     verify(request).complete();
   }
 
+  @Test
+  public void testPromoteHotStandby() throws Exception {
+    TCPropertiesImpl.getProperties().setProperty(TCPropertiesConsts.ENTITY_HOT_STANDBY_ENABLED, "true");
+    try {
+      List<Runnable> builds = new ArrayList<>();
+      ManagedEntityImpl standby = new ManagedEntityImpl(entityID, version, loopback, serviceRegistry, clientEntityStateManager, eventCollector, requestMulti, serverEntityService, false, builds::add);
+      byte[] arg = mockCreatePayload("foo");
+      standby.addLifecycleRequest(mockCreateEntityRequest(), arg);
+      // the active instance is built in the background while still passive
+      Assert.assertEquals(1, builds.size());
+      builds.remove(0).run();
+      verify(serverEntityService).createActiveEntity(Matchers.eq(serviceRegistry), Matchers.eq(arg));
+      verify(activeServerEntity, never()).loadExisting();
+      standby.addLifecycleRequest(mockPromoteToActiveRequest(), null);
+      // promotion uses the standby instead of building another one
+      verify(serverEntityService, times(1)).createActiveEntity(Matchers.eq(serviceRegistry), Matchers.eq(arg));
+      verify(activeServerEntity).loadExisting();
+    } finally {
+      TCPropertiesImpl.getProperties().setProperty(TCPropertiesConsts.ENTITY_HOT_STANDBY_ENABLED, "false");
+    }
+  }
+
+  @Test
+  public void testDestroyDropsHotStandby() throws Exception {
+    TCPropertiesImpl.getProperties().setProperty(TCPropertiesConsts.ENTITY_HOT_STANDBY_ENABLED, "true");
+    try {
+      List<Runnable> builds = new ArrayList<>();
+      ManagedEntityImpl standby = new ManagedEntityImpl(entityID, version, loopback, serviceRegistry, clientEntityStateManager, eventCollector, requestMulti, serverEntityService, false, builds::add);
+      byte[] arg = mockCreatePayload("foo");
+      standby.addLifecycleRequest(mockCreateEntityRequest(), arg);
+      builds.remove(0).run();
+      Thread.currentThread().setName(ServerConfigurationContext.VOLTRON_MESSAGE_STAGE);
+      standby.addLifecycleRequest(mockRequestForAction(ServerEntityAction.DESTROY_ENTITY), null);
+      verify(passiveServerEntity).destroy();
+      // the standby was never created or loaded, destroying it could wipe state the entity's services still hold
+      verify(activeServerEntity, never()).destroy();
+      verify(activeServerEntity, never()).loadExisting();
+    } finally {
+      TCPropertiesImpl.getProperties().setProperty(TCPropertiesConsts.ENTITY_HOT_STANDBY_ENABLED, "false");
+    }
+  }
+
   @Test
   public void testCreatePassive() throws Exception {
     String config = "foo";
@@ -485,6 +533,205 @@ public class ManagedEntityImplTest {
     verify(invokeRequest).failure(any(EntityUserException.class));
   }
 
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testBatchedInvoke() throws Exception {
+    byte[] payload = { 0 };
+    byte[] returnValue = { 1 };
+    ActiveServerEntity<EntityMessage, EntityResponse> batchingEntity = mock(ActiveServerEntity.class, withSettings().extraInterfaces(BatchedInvokeServerEntity.class));
+    BatchedInvokeServerEntity<EntityMessage, EntityResponse> batching = (BatchedInvokeServerEntity<EntityMessage, EntityResponse>)batchingEntity;
+    when(batching.isBatchable(any(EntityMessage.class))).thenReturn(true);
+    when(batching.invokeBatch(any(List.class), any(List.class))).then((InvocationOnMock invocation) -> {
+      List<EntityResponse> responses = new ArrayList<>();
+      for (Object o : (List<?>)invocation.getArguments()[1]) {
+        responses.add(new EntityResponse() {});
+      }
+      return responses;
+    });
+    serverEntityService = getServerEntityService(batchingEntity, this.passiveServerEntity);
+    when(serverEntityService.getMessageCodec()).thenReturn(new MessageCodec<EntityMessage, EntityResponse>(){
+      @Override
+      public byte[] encodeResponse(EntityResponse response) {
+        return returnValue;
+      }
+      
+      @Override
+      public EntityMessage decodeMessage(byte[] payload) {
+        return new EntityMessage() {};
+      }
+
+      @Override
+      public byte[] encodeMessage(EntityMessage message) throws MessageCodecException {
+        return new byte[0];
+      }
+
+      @Override
+      public EntityResponse decodeResponse(byte[] payload) throws MessageCodecException {
+        return new EntityResponse() {};
+      }
+    });
+    managedEntity = new ManagedEntityImpl(entityID, version, loopback, serviceRegistry, clientEntityStateManager, eventCollector, requestMulti, serverEntityService, true);
+    Thread.currentThread().setName(ServerConfigurationContext.VOLTRON_MESSAGE_STAGE);
+    managedEntity.addLifecycleRequest(mockCreateEntityRequest(), null);
+    
+    // hold everything in the "queue" so consecutive invokes can be gathered
+    Deque<Runnable> queued = new LinkedList<>();
+    Mockito.doAnswer((Answer<Object>) (invocation) -> {
+      queued.add((Runnable)invocation.getArguments()[3]);
+      return null;
+    }).when(requestMulti).scheduleRequest(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyInt());
+    
+    ServerEntityRequest first = mockInvokeRequest();
+    ServerEntityRequest second = mockInvokeRequest();
+    ServerEntityRequest third = mockInvokeRequest();
+    managedEntity.addInvokeRequest(first, payload, 1);
+    managedEntity.addInvokeRequest(second, payload, 1);
+    managedEntity.addInvokeRequest(third, payload, 1);
+    Assert.assertEquals(1, queued.size());
+    
+    while (!queued.isEmpty()) {
+      queued.pop().run();
+    }
+    
+    verify(batching).invokeBatch(any(List.class), any(List.class));
+    verify(batchingEntity, never()).invoke(any(ClientDescriptor.class), any(EntityMessage.class));
+    verify(first).complete(returnValue);
+    verify(second).complete(returnValue);
+    verify(third).complete(returnValue);
+    
+    // once the batch has started, the next invoke on the key starts a new one
+    ServerEntityRequest fourth = mockInvokeRequest();
+    managedEntity.addInvokeRequest(fourth, payload, 1);
+    Assert.assertEquals(1, queued.size());
+    when(batchingEntity.invoke(eq(clientDescriptor), any(EntityMessage.class))).thenReturn(new EntityResponse() {});
+    queued.pop().run();
+    verify(batchingEntity).invoke(eq(clientDescriptor), any(EntityMessage.class));
+    verify(fourth).complete(returnValue);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testBatchedInvokeThrowsFailsEveryRequest() throws Exception {
+    List<ServerEntityRequest> requests = runBatch((InvocationOnMock invocation) -> {
+      throw new RuntimeException("entity failed");
+    });
+    for (ServerEntityRequest request : requests) {
+      verify(request, never()).complete(any(byte[].class));
+      verify(request).failure(any(EntityUserException.class));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testBatchedInvokeShortResponsesFailsEveryRequest() throws Exception {
+    List<ServerEntityRequest> requests = runBatch((InvocationOnMock invocation) -> {
+      List<EntityResponse> responses = new ArrayList<>();
+      responses.add(new EntityResponse() {});
+      return responses;
+    });
+    for (ServerEntityRequest request : requests) {
+      verify(request, never()).complete(any(byte[].class));
+      verify(request).failure(any(EntityUserException.class));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testBatchedResponseEncodeFailureAbortsTheBatch() throws Exception {
+    EntityResponse bad = new EntityResponse() {};
+    MessageCodec<EntityMessage, EntityResponse> codec = mock(MessageCodec.class);
+    when(codec.decodeMessage(any(byte[].class))).thenReturn(new EntityMessage() {});
+    when(codec.encodeResponse(any(EntityResponse.class))).thenReturn(new byte[] { 1 });
+    when(codec.encodeResponse(bad)).thenThrow(new MessageCodecException("bad response", null));
+    List<ServerEntityRequest> requests = runBatch((InvocationOnMock invocation) -> {
+      List<EntityResponse> responses = new ArrayList<>();
+      responses.add(new EntityResponse() {});
+      responses.add(bad);
+      responses.add(new EntityResponse() {});
+      return responses;
+    }, codec);
+    verify(requests.get(0)).complete(any(byte[].class));
+    verify(requests.get(0), never()).failure(any(EntityUserException.class));
+    for (ServerEntityRequest request : requests.subList(1, 3)) {
+      verify(request, never()).complete(any(byte[].class));
+      verify(request).failure(any(EntityUserException.class));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<ServerEntityRequest> runBatch(Answer<Object> batchAnswer) throws Exception {
+    MessageCodec<EntityMessage, EntityResponse> codec = mock(MessageCodec.class);
+    when(codec.decodeMessage(any(byte[].class))).thenReturn(new EntityMessage() {});
+    when(codec.encodeResponse(any(EntityResponse.class))).thenReturn(new byte[] { 1 });
+    return runBatch(batchAnswer, codec);
+  }
+
+  /**
+   * Queues three batchable invokes on one key, answers invokeBatch with the given answer and runs the batch.
+   */
+  @SuppressWarnings("unchecked")
+  private List<ServerEntityRequest> runBatch(Answer<Object> batchAnswer, MessageCodec<EntityMessage, EntityResponse> codec) throws Exception {
+    ActiveServerEntity<EntityMessage, EntityResponse> batchingEntity = mock(ActiveServerEntity.class, withSettings().extraInterfaces(BatchedInvokeServerEntity.class));
+    BatchedInvokeServerEntity<EntityMessage, EntityResponse> batching = (BatchedInvokeServerEntity<EntityMessage, EntityResponse>)batchingEntity;
+    when(batching.isBatchable(any(EntityMessage.class))).thenReturn(true);
+    when(batching.invokeBatch(any(List.class), any(List.class))).then(batchAnswer);
+    serverEntityService = getServerEntityService(batchingEntity, this.passiveServerEntity);
+    when(serverEntityService.getMessageCodec()).thenReturn(codec);
+    managedEntity = new ManagedEntityImpl(entityID, version, loopback, serviceRegistry, clientEntityStateManager, eventCollector, requestMulti, serverEntityService, true);
+    Thread.currentThread().setName(ServerConfigurationContext.VOLTRON_MESSAGE_STAGE);
+    managedEntity.addLifecycleRequest(mockCreateEntityRequest(), null);
+
+    Deque<Runnable> queued = new LinkedList<>();
+    Mockito.doAnswer((Answer<Object>) (invocation) -> {
+      queued.add((Runnable)invocation.getArguments()[3]);
+      return null;
+    }).when(requestMulti).scheduleRequest(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyInt());
+
+    List<ServerEntityRequest> requests = new ArrayList<>();
+    for (int x = 0; x < 3; x++) {
+      ServerEntityRequest request = mockInvokeRequest();
+      requests.add(request);
+      managedEntity.addInvokeRequest(request, new byte[] { 0 }, 1);
+    }
+    Assert.assertEquals(1, queued.size());
+    try {
+      queued.pop().run();
+      Assert.fail("a failed batch is reported to the request processor like a failed invoke");
+    } catch (RuntimeException expected) {
+      // expected
+    }
+    verify(batching).invokeBatch(any(List.class), any(List.class));
+    return requests;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testPassiveDecodesOnKeyThread() throws Exception {
+    MessageCodec<EntityMessage, EntityResponse> codec = mock(MessageCodec.class);
+    EntityMessage message = mock(EntityMessage.class);
+    when(codec.decodeMessage(any(byte[].class))).thenReturn(message);
+    when(serverEntityService.getMessageCodec()).thenReturn(codec);
+    managedEntity = new ManagedEntityImpl(entityID, version, loopback, serviceRegistry, clientEntityStateManager, eventCollector, requestMulti, serverEntityService, false);
+    managedEntity.addLifecycleRequest(mockCreateEntityRequest(), null);
+
+    Deque<Runnable> queued = new LinkedList<>();
+    Mockito.doAnswer((Answer<Object>) (invocation) -> {
+      queued.add((Runnable)invocation.getArguments()[3]);
+      return null;
+    }).when(requestMulti).scheduleRequest(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyInt());
+
+    ServerEntityRequest invokeRequest = mockInvokeRequest();
+    managedEntity.addInvokeRequest(invokeRequest, new byte[] {0}, 5);
+    // scheduled on the key the active ran it on without decoding on the replication stage
+    verify(requestMulti).scheduleRequest(any(), eq(invokeRequest), any(), any(), eq(5));
+    verify(codec, never()).decodeMessage(any(byte[].class));
+
+    queued.pop().run();
+    verify(codec).decodeMessage(any(byte[].class));
+    verify(passiveServerEntity).invoke(message);
+    verify(invokeRequest).complete();
+  }
+
   @Test
   public void testGetAndRelease() throws Exception {
     
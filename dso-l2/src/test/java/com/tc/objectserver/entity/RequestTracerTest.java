@@ -0,0 +1,69 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.entity;
+
+import com.tc.entity.RequestTrace;
+import com.tc.entity.RequestTrace.Point;
+import com.tc.objectserver.entity.RequestTracer.Hop;
+import com.tc.stats.LatencyHistogram;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+
+public class RequestTracerTest {
+
+  @Test
+  public void testHopsAreOnlyRecordedWhenBothEndsAreMarked() {
+    RequestTracer tracer = new RequestTracer();
+    RequestTrace trace = tracer.start(1);
+    long start = System.nanoTime();
+    trace.mark(Point.HYDRATED, start);
+    trace.mark(Point.ORDERED, start + 1000);
+    trace.mark(Point.DEQUEUED, start + 3000);
+    trace.mark(Point.READY, start + 3000);
+    trace.finish();
+    // a second finish must not count the request twice
+    trace.finish();
+
+    Map<Hop, LatencyHistogram.Snapshot> latencies = tracer.getHopLatencies();
+    assertEquals(1, latencies.get(Hop.VOLTRON_QUEUE).getCount());
+    assertEquals(1000, latencies.get(Hop.VOLTRON_QUEUE).getMean());
+    assertEquals(2000, latencies.get(Hop.PROCESSOR_QUEUE).getMean());
+    assertEquals(1, latencies.get(Hop.EXECUTION).getCount());
+    assertEquals(1, latencies.get(Hop.TOTAL).getCount());
+    assertEquals(0, latencies.get(Hop.REPLICATION_ROUND_TRIP).getCount());
+    assertEquals(0, latencies.get(Hop.PASSIVE_APPLY).getCount());
+
+    tracer.reset();
+    assertEquals(0, tracer.getHopLatencies().get(Hop.TOTAL).getCount());
+  }
+
+  @Test
+  public void testPassiveTrace() {
+    RequestTracer tracer = new RequestTracer();
+    RequestTrace trace = tracer.start(2);
+    trace.mark(Point.PASSIVE_RECEIVED);
+    trace.finish();
+
+    Map<Hop, LatencyHistogram.Snapshot> latencies = tracer.getHopLatencies();
+    assertEquals(1, latencies.get(Hop.PASSIVE_APPLY).getCount());
+    assertEquals(0, latencies.get(Hop.TOTAL).getCount());
+  }
+}
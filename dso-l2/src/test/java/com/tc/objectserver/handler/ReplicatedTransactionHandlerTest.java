@@ -52,6 +52,7 @@ import com.tc.objectserver.api.ServerEntityRequest;
 import com.tc.objectserver.core.api.ITopologyEventCollector;
 import com.tc.objectserver.entity.ClientEntityStateManager;
 import com.tc.objectserver.entity.PlatformEntity;
+import com.tc.objectserver.entity.RequestTracer;
 import com.tc.objectserver.persistence.EntityPersistor;
 import com.tc.objectserver.persistence.TransactionOrderPersistor;
 import com.tc.services.TerracottaServiceProviderRegistry;
@@ -94,7 +95,7 @@ public class ReplicatedTransactionHandlerTest {
     this.entityManager = mock(EntityManager.class);
     this.groupManager = mock(GroupManager.class);
     when(entityManager.getEntity(Matchers.eq(PlatformEntity.PLATFORM_ID), Matchers.eq(PlatformEntity.VERSION))).thenReturn(Optional.of(mock(ManagedEntity.class)));
-    this.rth = new ReplicatedTransactionHandler(stateManager, this.transactionOrderPersistor, this.entityManager, this.entityPersistor, this.groupManager);
+    this.rth = new ReplicatedTransactionHandler(stateManager, this.transactionOrderPersistor, this.entityManager, this.entityPersistor, this.groupManager, new RequestTracer());
     this.source = mock(ClientID.class);
     
     MessageChannel messageChannel = mock(MessageChannel.class);
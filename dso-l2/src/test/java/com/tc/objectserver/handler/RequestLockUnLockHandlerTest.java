@@ -0,0 +1,96 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.handler;
+
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.tc.async.api.Sink;
+import com.tc.async.api.Stage;
+import com.tc.net.ClientID;
+import com.tc.object.locks.BatchedLockRequest;
+import com.tc.object.locks.LongLockID;
+import com.tc.object.locks.ServerLockLevel;
+import com.tc.object.locks.ThreadID;
+import com.tc.object.msg.LockRequestMessage;
+import com.tc.object.msg.LockRequestMessage.RequestType;
+import com.tc.objectserver.core.api.ServerConfigurationContext;
+import com.tc.objectserver.locks.LockManager;
+import com.tc.objectserver.locks.StripedLockRequestContext;
+import com.tc.util.Assert;
+
+import java.util.LinkedList;
+import java.util.List;
+
+
+public class RequestLockUnLockHandlerTest {
+  private RequestLockUnLockHandler handler;
+  private Sink<StripedLockRequestContext> processSink;
+
+  @SuppressWarnings("unchecked")
+  @Before
+  public void setUp() throws Exception {
+    LockManager lockManager = mock(LockManager.class);
+    when(lockManager.getStripe(new LongLockID(1))).thenReturn(1);
+    when(lockManager.getStripe(new LongLockID(2))).thenReturn(2);
+    this.processSink = mock(Sink.class);
+    Stage<StripedLockRequestContext> stage = mock(Stage.class);
+    when(stage.getSink()).thenReturn(this.processSink);
+    ServerConfigurationContext context = mock(ServerConfigurationContext.class);
+    when(context.getLockManager()).thenReturn(lockManager);
+    when(context.getStage(eq(ServerConfigurationContext.PROCESS_LOCK_REQUEST_STAGE), eq(StripedLockRequestContext.class))).thenReturn(stage);
+    this.handler = new RequestLockUnLockHandler();
+    this.handler.initialize(context);
+  }
+
+  @Test
+  public void testBatchIsSplitByStripeInOrder() throws Exception {
+    ClientID client = new ClientID(1);
+    LinkedList<BatchedLockRequest> batch = new LinkedList<>();
+    batch.add(new BatchedLockRequest(RequestType.LOCK, new LongLockID(1), new ThreadID(1), ServerLockLevel.WRITE, -1));
+    batch.add(new BatchedLockRequest(RequestType.LOCK, new LongLockID(2), new ThreadID(1), ServerLockLevel.READ, -1));
+    batch.add(new BatchedLockRequest(RequestType.UNLOCK, new LongLockID(1), new ThreadID(1), null, -1));
+    LockRequestMessage message = mock(LockRequestMessage.class);
+    when(message.getSourceNodeID()).thenReturn(client);
+    when(message.getRequestType()).thenReturn(RequestType.BATCHED_REQUEST);
+    when(message.getBatchedLockRequests()).thenReturn(batch);
+
+    this.handler.handleEvent(message);
+
+    ArgumentCaptor<StripedLockRequestContext> captor = ArgumentCaptor.forClass(StripedLockRequestContext.class);
+    verify(this.processSink, times(3)).addMultiThreaded(captor.capture());
+    List<StripedLockRequestContext> queued = captor.getAllValues();
+    Assert.assertEquals(RequestType.LOCK, queued.get(0).getRequestType());
+    Assert.assertEquals(1, queued.get(0).getSchedulingKey());
+    Assert.assertEquals(RequestType.LOCK, queued.get(1).getRequestType());
+    Assert.assertEquals(2, queued.get(1).getSchedulingKey());
+    Assert.assertEquals(RequestType.UNLOCK, queued.get(2).getRequestType());
+    Assert.assertEquals(1, queued.get(2).getSchedulingKey());
+    for (StripedLockRequestContext request : queued) {
+      Assert.assertEquals(client, request.getClientID());
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.handler;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+
+import com.tc.net.ClientID;
+import com.tc.net.NodeID;
+import com.tc.net.protocol.tcm.TCMessageType;
+import com.tc.object.locks.LongLockID;
+import com.tc.object.locks.ServerLockLevel;
+import com.tc.object.locks.ThreadID;
+import com.tc.object.msg.LockResponseMessage;
+import com.tc.objectserver.locks.LockResponseContext;
+import com.tc.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+public class RespondToRequestLockHandlerTest {
+  private final ClientID client = new ClientID(1);
+
+  @Test
+  public void testNoWindowSendsEachResponse() throws Exception {
+    CapturingHandler handler = new CapturingHandler(0);
+    handler.handleEvent(award(1));
+    handler.handleEvent(award(2));
+    Assert.assertEquals(2, handler.sent.size());
+    verify(handler.sent.get(0)).initializeAward(new LongLockID(1), new ThreadID(1), ServerLockLevel.WRITE);
+  }
+
+  @Test
+  public void testHeldUntilQueueDrains() throws Exception {
+    CapturingHandler handler = new CapturingHandler(TimeUnit.MINUTES.toMillis(1));
+    handler.handleEvent(award(1));
+    handler.handleEvent(award(2));
+    Assert.assertTrue(handler.sent.isEmpty());
+    handler.queueDrained();
+    Assert.assertEquals(1, handler.sent.size());
+    verify(handler.sent.get(0)).initializeBatch();
+  }
+
+  @Test
+  public void testWindowFlushesWithoutDrain() throws Exception {
+    CapturingHandler handler = new CapturingHandler(10);
+    handler.handleEvent(award(1));
+    Assert.assertTrue(handler.sent.isEmpty());
+    TimeUnit.MILLISECONDS.sleep(20);
+//  the queue never drained but the first response has waited out the window
+    handler.handleEvent(award(2));
+    Assert.assertEquals(1, handler.sent.size());
+    verify(handler.sent.get(0)).initializeBatch();
+    handler.queueDrained();
+    Assert.assertEquals(1, handler.sent.size());
+  }
+
+  private LockResponseContext award(long lock) {
+    return new LockResponseContext(new LongLockID(lock), client, new ThreadID(lock), ServerLockLevel.WRITE,
+                                   LockResponseContext.LOCK_AWARD);
+  }
+
+  private static class CapturingHandler extends RespondToRequestLockHandler {
+    private final List<LockResponseMessage> sent = new ArrayList<LockResponseMessage>();
+
+    CapturingHandler(long batchWindow) {
+      super(batchWindow);
+    }
+
+    @Override
+    protected LockResponseMessage createMessage(NodeID cid, TCMessageType messageType) {
+      return mock(LockResponseMessage.class);
+    }
+
+    @Override
+    protected void send(LockResponseMessage responseMessage) {
+      sent.add(responseMessage);
+    }
+  }
+}
@@ -35,17 +35,24 @@ import com.tc.objectserver.api.EntityManager;
 import com.tc.objectserver.entity.NoopEntityMessage;
 import com.tc.objectserver.handler.ProcessTransactionHandler;
 import com.tc.objectserver.locks.LockManager;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.Timer;
+import java.util.TimerTask;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -157,6 +164,45 @@ public class ServerClientHandshakeManagerTest {
     verify(this.voltronSink).addSingleThreaded(any(NoopEntityMessage.class));
   }
 
+  @Test
+  public void testChunkedResends() throws Exception {
+    ClientID client1 = new ClientID(1);
+    ConnectionID connection1 = mock(ConnectionID.class);
+    when(connection1.getChannelID()).thenReturn(1L);
+    when(this.channelManager.getClientIDFor(new ChannelID(1))).thenReturn(client1);
+    this.manager.setStarting(Collections.singleton(connection1));
+    this.manager.startReconnectWindow();
+
+    // The handshake says more resends follow so the client is not reconnected yet.
+    ClientHandshakeMessage handshake = mock(ClientHandshakeMessage.class);
+    when(handshake.getSourceNodeID()).thenReturn(client1);
+    when(handshake.hasMoreResends()).thenReturn(true);
+    this.manager.notifyClientConnect(handshake);
+    assertTrue(this.manager.isStarting());
+
+    ResendVoltronEntityMessage first = mock(ResendVoltronEntityMessage.class);
+    ClientHandshakeMessage chunk1 = mock(ClientHandshakeMessage.class);
+    when(chunk1.getSourceNodeID()).thenReturn(client1);
+    when(chunk1.isResendChunk()).thenReturn(true);
+    when(chunk1.hasMoreResends()).thenReturn(true);
+    when(chunk1.getResendMessages()).thenReturn(Collections.singleton(first));
+    this.manager.notifyClientResends(chunk1);
+    verify(this.transactionHandler).handleResentMessage(first);
+    assertTrue(this.manager.isStarting());
+    verify(this.lockManager, never()).start();
+
+    // The last chunk completes the reconnect.
+    ResendVoltronEntityMessage second = mock(ResendVoltronEntityMessage.class);
+    ClientHandshakeMessage chunk2 = mock(ClientHandshakeMessage.class);
+    when(chunk2.getSourceNodeID()).thenReturn(client1);
+    when(chunk2.isResendChunk()).thenReturn(true);
+    when(chunk2.getResendMessages()).thenReturn(Collections.singleton(second));
+    this.manager.notifyClientResends(chunk2);
+    verify(this.transactionHandler).handleResentMessage(second);
+    assertTrue(this.manager.isStarted());
+    verify(this.lockManager).start();
+  }
+
   @Test
   public void testFailedReconnects() throws Exception {
     ClientID client1 = new ClientID(1);
@@ -170,4 +216,44 @@ public class ServerClientHandshakeManagerTest {
     this.manager.notifyTimeout();
     assertTrue(this.manager.getUnconnectedClients().isEmpty());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testAdaptiveReconnectWindow() throws Exception {
+    TCPropertiesImpl.getProperties().setProperty(TCPropertiesConsts.L2_RECONNECT_WINDOW_ADAPTIVE_ENABLED, "true");
+    TCPropertiesImpl.getProperties().setProperty(TCPropertiesConsts.L2_RECONNECT_WINDOW_ADAPTIVE_MIN, "0");
+    try {
+      Timer timer = mock(Timer.class);
+      long reconnectTimeout = 10000;
+      ServerClientHandshakeManager adaptive = new ServerClientHandshakeManager(mock(TCLogger.class), this.channelManager, this.lockManager, mock(EntityManager.class), this.transactionHandler, voltronStage, timer, reconnectTimeout, true, mock(TCLogger.class));
+      Set<ConnectionID> existingConnections = new HashSet<>();
+      for (int i = 1; i <= 10; i++) {
+        ConnectionID connection = mock(ConnectionID.class);
+        when(connection.getChannelID()).thenReturn((long) i);
+        when(this.channelManager.getClientIDFor(new ChannelID(i))).thenReturn(new ClientID(i));
+        existingConnections.add(connection);
+      }
+      adaptive.setStarting(existingConnections);
+      adaptive.startReconnectWindow();
+      verify(timer).schedule(any(TimerTask.class), eq(reconnectTimeout));
+
+      // the window is left alone until the quorum is back
+      for (int i = 1; i <= 8; i++) {
+        ClientHandshakeMessage message = mock(ClientHandshakeMessage.class);
+        when(message.getSourceNodeID()).thenReturn(new ClientID(i));
+        adaptive.notifyClientConnect(message);
+      }
+      verify(timer, times(1)).schedule(any(TimerTask.class), anyLong());
+
+      // 90% of the clients are back quickly so the last one gets a much shorter window
+      ClientHandshakeMessage message = mock(ClientHandshakeMessage.class);
+      when(message.getSourceNodeID()).thenReturn(new ClientID(9));
+      adaptive.notifyClientConnect(message);
+      verify(timer, times(2)).schedule(any(TimerTask.class), anyLong());
+      assertTrue(adaptive.isStarting());
+      assertEquals(1, adaptive.getUnconnectedClientsSize());
+    } finally {
+      TCPropertiesImpl.getProperties().setProperty(TCPropertiesConsts.L2_RECONNECT_WINDOW_ADAPTIVE_ENABLED, "false");
+      TCPropertiesImpl.getProperties().setProperty(TCPropertiesConsts.L2_RECONNECT_WINDOW_ADAPTIVE_MIN, "5000");
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.impl;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class FlightRecorderTest {
+  @Test
+  public void testRingKeepsNewestSamples() throws Exception {
+    FlightRecorder recorder = new FlightRecorder(1000, 3, 0);
+    recorder.addProbe(new FlightRecorder.Probe() {
+      private long count;
+
+      @Override
+      public void sample(FlightRecorder.Sample sample) {
+        sample.record("count", ++count);
+      }
+    });
+    for (int x = 0; x < 5; x++) {
+      recorder.sample();
+    }
+    List<FlightRecorder.Sample> samples = recorder.getSamples();
+    assertEquals(3, samples.size());
+    assertEquals(3L, (long) samples.get(0).getValues().get("count"));
+    assertEquals(5L, (long) samples.get(2).getValues().get("count"));
+    assertTrue(recorder.dump().contains("count=5"));
+  }
+
+  @Test
+  public void testFailingProbeDoesNotStopRecording() throws Exception {
+    FlightRecorder recorder = new FlightRecorder(1000, 3, 0);
+    recorder.addProbe(new FlightRecorder.Probe() {
+      @Override
+      public void sample(FlightRecorder.Sample sample) {
+        throw new IllegalStateException();
+      }
+    });
+    recorder.addProbe(new FlightRecorder.Probe() {
+      @Override
+      public void sample(FlightRecorder.Sample sample) {
+        sample.record("value", 1);
+      }
+    });
+    recorder.sample();
+    assertEquals(1L, (long) recorder.getSamples().get(0).getValues().get("value"));
+  }
+
+  @Test
+  public void testStallDumpsOncePerRing() throws Exception {
+    FlightRecorder recorder = new FlightRecorder(1000, 3, 0);
+    recorder.addProbe(new FlightRecorder.Probe() {
+      @Override
+      public void sample(FlightRecorder.Sample sample) {
+        sample.stalled("stuck");
+      }
+    });
+    recorder.sample();
+    recorder.sample();
+    assertEquals(1, recorder.getAutoDumpCount());
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.locks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.tc.async.api.Sink;
+import com.tc.net.ClientID;
+import com.tc.object.locks.LockID;
+import com.tc.object.locks.LongLockID;
+import com.tc.object.locks.ServerLockLevel;
+import com.tc.object.locks.ThreadID;
+import com.tc.object.net.DSOChannelManager;
+import com.tc.util.concurrent.Timer;
+import com.tc.util.concurrent.TimerWheel;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+
+public class LockManagerImplTest {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testTimeoutDoesNotWaitForTheLockStoreSegment() throws Exception {
+    final CountDownLatch holding = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    Sink<LockResponseContext> lockSink = mock(Sink.class);
+    Sink<StripedLockRequestContext> timeoutSink = mock(Sink.class);
+    DSOChannelManager channelManager = mock(DSOChannelManager.class);
+    when(channelManager.isActiveID(any(ClientID.class))).thenReturn(true);
+
+    final LockManagerImpl manager = new LockManagerImpl(lockSink, timeoutSink, channelManager);
+    manager.start();
+
+    final LockID lid = new LongLockID(1);
+    long other = 2;
+    while (manager.getStripe(new LongLockID(other)) != manager.getStripe(lid)) {
+      other++;
+    }
+    final LockID sameSegment = new LongLockID(other);
+
+    manager.lock(lid, new ClientID(1), new ThreadID(1), ServerLockLevel.WRITE);
+    manager.tryLock(lid, new ClientID(2), new ThreadID(1), ServerLockLevel.WRITE, 50);
+
+    // the response for the next grant is held up while its segment is checked out
+    doAnswer(invocation -> {
+      holding.countDown();
+      release.await();
+      return null;
+    }).when(lockSink).addMultiThreaded(any(LockResponseContext.class));
+    Thread holder = new Thread(() -> manager.lock(sameSegment, new ClientID(3), new ThreadID(1), ServerLockLevel.WRITE));
+    holder.setDaemon(true);
+    holder.start();
+    assertTrue(holding.await(10, TimeUnit.SECONDS));
+
+    try {
+      // the try lock timeout still comes due and is handed to the lock stage
+      ArgumentCaptor<StripedLockRequestContext> captor = ArgumentCaptor.forClass(StripedLockRequestContext.class);
+      verify(timeoutSink, timeout(10000)).addMultiThreaded(captor.capture());
+      assertEquals(lid, captor.getValue().getTimerContext().getLockID());
+      assertEquals(manager.getStripe(lid), captor.getValue().getSchedulingKey());
+
+      // and so do the other users of the timer thread
+      final CountDownLatch fired = new CountDownLatch(1);
+      Timer timer = TimerWheel.shared().newTimer("LockManagerImplTest");
+      timer.schedule(() -> fired.countDown(), 20, TimeUnit.MILLISECONDS);
+      assertTrue(fired.await(10, TimeUnit.SECONDS));
+      timer.cancel();
+    } finally {
+      release.countDown();
+      holder.join(10000);
+    }
+  }
+}
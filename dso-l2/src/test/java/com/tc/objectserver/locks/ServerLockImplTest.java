@@ -0,0 +1,64 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.locks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.junit.Test;
+
+import com.tc.async.api.Sink;
+import com.tc.net.ClientID;
+import com.tc.object.locks.ClientServerExchangeLockContext;
+import com.tc.object.locks.ServerLockLevel;
+import com.tc.object.locks.StringLockID;
+import com.tc.object.locks.ThreadID;
+import com.tc.objectserver.locks.factory.ServerLockFactoryImpl;
+import com.tc.objectserver.locks.timer.TimerCallback;
+import com.tc.stats.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+
+public class ServerLockImplTest {
+  @SuppressWarnings("unchecked")
+  private final LockHelper helper = new LockHelper(mock(Sink.class), new LockStore(new ServerLockFactoryImpl()),
+                                                   mock(TimerCallback.class));
+
+  @Test
+  public void testGrantWaitIsRecordedForQueuedRequests() throws Exception {
+    ServerLockImpl lock = new ServerLockImpl(new StringLockID("lock"));
+    ClientID first = new ClientID(1);
+    ClientID second = new ClientID(2);
+
+    lock.lock(first, new ThreadID(1), ServerLockLevel.WRITE, helper);
+    // granted straight away on an empty lock
+    assertEquals(0, helper.getGrantWaitLatency().getCount());
+
+    lock.lock(second, new ThreadID(1), ServerLockLevel.WRITE, helper);
+    Thread.sleep(20);
+    lock.recallCommit(first, Collections.<ClientServerExchangeLockContext>emptyList(), helper);
+
+    LatencyHistogram.Snapshot wait = helper.getGrantWaitLatency();
+    assertEquals(1, wait.getCount());
+    assertTrue(wait.getMax() >= TimeUnit.MILLISECONDS.toNanos(20));
+  }
+}
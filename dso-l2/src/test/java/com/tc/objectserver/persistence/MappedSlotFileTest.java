@@ -0,0 +1,127 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.persistence;
+
+import com.tc.test.TCTestCase;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+
+public class MappedSlotFileTest extends TCTestCase {
+  public void testValuesSurviveReopen() throws Exception {
+    File file = getTempFile("slots");
+    MappedSlotFile slots = new MappedSlotFile(file, 2);
+    assertTrue(slots.isNew());
+    slots.put(1, 10);
+    slots.put(2, 20);
+    slots.put(1, 11);
+    slots.close();
+
+    slots = new MappedSlotFile(file, 2);
+    assertFalse(slots.isNew());
+    assertEquals(Long.valueOf(11), slots.get(1));
+    assertEquals(Long.valueOf(20), slots.get(2));
+    slots.close();
+  }
+
+  public void testGrowsAndReusesSlots() throws Exception {
+    File file = getTempFile("growing-slots");
+    MappedSlotFile slots = new MappedSlotFile(file, 1);
+    for (long key = 1; key <= 100; key++) {
+      slots.put(key, key * 2);
+    }
+    assertTrue(slots.remove(50));
+    assertFalse(slots.remove(50));
+    slots.put(101, 202);
+    slots.close();
+
+    slots = new MappedSlotFile(file, 1);
+    assertEquals(100, slots.keys().size());
+    assertFalse(slots.contains(50));
+    assertEquals(Long.valueOf(202), slots.get(101));
+    assertEquals(Long.valueOf(198), slots.get(99));
+    slots.clear();
+    assertTrue(slots.keys().isEmpty());
+    slots.close();
+  }
+
+  public void testSequenceContinuesFromMappedValue() throws Exception {
+    FlatFilePersistentStorage storage = new FlatFilePersistentStorage(getTempFile("store"));
+    storage.create();
+    MappedSlotFile slots = new MappedSlotFile(storage.getCompanionFile("sequences"), 4);
+    SequenceManager manager = new SequenceManager(storage, slots);
+    assertEquals(0, manager.getSequence("test").nextBatch(10));
+    slots.close();
+
+    slots = new MappedSlotFile(storage.getCompanionFile("sequences"), 4);
+    manager = new SequenceManager(storage, slots);
+    assertEquals(10, manager.getSequence("test").next());
+    slots.close();
+  }
+
+  public void testInterruptedGrowKeepsTheFileUsable() throws Exception {
+    File file = getTempFile("grown-slots");
+    MappedSlotFile slots = new MappedSlotFile(file, 2);
+    slots.put(1, 10);
+    slots.close();
+    // the file was extended but the header still counts the old slots
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    raf.setLength(raf.length() + 2 * 16);
+    raf.close();
+
+    slots = new MappedSlotFile(file, 2);
+    assertFalse(slots.isNew());
+    assertEquals(Long.valueOf(10), slots.get(1));
+    for (long key = 2; key <= 4; key++) {
+      slots.put(key, key);
+    }
+    slots.close();
+
+    slots = new MappedSlotFile(file, 2);
+    assertEquals(4, slots.keys().size());
+    slots.close();
+  }
+
+  public void testInterruptedCreateStartsOver() throws Exception {
+    File file = getTempFile("unfinished-slots");
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    raf.setLength(16 + 4 * 16);
+    raf.close();
+
+    MappedSlotFile slots = new MappedSlotFile(file, 4);
+    assertTrue(slots.isNew());
+    slots.put(1, 10);
+    slots.close();
+  }
+
+  public void testSequenceMovesBackToTheStorage() throws Exception {
+    FlatFilePersistentStorage storage = new FlatFilePersistentStorage(getTempFile("restored-store"));
+    storage.create();
+    MappedSlotFile slots = new MappedSlotFile(storage.getCompanionFile("sequences"), 4);
+    assertEquals(0, new SequenceManager(storage, slots).getSequence("test").nextBatch(10));
+    slots.close();
+
+    slots = new MappedSlotFile(storage.getCompanionFile("sequences"), 4);
+    SequenceManager manager = new SequenceManager(storage, null);
+    manager.restoreFrom(slots);
+    slots.close();
+    assertEquals(10, manager.getSequence("test").next());
+  }
+}
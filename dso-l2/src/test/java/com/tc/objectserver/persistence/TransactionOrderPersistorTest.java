@@ -341,4 +341,32 @@ public class TransactionOrderPersistorTest extends TCTestCase {
       }
     }
   }
+
+  /**
+   * Test that positions looked up for replay follow changes made after an earlier lookup.
+   */
+  public void testReplayIndexFollowsUpdates() {
+    TransactionID oldest = new TransactionID(0);
+    for (int i = 1; i < 10; ++i) {
+      TransactionID transaction = new TransactionID(i);
+      this.orderPersistor.updateWithNewMessage(this.client1, transaction, oldest);
+      this.orderPersistor.updateWithNewMessage(this.client2, transaction, oldest);
+    }
+    assertEquals(1, this.orderPersistor.getIndexToReplay(this.client2, new TransactionID(1)));
+    assertEquals(-1, this.orderPersistor.getIndexToReplay(this.client1, new TransactionID(10)));
+    
+    // Disconnecting client1 moves client2 to the front.
+    this.orderPersistor.removeTrackingForClient(this.client1);
+    assertEquals(0, this.orderPersistor.getIndexToReplay(this.client2, new TransactionID(1)));
+    assertEquals(-1, this.orderPersistor.getIndexToReplay(this.client1, new TransactionID(1)));
+    
+    // New transactions are found, and ones the client no longer cares about are gone.
+    this.orderPersistor.updateWithNewMessage(this.client2, new TransactionID(10), new TransactionID(5));
+    assertEquals(-1, this.orderPersistor.getIndexToReplay(this.client2, new TransactionID(4)));
+    assertEquals(0, this.orderPersistor.getIndexToReplay(this.client2, new TransactionID(5)));
+    assertEquals(5, this.orderPersistor.getIndexToReplay(this.client2, new TransactionID(10)));
+    
+    this.orderPersistor.clearAllRecords();
+    assertEquals(-1, this.orderPersistor.getIndexToReplay(this.client2, new TransactionID(10)));
+  }
 }
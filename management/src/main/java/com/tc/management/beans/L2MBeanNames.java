@@ -36,6 +36,9 @@ public class L2MBeanNames {
   public static final ObjectName DUMPER;
   public static final ObjectName SERVER_DB_BACKUP;
   public static final ObjectName ENTERPRISE_TC_SERVER;
+  public static final ObjectName STAGE_STATS;
+  public static final ObjectName REQUEST_TRACING;
+  public static final ObjectName FLIGHT_RECORDER;
 
   static {
     try {
@@ -46,6 +49,9 @@ public class L2MBeanNames {
       DUMPER = TerracottaManagement.createObjectName(Type.Server, Subsystem.None, null, "L2Dumper", TerracottaManagement.MBeanDomain.INTERNAL);
       SERVER_DB_BACKUP = TerracottaManagement.createObjectName(Type.Server, Subsystem.None, null, "Terracotta Server Backup", TerracottaManagement.MBeanDomain.INTERNAL);
       ENTERPRISE_TC_SERVER = TerracottaManagement.createObjectName(Type.Server, Subsystem.None, null, "Enterprise Terracotta Server", TerracottaManagement.MBeanDomain.INTERNAL);
+      STAGE_STATS = TerracottaManagement.createObjectName(Type.Server, Subsystem.None, null, "Stage Statistics", TerracottaManagement.MBeanDomain.INTERNAL);
+      REQUEST_TRACING = TerracottaManagement.createObjectName(Type.Server, Subsystem.None, null, "Request Tracing", TerracottaManagement.MBeanDomain.INTERNAL);
+      FLIGHT_RECORDER = TerracottaManagement.createObjectName(Type.Server, Subsystem.None, null, "Flight Recorder", TerracottaManagement.MBeanDomain.INTERNAL);
     } catch (MalformedObjectNameException mone) {
       throw new RuntimeException(mone);
     } catch (NullPointerException npe) {
@@ -34,4 +34,19 @@ public interface NetworkVoltronEntityMessage extends VoltronEntityMessage, TCMes
    * Initializes the contents of the message.
    */
   public void setContents(ClientID clientID, TransactionID transactionID, EntityDescriptor entityDescriptor, Type type, boolean requiresReplication, byte[] extendedData, TransactionID oldestTransactionPending);
+
+  /**
+   * Marks the message as sampled for tracing.  See {@link RequestTrace}.
+   */
+  public void setTraceID(long traceID);
+
+  /**
+   * @return the trace ID set by the client, 0 if the message is not traced
+   */
+  public long getTraceID();
+
+  /**
+   * @return {@link System#nanoTime()} when a traced message was hydrated, 0 if it is not traced
+   */
+  public long getHydrateTime();
 }
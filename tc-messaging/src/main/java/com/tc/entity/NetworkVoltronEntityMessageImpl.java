@@ -43,6 +43,8 @@ public class NetworkVoltronEntityMessageImpl extends DSOMessageBase implements N
   private boolean requiresReplication;
   private byte[] extendedData;
   private TransactionID oldestTransactionPending;
+  private long traceID;
+  private long hydrateTime;
 
   @Override
   public ClientID getSource() {
@@ -83,6 +85,21 @@ public class NetworkVoltronEntityMessageImpl extends DSOMessageBase implements N
     return this.oldestTransactionPending;
   }
 
+  @Override
+  public void setTraceID(long traceID) {
+    this.traceID = traceID;
+  }
+
+  @Override
+  public long getTraceID() {
+    return this.traceID;
+  }
+
+  @Override
+  public long getHydrateTime() {
+    return this.hydrateTime;
+  }
+
   @Override
   public void setContents(ClientID clientID, TransactionID transactionID, EntityDescriptor entityDescriptor, Type type, boolean requiresReplication, byte[] extendedData, TransactionID oldestTransactionPending) {
     // Make sure that this wasn't called twice.
@@ -133,6 +150,8 @@ public class NetworkVoltronEntityMessageImpl extends DSOMessageBase implements N
     outputStream.writeBoolean(requiresReplication);
     
     outputStream.writeLong(this.oldestTransactionPending.toLong());
+
+    outputStream.writeLong(this.traceID);
   }
   
   @Override
@@ -149,6 +168,10 @@ public class NetworkVoltronEntityMessageImpl extends DSOMessageBase implements N
     this.extendedData = getBytesArray();
     this.requiresReplication = getBooleanValue();
     this.oldestTransactionPending = new TransactionID(getLongValue());
+    this.traceID = getLongValue();
+    if (this.traceID != 0) {
+      this.hydrateTime = System.nanoTime();
+    }
     return true;
   }
 }
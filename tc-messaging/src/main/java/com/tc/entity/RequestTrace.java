@@ -0,0 +1,118 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.entity;
+
+/**
+ * Timestamps of one sampled request as it moves through the server.  Traces are only created for requests the client
+ * stamped with a trace ID so the cost of tracing is limited to the sampled requests.
+ * <p>
+ * All times are {@link System#nanoTime()} of the server which made the mark, so a trace never mixes clocks of different
+ * processes.  Each point is marked at most once, the first mark wins.
+ */
+public class RequestTrace {
+  public enum Point {
+    /** the message was hydrated off the network */
+    HYDRATED,
+    /** the voltron message stage ordered the request */
+    ORDERED,
+    /** the replication message was handed to the group channel */
+    REPLICATION_SENT,
+    /** the request processor stage picked up the request */
+    DEQUEUED,
+    /** all passives acknowledged the request, or none needed to */
+    READY,
+    /** the passive replication stage picked up the replicated request */
+    PASSIVE_RECEIVED,
+    /** the response was sent */
+    APPLIED
+  }
+
+  public interface Listener {
+    void finished(RequestTrace trace);
+  }
+
+  private final long     id;
+  private final Listener listener;
+  private final long[]   times = new long[Point.values().length];
+  private boolean        finished;
+
+  public RequestTrace(long id, Listener listener) {
+    this.id = id;
+    this.listener = listener;
+  }
+
+  public long getID() {
+    return id;
+  }
+
+  public void mark(Point point) {
+    mark(point, System.nanoTime());
+  }
+
+  public synchronized void mark(Point point, long nanos) {
+    if (times[point.ordinal()] == 0) {
+      times[point.ordinal()] = nanos;
+    }
+  }
+
+  /**
+   * @return the time the point was marked, 0 if it was not
+   */
+  public synchronized long getTime(Point point) {
+    return times[point.ordinal()];
+  }
+
+  /**
+   * Marks {@link Point#APPLIED} and hands the trace to the listener, only the first call has any effect.
+   */
+  public void finish() {
+    synchronized (this) {
+      if (finished) { return; }
+      finished = true;
+      mark(Point.APPLIED);
+    }
+    listener.finished(this);
+  }
+
+  @Override
+  public synchronized String toString() {
+    long start = 0;
+    for (long time : times) {
+      if (time != 0 && (start == 0 || time - start < 0)) {
+        start = time;
+      }
+    }
+    StringBuilder sb = new StringBuilder("RequestTrace{id=").append(Long.toHexString(id));
+    for (Point point : Point.values()) {
+      long time = times[point.ordinal()];
+      if (time != 0) {
+        sb.append(", ").append(point).append("=+").append((time - start) / 1000).append("us");
+      }
+    }
+    return sb.append('}').toString();
+  }
+
+  /**
+   * Trace IDs are chosen by the client: the client ID in the upper half and the transaction in the lower half, so the
+   * ID of a request can be computed from what the client logs.
+   */
+  public static long traceID(long clientID, long transactionID) {
+    return (clientID << 32) | (transactionID & 0xFFFFFFFFL);
+  }
+}
@@ -70,6 +70,12 @@ public class L2StateMessage extends AbstractGroupMessage {
     return enrollment;
   }
 
+  @Override
+  public boolean isPriority() {
+//  elections and zaps must never wait behind replication or sync data
+    return true;
+  }
+
   @Override
   public String toString() {
     return "L2StateMessage [ " + messageFrom() + ", type = " + getTypeString() + ", " + enrollment + "]";
@@ -19,6 +19,7 @@
 package com.tc.l2.msg;
 
 import com.tc.async.api.OrderedEventContext;
+import com.tc.entity.RequestTrace;
 import com.tc.io.TCByteBufferInput;
 import com.tc.io.TCByteBufferOutput;
 import com.tc.net.ClientID;
@@ -71,6 +72,11 @@ public class ReplicationMessage extends AbstractGroupMessage implements OrderedE
   int concurrency;
   
   long rid = 0;
+  long traceID = 0;
+  // position in the active's replication log, 0 if the message was not logged
+  long logIndex = 0;
+  // local to the sending server, only the ID goes over the wire
+  RequestTrace trace;
   
   public ReplicationMessage() {
     super(START);
@@ -120,6 +126,38 @@ public class ReplicationMessage extends AbstractGroupMessage implements OrderedE
     this.rid = rid;
   }
 
+  public void setLogIndex(long logIndex) {
+    this.logIndex = logIndex;
+  }
+
+  /**
+   * @return the position of this message in the replication log of the active which sent it, 0 if it was not logged.
+   * Positions only grow for a given active so a passive can recognize a message it already applied when the active
+   * resends it.
+   */
+  public long getLogIndex() {
+    return logIndex;
+  }
+
+  public void setTrace(RequestTrace trace) {
+    this.trace = trace;
+    this.traceID = trace.getID();
+  }
+
+  /**
+   * @return the trace of a sampled request on the server which created this message, null elsewhere
+   */
+  public RequestTrace getTrace() {
+    return trace;
+  }
+
+  /**
+   * @return the trace ID of a sampled request, 0 if the request is not traced
+   */
+  public long getTraceID() {
+    return traceID;
+  }
+
   @Override
   public long getSequenceID() {
     return rid;
@@ -181,6 +219,8 @@ public class ReplicationMessage extends AbstractGroupMessage implements OrderedE
       this.payload = new byte[length];
       in.readFully(this.payload);
       this.concurrency = in.readInt();
+      this.traceID = in.readLong();
+      this.logIndex = in.readLong();
     } else {
       this.rid = in.readLong();
     }
@@ -208,6 +248,8 @@ public class ReplicationMessage extends AbstractGroupMessage implements OrderedE
         out.writeInt(0);
       }
       out.writeInt(concurrency);
+      out.writeLong(traceID);
+      out.writeLong(logIndex);
     }
   }
 
@@ -48,4 +48,10 @@ public class ReplicationMessageAck extends ReplicationMessage {
   protected void basicSerializeTo(TCByteBufferOutput out) {
 
   }
+
+  @Override
+  public boolean isPriority() {
+//  the active holds client requests until these arrive
+    return true;
+  }
 }
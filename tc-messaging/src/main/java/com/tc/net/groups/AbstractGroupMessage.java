@@ -76,6 +76,14 @@ public abstract class AbstractGroupMessage implements GroupMessage {
     return true;
   }
 
+  /**
+   * Priority messages are sent ahead of data already queued for the same server.  Only messages whose handling does
+   * not depend on the order they arrive in relative to other messages should return true.
+   */
+  public boolean isPriority() {
+    return false;
+  }
+
   private static final synchronized MessageID getNextID() {
     return new MessageID(nextID++);
   }
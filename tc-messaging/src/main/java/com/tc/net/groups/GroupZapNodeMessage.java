@@ -66,6 +66,12 @@ public class GroupZapNodeMessage extends AbstractGroupMessage {
     }
   }
 
+  @Override
+  public boolean isPriority() {
+//  elections and zaps must never wait behind replication or sync data
+    return true;
+  }
+
   @Override
   public String toString() {
     return "GroupZapNodeMessage [ " + zapNodeType + " , " + reason + " , weights = " + toString(weights) + " ]";
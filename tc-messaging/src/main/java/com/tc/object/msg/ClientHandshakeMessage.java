@@ -59,4 +59,18 @@ public interface ClientHandshakeMessage extends TCMessage {
   void addResendMessage(ResendVoltronEntityMessage message);
 
   Collection<ResendVoltronEntityMessage> getResendMessages();
+
+  /**
+   * @param moreResends true if further messages carrying only resends follow this one on the same channel
+   */
+  void setMoreResends(boolean moreResends);
+
+  boolean hasMoreResends();
+
+  /**
+   * Marks this message as a continuation of the handshake which carries nothing but resends.
+   */
+  void setResendChunk(boolean resendChunk);
+
+  boolean isResendChunk();
 }
@@ -47,6 +47,8 @@ public class ClientHandshakeMessageImpl extends DSOMessageBase implements Client
   private static final byte   CLIENT_PID               = 7;
   private static final byte   CLIENT_UUID              = 8;
   private static final byte   CLIENT_NAME              = 9;
+  private static final byte   MORE_RESENDS             = 10;
+  private static final byte   RESEND_CHUNK             = 11;
 
   private final Set<ClientServerExchangeLockContext> lockContexts             = new HashSet<ClientServerExchangeLockContext>();
   private long                currentLocalTimeMills    = System.currentTimeMillis();
@@ -55,6 +57,8 @@ public class ClientHandshakeMessageImpl extends DSOMessageBase implements Client
   private String              name                     = "";
   private String              clientVersion            = "UNKNOWN";
   private int                 pid                      = -1;
+  private boolean             moreResends              = false;
+  private boolean             resendChunk              = false;
   private final Set<ClientEntityReferenceContext> reconnectReferences = new HashSet<ClientEntityReferenceContext>();
   private final Set<ResendVoltronEntityMessage> resendMessages = new TreeSet<ResendVoltronEntityMessage>(new Comparator<ResendVoltronEntityMessage>() {
     @Override
@@ -155,6 +159,8 @@ public class ClientHandshakeMessageImpl extends DSOMessageBase implements Client
     for (final ResendVoltronEntityMessage resendMessage : this.resendMessages) {
       putNVPair(RESEND_MESSAGES, resendMessage);
     }
+    putNVPair(MORE_RESENDS, this.moreResends);
+    putNVPair(RESEND_CHUNK, this.resendChunk);
   }
 
   @Override
@@ -187,6 +193,12 @@ public class ClientHandshakeMessageImpl extends DSOMessageBase implements Client
       case CLIENT_NAME:
         this.name = getStringValue();
         return true;
+      case MORE_RESENDS:
+        this.moreResends = getBooleanValue();
+        return true;
+      case RESEND_CHUNK:
+        this.resendChunk = getBooleanValue();
+        return true;
       default:
         return false;
     }
@@ -213,4 +225,24 @@ public class ClientHandshakeMessageImpl extends DSOMessageBase implements Client
   public Collection<ResendVoltronEntityMessage> getResendMessages() {
     return this.resendMessages;
   }
+
+  @Override
+  public void setMoreResends(boolean moreResends) {
+    this.moreResends = moreResends;
+  }
+
+  @Override
+  public boolean hasMoreResends() {
+    return this.moreResends;
+  }
+
+  @Override
+  public void setResendChunk(boolean resendChunk) {
+    this.resendChunk = resendChunk;
+  }
+
+  @Override
+  public boolean isResendChunk() {
+    return this.resendChunk;
+  }
 }
@@ -25,6 +25,7 @@ import com.tc.net.protocol.tcm.MessageChannel;
 import com.tc.net.protocol.tcm.MessageMonitor;
 import com.tc.net.protocol.tcm.TCMessageHeader;
 import com.tc.net.protocol.tcm.TCMessageType;
+import com.tc.object.locks.BatchedLockRequest;
 import com.tc.object.locks.ClientServerExchangeLockContext;
 import com.tc.object.locks.LockID;
 import com.tc.object.locks.RecallBatchContext;
@@ -56,14 +57,16 @@ public class LockRequestMessage extends DSOMessageBase implements MultiThreadedE
   private final static byte WAIT_MILLIS            = 5;
   private final static byte CONTEXT                = 6;
   private final static byte BATCHED_RECALL_CONTEXT = 7;
+  private final static byte BATCHED_REQUEST        = 8;
 
   // request types
   public static enum RequestType {
-    LOCK, UNLOCK, WAIT, RECALL_COMMIT, QUERY, TRY_LOCK, INTERRUPT_WAIT, BATCHED_RECALL_COMMIT;
+    LOCK, UNLOCK, WAIT, RECALL_COMMIT, QUERY, TRY_LOCK, INTERRUPT_WAIT, BATCHED_RECALL_COMMIT, BATCHED_REQUEST;
   }
 
   private final Set<ClientServerExchangeLockContext> contexts        = new LinkedHashSet<ClientServerExchangeLockContext>();
   private final LinkedList<RecallBatchContext>       recallContexts  = new LinkedList<RecallBatchContext>();
+  private final LinkedList<BatchedLockRequest>       batchedRequests = new LinkedList<BatchedLockRequest>();
 
   private LockID                                     lockID          = null;
   private ServerLockLevel                            lockLevel       = null;
@@ -128,6 +131,11 @@ public class LockRequestMessage extends DSOMessageBase implements MultiThreadedE
           putNVPair(BATCHED_RECALL_CONTEXT, batchContext);
         }
         break;
+      case BATCHED_REQUEST:
+        for (BatchedLockRequest request : batchedRequests) {
+          putNVPair(BATCHED_REQUEST, request);
+        }
+        break;
       default:
         throw new AssertionError("unexpected type: " + requestType);
     }
@@ -149,6 +157,9 @@ public class LockRequestMessage extends DSOMessageBase implements MultiThreadedE
     if (recallContexts.size() > 0) {
       rv.append("RecallCommits contexts size = ").append(recallContexts.size()).append('\n');
     }
+    if (batchedRequests.size() > 0) {
+      rv.append("Batched requests size = ").append(batchedRequests.size()).append('\n');
+    }
 
     return rv.toString();
   }
@@ -186,6 +197,9 @@ public class LockRequestMessage extends DSOMessageBase implements MultiThreadedE
       case BATCHED_RECALL_CONTEXT:
         recallContexts.add(getObject(new RecallBatchContext()));
         return true;
+      case BATCHED_REQUEST:
+        batchedRequests.add(getObject(new BatchedLockRequest()));
+        return true;
       default:
         return false;
     }
@@ -215,6 +229,10 @@ public class LockRequestMessage extends DSOMessageBase implements MultiThreadedE
     this.recallContexts.add(recallBatchContext);
   }
 
+  public void addBatchedLockRequest(BatchedLockRequest request) {
+    this.batchedRequests.add(request);
+  }
+
   public Collection<ClientServerExchangeLockContext> getContexts() {
     return contexts;
   }
@@ -223,6 +241,10 @@ public class LockRequestMessage extends DSOMessageBase implements MultiThreadedE
     return recallContexts;
   }
 
+  public LinkedList<BatchedLockRequest> getBatchedLockRequests() {
+    return batchedRequests;
+  }
+
   public long getTimeout() {
     return waitMillis;
   }
@@ -259,6 +281,10 @@ public class LockRequestMessage extends DSOMessageBase implements MultiThreadedE
     initialize(null, ThreadID.VM_ID, null, RequestType.BATCHED_RECALL_COMMIT, -1);
   }
 
+  public void initializeBatchedRequest() {
+    initialize(null, ThreadID.VM_ID, null, RequestType.BATCHED_REQUEST, -1);
+  }
+
   private void initialize(LockID lid, ThreadID id, ServerLockLevel level, RequestType reqType, long millis) {
     this.lockID = lid;
     this.lockLevel = level;
@@ -38,6 +38,7 @@ import com.tc.object.tx.TransactionID;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
 
@@ -62,6 +63,7 @@ public class NetworkVoltronEntityMessageImplTest {
     byte[] extendedData = new byte[1];
     TransactionID oldestTransactionPending = new TransactionID(1);
     message.setContents(clientID, transactionID, entityDescriptor, messageType, requiresReplication, extendedData, oldestTransactionPending);
+    message.setTraceID(RequestTrace.traceID(clientID.toLong(), transactionID.toLong()));
     message.dehydrate();
     
     TCMessageHeader header = (TCMessageHeader) message.getHeader();
@@ -74,5 +76,7 @@ public class NetworkVoltronEntityMessageImplTest {
     assertEquals(entityDescriptor, decodingMessage.getEntityDescriptor());
     assertEquals(messageType, decodingMessage.getVoltronType());
     assertEquals(oldestTransactionPending, decodingMessage.getOldestTransactionOnClient());
+    assertEquals((1L << 32) | 2, decodingMessage.getTraceID());
+    assertTrue(decodingMessage.getHydrateTime() != 0);
   }
 }
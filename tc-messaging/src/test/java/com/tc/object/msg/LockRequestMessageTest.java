@@ -0,0 +1,95 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.object.msg;
+
+import com.tc.io.TCByteBufferOutputStream;
+import com.tc.net.protocol.tcm.MessageMonitor;
+import com.tc.net.protocol.tcm.TCMessageHeader;
+import com.tc.net.protocol.tcm.TCMessageType;
+import com.tc.object.locks.BatchedLockRequest;
+import com.tc.object.locks.BatchedLockResponse;
+import com.tc.object.locks.LongLockID;
+import com.tc.object.locks.ServerLockLevel;
+import com.tc.object.locks.StringLockID;
+import com.tc.object.locks.ThreadID;
+import com.tc.object.session.SessionID;
+import java.util.Iterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+
+
+public class LockRequestMessageTest {
+  @Test
+  public void testBatchedRequests() throws Exception {
+    LockRequestMessage msg = new LockRequestMessage(new SessionID(0), mock(MessageMonitor.class),
+                                                    new TCByteBufferOutputStream(4, 4096, false), null,
+                                                    TCMessageType.LOCK_REQUEST_MESSAGE);
+    msg.initializeBatchedRequest();
+    new BatchedLockRequest(LockRequestMessage.RequestType.LOCK, new LongLockID(1), new ThreadID(1), ServerLockLevel.WRITE, -1).addToMessage(msg);
+    new BatchedLockRequest(LockRequestMessage.RequestType.TRY_LOCK, new StringLockID("two"), new ThreadID(2), ServerLockLevel.READ, 500).addToMessage(msg);
+    new BatchedLockRequest(LockRequestMessage.RequestType.QUERY, new LongLockID(1), new ThreadID(3), null, -1).addToMessage(msg);
+    msg.dehydrate();
+
+    LockRequestMessage msg2 = new LockRequestMessage(SessionID.NULL_ID, mock(MessageMonitor.class), null,
+                                                     (TCMessageHeader) msg.getHeader(), msg.getPayload());
+    msg2.hydrate();
+    Assert.assertEquals(LockRequestMessage.RequestType.BATCHED_REQUEST, msg2.getRequestType());
+    Assert.assertEquals(3, msg2.getBatchedLockRequests().size());
+    Iterator<BatchedLockRequest> requests = msg2.getBatchedLockRequests().iterator();
+    BatchedLockRequest lock = requests.next();
+    Assert.assertEquals(LockRequestMessage.RequestType.LOCK, lock.getRequestType());
+    Assert.assertEquals(new LongLockID(1), lock.getLockID());
+    Assert.assertEquals(new ThreadID(1), lock.getThreadID());
+    Assert.assertEquals(ServerLockLevel.WRITE, lock.getLockLevel());
+    BatchedLockRequest tryLock = requests.next();
+    Assert.assertEquals(LockRequestMessage.RequestType.TRY_LOCK, tryLock.getRequestType());
+    Assert.assertEquals(new StringLockID("two"), tryLock.getLockID());
+    Assert.assertEquals(500, tryLock.getTimeout());
+    BatchedLockRequest query = requests.next();
+    Assert.assertEquals(LockRequestMessage.RequestType.QUERY, query.getRequestType());
+    Assert.assertNull(query.getLockLevel());
+  }
+
+  @Test
+  public void testBatchedResponses() throws Exception {
+    LockResponseMessage msg = new LockResponseMessage(new SessionID(0), mock(MessageMonitor.class),
+                                                      new TCByteBufferOutputStream(4, 4096, false), null,
+                                                      TCMessageType.LOCK_RESPONSE_MESSAGE);
+    msg.initializeBatch();
+    new BatchedLockResponse(LockResponseMessage.ResponseType.AWARD, new LongLockID(1), new ThreadID(1), ServerLockLevel.WRITE, 0).addToMessage(msg);
+    new BatchedLockResponse(LockResponseMessage.ResponseType.RECALL_WITH_TIMEOUT, new LongLockID(2), ThreadID.VM_ID, ServerLockLevel.READ, 50).addToMessage(msg);
+    msg.dehydrate();
+
+    LockResponseMessage msg2 = new LockResponseMessage(SessionID.NULL_ID, mock(MessageMonitor.class), null,
+                                                       (TCMessageHeader) msg.getHeader(), msg.getPayload());
+    msg2.hydrate();
+    Assert.assertEquals(LockResponseMessage.ResponseType.BATCH, msg2.getResponseType());
+    Iterator<BatchedLockResponse> responses = msg2.getBatchedLockResponses().iterator();
+    BatchedLockResponse award = responses.next();
+    Assert.assertEquals(LockResponseMessage.ResponseType.AWARD, award.getResponseType());
+    Assert.assertEquals(new ThreadID(1), award.getThreadID());
+    BatchedLockResponse recall = responses.next();
+    Assert.assertEquals(LockResponseMessage.ResponseType.RECALL_WITH_TIMEOUT, recall.getResponseType());
+    Assert.assertEquals(new LongLockID(2), recall.getLockID());
+    Assert.assertEquals(50, recall.getAwardLeaseTime());
+    Assert.assertFalse(responses.hasNext());
+  }
+}